@@ -0,0 +1,246 @@
+package edu.ucsb.cs156.example.collections;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch for estimating the number of distinct strings added to
+ * it, in at most SIZE bytes, with a standard error of about 3%.  Two
+ * sketches can be merged into one that estimates the size of the union.
+ *
+ * Most sketches only ever see a few strings, so a new sketch is sparse: it
+ * keeps just the registers that are set, two bytes each, sorted by index.
+ * Once more than SPARSE_MAX are set it switches to the dense array of SIZE
+ * registers.  Either way the registers, and so the estimates, are the same.
+ *
+ * A sketch can be stored as bytes: the dense registers, or the sparse
+ * entries, whose length is even and at most 2 * SPARSE_MAX.  Not thread safe.
+ */
+public class HyperLogLog {
+
+  // 2^P registers
+  private static final int P = 10;
+  public static final int SIZE = 1 << P;
+  public static final double STANDARD_ERROR = 1.04 / Math.sqrt(SIZE);
+
+  /** Most registers a sparse sketch sets; past this it is no smaller than a dense one */
+  static final int SPARSE_MAX = SIZE / 4;
+
+  private static final double ALPHA = 0.7213 / (1 + 1.079 / SIZE);
+
+  // a sparse entry is index << RANK_BITS | rank; ranks are at most MAX_RANK
+  private static final int RANK_BITS = 6;
+  private static final int MAX_RANK = 64 - P + 1;
+
+  // the dense registers, or null while the sketch is sparse
+  private byte[] registers;
+
+  // while sparse, the first count entries, sorted by index
+  private short[] entries;
+  private int count;
+
+  public HyperLogLog() {
+    this.entries = new short[8];
+  }
+
+  public static HyperLogLog fromBytes(byte[] bytes) {
+    if (bytes == null) {
+      throw new IllegalArgumentException("no sketch to read");
+    }
+    HyperLogLog h = new HyperLogLog();
+    if (bytes.length == SIZE) {
+      h.registers = bytes.clone();
+      h.entries = null;
+      return h;
+    }
+    if (bytes.length % 2 != 0 || bytes.length > 2 * SPARSE_MAX) {
+      throw new IllegalArgumentException("a sketch has " + SIZE + " registers or at most " + SPARSE_MAX + " entries");
+    }
+    h.entries = new short[Math.max(bytes.length / 2, 8)];
+    int previous = -1;
+    for (int i = 0; i < bytes.length; i += 2) {
+      short entry = (short) ((bytes[i] & 0xff) << 8 | (bytes[i + 1] & 0xff));
+      if (index(entry) <= previous || rank(entry) < 1 || rank(entry) > MAX_RANK) {
+        throw new IllegalArgumentException("sparse entries must be sorted, with ranks from 1 to " + MAX_RANK);
+      }
+      previous = index(entry);
+      h.entries[h.count++] = entry;
+    }
+    return h;
+  }
+
+  public byte[] toBytes() {
+    if (registers != null) {
+      return registers.clone();
+    }
+    byte[] bytes = new byte[2 * count];
+    for (int i = 0; i < count; i++) {
+      bytes[2 * i] = (byte) (entries[i] >>> 8);
+      bytes[2 * i + 1] = (byte) entries[i];
+    }
+    return bytes;
+  }
+
+  boolean isSparse() {
+    return registers == null;
+  }
+
+  public void add(String value) {
+    long hash = hash(value);
+    int index = (int) (hash >>> (64 - P));
+    // position of the first 1 bit in the remaining bits, at most MAX_RANK
+    int rank = Long.numberOfLeadingZeros((hash << P) | (1L << (P - 1))) + 1;
+    set(index, rank);
+  }
+
+  /** Adds everything that was added to the other sketch */
+  public void merge(HyperLogLog other) {
+    if (other.registers == null) {
+      for (int i = 0; i < other.count; i++) {
+        set(index(other.entries[i]), rank(other.entries[i]));
+      }
+      return;
+    }
+    toDense();
+    for (int i = 0; i < SIZE; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  public long estimate() {
+    double sum = 0;
+    int zeros = 0;
+    if (registers == null) {
+      zeros = SIZE - count;
+      sum = zeros;
+      for (int i = 0; i < count; i++) {
+        sum += Math.scalb(1.0, -rank(entries[i]));
+      }
+    } else {
+      for (byte r : registers) {
+        sum += Math.scalb(1.0, -r);
+        if (r == 0) {
+          zeros++;
+        }
+      }
+    }
+    double estimate = ALPHA * SIZE * SIZE / sum;
+    if (estimate <= 2.5 * SIZE && zeros > 0) {
+      // linear counting is more accurate for small cardinalities
+      estimate = SIZE * Math.log((double) SIZE / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  private void set(int index, int rank) {
+    if (registers != null) {
+      if (rank > registers[index]) {
+        registers[index] = (byte) rank;
+      }
+      return;
+    }
+    int i = find(index);
+    if (i >= 0) {
+      if (rank > rank(entries[i])) {
+        entries[i] = entry(index, rank);
+      }
+      return;
+    }
+    if (count == SPARSE_MAX) {
+      toDense();
+      registers[index] = (byte) rank;
+      return;
+    }
+    if (count == entries.length) {
+      entries = Arrays.copyOf(entries, Math.min(2 * count, SPARSE_MAX));
+    }
+    i = -i - 1;
+    System.arraycopy(entries, i, entries, i + 1, count - i);
+    entries[i] = entry(index, rank);
+    count++;
+  }
+
+  /** @return the position of the entry for index, or -(insertion point) - 1 */
+  private int find(int index) {
+    int lo = 0;
+    int hi = count - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int at = index(entries[mid]);
+      if (at < index) {
+        lo = mid + 1;
+      } else if (at > index) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -lo - 1;
+  }
+
+  private void toDense() {
+    if (registers != null) {
+      return;
+    }
+    registers = dense();
+    entries = null;
+    count = 0;
+  }
+
+  private static short entry(int index, int rank) {
+    return (short) (index << RANK_BITS | rank);
+  }
+
+  private static int index(short entry) {
+    return (entry & 0xffff) >>> RANK_BITS;
+  }
+
+  private static int rank(short entry) {
+    return entry & ((1 << RANK_BITS) - 1);
+  }
+
+  /** 64-bit FNV-1a over the chars, followed by the MurmurHash3 finalizer */
+  static long hash(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h ^= value.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  // a sparse sketch equals the dense sketch with the same registers
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof HyperLogLog)) {
+      return false;
+    }
+    HyperLogLog other = (HyperLogLog) o;
+    if (registers == null && other.registers == null) {
+      return Arrays.equals(entries, 0, count, other.entries, 0, other.count);
+    }
+    return Arrays.equals(dense(), other.dense());
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(dense());
+  }
+
+  private byte[] dense() {
+    if (registers != null) {
+      return registers;
+    }
+    byte[] dense = new byte[SIZE];
+    for (int i = 0; i < count; i++) {
+      dense[index(entries[i])] = (byte) rank(entries[i]);
+    }
+    return dense;
+  }
+}
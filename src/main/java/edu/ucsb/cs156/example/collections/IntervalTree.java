@@ -0,0 +1,204 @@
+package edu.ucsb.cs156.example.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Closed intervals [start, end] identified by a long id, for finding the
+ * intervals that contain a point or overlap a range.
+ *
+ * An AVL tree ordered by start, then id, in which each node also holds the
+ * largest end in its subtree.  A query skips every subtree whose largest
+ * end is before the range and stops once starts are after it, so it takes
+ * O(log n + k) for k results in the usual case.  Adding and removing are
+ * O(log n).
+ *
+ * Not thread safe.
+ */
+public class IntervalTree<T> {
+
+  private static final class Node<T> {
+    long id;
+    long start;
+    long end;
+    T value;
+    long maxEnd;
+    int height = 1;
+    Node<T> left;
+    Node<T> right;
+  }
+
+  private Node<T> root;
+  private final LongObjectHashMap<Node<T>> byId = new LongObjectHashMap<>();
+
+  public int size() {
+    return byId.size();
+  }
+
+  public void clear() {
+    root = null;
+    byId.clear();
+  }
+
+  /** Adds an interval, replacing any interval with the same id */
+  public void put(long id, long start, long end, T value) {
+    if (end < start) {
+      throw new IllegalArgumentException("interval ends before it starts: [" + start + ", " + end + "]");
+    }
+    remove(id);
+    Node<T> node = new Node<>();
+    node.id = id;
+    node.start = start;
+    node.end = end;
+    node.value = value;
+    node.maxEnd = end;
+    byId.put(id, node);
+    root = insert(root, node);
+  }
+
+  /** @return whether there was an interval with this id */
+  public boolean remove(long id) {
+    Node<T> node = byId.get(id);
+    if (node == null) {
+      return false;
+    }
+    root = delete(root, node.start, id);
+    byId.remove(id);
+    return true;
+  }
+
+  /** The value of the interval with this id, or null */
+  public T get(long id) {
+    Node<T> node = byId.get(id);
+    return node == null ? null : node.value;
+  }
+
+  /** Calls the visitor with the id and value of each interval */
+  public void forEach(LongObjectHashMap.Visitor<? super T> visitor) {
+    byId.forEach((id, node) -> visitor.visit(id, node.value));
+  }
+
+  /** The values of the intervals that contain the point, by start */
+  public List<T> containing(long point) {
+    return overlapping(point, point);
+  }
+
+  /** The values of the intervals that share a point with [from, to], by start */
+  public List<T> overlapping(long from, long to) {
+    List<T> result = new ArrayList<>();
+    collect(root, from, to, result);
+    return result;
+  }
+
+  private void collect(Node<T> node, long from, long to, List<T> result) {
+    if (node == null || node.maxEnd < from) {
+      return;
+    }
+    collect(node.left, from, to, result);
+    if (node.start > to) {
+      return;
+    }
+    if (node.end >= from) {
+      result.add(node.value);
+    }
+    collect(node.right, from, to, result);
+  }
+
+  private static int compare(long start, long id, Node<?> node) {
+    int c = Long.compare(start, node.start);
+    return c != 0 ? c : Long.compare(id, node.id);
+  }
+
+  private Node<T> insert(Node<T> node, Node<T> added) {
+    if (node == null) {
+      return added;
+    }
+    if (compare(added.start, added.id, node) < 0) {
+      node.left = insert(node.left, added);
+    } else {
+      node.right = insert(node.right, added);
+    }
+    return rebalance(node);
+  }
+
+  private Node<T> delete(Node<T> node, long start, long id) {
+    int c = compare(start, id, node);
+    if (c < 0) {
+      node.left = delete(node.left, start, id);
+    } else if (c > 0) {
+      node.right = delete(node.right, start, id);
+    } else if (node.left == null || node.right == null) {
+      return node.left != null ? node.left : node.right;
+    } else {
+      // replace the node by its successor, the leftmost node on the right
+      Node<T> successor = node.right;
+      while (successor.left != null) {
+        successor = successor.left;
+      }
+      successor.right = deleteMin(node.right);
+      successor.left = node.left;
+      return rebalance(successor);
+    }
+    return rebalance(node);
+  }
+
+  private Node<T> deleteMin(Node<T> node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    node.left = deleteMin(node.left);
+    return rebalance(node);
+  }
+
+  private static int height(Node<?> node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static <T> void update(Node<T> node) {
+    node.height = 1 + Math.max(height(node.left), height(node.right));
+    long maxEnd = node.end;
+    if (node.left != null) {
+      maxEnd = Math.max(maxEnd, node.left.maxEnd);
+    }
+    if (node.right != null) {
+      maxEnd = Math.max(maxEnd, node.right.maxEnd);
+    }
+    node.maxEnd = maxEnd;
+  }
+
+  private Node<T> rebalance(Node<T> node) {
+    update(node);
+    int balance = height(node.left) - height(node.right);
+    if (balance > 1) {
+      if (height(node.left.left) < height(node.left.right)) {
+        node.left = rotateLeft(node.left);
+      }
+      return rotateRight(node);
+    }
+    if (balance < -1) {
+      if (height(node.right.right) < height(node.right.left)) {
+        node.right = rotateRight(node.right);
+      }
+      return rotateLeft(node);
+    }
+    return node;
+  }
+
+  private Node<T> rotateRight(Node<T> node) {
+    Node<T> top = node.left;
+    node.left = top.right;
+    top.right = node;
+    update(node);
+    update(top);
+    return top;
+  }
+
+  private Node<T> rotateLeft(Node<T> node) {
+    Node<T> top = node.right;
+    node.right = top.left;
+    top.left = node;
+    update(node);
+    update(top);
+    return top;
+  }
+}
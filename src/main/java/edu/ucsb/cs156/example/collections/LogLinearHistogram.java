@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.collections;
+
+import java.util.Arrays;
+
+/**
+ * Counts of non-negative long values, in the layout used by HdrHistogram:
+ * values below 128 each have their own bucket, and every power of two above
+ * that is split into 64 equal buckets, so a value is known to within 1/64
+ * (about 1.6%) of itself.  Any long fits in fewer than 4,000 buckets, and
+ * the counts array only grows as far as the largest value seen.
+ *
+ * Histograms merge by adding their counts, and counts can be taken away
+ * again.  Not thread safe.
+ */
+public class LogLinearHistogram {
+
+  // 2^SUB_BITS buckets per power of two, doubled below 2^(SUB_BITS + 1)
+  private static final int SUB_BITS = 6;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+
+  private long[] counts = new long[2 * SUB_COUNT];
+  private long totalCount;
+
+  static int bucketOf(long value) {
+    int shift = Math.max(0, 63 - SUB_BITS - Long.numberOfLeadingZeros(value));
+    return (shift << SUB_BITS) + (int) (value >>> shift);
+  }
+
+  static long lowestValueIn(int bucket) {
+    int shift = Math.max(0, (bucket >>> SUB_BITS) - 1);
+    return (long) (bucket - (shift << SUB_BITS)) << shift;
+  }
+
+  static long highestValueIn(int bucket) {
+    int shift = Math.max(0, (bucket >>> SUB_BITS) - 1);
+    return lowestValueIn(bucket) + (1L << shift) - 1;
+  }
+
+  public void record(long value) {
+    add(value, 1);
+  }
+
+  /** Adds delta, which may be negative, to the count of a value */
+  public void add(long value, long delta) {
+    if (value < 0) {
+      throw new IllegalArgumentException("negative value " + value);
+    }
+    int bucket = bucketOf(value);
+    if (bucket >= counts.length) {
+      counts = Arrays.copyOf(counts, bucket + 1);
+    }
+    counts[bucket] += delta;
+    totalCount += delta;
+  }
+
+  /** Adds all the counts of the other histogram to this one */
+  public void merge(LogLinearHistogram other) {
+    if (other.counts.length > counts.length) {
+      counts = Arrays.copyOf(counts, other.counts.length);
+    }
+    for (int i = 0; i < other.counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+  }
+
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  /**
+   * The largest value, to within its bucket, that at least percentile
+   * percent of the recorded values are less than or equal to; 0 if empty.
+   */
+  public long valueAtPercentile(double percentile) {
+    double p = Math.min(Math.max(percentile, 0), 100);
+    long rank = Math.max(1, (long) Math.ceil(p * totalCount / 100));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return highestValueIn(i);
+      }
+    }
+    return 0;
+  }
+
+  /** The largest recorded value, to within its bucket; 0 if empty */
+  public long getMaxValue() {
+    for (int i = counts.length - 1; i >= 0; i--) {
+      if (counts[i] > 0) {
+        return highestValueIn(i);
+      }
+    }
+    return 0;
+  }
+}
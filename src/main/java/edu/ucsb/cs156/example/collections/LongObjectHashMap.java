@@ -0,0 +1,184 @@
+package edu.ucsb.cs156.example.collections;
+
+import java.util.function.Function;
+
+/**
+ * A hash map from primitive long keys to non-null objects, using open
+ * addressing with linear probing.  Keys are stored unboxed in a long[], so
+ * there is no Long or Map.Entry object per entry.
+ *
+ * Not thread safe.  The arrays live in a single Table object that is
+ * replaced as a whole when the map grows, so a reader racing with a writer
+ * may get a wrong answer but never an exception; that makes the map
+ * suitable for StampedLock optimistic reads.
+ */
+public class LongObjectHashMap<V> {
+
+  private static final class Table {
+    final long[] keys;
+    final Object[] values;
+    final int mask;
+
+    Table(int capacity) {
+      keys = new long[capacity];
+      values = new Object[capacity];
+      mask = capacity - 1;
+    }
+  }
+
+  @FunctionalInterface
+  public interface Visitor<V> {
+    void visit(long key, V value);
+  }
+
+  private Table table;
+  private int size;
+
+  public LongObjectHashMap() {
+    this(16);
+  }
+
+  public LongObjectHashMap(int expectedSize) {
+    int capacity = 16;
+    while (capacity * 3 < expectedSize * 4) {
+      capacity <<= 1;
+    }
+    table = new Table(capacity);
+  }
+
+  private static int hash(long key) {
+    // finalizer from MurmurHash3
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    Table t = table;
+    for (int i = hash(key) & t.mask; ; i = (i + 1) & t.mask) {
+      Object v = t.values[i];
+      if (v == null) {
+        return null;
+      }
+      if (t.keys[i] == key) {
+        return (V) v;
+      }
+    }
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("null values are not allowed");
+    }
+    Table t = table;
+    int i = hash(key) & t.mask;
+    while (t.values[i] != null) {
+      if (t.keys[i] == key) {
+        V old = (V) t.values[i];
+        t.values[i] = value;
+        return old;
+      }
+      i = (i + 1) & t.mask;
+    }
+    t.keys[i] = key;
+    t.values[i] = value;
+    size++;
+    if (size * 4 > t.keys.length * 3) {
+      grow();
+    }
+    return null;
+  }
+
+  /** Like Map.computeIfAbsent */
+  public V computeIfAbsent(long key, Function<Long, V> factory) {
+    V v = get(key);
+    if (v == null) {
+      v = factory.apply(key);
+      put(key, v);
+    }
+    return v;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    Table t = table;
+    int i = hash(key) & t.mask;
+    while (true) {
+      if (t.values[i] == null) {
+        return null;
+      }
+      if (t.keys[i] == key) {
+        break;
+      }
+      i = (i + 1) & t.mask;
+    }
+    V old = (V) t.values[i];
+    t.values[i] = null;
+    size--;
+
+    // shift back any entries that probed past the slot we just emptied
+    int j = i;
+    while (true) {
+      j = (j + 1) & t.mask;
+      if (t.values[j] == null) {
+        return old;
+      }
+      int home = hash(t.keys[j]) & t.mask;
+      boolean homeBetween = (i <= j) ? (i < home && home <= j) : (i < home || home <= j);
+      if (!homeBetween) {
+        t.keys[i] = t.keys[j];
+        t.values[i] = t.values[j];
+        t.values[j] = null;
+        i = j;
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    table = new Table(16);
+    size = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forEach(Visitor<? super V> visitor) {
+    Table t = table;
+    for (int i = 0; i < t.keys.length; i++) {
+      if (t.values[i] != null) {
+        visitor.visit(t.keys[i], (V) t.values[i]);
+      }
+    }
+  }
+
+  private void grow() {
+    Table old = table;
+    Table t = new Table(old.keys.length * 2);
+    for (int i = 0; i < old.keys.length; i++) {
+      if (old.values[i] != null) {
+        int j = hash(old.keys[i]) & t.mask;
+        while (t.values[j] != null) {
+          j = (j + 1) & t.mask;
+        }
+        t.keys[j] = old.keys[i];
+        t.values[j] = old.values[i];
+      }
+    }
+    table = t;
+  }
+}
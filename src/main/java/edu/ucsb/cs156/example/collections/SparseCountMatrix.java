@@ -0,0 +1,132 @@
+package edu.ucsb.cs156.example.collections;
+
+import java.util.Arrays;
+
+/**
+ * A sparse matrix of int counts indexed by pairs of primitive longs.  Each
+ * row is its own open-addressing table of column keys and counts, held in a
+ * LongObjectHashMap, so a row can be scanned without touching the others.
+ *
+ * Entries that drop back to zero keep their slot until the matrix is
+ * rebuilt.  Not thread safe.
+ */
+public class SparseCountMatrix {
+
+  @FunctionalInterface
+  public interface EntryVisitor {
+    void visit(long column, int count);
+  }
+
+  private static final class Row {
+    long[] columns = new long[4];
+    int[] counts = new int[4];
+    boolean[] used = new boolean[4];
+    int size;
+
+    private int slot(long column) {
+      int mask = columns.length - 1;
+      int i = Long.hashCode(column * 0x9E3779B97F4A7C15L) & mask;
+      while (used[i] && columns[i] != column) {
+        i = (i + 1) & mask;
+      }
+      return i;
+    }
+
+    int get(long column) {
+      int i = slot(column);
+      return used[i] ? counts[i] : 0;
+    }
+
+    int add(long column, int delta) {
+      int i = slot(column);
+      if (!used[i]) {
+        if ((size + 1) * 4 > columns.length * 3) {
+          grow();
+          i = slot(column);
+        }
+        used[i] = true;
+        columns[i] = column;
+        size++;
+      }
+      counts[i] += delta;
+      return counts[i];
+    }
+
+    private void grow() {
+      long[] oldColumns = columns;
+      int[] oldCounts = counts;
+      boolean[] oldUsed = used;
+      columns = new long[oldColumns.length * 2];
+      counts = new int[oldColumns.length * 2];
+      used = new boolean[oldColumns.length * 2];
+      for (int j = 0; j < oldColumns.length; j++) {
+        if (oldUsed[j]) {
+          int i = slot(oldColumns[j]);
+          used[i] = true;
+          columns[i] = oldColumns[j];
+          counts[i] = oldCounts[j];
+        }
+      }
+    }
+  }
+
+  private final LongObjectHashMap<Row> rows = new LongObjectHashMap<>();
+
+  public int get(long row, long column) {
+    Row r = rows.get(row);
+    return r == null ? 0 : r.get(column);
+  }
+
+  /** @return the new count */
+  public int add(long row, long column, int delta) {
+    return rows.computeIfAbsent(row, k -> new Row()).add(column, delta);
+  }
+
+  /** Adds every count of the other matrix to this one */
+  public void addAll(SparseCountMatrix other) {
+    other.rows.forEach((row, r) -> {
+      for (int i = 0; i < r.columns.length; i++) {
+        if (r.used[i]) {
+          add(row, r.columns[i], r.counts[i]);
+        }
+      }
+    });
+  }
+
+  /** Visits the non-zero entries of a row, in no particular order */
+  public void forEachInRow(long row, EntryVisitor visitor) {
+    Row r = rows.get(row);
+    if (r == null) {
+      return;
+    }
+    for (int i = 0; i < r.columns.length; i++) {
+      if (r.used[i] && r.counts[i] != 0) {
+        visitor.visit(r.columns[i], r.counts[i]);
+      }
+    }
+  }
+
+  /** The columns with non-zero counts in a row, in no particular order */
+  public long[] columns(long row) {
+    Row r = rows.get(row);
+    if (r == null) {
+      return new long[0];
+    }
+    long[] result = new long[r.size];
+    int n = 0;
+    for (int i = 0; i < r.columns.length; i++) {
+      if (r.used[i] && r.counts[i] != 0) {
+        result[n++] = r.columns[i];
+      }
+    }
+    return n == result.length ? result : Arrays.copyOf(result, n);
+  }
+
+  /** The keys of the rows that have had any entries, in no particular order */
+  public long[] rowKeys() {
+    long[] result = new long[rows.size()];
+    int[] n = { 0 };
+    rows.forEach((row, r) -> result[n[0]++] = row);
+    return result;
+  }
+}
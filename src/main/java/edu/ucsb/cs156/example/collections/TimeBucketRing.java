@@ -0,0 +1,60 @@
+package edu.ucsb.cs156.example.collections;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counts for the most recent time buckets (minutes, hours, ...),
+ * numbered from 0 at the epoch.
+ *
+ * Bucket b lives in slot b mod size.  Each slot packs the bucket number
+ * into its high 32 bits and the count into its low 32 bits, so that moving
+ * a slot on to a newer bucket and counting into it are the same
+ * compare-and-set, and no increment can be lost to a concurrent reset.
+ */
+public class TimeBucketRing {
+
+  private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+  private final AtomicLongArray slots;
+
+  public TimeBucketRing(int size) {
+    slots = new AtomicLongArray(size);
+  }
+
+  public int size() {
+    return slots.length();
+  }
+
+  /**
+   * Adds to the count for a bucket.  Does nothing if the bucket is older
+   * than the one now occupying its slot.
+   */
+  public void add(long bucket, long delta) {
+    int i = slot(bucket);
+    while (true) {
+      long v = slots.get(i);
+      long current = v >>> 32;
+      long next;
+      if (current == bucket) {
+        next = v + delta;
+      } else if (current < bucket) {
+        next = (bucket << 32) | delta;
+      } else {
+        return;
+      }
+      if (slots.compareAndSet(i, v, next)) {
+        return;
+      }
+    }
+  }
+
+  /** The count for a bucket, or 0 if it has been overwritten by a newer one */
+  public long get(long bucket) {
+    long v = slots.get(slot(bucket));
+    return (v >>> 32) == bucket ? v & COUNT_MASK : 0;
+  }
+
+  private int slot(long bucket) {
+    return (int) Math.floorMod(bucket, (long) slots.length());
+  }
+}
@@ -0,0 +1,169 @@
+package edu.ucsb.cs156.example.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel of timers identified by a long id, with
+ * deadlines in whole ticks (minutes, seconds, ...).
+ *
+ * Level k has 64 slots of 64^k ticks each.  A timer goes into the lowest
+ * level on which its deadline and the current tick share all higher
+ * digits, in the slot of its deadline's digit on that level.  When level 0
+ * wraps, the current slot of the level above is emptied and its timers
+ * placed again, so they move down to finer levels as their deadline gets
+ * close.  Scheduling and cancelling are O(1), each timer is moved at most
+ * once per level, and advancing costs one slot visit per tick.  Timers
+ * further away than the top level can hold wait in its slots and are
+ * placed again each time the top level comes round.
+ *
+ * Not thread safe.
+ */
+public class TimingWheel<T> {
+
+  static final int SLOT_BITS = 6;
+  static final int SLOTS = 1 << SLOT_BITS;
+  static final int LEVELS = 4;
+
+  private static final class Timer<T> {
+    final long id;
+    final long deadline;
+    final T value;
+    int level;
+    int slot;
+    Timer<T> prev;
+    Timer<T> next;
+
+    Timer(long id, long deadline, T value) {
+      this.id = id;
+      this.deadline = deadline;
+      this.value = value;
+    }
+  }
+
+  private final Timer<T>[][] slots;
+  private final LongObjectHashMap<Timer<T>> byId = new LongObjectHashMap<>();
+  private long now;
+
+  @SuppressWarnings("unchecked")
+  public TimingWheel(long now) {
+    this.now = now;
+    this.slots = new Timer[LEVELS][SLOTS];
+  }
+
+  /** The last tick that has been advanced to */
+  public long now() {
+    return now;
+  }
+
+  public int size() {
+    return byId.size();
+  }
+
+  /**
+   * Schedules a timer, replacing any timer with the same id.  A deadline
+   * that is not after now fires on the next tick.
+   */
+  public void schedule(long id, long deadline, T value) {
+    cancel(id);
+    Timer<T> timer = new Timer<>(id, deadline, value);
+    byId.put(id, timer);
+    place(timer, now + 1);
+  }
+
+  /** @return whether there was a pending timer with this id */
+  public boolean cancel(long id) {
+    Timer<T> timer = byId.remove(id);
+    if (timer == null) {
+      return false;
+    }
+    unlink(timer);
+    return true;
+  }
+
+  /** The value of the pending timer with this id, or null */
+  public T get(long id) {
+    Timer<T> timer = byId.get(id);
+    return timer == null ? null : timer.value;
+  }
+
+  /** Calls the visitor with the id and value of each pending timer */
+  public void forEach(LongObjectHashMap.Visitor<? super T> visitor) {
+    byId.forEach((id, timer) -> visitor.visit(id, timer.value));
+  }
+
+  /**
+   * Moves the wheel on to the given tick.
+   *
+   * @return the values of the timers that fired, earliest tick first
+   */
+  public List<T> advanceTo(long tick) {
+    List<T> fired = new ArrayList<>();
+    while (now < tick) {
+      if (byId.isEmpty()) {
+        now = tick;
+        break;
+      }
+      now++;
+      cascade(1);
+      Timer<T> timer = detach(0, (int) (now & (SLOTS - 1)));
+      while (timer != null) {
+        Timer<T> next = timer.next;
+        byId.remove(timer.id);
+        fired.add(timer.value);
+        timer = next;
+      }
+    }
+    return fired;
+  }
+
+  // when every level below has wrapped, moves the current slot of this level down
+  private void cascade(int level) {
+    int shift = level * SLOT_BITS;
+    if (level == LEVELS || (now & ((1L << shift) - 1)) != 0) {
+      return;
+    }
+    cascade(level + 1);
+    Timer<T> timer = detach(level, (int) ((now >>> shift) & (SLOTS - 1)));
+    while (timer != null) {
+      Timer<T> next = timer.next;
+      place(timer, now);
+      timer = next;
+    }
+  }
+
+  // timers due before the earliest tick are placed on it
+  private void place(Timer<T> timer, long earliest) {
+    int level = 0;
+    long deadline = Math.max(timer.deadline, earliest);
+    while (level < LEVELS - 1 && (deadline >>> ((level + 1) * SLOT_BITS)) != (now >>> ((level + 1) * SLOT_BITS))) {
+      level++;
+    }
+    timer.level = level;
+    timer.slot = (int) ((deadline >>> (level * SLOT_BITS)) & (SLOTS - 1));
+    timer.prev = null;
+    timer.next = slots[level][timer.slot];
+    if (timer.next != null) {
+      timer.next.prev = timer;
+    }
+    slots[level][timer.slot] = timer;
+  }
+
+  private void unlink(Timer<T> timer) {
+    if (timer.prev != null) {
+      timer.prev.next = timer.next;
+    } else {
+      slots[timer.level][timer.slot] = timer.next;
+    }
+    if (timer.next != null) {
+      timer.next.prev = timer.prev;
+    }
+  }
+
+  // empties a slot and returns its first timer; the rest follow by next
+  private Timer<T> detach(int level, int slot) {
+    Timer<T> head = slots[level][slot];
+    slots[level][slot] = null;
+    return head;
+  }
+}
@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import edu.ucsb.cs156.example.interceptors.BulkheadInterceptor;
+
+/**
+ * One Hikari pool per bulkhead, behind a routing DataSource, so that admin
+ * work cannot take the connections that users need.
+ *
+ * Both pools are beans, so Spring Boot publishes the usual hikaricp.*
+ * metrics for each of them, tagged pool=user and pool=admin.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.bulkhead.separate-pools", havingValue = "true", matchIfMissing = true)
+public class BulkheadDataSourceConfig {
+
+  @Bean
+  public HikariDataSource userDataSource(DataSourceProperties dataSourceProperties,
+      BulkheadProperties bulkheadProperties) {
+    return pool(dataSourceProperties, BulkheadInterceptor.USER, bulkheadProperties.getUser().getPoolSize());
+  }
+
+  @Bean
+  public HikariDataSource adminDataSource(DataSourceProperties dataSourceProperties,
+      BulkheadProperties bulkheadProperties) {
+    return pool(dataSourceProperties, BulkheadInterceptor.ADMIN, bulkheadProperties.getAdmin().getPoolSize());
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(@Qualifier("userDataSource") HikariDataSource userDataSource,
+      @Qualifier("adminDataSource") HikariDataSource adminDataSource) {
+    BulkheadRoutingDataSource routing = new BulkheadRoutingDataSource();
+    routing.setTargetDataSources(Map.of(
+        BulkheadInterceptor.USER, userDataSource,
+        BulkheadInterceptor.ADMIN, adminDataSource));
+    routing.setDefaultTargetDataSource(userDataSource);
+    return routing;
+  }
+
+  private static HikariDataSource pool(DataSourceProperties dataSourceProperties, String name, int size) {
+    HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+    pool.setPoolName(name);
+    pool.setMaximumPoolSize(size);
+    return pool;
+  }
+}
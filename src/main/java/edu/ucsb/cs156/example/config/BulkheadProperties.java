@@ -0,0 +1,33 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Settings for the user and admin bulkheads, see BulkheadInterceptor
+ */
+@Data
+@ConfigurationProperties(prefix = "app.bulkhead")
+public class BulkheadProperties {
+  private boolean enabled = true;
+
+  /** Give each bulkhead its own connection pool */
+  private boolean separatePools = true;
+
+  /** How long a request may wait for a permit before getting 503 */
+  private long maxWaitMillis = 0;
+
+  private Compartment user = new Compartment(40, 8);
+  private Compartment admin = new Compartment(10, 3);
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  public static class Compartment {
+    private int maxConcurrent;
+    private int poolSize;
+  }
+}
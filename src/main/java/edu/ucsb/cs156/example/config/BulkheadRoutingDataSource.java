@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import edu.ucsb.cs156.example.interceptors.BulkheadContext;
+
+/**
+ * Hands out connections from the pool of the bulkhead the current request
+ * was admitted to.  Work outside a request (startup, scheduled jobs) uses
+ * the user pool.
+ */
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource {
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return BulkheadContext.get();
+  }
+}
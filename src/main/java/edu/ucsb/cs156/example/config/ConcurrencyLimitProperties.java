@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings for the AdaptiveConcurrencyLimiter in front of the API
+ */
+@Data
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+  private boolean enabled = true;
+  private int initialLimit = 20;
+  private int minLimit = 4;
+  private int maxLimit = 200;
+  /** Forget the no-load latency every this many requests */
+  private int probeInterval = 1000;
+}
@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The connection pools for the menuitemreview shards.
+ *
+ * Hibernate only manages the schema of the main database, so the table is
+ * created here.  Each shard's identity column starts at N + i and counts up
+ * in steps of N, for N shards, so ids are unique across shards and
+ * {@code id mod N} is the shard a review was inserted into.
+ */
+@Slf4j
+public class MenuItemReviewShards implements AutoCloseable {
+
+  private final List<HikariDataSource> dataSources = new ArrayList<>();
+
+  public MenuItemReviewShards(ShardingProperties properties) {
+    List<ShardingProperties.Shard> shards = properties.getShards();
+    for (int i = 0; i < shards.size(); i++) {
+      HikariDataSource pool = new HikariDataSource();
+      pool.setPoolName("shard-" + i);
+      pool.setJdbcUrl(shards.get(i).getUrl());
+      pool.setUsername(shards.get(i).getUsername());
+      pool.setPassword(shards.get(i).getPassword());
+      pool.setMaximumPoolSize(properties.getPoolSize());
+      dataSources.add(pool);
+    }
+  }
+
+  public int size() {
+    return dataSources.size();
+  }
+
+  public List<HikariDataSource> getDataSources() {
+    return Collections.unmodifiableList(dataSources);
+  }
+
+  public void createSchema() {
+    int n = dataSources.size();
+    for (int i = 0; i < n; i++) {
+      JdbcTemplate jdbc = new JdbcTemplate(dataSources.get(i));
+      jdbc.execute("create table if not exists menuitemreview ("
+          + " id bigint generated by default as identity (start with " + (n + i) + " increment by " + n + ") primary key,"
+          + " item_id bigint not null,"
+          + " reviewer_email varchar(255),"
+          + " stars integer not null,"
+          + " date_reviewed timestamp,"
+          + " comments varchar(255))");
+      jdbc.execute("create index if not exists menuitemreview_item_date_id"
+          + " on menuitemreview (item_id, date_reviewed desc, id)");
+      jdbc.execute("create index if not exists menuitemreview_date_id"
+          + " on menuitemreview (date_reviewed, id)");
+    }
+    log.info("menuitemreview schema ready on {} shards", n);
+  }
+
+  @Override
+  public void close() {
+    dataSources.forEach(HikariDataSource::close);
+  }
+}
@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import edu.ucsb.cs156.example.interceptors.EndpointClass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Settings for RateLimitInterceptor, e.g.
+ *
+ * <pre>
+ * app.ratelimit.read.capacity=100
+ * app.ratelimit.read.per-second=20
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "app.ratelimit")
+public class RateLimitProperties {
+  private boolean enabled = true;
+
+  /** Upper bound on the number of buckets kept in memory */
+  private int maxBuckets = 10_000;
+
+  private Limit read = new Limit(100, 20);
+  private Limit write = new Limit(30, 5);
+  private Limit admin = new Limit(30, 5);
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  public static class Limit {
+    /** Largest burst allowed */
+    private long capacity;
+    /** Sustained rate */
+    private double perSecond;
+  }
+
+  public Limit limitFor(EndpointClass endpointClass) {
+    switch (endpointClass) {
+      case READ:
+        return read;
+      case WRITE:
+        return write;
+      default:
+        return admin;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard that database work on the current thread should go to, or null
+ * for the main database.  ShardRoutingDataSource uses it to pick a
+ * connection pool.
+ */
+public final class ShardContext {
+  private static final ThreadLocal<Integer> current = new ThreadLocal<>();
+
+  private ShardContext() {
+  }
+
+  public static Integer get() {
+    return current.get();
+  }
+
+  /**
+   * Runs work with connections taken from the given shard.  Only new
+   * transactions pick up the shard; one that is already open keeps its
+   * connection.
+   */
+  public static <T> T callOn(int shard, Supplier<T> work) {
+    Integer previous = current.get();
+    current.set(shard);
+    try {
+      return work.get();
+    } finally {
+      if (previous == null) {
+        current.remove();
+      } else {
+        current.set(previous);
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections from the shard in ShardContext, or from the main
+ * DataSource when no shard is set.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+  public ShardRoutingDataSource(DataSource main, List<? extends DataSource> shards) {
+    Map<Object, Object> targets = new HashMap<>();
+    for (int i = 0; i < shards.size(); i++) {
+      targets.put(i, shards.get(i));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(main);
+    // an unknown shard number is a bug, not a reason to use the main database
+    setLenientFallback(false);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return ShardContext.get();
+  }
+}
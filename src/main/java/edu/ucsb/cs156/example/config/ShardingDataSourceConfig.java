@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.ShardedMenuItemReviewRepository;
+
+/**
+ * Hash-partitions the menuitemreview table across the databases listed in
+ * ShardingProperties.
+ *
+ * The main DataSource is wrapped in a ShardRoutingDataSource, so JPA keeps
+ * a single EntityManagerFactory and the existing repository queries run
+ * unchanged on whichever shard ShardContext names.  A
+ * ShardedMenuItemReviewRepository takes the place of the JPA repository
+ * for injection and decides which shard each call goes to.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingDataSourceConfig {
+
+  @Bean(initMethod = "createSchema")
+  public MenuItemReviewShards menuItemReviewShards(ShardingProperties properties) {
+    return new MenuItemReviewShards(properties);
+  }
+
+  @Bean
+  public static BeanPostProcessor shardRoutingDataSourcePostProcessor(ObjectProvider<MenuItemReviewShards> shards) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if ("dataSource".equals(beanName) && bean instanceof DataSource) {
+          List<? extends DataSource> targets = shards.getObject().getDataSources();
+          return new ShardRoutingDataSource((DataSource) bean, targets);
+        }
+        return bean;
+      }
+    };
+  }
+
+  @Bean
+  @Primary
+  public ShardedMenuItemReviewRepository shardedMenuItemReviewRepository(
+      @Qualifier("menuItemReviewRepository") MenuItemReviewRepository jpa,
+      MenuItemReviewShards shards,
+      PlatformTransactionManager transactionManager) {
+    return new ShardedMenuItemReviewRepository(jpa, shards.size(), transactionManager);
+  }
+}
@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Databases that the menuitemreview table is hash-partitioned across, e.g.
+ *
+ * <pre>
+ * app.sharding.enabled=true
+ * app.sharding.shards[0].url=jdbc:postgresql://reviews0/reviews
+ * app.sharding.shards[1].url=jdbc:postgresql://reviews1/reviews
+ * </pre>
+ *
+ * The shards must be the same kind of database as spring.datasource.url,
+ * since they share its Hibernate dialect.  See ShardingDataSourceConfig.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+  private boolean enabled = false;
+
+  /** Connections in each shard's pool */
+  private int poolSize = 5;
+
+  private List<Shard> shards = new ArrayList<>();
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  public static class Shard {
+    private String url;
+    private String username;
+    private String password;
+  }
+}
@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import edu.ucsb.cs156.example.interceptors.AdaptiveConcurrencyLimiter;
+import edu.ucsb.cs156.example.interceptors.Bulkhead;
+import edu.ucsb.cs156.example.interceptors.BulkheadInterceptor;
+import edu.ucsb.cs156.example.interceptors.ConcurrencyLimitInterceptor;
+import edu.ucsb.cs156.example.interceptors.RateLimitInterceptor;
+
+/**
+ * Admission control for the API.  Interceptors run after Spring Security, so
+ * the current user is known, and before the controller method is called.
+ *
+ * Server-sent event streams stay open for as long as a dashboard is, so they
+ * are rate limited but not counted against the bulkheads or the concurrency
+ * limit, which are sized for short requests.
+ */
+@Configuration
+@EnableConfigurationProperties({ RateLimitProperties.class, ConcurrencyLimitProperties.class, BulkheadProperties.class })
+public class WebConfig implements WebMvcConfigurer {
+
+  @Autowired
+  RateLimitProperties rateLimitProperties;
+
+  @Autowired
+  ConcurrencyLimitProperties concurrencyLimitProperties;
+
+  @Autowired
+  BulkheadProperties bulkheadProperties;
+
+  @Bean
+  public RateLimitInterceptor rateLimitInterceptor() {
+    return new RateLimitInterceptor(rateLimitProperties);
+  }
+
+  @Bean
+  public ConcurrencyLimitInterceptor concurrencyLimitInterceptor() {
+    return new ConcurrencyLimitInterceptor(new AdaptiveConcurrencyLimiter(
+        concurrencyLimitProperties.getInitialLimit(),
+        concurrencyLimitProperties.getMinLimit(),
+        concurrencyLimitProperties.getMaxLimit(),
+        concurrencyLimitProperties.getProbeInterval()));
+  }
+
+  @Bean
+  public BulkheadInterceptor bulkheadInterceptor() {
+    return new BulkheadInterceptor(
+        new Bulkhead(BulkheadInterceptor.USER, bulkheadProperties.getUser().getMaxConcurrent()),
+        new Bulkhead(BulkheadInterceptor.ADMIN, bulkheadProperties.getAdmin().getMaxConcurrent()),
+        bulkheadProperties.getMaxWaitMillis());
+  }
+
+  static final String[] STREAMS = { "/api/HelpRequest/stream" };
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(rateLimitInterceptor()).addPathPatterns("/api/**");
+    if (bulkheadProperties.getEnabled()) {
+      registry.addInterceptor(bulkheadInterceptor()).addPathPatterns("/api/**").excludePathPatterns(STREAMS);
+    }
+    if (concurrencyLimitProperties.getEnabled()) {
+      registry.addInterceptor(concurrencyLimitInterceptor()).addPathPatterns("/api/**")
+          .excludePathPatterns(STREAMS);
+    }
+  }
+}
@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.RequestCoalescingService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -36,11 +37,15 @@ public class ArticlesController extends ApiController {
     @Autowired
     ArticlesRepository articlesRepository;
 
+    @Autowired
+    RequestCoalescingService requestCoalescingService;
+
     @Operation(summary= "List all articles")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
     public Iterable<Articles> allArticles() {
-        Iterable<Articles> articles = articlesRepository.findAll();
+        Iterable<Articles> articles = requestCoalescingService.coalesce("articles.all", "all",
+                () -> articlesRepository.findAll());
         return articles;
     }
 
@@ -77,7 +82,8 @@ public class ArticlesController extends ApiController {
     @GetMapping("")
     public Articles getById(
             @Parameter(name="id") @RequestParam Long id) {
-        Articles article = articlesRepository.findById(id)
+        Articles article = requestCoalescingService.coalesce("articles.getById", id,
+                () -> articlesRepository.findById(id))
                 .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
 
         return article;
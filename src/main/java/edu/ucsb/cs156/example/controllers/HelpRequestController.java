@@ -1,8 +1,18 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.HelpRequestChangedEvent;
+import edu.ucsb.cs156.example.events.HelpRequestsSolvedEvent;
+import edu.ucsb.cs156.example.models.HelpRequestHeatmap;
+import edu.ucsb.cs156.example.models.WaitTimePercentiles;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.HelpRequestHeatmapService;
+import edu.ucsb.cs156.example.services.HelpRequestQueueService;
+import edu.ucsb.cs156.example.services.HelpRequestStreamService;
+import edu.ucsb.cs156.example.services.HelpRequestWaitTimeService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,20 +22,29 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @Tag(name = "Help Requests")
 @RequestMapping("/api/HelpRequest")
@@ -36,6 +55,24 @@ public class HelpRequestController extends ApiController {
     @Autowired
     HelpRequestRepository helpRequestRepository;
 
+    @Autowired
+    ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+    @Autowired
+    HelpRequestStreamService streamService;
+
+    @Autowired
+    HelpRequestQueueService queueService;
+
+    @Autowired
+    HelpRequestWaitTimeService waitTimeService;
+
+    @Autowired
+    HelpRequestHeatmapService heatmapService;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
     @Operation(summary= "List all help requests")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -43,10 +80,20 @@ public class HelpRequestController extends ApiController {
         Iterable<HelpRequest> requests = helpRequestRepository.findAll();
         return requests;
     }
+
+    @Operation(summary= "Stream created, updated, solved and deleted help requests as server-sent events")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamHelpRequests(
+            @Parameter(name="Last-Event-ID", description="id of the last event received, to resume after a reconnect") @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @Parameter(name="lastEventId", description="same as Last-Event-ID, for clients that cannot set headers") @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam) {
+        return streamService.subscribe(lastEventId != null ? lastEventId : lastEventIdParam);
+    }
   
     @Operation(summary= "Create a new help request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
+    @Transactional
     public HelpRequest postHelpRequest(
             @Parameter(name="requesterEmail") @RequestParam String requesterEmail,
             @Parameter(name="teamId") @RequestParam String teamId,
@@ -67,15 +114,71 @@ public class HelpRequestController extends ApiController {
         request.setSolved(solved);
     
         HelpRequest savedRequest = helpRequestRepository.save(request);
+        eventPublisher.publishEvent(new HelpRequestChangedEvent(null, savedRequest));
         return savedRequest;
     }
 
-    @Operation(summary= "Get a single help request")
+    @Operation(summary= "Mark every unsolved help request, or those of some teams or one table or breakout room, as solved with a single UPDATE")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/solve")
+    @Transactional
+    public Object solveHelpRequests(
+            @Parameter(name="teamId", description="only these teams; repeat for several") @RequestParam(required = false) List<String> teamId,
+            @Parameter(name="tableOrBreakoutRoom") @RequestParam(required = false) String tableOrBreakoutRoom) {
+        LocalDateTime solvedAt = LocalDateTime.now();
+        int count = teamId == null
+                ? helpRequestRepository.solveAll(tableOrBreakoutRoom, solvedAt)
+                : helpRequestRepository.solveTeams(teamId, tableOrBreakoutRoom, solvedAt);
+        if (count > 0) {
+            eventPublisher.publishEvent(new HelpRequestsSolvedEvent(teamId, tableOrBreakoutRoom, solvedAt, count));
+        }
+        return Map.of("message", "%d help requests marked solved".formatted(count), "count", count);
+    }
+
+    @Operation(summary= "Claim the oldest unsolved help request that nobody has claimed yet; 204 if there is none")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/claim")
+    public ResponseEntity<HelpRequest> claimHelpRequest(
+            @Parameter(name="teamId") @RequestParam(required = false) String teamId,
+            @Parameter(name="tableOrBreakoutRoom") @RequestParam(required = false) String tableOrBreakoutRoom) {
+        String email = getCurrentUser().getUser().getEmail();
+        return queueService.claim(email, teamId, tableOrBreakoutRoom)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @Operation(summary= "Get the 50th, 90th and 99th percentile of how long solved help requests waited, in seconds, for a team, a section or everyone")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/waittimes")
+    public WaitTimePercentiles getWaitTimes(
+            @Parameter(name="teamId") @RequestParam(required = false) String teamId,
+            @Parameter(name="section", description="team id without the last part, e.g. f23-6pm; ignored if teamId is given") @RequestParam(required = false) String section,
+            @Parameter(name="from", description="first day solved, inclusive") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(name="to", description="last day solved, inclusive") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (teamId != null) {
+            return waitTimeService.getTeamWaitTimes(teamId, from, to);
+        }
+        if (section != null) {
+            return waitTimeService.getSectionWaitTimes(section, from, to);
+        }
+        return waitTimeService.getTotalWaitTimes(from, to);
+    }
+
+    @Operation(summary= "Get the number of help requests made at each table or breakout room by weekday (Monday first) and hour")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/heatmap")
+    public List<HelpRequestHeatmap> getHeatmap(
+            @Parameter(name="tableOrBreakoutRoom", description="only this table or breakout room") @RequestParam(required = false) String tableOrBreakoutRoom) {
+        return heatmapService.getHeatmaps(tableOrBreakoutRoom);
+    }
+
+    @Operation(summary= "Get a single help request, including archived ones")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
     public HelpRequest getById(
             @Parameter(name="id") @RequestParam Long id) {
         HelpRequest request = helpRequestRepository.findById(id)
+                .or(() -> archivedHelpRequestRepository.findById(id).map(ArchivedHelpRequest::toHelpRequest))
                 .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
         return request;
@@ -84,24 +187,28 @@ public class HelpRequestController extends ApiController {
     @Operation(summary= "Delete a help request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
+    @Transactional
     public Object deleteHelpRequest(
             @Parameter(name="id") @RequestParam Long id) {
         HelpRequest request = helpRequestRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
         helpRequestRepository.delete(request);
+        eventPublisher.publishEvent(new HelpRequestChangedEvent(request, null));
         return genericMessage("Help request with id %s deleted".formatted(id));
     }
 
     @Operation(summary= "Update a single help request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
+    @Transactional
     public HelpRequest updateHelpRequest(
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid HelpRequest incoming) {
 
         HelpRequest request = helpRequestRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+        HelpRequest before = request.toBuilder().build();
 
         request.setRequesterEmail(incoming.getRequesterEmail());
         request.setTeamId(incoming.getTeamId());
@@ -109,8 +216,14 @@ public class HelpRequestController extends ApiController {
         request.setRequestTime(incoming.getRequestTime());
         request.setExplanation(incoming.getExplanation());
         request.setSolved(incoming.getSolved());
+        if (!incoming.getSolved()) {
+            request.setSolvedAt(null);
+        } else if (!before.getSolved()) {
+            request.setSolvedAt(LocalDateTime.now());
+        }
 
         helpRequestRepository.save(request);
+        eventPublisher.publishEvent(new HelpRequestChangedEvent(before, request));
 
         return request;
     }
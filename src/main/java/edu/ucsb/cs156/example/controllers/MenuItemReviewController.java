@@ -1,8 +1,24 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.models.DistinctReviewerEstimate;
+import edu.ucsb.cs156.example.models.MenuItemRanking;
+import edu.ucsb.cs156.example.models.MenuItemReviewAggregate;
+import edu.ucsb.cs156.example.models.MenuItemReviewFilter;
+import edu.ucsb.cs156.example.models.MenuItemReviewPage;
+import edu.ucsb.cs156.example.models.MenuItemReviewVolume;
+import edu.ucsb.cs156.example.models.MenuItemRatingStats;
+import edu.ucsb.cs156.example.models.SimilarMenuItem;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+import edu.ucsb.cs156.example.services.MenuItemReviewAnalyticsService;
+import edu.ucsb.cs156.example.services.MenuItemReviewVolumeService;
+import edu.ucsb.cs156.example.services.MenuItemReviewerCountService;
+import edu.ucsb.cs156.example.services.MenuItemSimilarityService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,8 +28,13 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -22,27 +43,59 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Tag(name = "MenuItemReviews")
 @RequestMapping("/api/menuitemreview")
 @RestController
 public class MenuItemReviewController extends ApiController{
+
+    static final int MAX_PAGE_SIZE = 100;
     
     @Autowired
     ObjectMapper mapper;
 
     @Autowired
     MenuItemReviewRepository repo;
+
+    @Autowired
+    UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+    @Autowired
+    MenuItemRatingService ratingService;
+
+    @Autowired
+    MenuItemReviewAnalyticsService analyticsService;
+
+    @Autowired
+    MenuItemReviewVolumeService volumeService;
+
+    @Autowired
+    MenuItemSimilarityService similarityService;
+
+    @Autowired
+    MenuItemReviewerCountService reviewerCountService;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
     
     @Operation(summary= "Post a review from inputs in the header")
     @PreAuthorize("hasRole('ROLE_USER')")
     @PostMapping("/post")
-    MenuItemReview postMenuItemReview( @Parameter(name = "itemId") @RequestParam Long itemId, 
+    @Transactional
+    public MenuItemReview postMenuItemReview( @Parameter(name = "itemId") @RequestParam Long itemId, 
                                         @Parameter(name = "email") @RequestParam String email,
                                         @Parameter(name = "stars") @RequestParam int stars,
                                         @Parameter(name = "comments") @RequestParam String comments,
@@ -58,6 +111,7 @@ public class MenuItemReviewController extends ApiController{
                                                     .build();
         
         MenuItemReview postedObj =  repo.save(newReview);
+        eventPublisher.publishEvent(new MenuItemReviewChangedEvent(null, postedObj));
         return postedObj;
     }
     
@@ -79,21 +133,25 @@ public class MenuItemReviewController extends ApiController{
     @Operation(summary= "Delete a single review by id")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
-    Object deleteItem(@Parameter(name = "id") @RequestParam Long id){
+    @Transactional
+    public Object deleteItem(@Parameter(name = "id") @RequestParam Long id){
         MenuItemReview deletedItem = repo.findById(id)
                                             .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
         repo.delete(deletedItem);
+        eventPublisher.publishEvent(new MenuItemReviewChangedEvent(deletedItem, null));
         return genericMessage("MenuItemReview with id %s deleted".formatted(id));
     }
     
     @Operation(summary= "Update a single review by id")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    MenuItemReview updateReview(@Parameter(name = "id") @RequestParam Long id, 
+    @Transactional
+    public MenuItemReview updateReview(@Parameter(name = "id") @RequestParam Long id, 
                                  @RequestBody @Valid MenuItemReview newItem
                                 ){
         MenuItemReview updatedItem = repo.findById(id)
                                             .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+        MenuItemReview before = updatedItem.toBuilder().build();
         updatedItem.setItemId(newItem.getItemId());
         updatedItem.setReviewerEmail(newItem.getReviewerEmail());
         updatedItem.setStars(newItem.getStars());
@@ -101,7 +159,140 @@ public class MenuItemReviewController extends ApiController{
         updatedItem.setComments(newItem.getComments());
 
         repo.save(updatedItem);
+        eventPublisher.publishEvent(new MenuItemReviewChangedEvent(before, updatedItem));
         return updatedItem;
     }
+
+    @Operation(summary= "Get the review count, average and star histogram for a menu item")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/stats")
+    MenuItemRatingStats getStats(@Parameter(name = "itemId") @RequestParam long itemId){
+        return ratingService.getStats(itemId);
+    }
+
+    @Operation(summary= "Get the review count, average and star histogram for several menu items")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/stats/bulk")
+    List<MenuItemRatingStats> getBulkStats(@Parameter(name = "itemIds") @RequestParam List<Long> itemIds){
+        return ratingService.getStats(itemIds);
+    }
     
+    @Operation(summary= "Get the best rated menu items, ranked by Bayesian average")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/top")
+    List<MenuItemRanking> getTop(@Parameter(name = "n") @RequestParam(defaultValue = "10") int n,
+                                 @Parameter(name = "minReviews") @RequestParam(defaultValue = "1") long minReviews){
+        List<MenuItemRatingStats> top = ratingService.getTop(n, minReviews);
+
+        List<Long> ids = top.stream().map(MenuItemRatingStats::getItemId).collect(Collectors.toList());
+        Map<Long, UCSBDiningCommonsMenuItem> items = new HashMap<>();
+        menuItemRepository.findAllById(ids).forEach(item -> items.put(item.getId(), item));
+
+        List<MenuItemRanking> rankings = new ArrayList<>();
+        for (MenuItemRatingStats stats : top) {
+            rankings.add(MenuItemRanking.builder()
+                            .rank(rankings.size() + 1)
+                            .score(ratingService.score(stats))
+                            .item(items.get(stats.getItemId()))
+                            .stats(stats)
+                            .build());
+        }
+        return rankings;
+    }
+
+    @Operation(summary= "Count and star totals of the matching reviews, grouped by day, item, reviewer or stars")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/analytics")
+    List<MenuItemReviewAggregate> getAnalytics(
+            @Parameter(name = "groupBy") @RequestParam(defaultValue = "NONE") MenuItemReviewAnalyticsService.GroupBy groupBy,
+            @Parameter(name = "itemId") @RequestParam(required = false) Long itemId,
+            @Parameter(name = "reviewerEmail") @RequestParam(required = false) String reviewerEmail,
+            @Parameter(name = "from") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name = "to") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name = "minStars") @RequestParam(required = false) Integer minStars,
+            @Parameter(name = "maxStars") @RequestParam(required = false) Integer maxStars){
+        MenuItemReviewFilter filter = MenuItemReviewFilter.builder()
+                                            .itemId(itemId)
+                                            .reviewerEmail(reviewerEmail)
+                                            .from(from)
+                                            .to(to)
+                                            .minStars(minStars)
+                                            .maxStars(maxStars)
+                                            .build();
+        return analyticsService.aggregate(filter, groupBy);
+    }
+
+    @Operation(summary= "Get the number of reviews posted per minute, hour and day for an item, a dining commons, or overall")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/volume")
+    MenuItemReviewVolume getVolume(@Parameter(name = "itemId") @RequestParam(required = false) Long itemId,
+                                   @Parameter(name = "diningCommonsCode") @RequestParam(required = false) String diningCommonsCode){
+        if (itemId != null) {
+            return volumeService.getItemVolume(itemId);
+        }
+        if (diningCommonsCode != null) {
+            return volumeService.getDiningCommonsVolume(diningCommonsCode);
+        }
+        return volumeService.getTotalVolume();
+    }
+
+    @Operation(summary= "Estimate the number of different reviewers of an item, a dining commons, or all items between two days")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/reviewers")
+    DistinctReviewerEstimate getReviewers(@Parameter(name = "itemId") @RequestParam(required = false) Long itemId,
+                                          @Parameter(name = "diningCommonsCode") @RequestParam(required = false) String diningCommonsCode,
+                                          @Parameter(name = "from", description = "first day, inclusive") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @Parameter(name = "to", description = "last day, inclusive") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        if (itemId != null) {
+            return reviewerCountService.getItemReviewers(itemId, from, to);
+        }
+        if (diningCommonsCode != null) {
+            return reviewerCountService.getDiningCommonsReviewers(diningCommonsCode, from, to);
+        }
+        return reviewerCountService.getTotalReviewers(from, to);
+    }
+
+    @Operation(summary= "Get one page of the reviews for a menu item, newest first; reviews without a dateReviewed are left out")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/byItem")
+    MenuItemReviewPage getByItem(@Parameter(name = "itemId") @RequestParam long itemId,
+                                 @Parameter(name = "before", description = "next from the previous page, as dateReviewed,id") @RequestParam(required = false) String before,
+                                 @Parameter(name = "limit") @RequestParam(defaultValue = "20") int limit){
+        Pageable page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<MenuItemReview> reviews;
+        if (before == null) {
+            reviews = repo.findFirstPage(itemId, page);
+        } else {
+            int comma = before.lastIndexOf(',');
+            try {
+                LocalDateTime dateReviewed = LocalDateTime.parse(before.substring(0, comma));
+                long id = Long.parseLong(before.substring(comma + 1));
+                reviews = repo.findPageBefore(itemId, dateReviewed, id, page);
+            } catch (IndexOutOfBoundsException | DateTimeParseException | NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "before must be dateReviewed,id");
+            }
+        }
+
+        String next = null;
+        if (reviews.size() == page.getPageSize()) {
+            MenuItemReview last = reviews.get(reviews.size() - 1);
+            next = last.getDateReviewed() + "," + last.getId();
+        }
+        return new MenuItemReviewPage(reviews, next);
+    }
+
+    @Operation(summary= "Get the menu items most often liked by the reviewers who liked this one")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/similar")
+    List<SimilarMenuItem> getSimilar(@Parameter(name = "itemId") @RequestParam long itemId,
+                                     @Parameter(name = "k") @RequestParam(defaultValue = "10") int k){
+        List<SimilarMenuItem> similar = similarityService.getSimilar(itemId, Math.max(1, Math.min(k, MAX_PAGE_SIZE)));
+
+        List<Long> ids = similar.stream().map(SimilarMenuItem::getItemId).collect(Collectors.toList());
+        Map<Long, UCSBDiningCommonsMenuItem> items = new HashMap<>();
+        menuItemRepository.findAllById(ids).forEach(item -> items.put(item.getId(), item));
+        similar.forEach(s -> s.setItem(items.get(s.getItemId())));
+        return similar;
+    }
+
 }
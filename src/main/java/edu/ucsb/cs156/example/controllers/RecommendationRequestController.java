@@ -1,8 +1,16 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.RecommendationRequestChangedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsDoneEvent;
+import edu.ucsb.cs156.example.models.ProfessorWorkload;
+import edu.ucsb.cs156.example.repositories.ArchivedRecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.RecommendationRequestDeadlineService;
+import edu.ucsb.cs156.example.services.RecommendationRequestSpanService;
+import edu.ucsb.cs156.example.services.RecommendationRequestWorkloadService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,8 +21,10 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -24,6 +34,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import javax.validation.Valid;
 
@@ -36,6 +48,21 @@ public class RecommendationRequestController extends ApiController {
     @Autowired
     RecommendationRequestRepository recReqRepository;
 
+    @Autowired
+    ArchivedRecommendationRequestRepository archivedRecReqRepository;
+
+    @Autowired
+    RecommendationRequestDeadlineService deadlineService;
+
+    @Autowired
+    RecommendationRequestSpanService spanService;
+
+    @Autowired
+    RecommendationRequestWorkloadService workloadService;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
     @Operation(summary= "List all recommendation requests")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -44,12 +71,60 @@ public class RecommendationRequestController extends ApiController {
         return requests;
     }
 
-    @Operation(summary= "Get a single recommendation request")
+    @Operation(summary= "List a professor's recommendation requests that are not done and are needed in the next few days, soonest first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/dueSoon")
+    public List<RecommendationRequest> dueSoon(
+            @Parameter(name="professorEmail") @RequestParam String professorEmail,
+            @Parameter(name="days") @RequestParam(defaultValue = "7") int days) {
+        return deadlineService.getDueSoon(professorEmail, days);
+    }
+
+    @Operation(summary= "List a professor's recommendation requests needed from one time, inclusive, to another, exclusive, soonest first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/byDateNeeded")
+    public List<RecommendationRequest> byDateNeeded(
+            @Parameter(name="professorEmail") @RequestParam String professorEmail,
+            @Parameter(name="from", description="in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return recReqRepository.findNeededBetween(professorEmail, from, to);
+    }
+
+    @Operation(summary= "List a professor's recommendation requests made from one time, inclusive, to another, exclusive, oldest first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/byDateRequested")
+    public List<RecommendationRequest> byDateRequested(
+            @Parameter(name="professorEmail") @RequestParam String professorEmail,
+            @Parameter(name="from", description="in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return recReqRepository.findRequestedBetween(professorEmail, from, to);
+    }
+
+    @Operation(summary= "List a professor's recommendation requests that were outstanding at some time from one time to another, inclusive, by date requested")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/outstanding")
+    public List<RecommendationRequest> outstanding(
+            @Parameter(name="professorEmail") @RequestParam String professorEmail,
+            @Parameter(name="from", description="in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="defaults to from, which lists the requests outstanding at that time") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="includeDone") @RequestParam(defaultValue = "false") boolean includeDone) {
+        return spanService.getOutstanding(professorEmail, from, to == null ? from : to, includeDone);
+    }
+
+    @Operation(summary= "Numbers of open, done and overdue recommendation requests for each professor, most open requests first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/workload")
+    public List<ProfessorWorkload> workload() {
+        return workloadService.getWorkloads();
+    }
+
+    @Operation(summary= "Get a single recommendation request, including archived ones")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
     public RecommendationRequest getById(
             @Parameter(name="id") @RequestParam Long id) {
         RecommendationRequest request = recReqRepository.findById(id)
+                .or(() -> archivedRecReqRepository.findById(id).map(ArchivedRecommendationRequest::toRecommendationRequest))
                 .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
         return request;
@@ -58,6 +133,7 @@ public class RecommendationRequestController extends ApiController {
     @Operation(summary= "Create a new recommendation request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
+    @Transactional
     public RecommendationRequest postRecommendationRequest(
             @Parameter(name="requesterEmail") @RequestParam String requesterEmail,
             @Parameter(name="professorEmail") @RequestParam String professorEmail,
@@ -82,12 +158,14 @@ public class RecommendationRequestController extends ApiController {
         rq.setDone(done);
 
         RecommendationRequest savedRequest = recReqRepository.save(rq);
+        eventPublisher.publishEvent(new RecommendationRequestChangedEvent(null, savedRequest));
         return savedRequest;
     }
 
     @Operation(summary= "Update a single recommendation request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
+    @Transactional
     public RecommendationRequest updateRecommendationRequest(
         @Parameter(name="id") @RequestParam Long id,
         @RequestBody @Valid RecommendationRequest incoming) {
@@ -96,6 +174,7 @@ public class RecommendationRequestController extends ApiController {
 
         RecommendationRequest rq = recReqRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
+        RecommendationRequest before = rq.toBuilder().build();
 
         rq.setRequesterEmail(incoming.getRequesterEmail());
         rq.setProfessorEmail(incoming.getProfessorEmail());
@@ -105,19 +184,38 @@ public class RecommendationRequestController extends ApiController {
         rq.setDone(incoming.getDone());
 
         recReqRepository.save(rq);
+        eventPublisher.publishEvent(new RecommendationRequestChangedEvent(before, rq));
 
         return rq;
     }
 
+    @Operation(summary= "Mark every recommendation request that is not done, or those of one professor or needed before a time, as done with a single UPDATE")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/done")
+    @Transactional
+    public Object markRecommendationRequestsDone(
+        @Parameter(name="professorEmail") @RequestParam(required = false) String professorEmail,
+        @Parameter(name="neededBefore", description="in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime neededBefore) {
+        int count = neededBefore == null
+                ? recReqRepository.markDone(professorEmail)
+                : recReqRepository.markDoneNeededBefore(professorEmail, neededBefore);
+        if (count > 0) {
+            eventPublisher.publishEvent(new RecommendationRequestsDoneEvent(professorEmail, neededBefore, count));
+        }
+        return Map.of("message", "%d recommendation requests marked done".formatted(count), "count", count);
+    }
+
     @Operation(summary= "Delete a RecommendationRequest")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
+    @Transactional
     public Object deleteRecommendationRequest(
             @Parameter(name="id") @RequestParam Long id) {
         RecommendationRequest rq = recReqRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
         recReqRepository.delete(rq);
+        eventPublisher.publishEvent(new RecommendationRequestChangedEvent(rq, null));
         return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
     }
 }
\ No newline at end of file
@@ -2,7 +2,9 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.UCSBDateChangedEvent;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.UCSBDateCalendarService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,8 +14,10 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -26,6 +30,7 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Tag(name = "UCSBDates")
 @RequestMapping("/api/ucsbdates")
@@ -36,6 +41,12 @@ public class UCSBDatesController extends ApiController {
     @Autowired
     UCSBDateRepository ucsbDateRepository;
 
+    @Autowired
+    UCSBDateCalendarService calendarService;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
     @Operation(summary= "List all ucsb dates")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -44,9 +55,28 @@ public class UCSBDatesController extends ApiController {
         return dates;
     }
 
+    @Operation(summary= "List the dates of a quarter, in date order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/quarter")
+    public List<UCSBDate> quarterUCSBDates(
+            @Parameter(name="q", description="quarter in YYYYQ format, e.g. 20231; defaults to the current quarter") @RequestParam(required = false) String q) {
+        String quarter = q != null ? q : calendarService.getCurrentQuarter();
+        return quarter == null ? List.of() : calendarService.getQuarter(quarter);
+    }
+
+    @Operation(summary= "List the dates from one time, inclusive, to another, exclusive, in date order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/range")
+    public List<UCSBDate> rangeUCSBDates(
+            @Parameter(name="from", description="in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return calendarService.getRange(from, to);
+    }
+
     @Operation(summary= "Create a new date")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
+    @Transactional
     public UCSBDate postUCSBDate(
             @Parameter(name="quarterYYYYQ") @RequestParam String quarterYYYYQ,
             @Parameter(name="name") @RequestParam String name,
@@ -64,6 +94,7 @@ public class UCSBDatesController extends ApiController {
         ucsbDate.setLocalDateTime(localDateTime);
 
         UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
+        eventPublisher.publishEvent(new UCSBDateChangedEvent(null, savedUcsbDate));
 
         return savedUcsbDate;
     }
@@ -82,30 +113,35 @@ public class UCSBDatesController extends ApiController {
     @Operation(summary= "Delete a UCSBDate")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
+    @Transactional
     public Object deleteUCSBDate(
             @Parameter(name="id") @RequestParam Long id) {
         UCSBDate ucsbDate = ucsbDateRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
         ucsbDateRepository.delete(ucsbDate);
+        eventPublisher.publishEvent(new UCSBDateChangedEvent(ucsbDate, null));
         return genericMessage("UCSBDate with id %s deleted".formatted(id));
     }
 
     @Operation(summary= "Update a single date")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
+    @Transactional
     public UCSBDate updateUCSBDate(
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid UCSBDate incoming) {
 
         UCSBDate ucsbDate = ucsbDateRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+        UCSBDate before = ucsbDate.toBuilder().build();
 
         ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
         ucsbDate.setName(incoming.getName());
         ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
 
         ucsbDateRepository.save(ucsbDate);
+        eventPublisher.publishEvent(new UCSBDateChangedEvent(before, ucsbDate));
 
         return ucsbDate;
     }
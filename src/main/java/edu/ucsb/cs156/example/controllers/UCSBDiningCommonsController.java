@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.RequestCoalescingService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -31,11 +32,15 @@ public class UCSBDiningCommonsController extends ApiController {
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+    @Autowired
+    RequestCoalescingService requestCoalescingService;
+
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
     public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
+        Iterable<UCSBDiningCommons> commons = requestCoalescingService.coalesce("ucsbdiningcommons.all", "all",
+                () -> ucsbDiningCommonsRepository.findAll());
         return commons;
     }
 
@@ -72,7 +77,8 @@ public class UCSBDiningCommonsController extends ApiController {
     @GetMapping("")
     public UCSBDiningCommons getById(
             @Parameter(name="code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
+        UCSBDiningCommons commons = requestCoalescingService.coalesce("ucsbdiningcommons.getById", code,
+                () -> ucsbDiningCommonsRepository.findById(code))
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
         return commons;
@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * A solved help request that RequestArchivalService has moved out of
+ * helprequest.  Keeps the id it had there.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "archivedhelprequest")
+public class ArchivedHelpRequest {
+  @Id
+  private long id;
+
+  String requesterEmail;
+  String teamId;
+  String tableOrBreakoutRoom;
+  LocalDateTime requestTime;
+  String explanation;
+  boolean solved;
+  String claimedBy;
+  LocalDateTime claimedAt;
+  LocalDateTime solvedAt;
+  LocalDateTime archivedAt;
+
+  public static ArchivedHelpRequest of(HelpRequest r, LocalDateTime archivedAt) {
+    return new ArchivedHelpRequest(r.getId(), r.getRequesterEmail(), r.getTeamId(), r.getTableOrBreakoutRoom(),
+        r.getRequestTime(), r.getExplanation(), r.getSolved(), r.getClaimedBy(), r.getClaimedAt(), r.getSolvedAt(),
+        archivedAt);
+  }
+
+  public HelpRequest toHelpRequest() {
+    return new HelpRequest(id, requesterEmail, teamId, tableOrBreakoutRoom, requestTime, explanation, solved,
+        claimedBy, claimedAt, solvedAt);
+  }
+}
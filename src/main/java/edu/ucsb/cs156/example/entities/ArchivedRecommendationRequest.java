@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * A done recommendation request that RequestArchivalService has moved out
+ * of recommendationrequest.  Keeps the id it had there.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "archivedrecommendationrequest")
+public class ArchivedRecommendationRequest {
+  @Id
+  private long id;
+
+  private String requesterEmail;
+  private String professorEmail;
+  private String explanation;
+  private LocalDateTime dateRequested;
+  private LocalDateTime dateNeeded;
+  private boolean done;
+  private LocalDateTime archivedAt;
+
+  public static ArchivedRecommendationRequest of(RecommendationRequest r, LocalDateTime archivedAt) {
+    return new ArchivedRecommendationRequest(r.getId(), r.getRequesterEmail(), r.getProfessorEmail(),
+        r.getExplanation(), r.getDateRequested(), r.getDateNeeded(), r.getDone(), archivedAt);
+  }
+
+  public RecommendationRequest toRecommendationRequest() {
+    return new RecommendationRequest(id, requesterEmail, professorEmail, explanation, dateRequested, dateNeeded, done);
+  }
+}
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.entities;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * A menu item review that MenuItemReviewRetentionService has added to the
+ * rollups but may not have deleted yet.  A review with a row here is never
+ * added to the rollups again.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "compactedmenuitemreview")
+public class CompactedMenuItemReview {
+  @Id
+  private long reviewId;
+}
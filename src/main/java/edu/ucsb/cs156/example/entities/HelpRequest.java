@@ -6,6 +6,8 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,8 +17,10 @@ import lombok.Builder;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity(name = "helprequest")
+// serves HelpRequestRepository.findUnclaimedForUpdate and findSolvedBefore
+@Table(indexes = @Index(name = "helprequest_solved_time_id", columnList = "solved, requestTime, id"))
 public class HelpRequest {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,5 +32,10 @@ public class HelpRequest {
   LocalDateTime requestTime;
   String explanation;
   boolean solved;
+  /** email of the TA who claimed the request; null until it is claimed */
+  String claimedBy;
+  LocalDateTime claimedAt;
+  /** when the request was last marked solved; null while it is unsolved */
+  LocalDateTime solvedAt;
 
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.entities;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * One row per scheduled job.  A job locks its row while it works, so that
+ * when several app instances share the database only one of them runs the
+ * job at a time.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "joblock")
+public class JobLock {
+  @Id
+  private String name;
+}
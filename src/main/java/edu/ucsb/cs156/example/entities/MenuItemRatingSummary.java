@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.entities;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * Running totals of the reviews for one menu item, kept up to date by
+ * MenuItemRatingService
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "menuitemratingsummary")
+public class MenuItemRatingSummary {
+  @Id
+  private long itemId;
+
+  private long reviewCount;
+  private long starsSum;
+  private long stars1;
+  private long stars2;
+  private long stars3;
+  private long stars4;
+  private long stars5;
+}
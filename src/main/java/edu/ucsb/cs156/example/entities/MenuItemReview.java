@@ -6,6 +6,8 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,8 +17,14 @@ import lombok.Builder;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity(name = "menuitemreview")
+// serve the keyset pagination in MenuItemReviewRepository.findPage* and the
+// retention job's findReviewedBefore
+@Table(indexes = {
+    @Index(name = "menuitemreview_item_date_id", columnList = "itemId, dateReviewed DESC, id"),
+    @Index(name = "menuitemreview_date_id", columnList = "dateReviewed, id")
+})
 public class MenuItemReview {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDate;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * Totals of the reviews of one menu item in one month, for reviews that
+ * MenuItemReviewRetentionService has removed from menuitemreview
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "menuitemreviewrollup")
+@Table(uniqueConstraints = @UniqueConstraint(name = "menuitemreviewrollup_item_month", columnNames = { "itemId", "reviewMonth" }))
+public class MenuItemReviewRollup {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private long itemId;
+  /** First day of the month */
+  private LocalDate reviewMonth;
+
+  private long reviewCount;
+  private long starsSum;
+  private long stars1;
+  private long stars2;
+  private long stars3;
+  private long stars4;
+  private long stars5;
+}
@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import edu.ucsb.cs156.example.collections.HyperLogLog;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * HyperLogLog sketch of the reviewers of one menu item on one day, saved by
+ * MenuItemReviewerCountService
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "menuitemreviewersketch")
+@Table(uniqueConstraints = @UniqueConstraint(name = "menuitemreviewersketch_item_day", columnNames = { "itemId", "reviewDay" }))
+public class MenuItemReviewerSketch {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private long itemId;
+  private LocalDate reviewDay;
+
+  /** HyperLogLog.toBytes: sparse entries, or all SIZE registers */
+  @Column(length = HyperLogLog.SIZE)
+  private byte[] registers;
+}
@@ -6,6 +6,8 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,8 +17,16 @@ import lombok.Builder;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity(name = "recommendationrequest")
+// serve RecommendationRequestRepository.findDoneBefore, findNeededBetween, findRequestedBetween
+// and, from the index alone, countByProfessorAndDoneAndDateNeeded
+@Table(indexes = {
+    @Index(name = "recommendationrequest_done_date_id", columnList = "done, dateRequested, id"),
+    @Index(name = "recommendationrequest_professor_needed_id", columnList = "professorEmail, dateNeeded, id"),
+    @Index(name = "recommendationrequest_professor_requested_id", columnList = "professorEmail, dateRequested, id"),
+    @Index(name = "recommendationrequest_professor_done_needed", columnList = "professorEmail, done, dateNeeded")
+})
 public class RecommendationRequest {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
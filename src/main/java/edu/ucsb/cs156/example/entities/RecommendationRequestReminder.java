@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * Outbox row for a reminder that a recommendation request is due soon,
+ * written by RecommendationRequestReminderService.  At most one per
+ * request and dateNeeded.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "recommendationrequestreminder")
+@Table(uniqueConstraints = @UniqueConstraint(name = "recommendationrequestreminder_request_needed", columnNames = { "recommendationRequestId", "dateNeeded" }))
+public class RecommendationRequestReminder {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private long recommendationRequestId;
+  private String requesterEmail;
+  private String professorEmail;
+  private LocalDateTime dateNeeded;
+  private LocalDateTime remindAt;
+  private LocalDateTime createdAt;
+}
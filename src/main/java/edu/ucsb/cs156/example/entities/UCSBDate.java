@@ -6,6 +6,8 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,8 +17,10 @@ import lombok.Builder;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity(name = "ucsbdates")
+// serve UCSBDateRepository.findAllByQuarterYYYYQ, in date order
+@Table(indexes = @Index(name = "ucsbdates_quarter_date", columnList = "quarterYYYYQ, localDateTime"))
 public class UCSBDate {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
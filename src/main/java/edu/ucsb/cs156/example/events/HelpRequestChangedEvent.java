@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.events;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by HelpRequestController whenever a help request is created,
+ * updated or deleted, inside the transaction that made the change.
+ *
+ * {@code before} is null for a new request and {@code after} is null for a
+ * deleted one.  As with MenuItemReviewChangedEvent, in-memory listeners
+ * should use {@code @TransactionalEventListener(fallbackExecution = true)}.
+ */
+@Data
+@AllArgsConstructor
+public class HelpRequestChangedEvent {
+  private HelpRequest before;
+  private HelpRequest after;
+}
@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.events;
+
+import java.util.List;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by RequestArchivalService when it has moved solved help
+ * requests to archivedhelprequest.  The requests have not changed and
+ * still count as solved, so this is not a HelpRequestChangedEvent.
+ */
+@Data
+@AllArgsConstructor
+public class HelpRequestsArchivedEvent {
+  private List<HelpRequest> requests;
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.events;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published when many help requests are marked solved by one UPDATE.
+ * Which rows changed is not known, so listeners reload what they need.
+ */
+@Data
+@AllArgsConstructor
+public class HelpRequestsSolvedEvent {
+  /** null for every team */
+  private List<String> teamIds;
+  /** null for every table and breakout room */
+  private String tableOrBreakoutRoom;
+  private LocalDateTime solvedAt;
+  private int count;
+}
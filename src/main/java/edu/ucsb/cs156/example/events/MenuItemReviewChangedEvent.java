@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.events;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by MenuItemReviewController whenever a review is created,
+ * updated or deleted, inside the transaction that made the change.
+ *
+ * {@code before} is null for a new review and {@code after} is null for a
+ * deleted one.  Listeners that keep in-memory state should use
+ * {@code @TransactionalEventListener(fallbackExecution = true)} so that
+ * they only see committed changes.
+ */
+@Data
+@AllArgsConstructor
+public class MenuItemReviewChangedEvent {
+  private MenuItemReview before;
+  private MenuItemReview after;
+}
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.events;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by MenuItemReviewRetentionService when it has folded reviews
+ * into menuitemreviewrollup and deleted them.  The reviews still count
+ * towards rating totals, so this is not a MenuItemReviewChangedEvent.
+ */
+@Data
+@AllArgsConstructor
+public class MenuItemReviewsCompactedEvent {
+  private List<Long> ids;
+}
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.events;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by RecommendationRequestController whenever a recommendation
+ * request is created, updated or deleted, inside the transaction that made
+ * the change; the same contract as HelpRequestChangedEvent.
+ */
+@Data
+@AllArgsConstructor
+public class RecommendationRequestChangedEvent {
+  private RecommendationRequest before;
+  private RecommendationRequest after;
+}
@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.events;
+
+import java.util.List;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by RequestArchivalService when it has moved done
+ * recommendation requests to archivedrecommendationrequest.  The requests
+ * have not changed, so this is not a RecommendationRequestChangedEvent.
+ */
+@Data
+@AllArgsConstructor
+public class RecommendationRequestsArchivedEvent {
+  private List<RecommendationRequest> requests;
+}
@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.events;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published when many recommendation requests are marked done by one
+ * UPDATE, with the filter that was used.
+ */
+@Data
+@AllArgsConstructor
+public class RecommendationRequestsDoneEvent {
+  /** null for every professor */
+  private String professorEmail;
+  /** null for any dateNeeded */
+  private LocalDateTime neededBefore;
+  private int count;
+}
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.events;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by UCSBDatesController whenever a date is created, updated or
+ * deleted, inside the transaction that made the change; the same contract
+ * as HelpRequestChangedEvent.
+ */
+@Data
+@AllArgsConstructor
+public class UCSBDateChangedEvent {
+  private UCSBDate before;
+  private UCSBDate after;
+}
@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that adapts to observed latency, along the lines of
+ * TCP Vegas.
+ *
+ * The limiter remembers the lowest latency it has seen (the "no load"
+ * latency).  For each completed request it estimates how many requests are
+ * queued rather than being worked on: {@code limit * (1 - noLoad / latency)}.
+ * A short queue means there is headroom, so the limit grows; a long queue
+ * means the backend (usually Postgres) is saturated, so the limit shrinks.
+ * The no-load latency is forgotten every {@code probeInterval} samples so
+ * that the limiter can follow a baseline that has moved.
+ *
+ * {@link #tryAcquire()} never blocks; callers that do not get a permit
+ * should fail fast.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final int probeInterval;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile double limit;
+
+  // guarded by this
+  private long noLoadNanos;
+  private long samples;
+
+  public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int probeInterval) {
+    if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("need 1 <= minLimit <= initialLimit <= maxLimit");
+    }
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.probeInterval = probeInterval;
+  }
+
+  /** @return true if the caller may proceed, in which case it must call {@link #release} */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= getLimit()) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @param latencyNanos how long the request took
+   * @param inFlightAtStart how many requests were in flight when it was admitted
+   */
+  public void release(long latencyNanos, int inFlightAtStart) {
+    inFlight.decrementAndGet();
+    if (latencyNanos > 0) {
+      update(latencyNanos, inFlightAtStart);
+    }
+  }
+
+  private synchronized void update(long latencyNanos, int inFlightAtStart) {
+    samples++;
+    if (probeInterval > 0 && samples % probeInterval == 0) {
+      noLoadNanos = 0;
+    }
+    if (noLoadNanos == 0 || latencyNanos < noLoadNanos) {
+      noLoadNanos = latencyNanos;
+    }
+
+    double current = limit;
+    double step = Math.max(1.0, Math.log10(current));
+    double queue = current * (1.0 - (double) noLoadNanos / latencyNanos);
+
+    double next = current;
+    if (queue < 3 * step) {
+      // only grow when the limit is actually being used
+      if (inFlightAtStart * 2 >= current) {
+        next = current + step;
+      }
+    } else if (queue > 6 * step) {
+      next = current - step;
+    }
+    limit = Math.min(maxLimit, Math.max(minLimit, next));
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+}
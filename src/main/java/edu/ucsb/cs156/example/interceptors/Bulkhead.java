@@ -0,0 +1,52 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * A fixed number of permits for one class of requests, so that a burst of
+ * one kind of work cannot use up the threads (and database connections)
+ * needed by another.
+ */
+public class Bulkhead {
+  @Getter
+  private final String name;
+  @Getter
+  private final int maxConcurrent;
+  private final Semaphore permits;
+  private final LongAdder rejected = new LongAdder();
+
+  public Bulkhead(String name, int maxConcurrent) {
+    this.name = name;
+    this.maxConcurrent = maxConcurrent;
+    this.permits = new Semaphore(maxConcurrent);
+  }
+
+  public boolean tryEnter(long maxWaitMillis) throws InterruptedException {
+    if (permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+      return true;
+    }
+    rejected.increment();
+    return false;
+  }
+
+  public void exit() {
+    permits.release();
+  }
+
+  public int getActive() {
+    return maxConcurrent - permits.availablePermits();
+  }
+
+  /** Fraction of the permits in use */
+  public double getSaturation() {
+    return (double) getActive() / maxConcurrent;
+  }
+
+  public long getRejected() {
+    return rejected.sum();
+  }
+}
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.interceptors;
+
+/**
+ * The bulkhead that the request on the current thread was admitted to.
+ * BulkheadRoutingDataSource uses it to pick a connection pool.
+ */
+public final class BulkheadContext {
+  private static final ThreadLocal<String> current = new ThreadLocal<>();
+
+  private BulkheadContext() {
+  }
+
+  public static String get() {
+    return current.get();
+  }
+
+  static void set(String bulkhead) {
+    current.set(bulkhead);
+  }
+
+  static void clear() {
+    current.remove();
+  }
+}
@@ -0,0 +1,127 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import java.util.Map;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps admin work and user work apart.
+ *
+ * Requests from users with ROLE_ADMIN go through the "admin" bulkhead,
+ * everything else through the "user" bulkhead.  The role comes from the
+ * SecurityContext, so the choice is made without touching the database.
+ * When a bulkhead is full the request is refused with 503.  While the
+ * request runs, BulkheadContext names its bulkhead, so that its database
+ * work uses that bulkhead's connection pool.  Hibernate keeps the first
+ * connection a request opens until the request ends, so nothing that runs
+ * before this interceptor may use the database.
+ *
+ * An async request keeps its permit until it completes: the permit stays on
+ * the request when the first dispatch hands off, and the redispatch does
+ * not take another.
+ */
+@Slf4j
+public class BulkheadInterceptor implements AsyncHandlerInterceptor, MeterBinder {
+
+  public static final String USER = "user";
+  public static final String ADMIN = "admin";
+
+  static final String ATTRIBUTE = BulkheadInterceptor.class.getName() + ".bulkhead";
+
+  private final Map<String, Bulkhead> bulkheads;
+  private final long maxWaitMillis;
+
+  public BulkheadInterceptor(Bulkhead user, Bulkhead admin, long maxWaitMillis) {
+    this.bulkheads = Map.of(USER, user, ADMIN, admin);
+    this.maxWaitMillis = maxWaitMillis;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws Exception {
+    if (!(handler instanceof HandlerMethod)) {
+      return true;
+    }
+    if (request.getDispatcherType() == DispatcherType.ASYNC) {
+      Bulkhead admitted = (Bulkhead) request.getAttribute(ATTRIBUTE);
+      if (admitted != null) {
+        BulkheadContext.set(admitted.getName());
+      }
+      return true;
+    }
+    String name = isAdmin(SecurityContextHolder.getContext().getAuthentication()) ? ADMIN : USER;
+    Bulkhead bulkhead = bulkheads.get(name);
+    if (!bulkhead.tryEnter(maxWaitMillis)) {
+      log.info("{} bulkhead is full, refusing {} {}", name, request.getMethod(), request.getRequestURI());
+      response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server busy, try again");
+      return false;
+    }
+    request.setAttribute(ATTRIBUTE, bulkhead);
+    BulkheadContext.set(name);
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+      Object handler) throws Exception {
+    // the worker thread goes back to Tomcat; the permit stays with the request
+    BulkheadContext.clear();
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+      Exception ex) throws Exception {
+    Bulkhead bulkhead = (Bulkhead) request.getAttribute(ATTRIBUTE);
+    if (bulkhead == null) {
+      return;
+    }
+    request.removeAttribute(ATTRIBUTE);
+    BulkheadContext.clear();
+    bulkhead.exit();
+  }
+
+  private static boolean isAdmin(Authentication authentication) {
+    return authentication != null
+        && authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+  }
+
+  public Bulkhead getBulkhead(String name) {
+    return bulkheads.get(name);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    bulkheads.forEach((name, bulkhead) -> {
+      Gauge.builder("bulkhead.active", bulkhead, Bulkhead::getActive)
+          .description("Requests currently inside the bulkhead")
+          .tag("bulkhead", name)
+          .register(registry);
+      Gauge.builder("bulkhead.max", bulkhead, Bulkhead::getMaxConcurrent)
+          .description("Requests allowed inside the bulkhead")
+          .tag("bulkhead", name)
+          .register(registry);
+      Gauge.builder("bulkhead.saturation", bulkhead, Bulkhead::getSaturation)
+          .description("Fraction of the bulkhead in use")
+          .tag("bulkhead", name)
+          .register(registry);
+      FunctionCounter.builder("bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+          .description("Requests refused because the bulkhead was full")
+          .tag("bulkhead", name)
+          .register(registry);
+    });
+  }
+}
@@ -0,0 +1,93 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import java.util.function.LongSupplier;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import edu.ucsb.cs156.example.controllers.ApiController;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sheds load in front of every ApiController.
+ *
+ * Requests beyond the limit of an AdaptiveConcurrencyLimiter are refused at
+ * once with 503, instead of waiting in Tomcat's queue for a database
+ * connection.  An async request holds its permit from the first dispatch
+ * until the redispatch completes, and the redispatch is not counted again.
+ */
+@Slf4j
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor, MeterBinder {
+
+  static final String START_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".start";
+  static final String IN_FLIGHT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".inFlight";
+
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final LongSupplier clock;
+  private Counter rejected;
+
+  public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter) {
+    this(limiter, System::nanoTime);
+  }
+
+  ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter, LongSupplier clock) {
+    this.limiter = limiter;
+    this.clock = clock;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws Exception {
+    if (!(handler instanceof HandlerMethod)
+        || !ApiController.class.isAssignableFrom(((HandlerMethod) handler).getBeanType())
+        || request.getDispatcherType() == DispatcherType.ASYNC) {
+      return true;
+    }
+    if (!limiter.tryAcquire()) {
+      log.info("concurrency limit {} reached, shedding {} {}", limiter.getLimit(), request.getMethod(),
+          request.getRequestURI());
+      if (rejected != null) {
+        rejected.increment();
+      }
+      response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server busy, try again");
+      return false;
+    }
+    request.setAttribute(IN_FLIGHT_ATTRIBUTE, limiter.getInFlight());
+    request.setAttribute(START_ATTRIBUTE, clock.getAsLong());
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+      Exception ex) throws Exception {
+    Object start = request.getAttribute(START_ATTRIBUTE);
+    if (start == null) {
+      return;
+    }
+    request.removeAttribute(START_ATTRIBUTE);
+    long latency = clock.getAsLong() - (Long) start;
+    limiter.release(latency, (Integer) request.getAttribute(IN_FLIGHT_ATTRIBUTE));
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+        .description("Requests currently allowed in flight")
+        .register(registry);
+    Gauge.builder("concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+        .description("Requests in flight")
+        .register(registry);
+    rejected = Counter.builder("concurrency.rejected")
+        .description("Requests refused with 503")
+        .register(registry);
+  }
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * The kind of work an API endpoint does, as far as admission control is
+ * concerned.
+ *
+ * Endpoints whose {@code @PreAuthorize} requires ROLE_ADMIN are ADMIN;
+ * otherwise GET and HEAD are READ and everything else is WRITE.
+ */
+public enum EndpointClass {
+  READ, WRITE, ADMIN;
+
+  public static EndpointClass of(HttpServletRequest request, HandlerMethod handler) {
+    PreAuthorize preAuthorize = handler.getMethodAnnotation(PreAuthorize.class);
+    if (preAuthorize != null && preAuthorize.value().contains("ROLE_ADMIN")) {
+      return ADMIN;
+    }
+    String method = request.getMethod();
+    if (method.equals("GET") || method.equals("HEAD")) {
+      return READ;
+    }
+    return WRITE;
+  }
+}
@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import edu.ucsb.cs156.example.config.RateLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-client token-bucket rate limiting for the API.
+ *
+ * Clients are identified by the logged in user's email, or by IP address
+ * when nobody is logged in.  The email is read from the OAuth2 principal in
+ * the SecurityContext rather than through CurrentUserService, which looks
+ * the user up in the database: the limiter must not use a connection before
+ * it has decided whether to let the request in.
+ *
+ * Each client gets a separate bucket for each EndpointClass, sized from
+ * RateLimitProperties.  When a bucket is empty the request is refused with
+ * 429 and a Retry-After header, before the controller (and the database) is
+ * reached.  At most maxBuckets buckets are kept; past that the least
+ * recently used one is dropped, which only matters if its client comes back
+ * before the bucket would have refilled.
+ *
+ * This runs as a HandlerInterceptor rather than a servlet filter so that it
+ * sees the handler method, and can tell admin endpoints from the
+ * {@code @PreAuthorize} annotation.
+ */
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+  private final RateLimitProperties properties;
+  private final LongSupplier clock;
+
+  // in access order, so the eldest entry is the least recently used bucket
+  private final Map<String, TokenBucket> buckets = Collections.synchronizedMap(
+      new LinkedHashMap<String, TokenBucket>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+          return size() > properties.getMaxBuckets();
+        }
+      });
+
+  public RateLimitInterceptor(RateLimitProperties properties) {
+    this(properties, System::nanoTime);
+  }
+
+  RateLimitInterceptor(RateLimitProperties properties, LongSupplier clock) {
+    this.properties = properties;
+    this.clock = clock;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws Exception {
+    if (!properties.getEnabled() || !(handler instanceof HandlerMethod)) {
+      return true;
+    }
+
+    EndpointClass endpointClass = EndpointClass.of(request, (HandlerMethod) handler);
+    String key = endpointClass + "|" + clientKey(request);
+    long now = clock.getAsLong();
+
+    RateLimitProperties.Limit limit = properties.limitFor(endpointClass);
+    TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(limit.getCapacity(), limit.getPerSecond()));
+
+    long waitNanos = bucket.tryAcquire(now);
+    if (waitNanos == 0) {
+      return true;
+    }
+
+    long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    log.info("rate limit exceeded for {}, retry after {}s", key, retryAfterSeconds);
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+    return false;
+  }
+
+  int getBucketCount() {
+    return buckets.size();
+  }
+
+  private static String clientKey(HttpServletRequest request) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication instanceof OAuth2AuthenticationToken) {
+      String email = ((OAuth2AuthenticationToken) authentication).getPrincipal().getAttribute("email");
+      if (email != null) {
+        return "user:" + email;
+      }
+    }
+    return "ip:" + request.getRemoteAddr();
+  }
+}
@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket.
+ *
+ * Rather than a token count and a last-refill time, the bucket keeps a single
+ * "theoretical arrival time" (the GCRA formulation): the instant at which the
+ * bucket would be full again.  Taking a token pushes it one refill interval
+ * into the future, and a request is refused if that would put it more than
+ * capacity intervals ahead of now.  One value means one compareAndSet.
+ *
+ * All times are in nanoseconds, as returned by System.nanoTime().
+ */
+public class TokenBucket {
+  private final long nanosPerToken;
+  private final long burstNanos;
+  private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+  public TokenBucket(long capacity, double tokensPerSecond) {
+    if (capacity < 1 || tokensPerSecond <= 0) {
+      throw new IllegalArgumentException("capacity must be >= 1 and tokensPerSecond > 0");
+    }
+    this.nanosPerToken = Math.max(1L, (long) (1_000_000_000L / tokensPerSecond));
+    this.burstNanos = capacity * nanosPerToken;
+  }
+
+  /**
+   * Takes one token if one is available.
+   *
+   * @return 0 if a token was taken, otherwise the number of nanoseconds until
+   *         one will be available
+   */
+  public long tryAcquire(long now) {
+    while (true) {
+      long current = fullAt.get();
+      long next = Math.max(current, now) + nanosPerToken;
+      long wait = next - now - burstNanos;
+      if (wait > 0) {
+        return wait;
+      }
+      if (fullAt.compareAndSet(current, next)) {
+        return 0;
+      }
+    }
+  }
+}
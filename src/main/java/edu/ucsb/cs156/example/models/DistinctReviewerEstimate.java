@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDate;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class DistinctReviewerEstimate {
+  /** first and last day of the window, inclusive; null if unbounded */
+  private LocalDate from;
+  private LocalDate to;
+  /** estimated number of different reviewers */
+  private long reviewers;
+  /** relative standard error of the estimate */
+  private double standardError;
+}
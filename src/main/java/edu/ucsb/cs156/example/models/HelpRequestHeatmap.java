@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+/** Numbers of help requests made at one table or breakout room, by weekday and hour */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HelpRequestHeatmap {
+  private String tableOrBreakoutRoom;
+  private long total;
+  /** counts[day][hour] for day 0 (Monday) to 6 (Sunday) and hour 0 to 23 of requestTime */
+  private long[][] counts;
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class MenuItemRanking {
+  private int rank;
+  private double score;
+  /** null if the reviews are for an item that is no longer on the menu */
+  private UCSBDiningCommonsMenuItem item;
+  private MenuItemRatingStats stats;
+}
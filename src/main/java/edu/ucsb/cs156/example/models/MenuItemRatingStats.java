@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class MenuItemRatingStats {
+  private long itemId;
+  private long count;
+  private long sum;
+  /** Number of 1, 2, 3, 4 and 5 star reviews */
+  private long[] histogram;
+
+  public double getAverage() {
+    return count == 0 ? 0.0 : (double) sum / count;
+  }
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class MenuItemReviewAggregate {
+  /** The day, item id, reviewer email or star rating; null when not grouped */
+  private String group;
+  private long count;
+  private long starsSum;
+  private int minStars;
+  private int maxStars;
+
+  public double getAverage() {
+    return count == 0 ? 0.0 : (double) starsSum / count;
+  }
+}
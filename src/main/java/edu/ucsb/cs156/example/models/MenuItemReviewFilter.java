@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+/** Conditions on reviews for analytics queries; null fields match everything */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class MenuItemReviewFilter {
+  private Long itemId;
+  private String reviewerEmail;
+  /** inclusive */
+  private LocalDateTime from;
+  /** exclusive */
+  private LocalDateTime to;
+  private Integer minStars;
+  private Integer maxStars;
+}
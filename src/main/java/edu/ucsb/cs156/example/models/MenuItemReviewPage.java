@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class MenuItemReviewPage {
+  private List<MenuItemReview> reviews;
+  /** Value of {@code before} for the next page, or null if this is the last page */
+  private String next;
+}
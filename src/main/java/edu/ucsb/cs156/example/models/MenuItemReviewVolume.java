@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+/** Numbers of reviews posted recently, oldest bucket first */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class MenuItemReviewVolume {
+  private List<VolumeBucket> lastHourByMinute;
+  private List<VolumeBucket> lastDayByHour;
+  private List<VolumeBucket> lastWeekByDay;
+}
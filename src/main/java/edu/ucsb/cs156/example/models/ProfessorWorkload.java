@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ProfessorWorkload {
+  private String professorEmail;
+  /** requests that are not done */
+  private long open;
+  private long done;
+  /** open requests whose dateNeeded has passed */
+  private long overdue;
+}
@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SimilarMenuItem {
+  private long itemId;
+  /** null if the item is no longer on the menu */
+  private UCSBDiningCommonsMenuItem item;
+  /** number of reviewers who liked both items */
+  private long reviewers;
+  /** cosine similarity of the sets of reviewers who liked each item */
+  private double similarity;
+}
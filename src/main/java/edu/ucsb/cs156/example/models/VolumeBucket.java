@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class VolumeBucket {
+  private LocalDateTime start;
+  private long count;
+}
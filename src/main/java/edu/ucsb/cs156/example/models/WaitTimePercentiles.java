@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDate;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class WaitTimePercentiles {
+  /** first and last day the requests were solved on, inclusive; null if unbounded */
+  private LocalDate from;
+  private LocalDate to;
+  /** number of solved requests */
+  private long count;
+  /** seconds from requestTime to solvedAt, to within about 2% */
+  private long p50;
+  private long p90;
+  private long p99;
+  private long max;
+}
@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.util.List;
+
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+
+@Repository
+public interface ArchivedHelpRequestRepository extends CrudRepository<ArchivedHelpRequest, Long> {
+  Iterable<ArchivedHelpRequest> findBySolvedTrueAndSolvedAtIsNotNull();
+
+  /** Rows of { tableOrBreakoutRoom, year, month, day, hour, number of requests } */
+  @Query("select r.tableOrBreakoutRoom, year(r.requestTime), month(r.requestTime), day(r.requestTime),"
+      + " hour(r.requestTime), count(r) from archivedhelprequest r"
+      + " where r.tableOrBreakoutRoom is not null and r.requestTime is not null"
+      + " group by r.tableOrBreakoutRoom, year(r.requestTime), month(r.requestTime), day(r.requestTime),"
+      + " hour(r.requestTime)")
+  List<Object[]> countByRoomAndHour();
+}
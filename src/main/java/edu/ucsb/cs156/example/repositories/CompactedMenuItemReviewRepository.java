@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.util.Collection;
+
+import edu.ucsb.cs156.example.entities.CompactedMenuItemReview;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CompactedMenuItemReviewRepository extends CrudRepository<CompactedMenuItemReview, Long> {
+  /**
+   * Records a review as added to the rollups.  Unlike save, which merges an
+   * entity with an assigned id, this fails if the review is already recorded.
+   */
+  @Modifying
+  @Query(value = "insert into compactedmenuitemreview (review_id) values (:reviewId)", nativeQuery = true)
+  int insert(@Param("reviewId") long reviewId);
+
+  @Modifying
+  @Query("delete from compactedmenuitemreview c where c.reviewId in :ids")
+  int deleteByReviewIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -1,11 +1,76 @@
 package edu.ucsb.cs156.example.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
 import edu.ucsb.cs156.example.entities.HelpRequest;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
-}
\ No newline at end of file
+  Iterable<HelpRequest> findBySolvedFalseAndClaimedByIsNull();
+
+  Iterable<HelpRequest> findBySolvedTrueAndSolvedAtIsNotNull();
+
+  /**
+   * The oldest unsolved, unclaimed requests, locked for update.  Rows that
+   * another transaction has locked are skipped (lock timeout -2 is
+   * Hibernate's SKIP LOCKED), so concurrent claims never wait for or get
+   * the same row.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+  @Query("select r from helprequest r where r.solved = false and r.claimedBy is null"
+      + " and (:teamId is null or r.teamId = :teamId)"
+      + " and (:room is null or r.tableOrBreakoutRoom = :room)"
+      + " order by r.requestTime, r.id")
+  List<HelpRequest> findUnclaimedForUpdate(@Param("teamId") String teamId, @Param("room") String room, Pageable page);
+
+  /** @return 1 if the request was claimed, 0 if it was already claimed or solved */
+  @Modifying
+  @Query("update helprequest r set r.claimedBy = :email, r.claimedAt = :claimedAt"
+      + " where r.id = :id and r.solved = false and r.claimedBy is null")
+  int claim(@Param("id") long id, @Param("email") String email, @Param("claimedAt") LocalDateTime claimedAt);
+
+  /** The oldest solved requests from before the cutoff, by requestTime */
+  @Query("select r from helprequest r where r.solved = true and r.requestTime < :cutoff order by r.requestTime, r.id")
+  List<HelpRequest> findSolvedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+  @Modifying
+  @Query("delete from helprequest r where r.id in :ids")
+  int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+  /** Rows of { tableOrBreakoutRoom, year, month, day, hour, number of requests } */
+  @Query("select r.tableOrBreakoutRoom, year(r.requestTime), month(r.requestTime), day(r.requestTime),"
+      + " hour(r.requestTime), count(r) from helprequest r"
+      + " where r.tableOrBreakoutRoom is not null and r.requestTime is not null"
+      + " group by r.tableOrBreakoutRoom, year(r.requestTime), month(r.requestTime), day(r.requestTime),"
+      + " hour(r.requestTime)")
+  List<Object[]> countByRoomAndHour();
+
+  /** Marks every unsolved request, optionally only at one table or breakout room, as solved */
+  @Modifying
+  @Query("update helprequest r set r.solved = true, r.solvedAt = :solvedAt where r.solved = false"
+      + " and (:room is null or r.tableOrBreakoutRoom = :room)")
+  int solveAll(@Param("room") String room, @Param("solvedAt") LocalDateTime solvedAt);
+
+  /** Like solveAll, but only for the given teams */
+  @Modifying
+  @Query("update helprequest r set r.solved = true, r.solvedAt = :solvedAt where r.solved = false"
+      + " and r.teamId in :teamIds and (:room is null or r.tableOrBreakoutRoom = :room)")
+  int solveTeams(@Param("teamIds") Collection<String> teamIds, @Param("room") String room,
+      @Param("solvedAt") LocalDateTime solvedAt);
+}
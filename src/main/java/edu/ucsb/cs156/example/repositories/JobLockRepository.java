@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import edu.ucsb.cs156.example.entities.JobLock;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobLockRepository extends CrudRepository<JobLock, String> {
+  /** Locks the job's row until the end of the transaction; other instances wait for it */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<JobLock> findForUpdateByName(String name);
+
+  /**
+   * Inserts the job's row.  Unlike save, which merges an entity with an
+   * assigned id, this fails if the row already exists.
+   */
+  @Modifying
+  @Query(value = "insert into joblock (name) values (:name)", nativeQuery = true)
+  int insert(@Param("name") String name);
+}
@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MenuItemRatingSummaryRepository extends CrudRepository<MenuItemRatingSummary, Long> {
+
+  /**
+   * Adds to the totals in a single UPDATE, so concurrent writers cannot lose
+   * each other's changes.
+   *
+   * @return the number of rows updated; 0 if the item has no summary yet
+   */
+  @Modifying
+  @Query("update menuitemratingsummary s set s.reviewCount = s.reviewCount + :count, s.starsSum = s.starsSum + :sum,"
+      + " s.stars1 = s.stars1 + :s1, s.stars2 = s.stars2 + :s2, s.stars3 = s.stars3 + :s3,"
+      + " s.stars4 = s.stars4 + :s4, s.stars5 = s.stars5 + :s5 where s.itemId = :itemId")
+  int addToTotals(@Param("itemId") long itemId, @Param("count") long count, @Param("sum") long sum,
+      @Param("s1") long s1, @Param("s2") long s2, @Param("s3") long s3, @Param("s4") long s4, @Param("s5") long s5);
+
+  /**
+   * Inserts a summary with all totals zero.  Unlike save, which merges an
+   * entity with an assigned id, this fails if the row already exists.
+   */
+  @Modifying
+  @Query(value = "insert into menuitemratingsummary (item_id, review_count, stars_sum, stars1, stars2, stars3, stars4, stars5)"
+      + " values (:itemId, 0, 0, 0, 0, 0, 0, 0)", nativeQuery = true)
+  int insertEmpty(@Param("itemId") long itemId);
+}
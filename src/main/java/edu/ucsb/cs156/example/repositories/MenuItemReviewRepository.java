@@ -1,6 +1,14 @@
 package edu.ucsb.cs156.example.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 
@@ -9,4 +17,39 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long>{
     Iterable<MenuItemReview> findAllBydateReviewed(String dateReviewed);
+
+    Iterable<MenuItemReview> findByDateReviewedGreaterThanEqual(LocalDateTime since);
+
+    /** Rows of { itemId, stars, number of reviews } */
+    @Query("select r.itemId, r.stars, count(r) from menuitemreview r group by r.itemId, r.stars")
+    List<Object[]> countByItemIdAndStars();
+
+    /**
+     * The newest reviews of an item; the first page for findPageBefore.
+     * Reviews without a dateReviewed have no place in the order and are left out.
+     */
+    @Query("select r from menuitemreview r where r.itemId = :itemId and r.dateReviewed is not null"
+        + " order by r.dateReviewed desc, r.id asc")
+    List<MenuItemReview> findFirstPage(@Param("itemId") long itemId, Pageable page);
+
+    /**
+     * The reviews of an item that come after (dateReviewed, id) in newest
+     * first order.  Seeks straight to the cursor in the (itemId, dateReviewed
+     * desc, id) index, so every page costs the same however deep it is.  The
+     * redundant dateReviewed <= :dateReviewed is what gives the planner a
+     * range to seek to; it cannot derive one from the OR on its own.
+     */
+    @Query("select r from menuitemreview r where r.itemId = :itemId and r.dateReviewed <= :dateReviewed"
+        + " and (r.dateReviewed < :dateReviewed or (r.dateReviewed = :dateReviewed and r.id > :id))"
+        + " order by r.dateReviewed desc, r.id asc")
+    List<MenuItemReview> findPageBefore(@Param("itemId") long itemId, @Param("dateReviewed") LocalDateTime dateReviewed,
+        @Param("id") long id, Pageable page);
+
+    /** The oldest reviews from before the cutoff */
+    @Query("select r from menuitemreview r where r.dateReviewed < :cutoff order by r.dateReviewed, r.id")
+    List<MenuItemReview> findReviewedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    @Modifying
+    @Query("delete from menuitemreview r where r.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
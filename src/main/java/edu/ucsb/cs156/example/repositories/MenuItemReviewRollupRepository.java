@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import edu.ucsb.cs156.example.entities.MenuItemReviewRollup;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MenuItemReviewRollupRepository extends CrudRepository<MenuItemReviewRollup, Long> {
+
+  /**
+   * Adds to the totals for an item and month in a single UPDATE.
+   *
+   * @return the number of rows updated; 0 if there is no row for that month yet
+   */
+  @Modifying
+  @Query("update menuitemreviewrollup r set r.reviewCount = r.reviewCount + :count, r.starsSum = r.starsSum + :sum,"
+      + " r.stars1 = r.stars1 + :s1, r.stars2 = r.stars2 + :s2, r.stars3 = r.stars3 + :s3,"
+      + " r.stars4 = r.stars4 + :s4, r.stars5 = r.stars5 + :s5 where r.itemId = :itemId and r.reviewMonth = :reviewMonth")
+  int addToTotals(@Param("itemId") long itemId, @Param("reviewMonth") LocalDate reviewMonth, @Param("count") long count,
+      @Param("sum") long sum, @Param("s1") long s1, @Param("s2") long s2, @Param("s3") long s3,
+      @Param("s4") long s4, @Param("s5") long s5);
+
+  /** Rows of { itemId, reviewCount, starsSum, stars1, ..., stars5 } summed over all months */
+  @Query("select r.itemId, sum(r.reviewCount), sum(r.starsSum), sum(r.stars1), sum(r.stars2), sum(r.stars3),"
+      + " sum(r.stars4), sum(r.stars5) from menuitemreviewrollup r group by r.itemId")
+  List<Object[]> totalsByItemId();
+}
@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import edu.ucsb.cs156.example.entities.MenuItemReviewerSketch;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MenuItemReviewerSketchRepository extends CrudRepository<MenuItemReviewerSketch, Long> {
+  /** Locks the row until the end of the transaction, so that merges into it are not lost */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<MenuItemReviewerSketch> findForUpdateByItemIdAndReviewDay(long itemId, LocalDate reviewDay);
+}
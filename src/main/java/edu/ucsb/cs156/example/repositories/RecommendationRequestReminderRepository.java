@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.time.LocalDateTime;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequestReminder;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+
+@Repository
+public interface RecommendationRequestReminderRepository extends CrudRepository<RecommendationRequestReminder, Long> {
+  Iterable<RecommendationRequestReminder> findByDateNeededGreaterThanEqual(LocalDateTime since);
+
+  boolean existsByRecommendationRequestIdAndDateNeeded(long recommendationRequestId, LocalDateTime dateNeeded);
+}
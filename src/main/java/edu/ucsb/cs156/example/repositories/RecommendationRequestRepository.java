@@ -1,11 +1,63 @@
 package edu.ucsb.cs156.example.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long> {
-}
\ No newline at end of file
+  Iterable<RecommendationRequest> findByDoneFalse();
+
+  /** A professor's requests needed from from, inclusive, to to, exclusive, soonest first */
+  @Query("select r from recommendationrequest r where r.professorEmail = :professorEmail"
+      + " and r.dateNeeded >= :from and r.dateNeeded < :to order by r.dateNeeded, r.id")
+  List<RecommendationRequest> findNeededBetween(@Param("professorEmail") String professorEmail,
+      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+  /** A professor's requests made from from, inclusive, to to, exclusive, oldest first */
+  @Query("select r from recommendationrequest r where r.professorEmail = :professorEmail"
+      + " and r.dateRequested >= :from and r.dateRequested < :to order by r.dateRequested, r.id")
+  List<RecommendationRequest> findRequestedBetween(@Param("professorEmail") String professorEmail,
+      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+  /** Number of requests for each professor, done or not, and dateNeeded */
+  @Query("select r.professorEmail, r.done, r.dateNeeded, count(r) from recommendationrequest r"
+      + " where r.professorEmail is not null group by r.professorEmail, r.done, r.dateNeeded")
+  List<Object[]> countByProfessorAndDoneAndDateNeeded();
+
+  /** The oldest done requests from before the cutoff, by dateRequested */
+  @Query("select r from recommendationrequest r where r.done = true and r.dateRequested < :cutoff"
+      + " order by r.dateRequested, r.id")
+  List<RecommendationRequest> findDoneBefore(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+  @Modifying
+  @Query("delete from recommendationrequest r where r.id in :ids")
+  int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+  /** Marks every request that is not done, optionally only for one professor, as done */
+  @Modifying
+  @Query("update recommendationrequest r set r.done = true where r.done = false"
+      + " and (:professorEmail is null or r.professorEmail = :professorEmail)")
+  int markDone(@Param("professorEmail") String professorEmail);
+
+  /**
+   * Like markDone, but only for requests needed before a time.  A separate
+   * query, since Postgres cannot type a null timestamp in ":neededBefore is null".
+   */
+  @Modifying
+  @Query("update recommendationrequest r set r.done = true where r.done = false"
+      + " and (:professorEmail is null or r.professorEmail = :professorEmail)"
+      + " and r.dateNeeded < :neededBefore")
+  int markDoneNeededBefore(@Param("professorEmail") String professorEmail,
+      @Param("neededBefore") LocalDateTime neededBefore);
+}
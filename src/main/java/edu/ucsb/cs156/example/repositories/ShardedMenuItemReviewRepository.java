@@ -0,0 +1,254 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.config.ShardContext;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+/**
+ * MenuItemReviewRepository over a table that is hash-partitioned by itemId.
+ *
+ * Every call runs the JPA repository in a new transaction with ShardContext
+ * set, so that it gets connections from the right shard.  Calls for one
+ * item or one id go to a single shard; the shard of an id is id mod N, see
+ * MenuItemReviewShards.  Everything else runs on all shards in parallel
+ * and the results are concatenated, in shard order.
+ *
+ * A review whose itemId changes is moved to its new shard, which gives it a
+ * new id.  Shard writes commit separately from the caller's transaction.
+ */
+public class ShardedMenuItemReviewRepository implements MenuItemReviewRepository, AutoCloseable {
+
+  private final MenuItemReviewRepository jpa;
+  private final int shards;
+  private final TransactionTemplate readTx;
+  private final TransactionTemplate writeTx;
+  private final ExecutorService pool;
+
+  public ShardedMenuItemReviewRepository(MenuItemReviewRepository jpa, int shards,
+      PlatformTransactionManager transactionManager) {
+    this.jpa = jpa;
+    this.shards = shards;
+    this.writeTx = new TransactionTemplate(transactionManager);
+    this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.readTx = new TransactionTemplate(transactionManager);
+    this.readTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.readTx.setReadOnly(true);
+    this.pool = Executors.newFixedThreadPool(shards, r -> {
+      Thread t = new Thread(r, "menuitemreview-shards");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  public int shardForItem(long itemId) {
+    // spread consecutive item ids before taking the remainder
+    return Math.floorMod(Long.hashCode(itemId * 0x9E3779B97F4A7C15L), shards);
+  }
+
+  public int shardForId(long id) {
+    return (int) Math.floorMod(id, (long) shards);
+  }
+
+  private <T> T read(int shard, Supplier<T> work) {
+    return ShardContext.callOn(shard, () -> readTx.execute(status -> work.get()));
+  }
+
+  private <T> T write(int shard, Supplier<T> work) {
+    return ShardContext.callOn(shard, () -> writeTx.execute(status -> work.get()));
+  }
+
+  private void update(int shard, Runnable work) {
+    write(shard, () -> {
+      work.run();
+      return null;
+    });
+  }
+
+  /** Runs the query on every shard in parallel and concatenates the results */
+  private <T> List<T> scatter(Function<Integer, Iterable<T>> query) {
+    List<Future<Iterable<T>>> futures = new ArrayList<>(shards);
+    for (int i = 0; i < shards; i++) {
+      int shard = i;
+      futures.add(pool.submit(() -> read(shard, () -> query.apply(shard))));
+    }
+    List<T> result = new ArrayList<>();
+    for (Future<Iterable<T>> f : futures) {
+      gather(f).forEach(result::add);
+    }
+    return result;
+  }
+
+  private static <T> T gather(Future<T> future) {
+    try {
+      if (Thread.interrupted()) {
+        // Future.get does not notice an interrupt once the work is done
+        throw new InterruptedException();
+      }
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private <T> Map<Integer, List<T>> byShard(Iterable<T> values, Function<T, Integer> shardOf) {
+    Map<Integer, List<T>> result = new TreeMap<>();
+    for (T value : values) {
+      result.computeIfAbsent(shardOf.apply(value), k -> new ArrayList<>()).add(value);
+    }
+    return result;
+  }
+
+  @Override
+  public <S extends MenuItemReview> S save(S review) {
+    int target = shardForItem(review.getItemId());
+    long oldId = review.getId();
+    if (oldId == 0 || shardForId(oldId) == target) {
+      return write(target, () -> jpa.save(review));
+    }
+    // moving to another shard: insert the new copy before removing the old one
+    review.setId(0);
+    S saved = write(target, () -> jpa.save(review));
+    update(shardForId(oldId), () -> jpa.deleteById(oldId));
+    return saved;
+  }
+
+  @Override
+  public <S extends MenuItemReview> Iterable<S> saveAll(Iterable<S> reviews) {
+    List<S> result = new ArrayList<>();
+    for (S review : reviews) {
+      result.add(save(review));
+    }
+    return result;
+  }
+
+  @Override
+  public Optional<MenuItemReview> findById(Long id) {
+    return read(shardForId(id), () -> jpa.findById(id));
+  }
+
+  @Override
+  public boolean existsById(Long id) {
+    return read(shardForId(id), () -> jpa.existsById(id));
+  }
+
+  @Override
+  public Iterable<MenuItemReview> findAll() {
+    return scatter(shard -> jpa.findAll());
+  }
+
+  @Override
+  public Iterable<MenuItemReview> findAllById(Iterable<Long> ids) {
+    List<MenuItemReview> result = new ArrayList<>();
+    byShard(ids, this::shardForId).forEach((shard, shardIds) ->
+        read(shard, () -> jpa.findAllById(shardIds)).forEach(result::add));
+    return result;
+  }
+
+  @Override
+  public long count() {
+    return scatter(shard -> List.of(jpa.count())).stream().mapToLong(Long::longValue).sum();
+  }
+
+  @Override
+  public void deleteById(Long id) {
+    update(shardForId(id), () -> jpa.deleteById(id));
+  }
+
+  @Override
+  public void delete(MenuItemReview review) {
+    update(shardForId(review.getId()), () -> jpa.delete(review));
+  }
+
+  @Override
+  public void deleteAllById(Iterable<? extends Long> ids) {
+    for (Long id : ids) {
+      deleteById(id);
+    }
+  }
+
+  @Override
+  public void deleteAll(Iterable<? extends MenuItemReview> reviews) {
+    for (MenuItemReview review : reviews) {
+      delete(review);
+    }
+  }
+
+  @Override
+  public void deleteAll() {
+    for (int i = 0; i < shards; i++) {
+      update(i, jpa::deleteAll);
+    }
+  }
+
+  @Override
+  public Iterable<MenuItemReview> findAllBydateReviewed(String dateReviewed) {
+    return scatter(shard -> jpa.findAllBydateReviewed(dateReviewed));
+  }
+
+  @Override
+  public Iterable<MenuItemReview> findByDateReviewedGreaterThanEqual(LocalDateTime since) {
+    return scatter(shard -> jpa.findByDateReviewedGreaterThanEqual(since));
+  }
+
+  @Override
+  public List<Object[]> countByItemIdAndStars() {
+    // each item lives on one shard, so the groups never need combining
+    return scatter(shard -> jpa.countByItemIdAndStars());
+  }
+
+  @Override
+  public List<MenuItemReview> findFirstPage(long itemId, Pageable page) {
+    return read(shardForItem(itemId), () -> jpa.findFirstPage(itemId, page));
+  }
+
+  @Override
+  public List<MenuItemReview> findPageBefore(long itemId, LocalDateTime dateReviewed, long id, Pageable page) {
+    return read(shardForItem(itemId), () -> jpa.findPageBefore(itemId, dateReviewed, id, page));
+  }
+
+  @Override
+  public List<MenuItemReview> findReviewedBefore(LocalDateTime cutoff, Pageable page) {
+    List<MenuItemReview> merged = scatter(shard -> jpa.findReviewedBefore(cutoff, page));
+    merged.sort(Comparator.comparing(MenuItemReview::getDateReviewed).thenComparingLong(MenuItemReview::getId));
+    return merged.subList(0, Math.min(merged.size(), page.getPageSize()));
+  }
+
+  @Override
+  public int deleteByIdIn(Collection<Long> ids) {
+    int deleted = 0;
+    for (Map.Entry<Integer, List<Long>> e : byShard(ids, this::shardForId).entrySet()) {
+      deleted += write(e.getKey(), () -> jpa.deleteByIdIn(e.getValue()));
+    }
+    return deleted;
+  }
+
+  @Override
+  public void close() {
+    pool.shutdownNow();
+  }
+}
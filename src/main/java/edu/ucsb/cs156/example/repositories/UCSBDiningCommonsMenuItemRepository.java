@@ -8,4 +8,5 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {
-}
\ No newline at end of file
+  Iterable<UCSBDiningCommonsMenuItem> findByDiningCommonsCode(String diningCommonsCode);
+}
@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.events.HelpRequestChangedEvent;
+import edu.ucsb.cs156.example.models.HelpRequestHeatmap;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Numbers of help requests made at each table or breakout room, by weekday
+ * and hour of requestTime, for planning TA shifts.
+ *
+ * Loaded on startup by one GROUP BY query over each of helprequest and
+ * archivedhelprequest, which count requests per room and hour of each
+ * date; the weekday of each date is worked out here.  Kept up to date from
+ * committed HelpRequestChangedEvents.  Requests without a room or a
+ * requestTime are not counted.
+ */
+@Slf4j
+@Service("helpRequestHeatmap")
+public class HelpRequestHeatmapService implements SmartInitializingSingleton {
+
+  static final int DAYS = 7;
+  static final int HOURS = 24;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  // room -> counts[day][hour]
+  private final Map<String, long[][]> byRoom = new TreeMap<>();
+
+  // before the web server starts, so a change cannot be counted by both the query and its event
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public synchronized void load() {
+    byRoom.clear();
+    addAll(helpRequestRepository.countByRoomAndHour());
+    addAll(archivedHelpRequestRepository.countByRoomAndHour());
+    log.info("loaded help request counts for {} tables and breakout rooms", byRoom.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onHelpRequestChanged(HelpRequestChangedEvent event) {
+    if (event.getBefore() != null) {
+      add(event.getBefore(), -1);
+    }
+    if (event.getAfter() != null) {
+      add(event.getAfter(), 1);
+    }
+  }
+
+  /** One heatmap for each room, or only the given one, in order of room */
+  public synchronized List<HelpRequestHeatmap> getHeatmaps(String tableOrBreakoutRoom) {
+    List<HelpRequestHeatmap> result = new ArrayList<>();
+    byRoom.forEach((room, counts) -> {
+      if (tableOrBreakoutRoom == null || tableOrBreakoutRoom.equals(room)) {
+        result.add(heatmap(room, counts));
+      }
+    });
+    return result;
+  }
+
+  // caller holds the monitor
+  private void addAll(List<Object[]> rows) {
+    for (Object[] row : rows) {
+      LocalDate date = LocalDate.of(number(row[1]), number(row[2]), number(row[3]));
+      add((String) row[0], date.getDayOfWeek().getValue() - 1, number(row[4]), ((Number) row[5]).longValue());
+    }
+  }
+
+  // caller holds the monitor
+  private void add(HelpRequest request, long delta) {
+    LocalDateTime t = request.getRequestTime();
+    if (t != null && request.getTableOrBreakoutRoom() != null) {
+      add(request.getTableOrBreakoutRoom(), t.getDayOfWeek().getValue() - 1, t.getHour(), delta);
+    }
+  }
+
+  private void add(String room, int day, int hour, long delta) {
+    byRoom.computeIfAbsent(room, k -> new long[DAYS][HOURS])[day][hour] += delta;
+  }
+
+  private static int number(Object value) {
+    return ((Number) value).intValue();
+  }
+
+  private static HelpRequestHeatmap heatmap(String room, long[][] counts) {
+    long[][] copy = new long[DAYS][];
+    long total = 0;
+    for (int d = 0; d < DAYS; d++) {
+      copy[d] = counts[d].clone();
+      for (long c : copy[d]) {
+        total += c;
+      }
+    }
+    return new HelpRequestHeatmap(room, total, copy);
+  }
+}
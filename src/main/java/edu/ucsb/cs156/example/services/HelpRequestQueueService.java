@@ -0,0 +1,200 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.collections.LongObjectHashMap;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.HelpRequestChangedEvent;
+import edu.ucsb.cs156.example.events.HelpRequestsSolvedEvent;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out the oldest unsolved help request that nobody has claimed, to
+ * one TA only.
+ *
+ * Unclaimed requests are kept in memory ordered by requestTime, overall and
+ * for each team and table, and a claim takes the first one that matches.
+ * The claim itself is a conditional UPDATE that only succeeds while the
+ * request is still unclaimed, so two TAs, or two application instances,
+ * can never both get it.  Another instance may have claimed or solved what
+ * this one remembers, so after a few misses the claim falls back to
+ * locking the oldest unclaimed row with SELECT ... FOR UPDATE SKIP LOCKED.
+ *
+ * The queue is loaded on startup and kept up to date from committed
+ * HelpRequestChangedEvents.  Which rows a bulk solve changed is not known,
+ * and requests posted after its UPDATE may match its filter while still
+ * unsolved, so a HelpRequestsSolvedEvent reloads the queue instead.
+ */
+@Slf4j
+@Service("helpRequestQueue")
+public class HelpRequestQueueService implements SmartInitializingSingleton {
+
+  // candidates from memory to try before asking the database
+  static final int MEMORY_ATTEMPTS = 3;
+
+  private static final Comparator<HelpRequest> OLDEST_FIRST = Comparator
+      .comparing(HelpRequest::getRequestTime, Comparator.nullsLast(Comparator.naturalOrder()))
+      .thenComparingLong(HelpRequest::getId);
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  ApplicationEventPublisher eventPublisher;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  // copies of the unclaimed requests, so that entity changes cannot reorder the sets
+  private final LongObjectHashMap<HelpRequest> byId = new LongObjectHashMap<>();
+  private final TreeSet<HelpRequest> all = new TreeSet<>(OLDEST_FIRST);
+  private final Map<String, TreeSet<HelpRequest>> byTeam = new HashMap<>();
+  private final Map<String, TreeSet<HelpRequest>> byRoom = new HashMap<>();
+
+  // before the web server starts, so the queue is complete before the first claim
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public synchronized void load() {
+    byId.clear();
+    all.clear();
+    byTeam.clear();
+    byRoom.clear();
+    for (HelpRequest request : helpRequestRepository.findBySolvedFalseAndClaimedByIsNull()) {
+      add(request);
+    }
+    log.info("loaded {} unclaimed help requests", byId.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onHelpRequestChanged(HelpRequestChangedEvent event) {
+    if (event.getBefore() != null) {
+      remove(event.getBefore().getId());
+    }
+    HelpRequest after = event.getAfter();
+    if (after != null && !after.getSolved() && after.getClaimedBy() == null) {
+      add(after);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onHelpRequestsSolved(HelpRequestsSolvedEvent event) {
+    load();
+  }
+
+  /**
+   * Claims the oldest unsolved, unclaimed request, optionally only for one
+   * team or one table or breakout room.
+   *
+   * @return the claimed request, or empty if there is none
+   */
+  @Transactional
+  public Optional<HelpRequest> claim(String email, String teamId, String tableOrBreakoutRoom) {
+    LocalDateTime now = LocalDateTime.now(clock);
+    for (int i = 0; i < MEMORY_ATTEMPTS; i++) {
+      HelpRequest candidate = poll(teamId, tableOrBreakoutRoom);
+      if (candidate == null) {
+        break;
+      }
+      if (helpRequestRepository.claim(candidate.getId(), email, now) == 1) {
+        HelpRequest claimed = helpRequestRepository.findById(candidate.getId())
+            .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, candidate.getId()));
+        HelpRequest before = claimed.toBuilder().claimedBy(null).claimedAt(null).build();
+        eventPublisher.publishEvent(new HelpRequestChangedEvent(before, claimed));
+        return Optional.of(claimed);
+      }
+    }
+
+    List<HelpRequest> next = helpRequestRepository.findUnclaimedForUpdate(teamId, tableOrBreakoutRoom,
+        PageRequest.of(0, 1));
+    if (next.isEmpty()) {
+      return Optional.empty();
+    }
+    HelpRequest claimed = next.get(0);
+    HelpRequest before = claimed.toBuilder().build();
+    claimed.setClaimedBy(email);
+    claimed.setClaimedAt(now);
+    helpRequestRepository.save(claimed);
+    eventPublisher.publishEvent(new HelpRequestChangedEvent(before, claimed));
+    return Optional.of(claimed);
+  }
+
+  public synchronized int size() {
+    return byId.size();
+  }
+
+  /** Removes and returns the oldest matching request, or null */
+  private synchronized HelpRequest poll(String teamId, String tableOrBreakoutRoom) {
+    TreeSet<HelpRequest> candidates = all;
+    if (teamId != null) {
+      candidates = byTeam.getOrDefault(teamId, new TreeSet<>());
+    }
+    if (tableOrBreakoutRoom != null) {
+      TreeSet<HelpRequest> room = byRoom.getOrDefault(tableOrBreakoutRoom, new TreeSet<>());
+      if (room.size() < candidates.size()) {
+        candidates = room;
+      }
+    }
+    for (HelpRequest r : candidates) {
+      if ((teamId == null || teamId.equals(r.getTeamId()))
+          && (tableOrBreakoutRoom == null || tableOrBreakoutRoom.equals(r.getTableOrBreakoutRoom()))) {
+        remove(r.getId());
+        return r;
+      }
+    }
+    return null;
+  }
+
+  // caller holds the monitor
+  private void add(HelpRequest request) {
+    HelpRequest copy = request.toBuilder().build();
+    remove(copy.getId());
+    byId.put(copy.getId(), copy);
+    all.add(copy);
+    if (copy.getTeamId() != null) {
+      byTeam.computeIfAbsent(copy.getTeamId(), k -> new TreeSet<>(OLDEST_FIRST)).add(copy);
+    }
+    if (copy.getTableOrBreakoutRoom() != null) {
+      byRoom.computeIfAbsent(copy.getTableOrBreakoutRoom(), k -> new TreeSet<>(OLDEST_FIRST)).add(copy);
+    }
+  }
+
+  // caller holds the monitor
+  private void remove(long id) {
+    HelpRequest old = byId.remove(id);
+    if (old == null) {
+      return;
+    }
+    all.remove(old);
+    removeFrom(byTeam, old.getTeamId(), old);
+    removeFrom(byRoom, old.getTableOrBreakoutRoom(), old);
+  }
+
+  private static void removeFrom(Map<String, TreeSet<HelpRequest>> index, String key, HelpRequest request) {
+    TreeSet<HelpRequest> set = index.get(key);
+    if (set != null) {
+      set.remove(request);
+      if (set.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+}
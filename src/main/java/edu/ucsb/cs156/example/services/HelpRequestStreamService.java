@@ -0,0 +1,245 @@
+package edu.ucsb.cs156.example.services;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.events.HelpRequestChangedEvent;
+import edu.ucsb.cs156.example.events.HelpRequestsArchivedEvent;
+import edu.ucsb.cs156.example.events.HelpRequestsSolvedEvent;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server-sent events for changes to help requests, for the TA dashboard.
+ *
+ * Each committed change becomes one event named created, updated, claimed,
+ * solved or deleted, with the request as JSON and a sequence number as its id.
+ * The JSON is written once per event, not once per subscriber.  The last
+ * buffer-size events are kept so that a client that reconnects with
+ * Last-Event-ID only gets what it missed; if that is no longer in the
+ * buffer, or is more than queue-size events ago, it gets a reset event and
+ * should reload /api/HelpRequest/all.  Solving many requests at once, and
+ * archiving solved requests, also send everyone a reset event.
+ *
+ * Subscribers are SseEmitters, which are served asynchronously, so an idle
+ * subscriber does not hold a thread.  The buffer and the set of subscribers
+ * are confined to one sender thread, which keeps events in order and makes
+ * replay-then-subscribe atomic.  The sender never writes to a connection:
+ * it puts each event on every subscriber's queue of at most queue-size
+ * events, and a writer thread per busy subscriber sends from that queue.  A
+ * slow client only holds up its own writer; once its queue is full it is
+ * completed and dropped, and can reconnect with Last-Event-ID.  A comment is
+ * sent every heartbeat-millis to keep idle connections open through proxies
+ * and to notice clients that have gone away.
+ */
+@Slf4j
+@Service("helpRequestStream")
+public class HelpRequestStreamService {
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Value("${app.helprequest.stream.buffer-size:1000}")
+  int bufferSize;
+
+  @Value("${app.helprequest.stream.queue-size:100}")
+  int queueSize;
+
+  @Value("${app.helprequest.stream.timeout-millis:1800000}")
+  long timeoutMillis;
+
+  Executor sender = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "helprequest-stream");
+    t.setDaemon(true);
+    return t;
+  });
+
+  Executor writers = Executors.newCachedThreadPool(r -> {
+    Thread t = new Thread(r, "helprequest-stream-writer");
+    t.setDaemon(true);
+    return t;
+  });
+
+  @AllArgsConstructor
+  private static class StreamEvent {
+    final long id;
+    final String name;
+    final String json;
+  }
+
+  private static class Subscriber {
+    final SseEmitter emitter;
+    final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+    // set while a writer is sending from the queue
+    final AtomicBoolean writing = new AtomicBoolean();
+    volatile boolean dropped;
+
+    Subscriber(SseEmitter emitter, int queueSize) {
+      this.emitter = emitter;
+      this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+  }
+
+  // only touched on the sender thread
+  private final Deque<StreamEvent> buffer = new ArrayDeque<>();
+  private final Map<SseEmitter, Subscriber> subscribers = new LinkedHashMap<>();
+  private long lastId;
+
+  public SseEmitter subscribe(Long lastEventId) {
+    return subscribe(new SseEmitter(timeoutMillis), lastEventId);
+  }
+
+  SseEmitter subscribe(SseEmitter emitter, Long lastEventId) {
+    emitter.onCompletion(() -> sender.execute(() -> subscribers.remove(emitter)));
+    emitter.onTimeout(() -> sender.execute(() -> subscribers.remove(emitter)));
+    sender.execute(() -> {
+      Subscriber subscriber = new Subscriber(emitter, queueSize);
+      subscribers.put(emitter, subscriber);
+      if (lastEventId != null) {
+        replay(subscriber, lastEventId);
+      }
+    });
+    return emitter;
+  }
+
+  // on the sender thread
+  private void replay(Subscriber subscriber, long lastEventId) {
+    // ids are consecutive, so the buffer covers lastEventId if it holds the next one
+    long oldest = buffer.isEmpty() ? lastId + 1 : buffer.peekFirst().id;
+    if (lastEventId + 1 < oldest || lastEventId > lastId || lastId - lastEventId > queueSize) {
+      enqueue(subscriber, SseEmitter.event().id(Long.toString(lastId)).name("reset").data("{}", MediaType.APPLICATION_JSON));
+      return;
+    }
+    for (StreamEvent e : buffer) {
+      if (e.id > lastEventId) {
+        enqueue(subscriber, toSse(e));
+      }
+    }
+  }
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onHelpRequestChanged(HelpRequestChangedEvent event) {
+    HelpRequest before = event.getBefore();
+    HelpRequest after = event.getAfter();
+    String name;
+    if (before == null) {
+      name = "created";
+    } else if (after == null) {
+      name = "deleted";
+    } else if (!before.getSolved() && after.getSolved()) {
+      name = "solved";
+    } else if (before.getClaimedBy() == null && after.getClaimedBy() != null) {
+      name = "claimed";
+    } else {
+      name = "updated";
+    }
+    String json;
+    try {
+      json = mapper.writeValueAsString(after != null ? after : before);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+    sender.execute(() -> publish(name, json));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onHelpRequestsSolved(HelpRequestsSolvedEvent event) {
+    sender.execute(() -> publish("reset", "{}"));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onHelpRequestsArchived(HelpRequestsArchivedEvent event) {
+    sender.execute(() -> publish("reset", "{}"));
+  }
+
+  // on the sender thread
+  private void publish(String name, String json) {
+    StreamEvent e = new StreamEvent(++lastId, name, json);
+    buffer.addLast(e);
+    if (buffer.size() > bufferSize) {
+      buffer.removeFirst();
+    }
+    sendToAll(() -> toSse(e));
+  }
+
+  @Scheduled(fixedDelayString = "${app.helprequest.stream.heartbeat-millis:30000}")
+  public void heartbeat() {
+    sender.execute(() -> sendToAll(() -> SseEmitter.event().comment("heartbeat")));
+  }
+
+  private static SseEmitter.SseEventBuilder toSse(StreamEvent e) {
+    return SseEmitter.event().id(Long.toString(e.id)).name(e.name).data(e.json, MediaType.APPLICATION_JSON);
+  }
+
+  // on the sender thread; a builder can only be sent once, so each subscriber gets a new one
+  private void sendToAll(Supplier<SseEmitter.SseEventBuilder> event) {
+    for (Subscriber subscriber : new ArrayList<>(subscribers.values())) {
+      enqueue(subscriber, event.get());
+    }
+  }
+
+  // on the sender thread
+  private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+    if (!subscriber.queue.offer(event)) {
+      log.info("dropping help request subscriber that is {} events behind", queueSize);
+      subscribers.remove(subscriber.emitter);
+      subscriber.dropped = true;
+      subscriber.queue.clear();
+    }
+    if (subscriber.writing.compareAndSet(false, true)) {
+      writers.execute(() -> write(subscriber));
+    }
+  }
+
+  // on a writer thread, one at a time per subscriber
+  private void write(Subscriber subscriber) {
+    do {
+      SseEmitter.SseEventBuilder event;
+      while (!subscriber.dropped && (event = subscriber.queue.poll()) != null) {
+        if (!send(subscriber.emitter, event)) {
+          subscriber.dropped = true;
+          sender.execute(() -> subscribers.remove(subscriber.emitter));
+        }
+      }
+      if (subscriber.dropped) {
+        // a no-op if a send failed; writing stays set, so no writer runs again
+        subscriber.emitter.complete();
+        return;
+      }
+      subscriber.writing.set(false);
+      // an event may have been queued after the last poll but before writing was cleared
+    } while (!subscriber.queue.isEmpty() && subscriber.writing.compareAndSet(false, true));
+  }
+
+  private static boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+    try {
+      emitter.send(event);
+      return true;
+    } catch (IOException | IllegalStateException e) {
+      // the client went away, or the emitter already completed; the container cleans up
+      log.debug("dropping help request subscriber: {}", e.toString());
+      return false;
+    }
+  }
+}
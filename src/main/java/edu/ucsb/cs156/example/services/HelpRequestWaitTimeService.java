@@ -0,0 +1,145 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.collections.LogLinearHistogram;
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.events.HelpRequestChangedEvent;
+import edu.ucsb.cs156.example.events.HelpRequestsSolvedEvent;
+import edu.ucsb.cs156.example.models.WaitTimePercentiles;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Percentiles of how long solved help requests waited, from requestTime to
+ * solvedAt, for a team, a section or everyone, over any range of days.
+ *
+ * Wait times are counted in one histogram per team and per section for
+ * each day requests were solved on, and a query adds up the histograms of
+ * the days it covers.  The section of a team is its id up to the last
+ * dash, so f23-6pm-1 is in section f23-6pm.
+ *
+ * Loaded from the solved requests, archived or not, on startup and kept
+ * up to date from committed HelpRequestChangedEvents; unsolving, editing
+ * or deleting a request takes its old wait time back out.  Solving many
+ * requests at once with HelpRequestsSolvedEvent reloads everything.
+ */
+@Slf4j
+@Service("helpRequestWaitTimes")
+public class HelpRequestWaitTimeService implements SmartInitializingSingleton {
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  // team or section -> epoch day solved -> wait times in seconds
+  private final Map<String, NavigableMap<Long, LogLinearHistogram>> byTeam = new HashMap<>();
+  private final Map<String, NavigableMap<Long, LogLinearHistogram>> bySection = new HashMap<>();
+  private final NavigableMap<Long, LogLinearHistogram> total = new TreeMap<>();
+
+  // before the web server starts, so no solved request is recorded twice
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public synchronized void load() {
+    byTeam.clear();
+    bySection.clear();
+    total.clear();
+    int n = 0;
+    for (HelpRequest request : helpRequestRepository.findBySolvedTrueAndSolvedAtIsNotNull()) {
+      add(request, 1);
+      n++;
+    }
+    for (ArchivedHelpRequest archived : archivedHelpRequestRepository.findBySolvedTrueAndSolvedAtIsNotNull()) {
+      add(archived.toHelpRequest(), 1);
+      n++;
+    }
+    log.info("loaded wait times of {} solved help requests", n);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onHelpRequestChanged(HelpRequestChangedEvent event) {
+    if (event.getBefore() != null) {
+      add(event.getBefore(), -1);
+    }
+    if (event.getAfter() != null) {
+      add(event.getAfter(), 1);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onHelpRequestsSolved(HelpRequestsSolvedEvent event) {
+    load();
+  }
+
+  /** The section a team belongs to: its id up to the last dash */
+  public static String sectionOf(String teamId) {
+    int dash = teamId.lastIndexOf('-');
+    return dash < 0 ? teamId : teamId.substring(0, dash);
+  }
+
+  public synchronized WaitTimePercentiles getTeamWaitTimes(String teamId, LocalDate from, LocalDate to) {
+    return percentiles(byTeam.get(teamId), from, to);
+  }
+
+  public synchronized WaitTimePercentiles getSectionWaitTimes(String section, LocalDate from, LocalDate to) {
+    return percentiles(bySection.get(section), from, to);
+  }
+
+  public synchronized WaitTimePercentiles getTotalWaitTimes(LocalDate from, LocalDate to) {
+    return percentiles(total, from, to);
+  }
+
+  // caller holds the monitor
+  private void add(HelpRequest request, long delta) {
+    if (!request.getSolved() || request.getSolvedAt() == null || request.getRequestTime() == null) {
+      return;
+    }
+    // requestTime is entered by hand and may be after the request was solved
+    long seconds = Math.max(0, Duration.between(request.getRequestTime(), request.getSolvedAt()).getSeconds());
+    long day = request.getSolvedAt().toLocalDate().toEpochDay();
+    add(total, day, seconds, delta);
+    if (request.getTeamId() != null) {
+      add(byTeam.computeIfAbsent(request.getTeamId(), k -> new TreeMap<>()), day, seconds, delta);
+      add(bySection.computeIfAbsent(sectionOf(request.getTeamId()), k -> new TreeMap<>()), day, seconds, delta);
+    }
+  }
+
+  private static void add(NavigableMap<Long, LogLinearHistogram> days, long day, long seconds, long delta) {
+    LogLinearHistogram h = days.computeIfAbsent(day, k -> new LogLinearHistogram());
+    h.add(seconds, delta);
+    if (h.getTotalCount() == 0) {
+      days.remove(day);
+    }
+  }
+
+  private static WaitTimePercentiles percentiles(NavigableMap<Long, LogLinearHistogram> days, LocalDate from,
+      LocalDate to) {
+    LogLinearHistogram merged = new LogLinearHistogram();
+    long first = from == null ? Long.MIN_VALUE : from.toEpochDay();
+    long last = to == null ? Long.MAX_VALUE : to.toEpochDay();
+    if (days != null && first <= last) {
+      for (LogLinearHistogram h : days.subMap(first, true, last, true).values()) {
+        merged.merge(h);
+      }
+    }
+    return new WaitTimePercentiles(from, to, merged.getTotalCount(), merged.valueAtPercentile(50),
+        merged.valueAtPercentile(90), merged.valueAtPercentile(99), merged.getMaxValue());
+  }
+}
@@ -0,0 +1,284 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.collections.LongObjectHashMap;
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.models.MenuItemRatingStats;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingSummaryRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRollupRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Review count, star total and star histogram for each menu item.
+ *
+ * The totals are kept in the menuitemratingsummary table, which is updated
+ * with a single relative UPDATE in the same transaction as each review
+ * change, and mirrored in memory so that lookups never touch the database.
+ * The first review of an item first inserts an empty row in a transaction
+ * of its own, so that concurrent first reviews all end up adding to the
+ * same row.
+ * The in-memory copy only changes once the transaction has committed.
+ *
+ * Stars outside 1..5 count towards the count and sum but not the histogram.
+ * Reviews compacted into menuitemreviewrollup by the retention job still
+ * count; the summary table is not changed when they are deleted.
+ *
+ * Items with at least one review are also kept in a tree ordered by their
+ * Bayesian average, so the top of the leaderboard can be read off directly
+ * and each review change costs O(log n).  The prior (mean and weight) is
+ * fixed by configuration rather than taken from the live global mean, since
+ * a moving prior would reorder every item on every review.
+ */
+@Slf4j
+@Service("menuItemRating")
+public class MenuItemRatingService implements SmartInitializingSingleton {
+
+  @Autowired
+  MenuItemRatingSummaryRepository summaryRepository;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  @Autowired
+  MenuItemReviewRollupRepository rollupRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Value("${app.menuitemreview.prior-mean:3.0}")
+  double priorMean;
+
+  @Value("${app.menuitemreview.prior-weight:5}")
+  double priorWeight;
+
+  private final LongObjectHashMap<MenuItemRatingStats> stats = new LongObjectHashMap<>();
+  private final TreeSet<MenuItemRatingStats> ranked = new TreeSet<>(
+      Comparator.comparingDouble(this::score).reversed().thenComparingLong(MenuItemRatingStats::getItemId));
+  private final StampedLock lock = new StampedLock();
+
+  // before the web server starts: a review saved during the load would otherwise be added twice
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public void load() {
+    List<MenuItemRatingSummary> stored = new ArrayList<>();
+    summaryRepository.findAll().forEach(stored::add);
+    List<MenuItemRatingSummary> rows = stored.isEmpty() ? rebuildSummaries() : stored;
+
+    long stamp = lock.writeLock();
+    try {
+      stats.clear();
+      ranked.clear();
+      for (MenuItemRatingSummary row : rows) {
+        MenuItemRatingStats s = toStats(row);
+        stats.put(row.getItemId(), s);
+        if (s.getCount() > 0) {
+          ranked.add(s);
+        }
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    log.info("loaded rating totals for {} menu items", rows.size());
+  }
+
+  /** Recomputes the summary table from the live reviews and the rollups */
+  private List<MenuItemRatingSummary> rebuildSummaries() {
+    LongObjectHashMap<MenuItemRatingSummary> byItem = new LongObjectHashMap<>();
+    for (Object[] row : reviewRepository.countByItemIdAndStars()) {
+      int stars = ((Number) row[1]).intValue();
+      long count = ((Number) row[2]).longValue();
+      long[] histogram = delta(stars, count);
+      addTo(byItem, ((Number) row[0]).longValue(), count, stars * count, histogram);
+    }
+    for (Object[] row : rollupRepository.totalsByItemId()) {
+      long[] histogram = new long[5];
+      for (int i = 0; i < 5; i++) {
+        histogram[i] = ((Number) row[3 + i]).longValue();
+      }
+      addTo(byItem, ((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+          ((Number) row[2]).longValue(), histogram);
+    }
+    List<MenuItemRatingSummary> rows = new ArrayList<>();
+    byItem.forEach((itemId, summary) -> rows.add(summary));
+    if (!rows.isEmpty()) {
+      summaryRepository.saveAll(rows);
+    }
+    return rows;
+  }
+
+  private static void addTo(LongObjectHashMap<MenuItemRatingSummary> byItem, long itemId, long count, long sum,
+      long[] histogram) {
+    MenuItemRatingSummary summary = byItem.computeIfAbsent(itemId,
+        id -> MenuItemRatingSummary.builder().itemId(id).build());
+    summary.setReviewCount(summary.getReviewCount() + count);
+    summary.setStarsSum(summary.getStarsSum() + sum);
+    summary.setStars1(summary.getStars1() + histogram[0]);
+    summary.setStars2(summary.getStars2() + histogram[1]);
+    summary.setStars3(summary.getStars3() + histogram[2]);
+    summary.setStars4(summary.getStars4() + histogram[3]);
+    summary.setStars5(summary.getStars5() + histogram[4]);
+  }
+
+  public MenuItemRatingStats getStats(long itemId) {
+    long stamp = lock.tryOptimisticRead();
+    MenuItemRatingStats s = stats.get(itemId);
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        s = stats.get(itemId);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    return s != null ? s : empty(itemId);
+  }
+
+  public List<MenuItemRatingStats> getStats(List<Long> itemIds) {
+    List<MenuItemRatingStats> result = new ArrayList<>(itemIds.size());
+    for (long itemId : itemIds) {
+      result.add(getStats(itemId));
+    }
+    return result;
+  }
+
+  /** Bayesian average: the mean rating after adding priorWeight reviews of priorMean stars */
+  public double score(MenuItemRatingStats s) {
+    return (priorWeight * priorMean + s.getSum()) / (priorWeight + s.getCount());
+  }
+
+  /**
+   * The n items with the highest score, out of those with at least
+   * minReviews reviews (and always at least one), best first.
+   */
+  public List<MenuItemRatingStats> getTop(int n, long minReviews) {
+    List<MenuItemRatingStats> result = new ArrayList<>();
+    long stamp = lock.readLock();
+    try {
+      for (MenuItemRatingStats s : ranked) {
+        if (result.size() >= n) {
+          break;
+        }
+        if (s.getCount() >= minReviews) {
+          result.add(s);
+        }
+      }
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    return result;
+  }
+
+  @EventListener
+  @Transactional
+  public void updateSummaryTable(MenuItemReviewChangedEvent event) {
+    if (event.getBefore() != null) {
+      addToSummaryTable(event.getBefore(), -1);
+    }
+    if (event.getAfter() != null) {
+      addToSummaryTable(event.getAfter(), 1);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void updateInMemory(MenuItemReviewChangedEvent event) {
+    long stamp = lock.writeLock();
+    try {
+      if (event.getBefore() != null) {
+        addInMemory(event.getBefore(), -1);
+      }
+      if (event.getAfter() != null) {
+        addInMemory(event.getAfter(), 1);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private void addToSummaryTable(MenuItemReview review, int sign) {
+    long[] h = delta(review.getStars(), sign);
+    long sum = (long) sign * review.getStars();
+    int updated = summaryRepository.addToTotals(review.getItemId(), sign, sum, h[0], h[1], h[2], h[3], h[4]);
+    if (updated == 0) {
+      createSummary(review.getItemId());
+      summaryRepository.addToTotals(review.getItemId(), sign, sum, h[0], h[1], h[2], h[3], h[4]);
+    }
+  }
+
+  /**
+   * Makes sure the item has a summary row.  The insert runs and commits in
+   * its own transaction: if a concurrent first review of the item got there
+   * first, it fails there instead of aborting the review's transaction.
+   */
+  private void createSummary(long itemId) {
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    try {
+      tx.executeWithoutResult(status -> summaryRepository.insertEmpty(itemId));
+    } catch (DataIntegrityViolationException e) {
+      log.info("summary for menu item {} was created concurrently", itemId);
+    }
+  }
+
+  // caller holds the write lock
+  private void addInMemory(MenuItemReview review, int sign) {
+    long itemId = review.getItemId();
+    MenuItemRatingStats old = stats.get(itemId);
+    if (old == null) {
+      old = empty(itemId);
+    } else {
+      ranked.remove(old);
+    }
+    long[] h = delta(review.getStars(), sign);
+    long[] histogram = old.getHistogram().clone();
+    for (int i = 0; i < histogram.length; i++) {
+      histogram[i] += h[i];
+    }
+    // stats objects are shared with readers, so replace rather than modify
+    MenuItemRatingStats updated = new MenuItemRatingStats(itemId, old.getCount() + sign,
+        old.getSum() + (long) sign * review.getStars(), histogram);
+    stats.put(itemId, updated);
+    if (updated.getCount() > 0) {
+      ranked.add(updated);
+    }
+  }
+
+  private static long[] delta(int stars, long amount) {
+    long[] h = new long[5];
+    if (stars >= 1 && stars <= 5) {
+      h[stars - 1] = amount;
+    }
+    return h;
+  }
+
+  private static MenuItemRatingStats empty(long itemId) {
+    return new MenuItemRatingStats(itemId, 0, 0, new long[5]);
+  }
+
+  private static MenuItemRatingStats toStats(MenuItemRatingSummary row) {
+    return new MenuItemRatingStats(row.getItemId(), row.getReviewCount(), row.getStarsSum(),
+        new long[] { row.getStars1(), row.getStars2(), row.getStars3(), row.getStars4(), row.getStars5() });
+  }
+}
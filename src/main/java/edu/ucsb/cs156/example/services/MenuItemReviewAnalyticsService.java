@@ -0,0 +1,308 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.collections.LongObjectHashMap;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.events.MenuItemReviewsCompactedEvent;
+import edu.ucsb.cs156.example.models.MenuItemReviewAggregate;
+import edu.ucsb.cs156.example.models.MenuItemReviewFilter;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Column-oriented copy of the menuitemreview table for ad-hoc analytics.
+ *
+ * Each column is a primitive array indexed by row, and reviewer emails are
+ * replaced by ids from a dictionary.  Queries run as one tight loop per
+ * condition over a single column, building a selection mask, followed by
+ * one pass that groups and aggregates the selected rows; the JIT can
+ * vectorise the filter loops.
+ *
+ * Loaded from the database at startup and kept up to date from
+ * MenuItemReviewChangedEvent after each commit.  Reviews compacted by the
+ * retention job are dropped, so analytics only cover the retained window.
+ * Dates are stored as UTC epoch seconds, matching how dateReviewed is
+ * written.
+ */
+@Slf4j
+@Service("menuItemReviewAnalytics")
+public class MenuItemReviewAnalyticsService implements SmartInitializingSingleton {
+
+  public enum GroupBy { NONE, DAY, ITEM, REVIEWER, STARS }
+
+  static final long NO_DATE = Long.MIN_VALUE;
+  private static final long SECONDS_PER_DAY = 86_400;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  // one row per review; deleting a row moves the last row into its place
+  private long[] ids = new long[16];
+  private long[] itemIds = new long[16];
+  private int[] stars = new int[16];
+  private long[] epochSeconds = new long[16];
+  private int[] reviewers = new int[16];
+  private int size;
+  private final LongObjectHashMap<Integer> rowById = new LongObjectHashMap<>();
+
+  // emails are never removed from the dictionary; there are few reviewers
+  private final Map<String, Integer> reviewerIds = new HashMap<>();
+  private final List<String> reviewerEmails = new ArrayList<>();
+
+  private final StampedLock lock = new StampedLock();
+
+  // before the web server starts, so no review lands in the columns twice
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public void load() {
+    long stamp = lock.writeLock();
+    try {
+      size = 0;
+      rowById.clear();
+      for (MenuItemReview review : reviewRepository.findAll()) {
+        put(review);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    log.info("loaded {} menu item reviews for analytics", size);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onReviewChanged(MenuItemReviewChangedEvent event) {
+    long stamp = lock.writeLock();
+    try {
+      MenuItemReview before = event.getBefore();
+      MenuItemReview after = event.getAfter();
+      // a review moved to another shard comes back with a new id
+      if (before != null && (after == null || after.getId() != before.getId())) {
+        remove(before.getId());
+      }
+      if (after != null) {
+        put(after);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onReviewsCompacted(MenuItemReviewsCompactedEvent event) {
+    long stamp = lock.writeLock();
+    try {
+      for (long id : event.getIds()) {
+        remove(id);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Count, star total, minimum and maximum of the matching reviews for each
+   * group, in group order.  Groups with no matching reviews are left out.
+   */
+  public List<MenuItemReviewAggregate> aggregate(MenuItemReviewFilter filter, GroupBy groupBy) {
+    long stamp = lock.readLock();
+    try {
+      boolean[] selected = select(filter);
+      return group(selected, groupBy);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // caller holds the write lock
+  private void put(MenuItemReview review) {
+    Integer existing = rowById.get(review.getId());
+    int row;
+    if (existing != null) {
+      row = existing;
+    } else {
+      ensureCapacity(size + 1);
+      row = size++;
+      rowById.put(review.getId(), row);
+    }
+    ids[row] = review.getId();
+    itemIds[row] = review.getItemId();
+    stars[row] = review.getStars();
+    epochSeconds[row] = toEpoch(review.getDateReviewed());
+    reviewers[row] = reviewerId(review.getReviewerEmail());
+  }
+
+  // caller holds the write lock
+  private void remove(long id) {
+    Integer removed = rowById.remove(id);
+    if (removed == null) {
+      return;
+    }
+    int row = removed;
+    int last = --size;
+    if (row != last) {
+      ids[row] = ids[last];
+      itemIds[row] = itemIds[last];
+      stars[row] = stars[last];
+      epochSeconds[row] = epochSeconds[last];
+      reviewers[row] = reviewers[last];
+      rowById.put(ids[row], row);
+    }
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > ids.length) {
+      int n = Math.max(capacity, ids.length * 2);
+      ids = Arrays.copyOf(ids, n);
+      itemIds = Arrays.copyOf(itemIds, n);
+      stars = Arrays.copyOf(stars, n);
+      epochSeconds = Arrays.copyOf(epochSeconds, n);
+      reviewers = Arrays.copyOf(reviewers, n);
+    }
+  }
+
+  private int reviewerId(String email) {
+    return reviewerIds.computeIfAbsent(email, e -> {
+      reviewerEmails.add(e);
+      return reviewerEmails.size() - 1;
+    });
+  }
+
+  private static long toEpoch(LocalDateTime t) {
+    return t == null ? NO_DATE : t.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private boolean[] select(MenuItemReviewFilter f) {
+    int n = size;
+    boolean[] sel = new boolean[n];
+    Arrays.fill(sel, true);
+    if (f.getItemId() != null) {
+      long v = f.getItemId();
+      for (int i = 0; i < n; i++) {
+        sel[i] &= itemIds[i] == v;
+      }
+    }
+    if (f.getReviewerEmail() != null) {
+      Integer id = reviewerIds.get(f.getReviewerEmail());
+      // -1 is never a reviewer id, so an unknown email matches nothing
+      int v = id == null ? -1 : id;
+      for (int i = 0; i < n; i++) {
+        sel[i] &= reviewers[i] == v;
+      }
+    }
+    if (f.getFrom() != null) {
+      long v = toEpoch(f.getFrom());
+      for (int i = 0; i < n; i++) {
+        sel[i] &= epochSeconds[i] >= v;
+      }
+    }
+    if (f.getTo() != null) {
+      long v = toEpoch(f.getTo());
+      for (int i = 0; i < n; i++) {
+        sel[i] &= epochSeconds[i] < v & epochSeconds[i] != NO_DATE;
+      }
+    }
+    if (f.getMinStars() != null) {
+      int v = f.getMinStars();
+      for (int i = 0; i < n; i++) {
+        sel[i] &= stars[i] >= v;
+      }
+    }
+    if (f.getMaxStars() != null) {
+      int v = f.getMaxStars();
+      for (int i = 0; i < n; i++) {
+        sel[i] &= stars[i] <= v;
+      }
+    }
+    return sel;
+  }
+
+  private List<MenuItemReviewAggregate> group(boolean[] selected, GroupBy groupBy) {
+    long[] keys = groupKeys(groupBy);
+    // count, sum, min, max for each group
+    LongObjectHashMap<long[]> totals = new LongObjectHashMap<>();
+    for (int i = 0; i < selected.length; i++) {
+      if (selected[i]) {
+        long[] t = totals.computeIfAbsent(keys[i], k -> new long[] { 0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE });
+        t[0]++;
+        t[1] += stars[i];
+        t[2] = Math.min(t[2], stars[i]);
+        t[3] = Math.max(t[3], stars[i]);
+      }
+    }
+
+    long[] groups = new long[totals.size()];
+    int[] next = { 0 };
+    totals.forEach((key, t) -> groups[next[0]++] = key);
+    Arrays.sort(groups);
+
+    List<MenuItemReviewAggregate> result = new ArrayList<>(groups.length);
+    for (long key : groups) {
+      long[] t = totals.get(key);
+      result.add(new MenuItemReviewAggregate(label(groupBy, key), t[0], t[1], (int) t[2], (int) t[3]));
+    }
+    return result;
+  }
+
+  private long[] groupKeys(GroupBy groupBy) {
+    int n = size;
+    long[] keys = new long[n];
+    switch (groupBy) {
+      case DAY:
+        for (int i = 0; i < n; i++) {
+          keys[i] = epochSeconds[i] == NO_DATE ? NO_DATE : Math.floorDiv(epochSeconds[i], SECONDS_PER_DAY);
+        }
+        break;
+      case ITEM:
+        System.arraycopy(itemIds, 0, keys, 0, n);
+        break;
+      case REVIEWER:
+        for (int i = 0; i < n; i++) {
+          keys[i] = reviewers[i];
+        }
+        break;
+      case STARS:
+        for (int i = 0; i < n; i++) {
+          keys[i] = stars[i];
+        }
+        break;
+      default:
+        break;
+    }
+    return keys;
+  }
+
+  private String label(GroupBy groupBy, long key) {
+    switch (groupBy) {
+      case DAY:
+        return key == NO_DATE ? null : LocalDate.ofEpochDay(key).toString();
+      case REVIEWER:
+        return reviewerEmails.get((int) key);
+      case ITEM:
+      case STARS:
+        return Long.toString(key);
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.entities.CompactedMenuItemReview;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.MenuItemReviewRollup;
+import edu.ucsb.cs156.example.events.MenuItemReviewsCompactedEvent;
+import edu.ucsb.cs156.example.repositories.CompactedMenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.JobLockRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compacts old menu item reviews into per-item, per-month rollups.
+ *
+ * Reviews older than the maximum age are read oldest first in batches.  Each
+ * batch takes two short transactions, so locks are only held for one batch
+ * at a time.  The first adds the batch to menuitemreviewrollup and records
+ * its review ids in compactedmenuitemreview; a review that is already
+ * recorded there is not added again.  The second deletes the reviews and
+ * then their records.  With sharded reviews each shard's delete commits on
+ * its own, so a failure can leave a batch partly deleted, but only recorded
+ * reviews are ever deleted: the next run deletes what is left without
+ * counting it twice.  A run stops after a bounded number of batches and the
+ * next run carries on where it left off.
+ *
+ * Every app instance schedules the job.  Each batch first locks the job's row
+ * in joblock, so batches from different instances roll up one after another
+ * rather than one failing on the other's records.
+ *
+ * Rating totals already include the compacted reviews, so they are left
+ * alone; MenuItemReviewsCompactedEvent tells the in-memory copies which
+ * rows are gone.
+ */
+@Slf4j
+@Service("menuItemReviewRetention")
+public class MenuItemReviewRetentionService {
+
+  static final String JOB = "menuItemReviewRetention";
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  @Autowired
+  MenuItemReviewRollupRepository rollupRepository;
+
+  @Autowired
+  CompactedMenuItemReviewRepository compactedRepository;
+
+  @Autowired
+  JobLockRepository jobLockRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  ApplicationEventPublisher eventPublisher;
+
+  @Value("${app.retention.enabled:true}")
+  boolean enabled;
+
+  @Value("${app.retention.max-age-days:365}")
+  int maxAgeDays;
+
+  @Value("${app.retention.batch-size:500}")
+  int batchSize;
+
+  @Value("${app.retention.max-batches:100}")
+  int maxBatches;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  @Scheduled(cron = "${app.retention.cron:0 30 3 * * *}")
+  public void scheduledCompaction() {
+    if (enabled) {
+      compact();
+    }
+  }
+
+  /** @return the number of reviews compacted */
+  public int compact() {
+    LocalDateTime cutoff = LocalDateTime.now(clock).minusDays(maxAgeDays);
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    createJobLock(tx);
+    int total = 0;
+    for (int i = 0; i < maxBatches; i++) {
+      List<Long> ids = tx.execute(status -> rollUpBatch(cutoff));
+      if (!ids.isEmpty()) {
+        tx.executeWithoutResult(status -> deleteBatch(ids));
+      }
+      total += ids.size();
+      if (ids.size() < batchSize) {
+        break;
+      }
+    }
+    log.info("compacted {} menu item reviews from before {}", total, cutoff);
+    return total;
+  }
+
+  /**
+   * Makes sure the job has a row to lock.  If another instance inserts it
+   * first, the insert fails in its own transaction and the row is there.
+   */
+  private void createJobLock(TransactionTemplate tx) {
+    if (jobLockRepository.existsById(JOB)) {
+      return;
+    }
+    try {
+      tx.executeWithoutResult(status -> jobLockRepository.insert(JOB));
+    } catch (DataIntegrityViolationException e) {
+      log.info("job lock {} was created concurrently", JOB);
+    }
+  }
+
+  /** @return the ids of the batch's reviews, all of which are now in the rollups */
+  private List<Long> rollUpBatch(LocalDateTime cutoff) {
+    // held until this transaction commits or rolls back
+    jobLockRepository.findForUpdateByName(JOB).orElseThrow();
+    List<MenuItemReview> batch = reviewRepository.findReviewedBefore(cutoff, PageRequest.of(0, batchSize));
+    if (batch.isEmpty()) {
+      return List.of();
+    }
+
+    List<Long> ids = batch.stream().map(MenuItemReview::getId).collect(Collectors.toList());
+    // left over from a run that failed before deleting them
+    Set<Long> recorded = StreamSupport.stream(compactedRepository.findAllById(ids).spliterator(), false)
+        .map(CompactedMenuItemReview::getReviewId).collect(Collectors.toSet());
+
+    Map<List<Object>, MenuItemReviewRollup> rollups = new LinkedHashMap<>();
+    for (MenuItemReview review : batch) {
+      if (recorded.contains(review.getId())) {
+        continue;
+      }
+      LocalDate month = review.getDateReviewed().toLocalDate().withDayOfMonth(1);
+      MenuItemReviewRollup r = rollups.computeIfAbsent(List.of(review.getItemId(), month),
+          k -> MenuItemReviewRollup.builder().itemId(review.getItemId()).reviewMonth(month).build());
+      add(r, review.getStars());
+      compactedRepository.insert(review.getId());
+    }
+
+    for (MenuItemReviewRollup r : rollups.values()) {
+      int updated = rollupRepository.addToTotals(r.getItemId(), r.getReviewMonth(), r.getReviewCount(), r.getStarsSum(),
+          r.getStars1(), r.getStars2(), r.getStars3(), r.getStars4(), r.getStars5());
+      if (updated == 0) {
+        rollupRepository.save(r);
+      }
+    }
+    return ids;
+  }
+
+  private void deleteBatch(List<Long> ids) {
+    reviewRepository.deleteByIdIn(ids);
+    compactedRepository.deleteByReviewIdIn(ids);
+    eventPublisher.publishEvent(new MenuItemReviewsCompactedEvent(ids));
+  }
+
+  // stars outside 1..5 count towards the count and sum but not the histogram
+  private static void add(MenuItemReviewRollup r, int stars) {
+    r.setReviewCount(r.getReviewCount() + 1);
+    r.setStarsSum(r.getStarsSum() + stars);
+    switch (stars) {
+      case 1:
+        r.setStars1(r.getStars1() + 1);
+        break;
+      case 2:
+        r.setStars2(r.getStars2() + 1);
+        break;
+      case 3:
+        r.setStars3(r.getStars3() + 1);
+        break;
+      case 4:
+        r.setStars4(r.getStars4() + 1);
+        break;
+      case 5:
+        r.setStars5(r.getStars5() + 1);
+        break;
+      default:
+        break;
+    }
+  }
+}
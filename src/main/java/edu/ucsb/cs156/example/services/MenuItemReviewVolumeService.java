@@ -0,0 +1,177 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.collections.TimeBucketRing;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.models.MenuItemReviewVolume;
+import edu.ucsb.cs156.example.models.VolumeBucket;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Numbers of reviews posted per minute over the last hour and per hour over
+ * the last week, for each menu item, each dining commons and overall.
+ *
+ * Reviews are counted by dateReviewed, in TimeBucketRings that are updated
+ * without locking when a new review is committed.  Only new reviews are
+ * counted; edits and deletes do not change the volume.  The rings are
+ * rebuilt from the last week of reviews on startup.
+ */
+@Slf4j
+@Service("menuItemReviewVolume")
+public class MenuItemReviewVolumeService implements SmartInitializingSingleton {
+
+  static final int MINUTES = 60;
+  // a full extra day, so that the oldest of the last 7 days is complete
+  static final int HOURS = 8 * 24;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  static class Counters {
+    final TimeBucketRing minutes = new TimeBucketRing(MINUTES);
+    final TimeBucketRing hours = new TimeBucketRing(HOURS);
+
+    void add(long minute) {
+      minutes.add(minute, 1);
+      hours.add(Math.floorDiv(minute, 60), 1);
+    }
+  }
+
+  private final Map<Long, Counters> byItem = new ConcurrentHashMap<>();
+  private final Map<String, Counters> byDiningCommons = new ConcurrentHashMap<>();
+  private volatile Counters total = new Counters();
+
+  // dining commons code of each menu item, filled in as items are seen
+  private final Map<Long, String> diningCommonsCodes = new ConcurrentHashMap<>();
+
+  // before the web server starts, so the rings do not count a review twice
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public void load() {
+    for (UCSBDiningCommonsMenuItem item : menuItemRepository.findAll()) {
+      if (item.getDiningCommonsCode() != null) {
+        diningCommonsCodes.put(item.getId(), item.getDiningCommonsCode());
+      }
+    }
+    byItem.clear();
+    byDiningCommons.clear();
+    total = new Counters();
+
+    LocalDateTime since = LocalDateTime.now(clock).minusHours(HOURS);
+    int n = 0;
+    for (MenuItemReview review : reviewRepository.findByDateReviewedGreaterThanEqual(since)) {
+      record(review);
+      n++;
+    }
+    log.info("rebuilt review volume counters from {} reviews", n);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onReviewChanged(MenuItemReviewChangedEvent event) {
+    if (event.getBefore() == null) {
+      record(event.getAfter());
+    }
+  }
+
+  public MenuItemReviewVolume getItemVolume(long itemId) {
+    return volume(byItem.get(itemId));
+  }
+
+  public MenuItemReviewVolume getDiningCommonsVolume(String diningCommonsCode) {
+    return volume(byDiningCommons.get(diningCommonsCode));
+  }
+
+  public MenuItemReviewVolume getTotalVolume() {
+    return volume(total);
+  }
+
+  private void record(MenuItemReview review) {
+    if (review.getDateReviewed() == null) {
+      return;
+    }
+    long minute = epochMinute(review.getDateReviewed());
+    // future reviews would hold on to ring slots needed by current ones
+    if (minute < 0 || minute > epochMinute(LocalDateTime.now(clock))) {
+      return;
+    }
+    total.add(minute);
+    byItem.computeIfAbsent(review.getItemId(), k -> new Counters()).add(minute);
+    String code = diningCommonsCode(review.getItemId());
+    if (code != null) {
+      byDiningCommons.computeIfAbsent(code, k -> new Counters()).add(minute);
+    }
+  }
+
+  private String diningCommonsCode(long itemId) {
+    String code = diningCommonsCodes.get(itemId);
+    if (code == null) {
+      code = menuItemRepository.findById(itemId)
+          .map(UCSBDiningCommonsMenuItem::getDiningCommonsCode)
+          .orElse(null);
+      if (code != null) {
+        diningCommonsCodes.put(itemId, code);
+      }
+    }
+    return code;
+  }
+
+  private MenuItemReviewVolume volume(Counters c) {
+    long nowMinute = epochMinute(LocalDateTime.now(clock));
+    long nowHour = Math.floorDiv(nowMinute, 60);
+    long today = Math.floorDiv(nowHour, 24);
+
+    List<VolumeBucket> minutes = new ArrayList<>(MINUTES);
+    for (long m = nowMinute - MINUTES + 1; m <= nowMinute; m++) {
+      minutes.add(new VolumeBucket(fromEpochMinute(m), c == null ? 0 : c.minutes.get(m)));
+    }
+    List<VolumeBucket> hours = new ArrayList<>(24);
+    for (long h = nowHour - 23; h <= nowHour; h++) {
+      hours.add(new VolumeBucket(fromEpochMinute(h * 60), hourCount(c, h)));
+    }
+    List<VolumeBucket> days = new ArrayList<>(7);
+    for (long d = today - 6; d <= today; d++) {
+      long count = 0;
+      for (long h = d * 24; h < (d + 1) * 24; h++) {
+        count += hourCount(c, h);
+      }
+      days.add(new VolumeBucket(fromEpochMinute(d * 24 * 60), count));
+    }
+    return new MenuItemReviewVolume(minutes, hours, days);
+  }
+
+  private static long hourCount(Counters c, long hour) {
+    return c == null ? 0 : c.hours.get(hour);
+  }
+
+  private static long epochMinute(LocalDateTime t) {
+    return Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60);
+  }
+
+  private static LocalDateTime fromEpochMinute(long minute) {
+    return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,231 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.collections.HyperLogLog;
+import edu.ucsb.cs156.example.collections.LongObjectHashMap;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.MenuItemReviewerSketch;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.models.DistinctReviewerEstimate;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewerSketchRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Estimated numbers of different reviewers of a menu item, a dining commons
+ * or all items, over any range of days.
+ *
+ * Each item has one HyperLogLog sketch per day on which it was reviewed;
+ * a query merges the sketches of the items and days it covers.  Sketches
+ * only grow, so a reviewer whose review is edited or deleted is still
+ * counted.  Reviewer emails are compared case-insensitively.
+ *
+ * Changed sketches are saved to menuitemreviewersketch every flush-millis
+ * and on shutdown, and are loaded from it on startup.  Only an empty table
+ * is rebuilt from the reviews.  Each save locks the stored row and merges
+ * with it, so several instances can share the table without losing each
+ * other's reviewers; but queries only see what other instances had saved
+ * by the time this one started.
+ */
+@Slf4j
+@Service("menuItemReviewerCount")
+public class MenuItemReviewerCountService implements SmartInitializingSingleton {
+
+  @Autowired
+  MenuItemReviewerSketchRepository sketchRepository;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  // item -> epoch day -> sketch
+  private final LongObjectHashMap<NavigableMap<Long, HyperLogLog>> sketches = new LongObjectHashMap<>();
+  // { itemId, epochDay } of the sketches changed since the last flush
+  private final Set<List<Long>> dirty = new HashSet<>();
+
+  private final StampedLock lock = new StampedLock();
+
+  // before the web server starts, so every review after the load reaches the sketches exactly once
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public void load() {
+    int n = 0;
+    long stamp = lock.writeLock();
+    try {
+      sketches.clear();
+      dirty.clear();
+      for (MenuItemReviewerSketch row : sketchRepository.findAll()) {
+        sketches.computeIfAbsent(row.getItemId(), k -> new TreeMap<>())
+            .put(row.getReviewDay().toEpochDay(), HyperLogLog.fromBytes(row.getRegisters()));
+        n++;
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    if (n > 0) {
+      log.info("loaded {} reviewer sketches", n);
+      return;
+    }
+    for (MenuItemReview review : reviewRepository.findAll()) {
+      add(review);
+    }
+    flush();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onReviewChanged(MenuItemReviewChangedEvent event) {
+    if (event.getAfter() != null) {
+      add(event.getAfter());
+    }
+  }
+
+  private void add(MenuItemReview review) {
+    if (review.getDateReviewed() == null || review.getReviewerEmail() == null) {
+      return;
+    }
+    long day = review.getDateReviewed().toLocalDate().toEpochDay();
+    long stamp = lock.writeLock();
+    try {
+      sketches.computeIfAbsent(review.getItemId(), k -> new TreeMap<>())
+          .computeIfAbsent(day, k -> new HyperLogLog())
+          .add(review.getReviewerEmail().toLowerCase(Locale.ROOT));
+      dirty.add(List.of(review.getItemId(), day));
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /** Saves the sketches that changed since the last flush */
+  @Scheduled(fixedDelayString = "${app.menuitemreview.reviewers.flush-millis:60000}")
+  @PreDestroy
+  public void flush() {
+    Map<List<Long>, HyperLogLog> changed = new HashMap<>();
+    long stamp = lock.writeLock();
+    try {
+      for (List<Long> key : dirty) {
+        changed.put(key, HyperLogLog.fromBytes(sketches.get(key.get(0)).get(key.get(1)).toBytes()));
+      }
+      dirty.clear();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    int saved = 0;
+    for (Map.Entry<List<Long>, HyperLogLog> e : changed.entrySet()) {
+      long itemId = e.getKey().get(0);
+      LocalDate day = LocalDate.ofEpochDay(e.getKey().get(1));
+      try {
+        try {
+          tx.executeWithoutResult(status -> mergeAndSave(itemId, day, e.getValue()));
+        } catch (DataIntegrityViolationException ex) {
+          // another instance inserted the same day first; merge into its row
+          tx.executeWithoutResult(status -> mergeAndSave(itemId, day, e.getValue()));
+        }
+        saved++;
+      } catch (RuntimeException ex) {
+        log.warn("could not save the reviewer sketch of item {} on {}, will try again", itemId, day, ex);
+        long retry = lock.writeLock();
+        try {
+          dirty.add(e.getKey());
+        } finally {
+          lock.unlockWrite(retry);
+        }
+      }
+    }
+    if (saved > 0) {
+      log.info("saved {} reviewer sketches", saved);
+    }
+  }
+
+  // in a transaction, which holds the lock on the stored row
+  private void mergeAndSave(long itemId, LocalDate day, HyperLogLog sketch) {
+    MenuItemReviewerSketch row = sketchRepository.findForUpdateByItemIdAndReviewDay(itemId, day)
+        .orElseGet(() -> MenuItemReviewerSketch.builder().itemId(itemId).reviewDay(day).build());
+    if (row.getRegisters() != null) {
+      sketch.merge(HyperLogLog.fromBytes(row.getRegisters()));
+    }
+    row.setRegisters(sketch.toBytes());
+    sketchRepository.save(row);
+  }
+
+  public DistinctReviewerEstimate getItemReviewers(long itemId, LocalDate from, LocalDate to) {
+    return estimate(List.of(itemId), from, to);
+  }
+
+  public DistinctReviewerEstimate getDiningCommonsReviewers(String diningCommonsCode, LocalDate from, LocalDate to) {
+    List<Long> itemIds = new ArrayList<>();
+    for (UCSBDiningCommonsMenuItem item : menuItemRepository.findByDiningCommonsCode(diningCommonsCode)) {
+      itemIds.add(item.getId());
+    }
+    return estimate(itemIds, from, to);
+  }
+
+  public DistinctReviewerEstimate getTotalReviewers(LocalDate from, LocalDate to) {
+    return estimate(null, from, to);
+  }
+
+  // all items if itemIds is null
+  private DistinctReviewerEstimate estimate(List<Long> itemIds, LocalDate from, LocalDate to) {
+    long first = from == null ? Long.MIN_VALUE : from.toEpochDay();
+    long last = to == null ? Long.MAX_VALUE : to.toEpochDay();
+    HyperLogLog union = new HyperLogLog();
+    long stamp = lock.readLock();
+    try {
+      if (itemIds == null) {
+        sketches.forEach((itemId, days) -> mergeDays(union, days, first, last));
+      } else {
+        for (long itemId : itemIds) {
+          NavigableMap<Long, HyperLogLog> days = sketches.get(itemId);
+          if (days != null) {
+            mergeDays(union, days, first, last);
+          }
+        }
+      }
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    return new DistinctReviewerEstimate(from, to, union.estimate(), HyperLogLog.STANDARD_ERROR);
+  }
+
+  private static void mergeDays(HyperLogLog union, NavigableMap<Long, HyperLogLog> days, long first, long last) {
+    if (first > last) {
+      return;
+    }
+    for (HyperLogLog sketch : days.subMap(first, true, last, true).values()) {
+      union.merge(sketch);
+    }
+  }
+}
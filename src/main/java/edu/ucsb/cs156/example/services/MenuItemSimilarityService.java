@@ -0,0 +1,210 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.collections.SparseCountMatrix;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.models.SimilarMenuItem;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * "People who liked this also liked" for menu items.
+ *
+ * A reviewer likes an item if they gave it at least min-stars.  Two sparse
+ * matrices are kept in memory: the items each reviewer likes, and for each
+ * pair of items the number of reviewers who like both, with the number who
+ * like each item on the diagonal.  Items are compared by the cosine
+ * similarity of their sets of likers.
+ *
+ * Both matrices are updated after each committed review change, and rebuilt
+ * from all reviews on startup and on a schedule, with the pair counts
+ * computed in parallel on the fork/join pool.  Reviews compacted by the
+ * retention job drop out at the next rebuild.
+ */
+@Slf4j
+@Service("menuItemSimilarity")
+public class MenuItemSimilarityService implements SmartInitializingSingleton {
+
+  // reviewers counted by one fork/join leaf
+  static final int LEAF_SIZE = 256;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  @Value("${app.menuitemreview.similarity.min-stars:4}")
+  int minStars;
+
+  // reviewer id -> item -> number of reviews in which they liked it
+  private SparseCountMatrix likes = new SparseCountMatrix();
+  // item -> item -> number of reviewers who liked both
+  private SparseCountMatrix coLikes = new SparseCountMatrix();
+  private Map<String, Integer> reviewerIds = new HashMap<>();
+
+  private final StampedLock lock = new StampedLock();
+
+  // the first build runs before the web server starts, so no like is counted twice
+  @Override
+  public void afterSingletonsInstantiated() {
+    rebuild();
+  }
+
+  @Scheduled(cron = "${app.menuitemreview.similarity.rebuild-cron:0 0 4 * * *}")
+  public void rebuild() {
+    Map<String, Integer> newReviewerIds = new HashMap<>();
+    SparseCountMatrix newLikes = new SparseCountMatrix();
+    for (MenuItemReview review : reviewRepository.findAll()) {
+      if (review.getStars() >= minStars) {
+        newLikes.add(reviewerId(newReviewerIds, review.getReviewerEmail()), review.getItemId(), 1);
+      }
+    }
+    long[] reviewers = newLikes.rowKeys();
+    List<long[]> baskets = new ArrayList<>(reviewers.length);
+    for (long reviewer : reviewers) {
+      baskets.add(newLikes.columns(reviewer));
+    }
+    SparseCountMatrix newCoLikes = ForkJoinPool.commonPool().invoke(new CoLikeTask(baskets, 0, baskets.size()));
+
+    long stamp = lock.writeLock();
+    try {
+      reviewerIds = newReviewerIds;
+      likes = newLikes;
+      coLikes = newCoLikes;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    log.info("rebuilt menu item similarity from the likes of {} reviewers", reviewers.length);
+  }
+
+  /** Counts the pairs of items in each basket; splits until a leaf has LEAF_SIZE baskets */
+  static class CoLikeTask extends RecursiveTask<SparseCountMatrix> {
+    private final List<long[]> baskets;
+    private final int from;
+    private final int to;
+
+    CoLikeTask(List<long[]> baskets, int from, int to) {
+      this.baskets = baskets;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected SparseCountMatrix compute() {
+      if (to - from <= LEAF_SIZE) {
+        SparseCountMatrix m = new SparseCountMatrix();
+        for (int b = from; b < to; b++) {
+          long[] items = baskets.get(b);
+          for (long i : items) {
+            for (long j : items) {
+              m.add(i, j, 1);
+            }
+          }
+        }
+        return m;
+      }
+      int mid = (from + to) >>> 1;
+      CoLikeTask left = new CoLikeTask(baskets, from, mid);
+      left.fork();
+      SparseCountMatrix right = new CoLikeTask(baskets, mid, to).compute();
+      SparseCountMatrix result = left.join();
+      result.addAll(right);
+      return result;
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onReviewChanged(MenuItemReviewChangedEvent event) {
+    long stamp = lock.writeLock();
+    try {
+      if (event.getBefore() != null && event.getBefore().getStars() >= minStars) {
+        unlike(event.getBefore());
+      }
+      if (event.getAfter() != null && event.getAfter().getStars() >= minStars) {
+        like(event.getAfter());
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  // caller holds the write lock
+  private void like(MenuItemReview review) {
+    long reviewer = reviewerId(reviewerIds, review.getReviewerEmail());
+    long item = review.getItemId();
+    if (likes.add(reviewer, item, 1) == 1) {
+      // the item itself is among the reviewer's likes now, which counts the diagonal
+      for (long other : likes.columns(reviewer)) {
+        coLikes.add(item, other, 1);
+        if (other != item) {
+          coLikes.add(other, item, 1);
+        }
+      }
+    }
+  }
+
+  // caller holds the write lock
+  private void unlike(MenuItemReview review) {
+    long reviewer = reviewerId(reviewerIds, review.getReviewerEmail());
+    long item = review.getItemId();
+    if (likes.add(reviewer, item, -1) == 0) {
+      for (long other : likes.columns(reviewer)) {
+        coLikes.add(item, other, -1);
+        coLikes.add(other, item, -1);
+      }
+      coLikes.add(item, item, -1);
+    }
+  }
+
+  private static int reviewerId(Map<String, Integer> ids, String email) {
+    return ids.computeIfAbsent(email, e -> ids.size());
+  }
+
+  /**
+   * Up to k items most similar to the given one, most similar first.  Only
+   * items liked by at least one of the same reviewers are returned.
+   */
+  public List<SimilarMenuItem> getSimilar(long itemId, int k) {
+    Comparator<SimilarMenuItem> order = Comparator.comparingDouble(SimilarMenuItem::getSimilarity)
+        .reversed().thenComparingLong(SimilarMenuItem::getItemId);
+    // worst of the best k at the head
+    PriorityQueue<SimilarMenuItem> best = new PriorityQueue<>(order.reversed());
+
+    long stamp = lock.readLock();
+    try {
+      int likers = coLikes.get(itemId, itemId);
+      coLikes.forEachInRow(itemId, (other, both) -> {
+        if (other == itemId) {
+          return;
+        }
+        double similarity = both / Math.sqrt((double) likers * coLikes.get(other, other));
+        best.add(new SimilarMenuItem(other, null, both, similarity));
+        if (best.size() > k) {
+          best.poll();
+        }
+      });
+    } finally {
+      lock.unlockRead(stamp);
+    }
+
+    List<SimilarMenuItem> result = new ArrayList<>(best);
+    Collections.sort(result, order);
+    return result;
+  }
+}
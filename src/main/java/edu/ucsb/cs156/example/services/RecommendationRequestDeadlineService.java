@@ -0,0 +1,122 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.RecommendationRequestChangedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsDoneEvent;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The recommendation requests each professor still has to write, ordered
+ * by dateNeeded, for "due in the next N days" without a query.
+ *
+ * Each professor has a concurrent skip list of copies of their requests
+ * that are not done, so reads take no lock and a window is one subSet.
+ * Loaded on startup and kept up to date from committed
+ * RecommendationRequestChangedEvents and RecommendationRequestsDoneEvents;
+ * requests without a professor or a dateNeeded are left out.
+ */
+@Slf4j
+@Service("recommendationRequestDeadlines")
+public class RecommendationRequestDeadlineService implements SmartInitializingSingleton {
+
+  private static final Comparator<RecommendationRequest> BY_DATE_NEEDED = Comparator
+      .comparing(RecommendationRequest::getDateNeeded)
+      .thenComparingLong(RecommendationRequest::getId);
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  private final Map<String, ConcurrentSkipListSet<RecommendationRequest>> byProfessor = new ConcurrentHashMap<>();
+  // the copy held for each id; only changed while holding the monitor
+  private final Map<Long, RecommendationRequest> byId = new ConcurrentHashMap<>();
+
+  // before the web server starts, so every later change arrives as an event
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public synchronized void load() {
+    byProfessor.clear();
+    byId.clear();
+    for (RecommendationRequest request : recommendationRequestRepository.findByDoneFalse()) {
+      add(request);
+    }
+    log.info("loaded {} open recommendation requests", byId.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onRecommendationRequestChanged(RecommendationRequestChangedEvent event) {
+    if (event.getBefore() != null) {
+      remove(event.getBefore().getId());
+    }
+    if (event.getAfter() != null) {
+      add(event.getAfter());
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onRecommendationRequestsDone(RecommendationRequestsDoneEvent event) {
+    List<Long> done = new ArrayList<>();
+    for (RecommendationRequest r : byId.values()) {
+      if ((event.getProfessorEmail() == null || event.getProfessorEmail().equals(r.getProfessorEmail()))
+          && (event.getNeededBefore() == null || r.getDateNeeded().isBefore(event.getNeededBefore()))) {
+        done.add(r.getId());
+      }
+    }
+    for (long id : done) {
+      remove(id);
+    }
+  }
+
+  /** The professor's requests that are not done and are needed in the next days days, soonest first */
+  public List<RecommendationRequest> getDueSoon(String professorEmail, int days) {
+    ConcurrentSkipListSet<RecommendationRequest> requests = byProfessor.get(professorEmail);
+    if (requests == null) {
+      return List.of();
+    }
+    LocalDateTime from = LocalDateTime.now(clock);
+    LocalDateTime to = from.plusDays(Math.max(0, days));
+    return new ArrayList<>(requests.subSet(probe(from, Long.MIN_VALUE), true, probe(to, Long.MAX_VALUE), true));
+  }
+
+  private static RecommendationRequest probe(LocalDateTime dateNeeded, long id) {
+    return RecommendationRequest.builder().id(id).dateNeeded(dateNeeded).build();
+  }
+
+  // caller holds the monitor
+  private void add(RecommendationRequest request) {
+    if (request.getDone() || request.getProfessorEmail() == null || request.getDateNeeded() == null) {
+      return;
+    }
+    RecommendationRequest copy = request.toBuilder().build();
+    remove(copy.getId());
+    byId.put(copy.getId(), copy);
+    byProfessor.computeIfAbsent(copy.getProfessorEmail(), k -> new ConcurrentSkipListSet<>(BY_DATE_NEEDED)).add(copy);
+  }
+
+  // caller holds the monitor
+  private void remove(long id) {
+    RecommendationRequest old = byId.remove(id);
+    if (old != null) {
+      byProfessor.get(old.getProfessorEmail()).remove(old);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.collections.TimingWheel;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.RecommendationRequestReminder;
+import edu.ucsb.cs156.example.events.RecommendationRequestChangedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsDoneEvent;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestReminderRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes a RecommendationRequestReminder to the outbox days-before days
+ * before each open recommendation request is needed.
+ *
+ * Pending reminders are timers in a TimingWheel with one tick per minute,
+ * so each run only touches the reminders that are due.  The timers are
+ * rebuilt on startup from the requests that are not done and are still
+ * needed in the future, skipping those whose reminder is already in the
+ * outbox; reminders that fell due while the application was down are
+ * written on the first run.  Kept up to date from committed
+ * RecommendationRequestChangedEvents and RecommendationRequestsDoneEvents.
+ */
+@Slf4j
+@Service("recommendationRequestReminders")
+public class RecommendationRequestReminderService implements SmartInitializingSingleton {
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  RecommendationRequestReminderRepository reminderRepository;
+
+  @Value("${app.reminders.days-before:3}")
+  int daysBefore;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  private TimingWheel<RecommendationRequest> wheel = new TimingWheel<>(tickOf(LocalDateTime.now(clock)));
+
+  // before the web server starts, so no reminder is scheduled twice
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public synchronized void load() {
+    LocalDateTime now = LocalDateTime.now(clock);
+    Set<String> sent = new HashSet<>();
+    for (RecommendationRequestReminder reminder : reminderRepository.findByDateNeededGreaterThanEqual(now)) {
+      sent.add(reminder.getRecommendationRequestId() + "@" + reminder.getDateNeeded());
+    }
+    wheel = new TimingWheel<>(tickOf(now));
+    for (RecommendationRequest request : recommendationRequestRepository.findByDoneFalse()) {
+      if (!sent.contains(request.getId() + "@" + request.getDateNeeded())) {
+        schedule(request, now);
+      }
+    }
+    log.info("scheduled {} recommendation request reminders", wheel.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onRecommendationRequestChanged(RecommendationRequestChangedEvent event) {
+    if (event.getBefore() != null) {
+      wheel.cancel(event.getBefore().getId());
+    }
+    if (event.getAfter() != null) {
+      schedule(event.getAfter(), LocalDateTime.now(clock));
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onRecommendationRequestsDone(RecommendationRequestsDoneEvent event) {
+    List<Long> done = new ArrayList<>();
+    wheel.forEach((id, r) -> {
+      if ((event.getProfessorEmail() == null || event.getProfessorEmail().equals(r.getProfessorEmail()))
+          && (event.getNeededBefore() == null || r.getDateNeeded().isBefore(event.getNeededBefore()))) {
+        done.add(id);
+      }
+    });
+    for (long id : done) {
+      wheel.cancel(id);
+    }
+  }
+
+  public synchronized int pending() {
+    return wheel.size();
+  }
+
+  /** @return the number of reminders written */
+  @Scheduled(fixedDelayString = "${app.reminders.tick-millis:60000}")
+  public int fireDue() {
+    LocalDateTime now = LocalDateTime.now(clock);
+    List<RecommendationRequest> due;
+    synchronized (this) {
+      due = wheel.advanceTo(tickOf(now));
+    }
+
+    int written = 0;
+    for (RecommendationRequest r : due) {
+      // a request edited without changing dateNeeded is scheduled again
+      if (reminderRepository.existsByRecommendationRequestIdAndDateNeeded(r.getId(), r.getDateNeeded())) {
+        continue;
+      }
+      try {
+        reminderRepository.save(RecommendationRequestReminder.builder()
+            .recommendationRequestId(r.getId())
+            .requesterEmail(r.getRequesterEmail())
+            .professorEmail(r.getProfessorEmail())
+            .dateNeeded(r.getDateNeeded())
+            .remindAt(r.getDateNeeded().minusDays(daysBefore))
+            .createdAt(now)
+            .build());
+        written++;
+      } catch (RuntimeException e) {
+        log.warn("could not write the reminder for recommendation request {}; retrying", r.getId(), e);
+        synchronized (this) {
+          if (wheel.get(r.getId()) == null) {
+            wheel.schedule(r.getId(), wheel.now() + 1, r);
+          }
+        }
+      }
+    }
+    if (written > 0) {
+      log.info("wrote {} recommendation request reminders", written);
+    }
+    return written;
+  }
+
+  // caller holds the monitor
+  private void schedule(RecommendationRequest request, LocalDateTime now) {
+    if (request.getDone() || request.getDateNeeded() == null || !request.getDateNeeded().isAfter(now)) {
+      wheel.cancel(request.getId());
+      return;
+    }
+    wheel.schedule(request.getId(), tickOf(request.getDateNeeded().minusDays(daysBefore)), request.toBuilder().build());
+  }
+
+  // minutes since the epoch, rounded up so that reminders are not early
+  static long tickOf(LocalDateTime t) {
+    return Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC) + 59, 60);
+  }
+}
@@ -0,0 +1,166 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.collections.IntervalTree;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.RecommendationRequestChangedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsArchivedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsDoneEvent;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The span from dateRequested to dateNeeded of each recommendation request,
+ * in an IntervalTree per professor, for "which requests are outstanding
+ * during this week" without a two-column range scan.
+ *
+ * Loaded from the database at startup and kept up to date from committed
+ * RecommendationRequestChangedEvents and RecommendationRequestsDoneEvents.
+ * Requests without a professor or either date, or needed before they were
+ * requested, are left out, and RecommendationRequestsArchivedEvents take
+ * archived requests out.  Times are stored as UTC epoch seconds.
+ */
+@Slf4j
+@Service("recommendationRequestSpans")
+public class RecommendationRequestSpanService implements SmartInitializingSingleton {
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  private final Map<String, IntervalTree<RecommendationRequest>> byProfessor = new HashMap<>();
+  // professor of each indexed request, to find its tree
+  private final Map<Long, String> professors = new HashMap<>();
+
+  private final StampedLock lock = new StampedLock();
+
+  // before the web server starts, so no span is inserted twice
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public void load() {
+    long stamp = lock.writeLock();
+    try {
+      byProfessor.clear();
+      professors.clear();
+      for (RecommendationRequest request : recommendationRequestRepository.findAll()) {
+        put(request);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    log.info("indexed the spans of {} recommendation requests", professors.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onRecommendationRequestChanged(RecommendationRequestChangedEvent event) {
+    long stamp = lock.writeLock();
+    try {
+      if (event.getBefore() != null) {
+        remove(event.getBefore().getId());
+      }
+      if (event.getAfter() != null) {
+        put(event.getAfter());
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onRecommendationRequestsDone(RecommendationRequestsDoneEvent event) {
+    long stamp = lock.writeLock();
+    try {
+      for (Map.Entry<String, IntervalTree<RecommendationRequest>> e : byProfessor.entrySet()) {
+        if (event.getProfessorEmail() == null || event.getProfessorEmail().equals(e.getKey())) {
+          e.getValue().forEach((id, r) -> {
+            if (event.getNeededBefore() == null || r.getDateNeeded().isBefore(event.getNeededBefore())) {
+              r.setDone(true);
+            }
+          });
+        }
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onRecommendationRequestsArchived(RecommendationRequestsArchivedEvent event) {
+    long stamp = lock.writeLock();
+    try {
+      for (RecommendationRequest r : event.getRequests()) {
+        remove(r.getId());
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * The professor's requests that were requested by to and needed no
+   * earlier than from, by dateRequested.  Done requests are only included
+   * if includeDone is set.
+   */
+  public List<RecommendationRequest> getOutstanding(String professorEmail, LocalDateTime from, LocalDateTime to,
+      boolean includeDone) {
+    List<RecommendationRequest> result = new ArrayList<>();
+    long stamp = lock.readLock();
+    try {
+      IntervalTree<RecommendationRequest> tree = byProfessor.get(professorEmail);
+      if (tree == null) {
+        return result;
+      }
+      for (RecommendationRequest r : tree.overlapping(toEpoch(from), toEpoch(to))) {
+        if (includeDone || !r.getDone()) {
+          result.add(r.toBuilder().build());
+        }
+      }
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    return result;
+  }
+
+  // caller holds the write lock
+  private void put(RecommendationRequest request) {
+    remove(request.getId());
+    if (request.getProfessorEmail() == null || request.getDateRequested() == null || request.getDateNeeded() == null
+        || request.getDateNeeded().isBefore(request.getDateRequested())) {
+      return;
+    }
+    byProfessor.computeIfAbsent(request.getProfessorEmail(), k -> new IntervalTree<>())
+        .put(request.getId(), toEpoch(request.getDateRequested()), toEpoch(request.getDateNeeded()),
+            request.toBuilder().build());
+    professors.put(request.getId(), request.getProfessorEmail());
+  }
+
+  // caller holds the write lock
+  private void remove(long id) {
+    String professor = professors.remove(id);
+    if (professor != null) {
+      IntervalTree<RecommendationRequest> tree = byProfessor.get(professor);
+      tree.remove(id);
+      if (tree.size() == 0) {
+        byProfessor.remove(professor);
+      }
+    }
+  }
+
+  private static long toEpoch(LocalDateTime t) {
+    return t.toEpochSecond(ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,165 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.RecommendationRequestChangedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsArchivedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsDoneEvent;
+import edu.ucsb.cs156.example.models.ProfessorWorkload;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Numbers of open, done and overdue recommendation requests for each
+ * professor.
+ *
+ * Counts are loaded with one GROUP BY at startup and then kept up to date
+ * from committed RecommendationRequestChangedEvents and
+ * RecommendationRequestsDoneEvents, so reading them never touches the
+ * table.  Open requests are counted by dateNeeded, so that the overdue
+ * count follows the clock.  Requests without a professor are not counted,
+ * and nor are archived requests, which RecommendationRequestsArchivedEvent
+ * takes off the done counts.
+ */
+@Slf4j
+@Service("recommendationRequestWorkload")
+public class RecommendationRequestWorkloadService implements SmartInitializingSingleton {
+
+  static final Comparator<ProfessorWorkload> BY_LOAD = Comparator
+      .comparingLong(ProfessorWorkload::getOpen).reversed()
+      .thenComparing(Comparator.comparingLong(ProfessorWorkload::getOverdue).reversed())
+      .thenComparing(ProfessorWorkload::getProfessorEmail);
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  static class Counts {
+    long open;
+    long done;
+    // open requests that have a dateNeeded, by dateNeeded
+    final TreeMap<LocalDateTime, Long> openByDateNeeded = new TreeMap<>();
+
+    void addOpen(LocalDateTime dateNeeded, long n) {
+      open += n;
+      if (dateNeeded != null) {
+        openByDateNeeded.merge(dateNeeded, n, (a, b) -> a + b == 0 ? null : a + b);
+      }
+    }
+
+    long overdue(LocalDateTime now) {
+      long overdue = 0;
+      for (long n : openByDateNeeded.headMap(now, false).values()) {
+        overdue += n;
+      }
+      return overdue;
+    }
+
+    boolean isEmpty() {
+      return open == 0 && done == 0;
+    }
+  }
+
+  private final Map<String, Counts> byProfessor = new HashMap<>();
+
+  // before the web server starts: the counters take deltas, so a change must not reach them twice
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public synchronized void load() {
+    byProfessor.clear();
+    for (Object[] row : recommendationRequestRepository.countByProfessorAndDoneAndDateNeeded()) {
+      String professor = (String) row[0];
+      boolean done = (Boolean) row[1];
+      LocalDateTime dateNeeded = (LocalDateTime) row[2];
+      long n = ((Number) row[3]).longValue();
+      add(professor, done, dateNeeded, n);
+    }
+    log.info("loaded recommendation request counts for {} professors", byProfessor.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onRecommendationRequestChanged(RecommendationRequestChangedEvent event) {
+    RecommendationRequest before = event.getBefore();
+    RecommendationRequest after = event.getAfter();
+    if (before != null) {
+      add(before.getProfessorEmail(), before.getDone(), before.getDateNeeded(), -1);
+    }
+    if (after != null) {
+      add(after.getProfessorEmail(), after.getDone(), after.getDateNeeded(), 1);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onRecommendationRequestsDone(RecommendationRequestsDoneEvent event) {
+    for (Map.Entry<String, Counts> e : byProfessor.entrySet()) {
+      if (event.getProfessorEmail() != null && !event.getProfessorEmail().equals(e.getKey())) {
+        continue;
+      }
+      Counts c = e.getValue();
+      if (event.getNeededBefore() == null) {
+        c.done += c.open;
+        c.open = 0;
+        c.openByDateNeeded.clear();
+      } else {
+        // like the UPDATE, requests without a dateNeeded are left open
+        Iterator<Long> due = c.openByDateNeeded.headMap(event.getNeededBefore(), false).values().iterator();
+        while (due.hasNext()) {
+          long n = due.next();
+          c.open -= n;
+          c.done += n;
+          due.remove();
+        }
+      }
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onRecommendationRequestsArchived(RecommendationRequestsArchivedEvent event) {
+    for (RecommendationRequest r : event.getRequests()) {
+      add(r.getProfessorEmail(), r.getDone(), r.getDateNeeded(), -1);
+    }
+  }
+
+  /** Counts for each professor with any requests, most open requests first */
+  public synchronized List<ProfessorWorkload> getWorkloads() {
+    LocalDateTime now = LocalDateTime.now(clock);
+    List<ProfessorWorkload> result = new ArrayList<>(byProfessor.size());
+    byProfessor.forEach((professor, c) -> result.add(new ProfessorWorkload(professor, c.open, c.done, c.overdue(now))));
+    result.sort(BY_LOAD);
+    return result;
+  }
+
+  // caller holds the monitor
+  private void add(String professor, boolean done, LocalDateTime dateNeeded, long n) {
+    if (professor == null) {
+      return;
+    }
+    Counts c = byProfessor.computeIfAbsent(professor, k -> new Counts());
+    if (done) {
+      c.done += n;
+    } else {
+      c.addOpen(dateNeeded, n);
+    }
+    if (c.isEmpty()) {
+      byProfessor.remove(professor);
+    }
+  }
+}
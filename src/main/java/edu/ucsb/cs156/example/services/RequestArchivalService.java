@@ -0,0 +1,152 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.HelpRequestsArchivedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsArchivedEvent;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.ArchivedRecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves solved help requests and done recommendation requests that were
+ * made more than max-age-days ago into archivedhelprequest and
+ * archivedrecommendationrequest, keeping their ids.
+ *
+ * Like MenuItemReviewRetentionService, rows are moved oldest first in
+ * batches, each copied and then deleted in its own short transaction, and
+ * a run stops after a bounded number of batches.  The controllers fall back
+ * to the archive tables when looking a request up by id; the lists only
+ * show the hot tables.  Each batch publishes a HelpRequestsArchivedEvent or
+ * RecommendationRequestsArchivedEvent rather than change events, since an
+ * archived request has not changed, so that in-memory views of the hot
+ * tables can drop it.
+ */
+@Slf4j
+@Service("requestArchival")
+public class RequestArchivalService {
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  ArchivedRecommendationRequestRepository archivedRecommendationRequestRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  ApplicationEventPublisher eventPublisher;
+
+  @Value("${app.archival.enabled:true}")
+  boolean enabled;
+
+  @Value("${app.archival.max-age-days:180}")
+  int maxAgeDays;
+
+  @Value("${app.archival.batch-size:500}")
+  int batchSize;
+
+  @Value("${app.archival.max-batches:100}")
+  int maxBatches;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  @Scheduled(cron = "${app.archival.cron:0 45 3 * * *}")
+  public void scheduledArchival() {
+    if (enabled) {
+      archiveHelpRequests();
+      archiveRecommendationRequests();
+    }
+  }
+
+  /** @return the number of help requests archived */
+  public int archiveHelpRequests() {
+    LocalDateTime now = LocalDateTime.now(clock);
+    LocalDateTime cutoff = now.minusDays(maxAgeDays);
+    int total = inBatches(() -> {
+      List<HelpRequest> batch = helpRequestRepository.findSolvedBefore(cutoff, PageRequest.of(0, batchSize));
+      List<ArchivedHelpRequest> copies = new ArrayList<>(batch.size());
+      List<Long> ids = new ArrayList<>(batch.size());
+      for (HelpRequest r : batch) {
+        copies.add(ArchivedHelpRequest.of(r, now));
+        ids.add(r.getId());
+      }
+      return move(ids, () -> {
+        archivedHelpRequestRepository.saveAll(copies);
+        helpRequestRepository.deleteByIdIn(ids);
+        eventPublisher.publishEvent(new HelpRequestsArchivedEvent(batch));
+      });
+    });
+    log.info("archived {} solved help requests from before {}", total, cutoff);
+    return total;
+  }
+
+  /** @return the number of recommendation requests archived */
+  public int archiveRecommendationRequests() {
+    LocalDateTime now = LocalDateTime.now(clock);
+    LocalDateTime cutoff = now.minusDays(maxAgeDays);
+    int total = inBatches(() -> {
+      List<RecommendationRequest> batch = recommendationRequestRepository.findDoneBefore(cutoff,
+          PageRequest.of(0, batchSize));
+      List<ArchivedRecommendationRequest> copies = new ArrayList<>(batch.size());
+      List<Long> ids = new ArrayList<>(batch.size());
+      for (RecommendationRequest r : batch) {
+        copies.add(ArchivedRecommendationRequest.of(r, now));
+        ids.add(r.getId());
+      }
+      return move(ids, () -> {
+        archivedRecommendationRequestRepository.saveAll(copies);
+        recommendationRequestRepository.deleteByIdIn(ids);
+        eventPublisher.publishEvent(new RecommendationRequestsArchivedEvent(batch));
+      });
+    });
+    log.info("archived {} done recommendation requests from before {}", total, cutoff);
+    return total;
+  }
+
+  private int inBatches(Supplier<Integer> batch) {
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    int total = 0;
+    for (int i = 0; i < maxBatches; i++) {
+      int n = tx.execute(status -> batch.get());
+      total += n;
+      if (n < batchSize) {
+        break;
+      }
+    }
+    return total;
+  }
+
+  private static int move(List<Long> ids, Runnable copyThenDelete) {
+    if (!ids.isEmpty()) {
+      copyThenDelete.run();
+    }
+    return ids.size();
+  }
+}
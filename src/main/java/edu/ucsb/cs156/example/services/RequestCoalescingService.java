@@ -0,0 +1,128 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single-flight request coalescing.
+ *
+ * Concurrent calls to {@link #coalesce} with the same name and key share one
+ * execution of the loader: the first caller runs it, and everyone who arrives
+ * while it is still running gets the same result (or the same exception).
+ * Nothing is cached once the call completes.
+ *
+ * Only use this for reads; the result object is shared between callers.
+ */
+@Slf4j
+@Service("requestCoalescing")
+public class RequestCoalescingService implements MeterBinder {
+
+  private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+  private volatile MeterRegistry registry;
+
+  static class Stats {
+    final LongAdder calls = new LongAdder();
+    final LongAdder executions = new LongAdder();
+
+    double ratio() {
+      long c = calls.sum();
+      return c == 0 ? 0.0 : 1.0 - ((double) executions.sum() / c);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> T coalesce(String name, Object key, Supplier<T> loader) {
+    Stats s = statsFor(name);
+    s.calls.increment();
+
+    List<Object> flightKey = List.of(name, key);
+    CompletableFuture<Object> mine = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, mine);
+    if (existing != null) {
+      return (T) await(existing);
+    }
+
+    s.executions.increment();
+    try {
+      T value = loader.get();
+      mine.complete(value);
+      return value;
+    } catch (Throwable t) {
+      mine.completeExceptionally(t);
+      throw t;
+    } finally {
+      inFlight.remove(flightKey, mine);
+    }
+  }
+
+  public long getCalls(String name) {
+    return statsFor(name).calls.sum();
+  }
+
+  public long getExecutions(String name) {
+    return statsFor(name).executions.sum();
+  }
+
+  /** Fraction of calls that were served by another caller's query */
+  public double getCoalescingRatio(String name) {
+    return statsFor(name).ratio();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    this.registry = registry;
+    stats.forEach((name, s) -> register(registry, name, s));
+  }
+
+  private Stats statsFor(String name) {
+    return stats.computeIfAbsent(name, n -> {
+      Stats s = new Stats();
+      MeterRegistry r = registry;
+      if (r != null) {
+        register(r, n, s);
+      }
+      return s;
+    });
+  }
+
+  private static void register(MeterRegistry registry, String name, Stats s) {
+    FunctionCounter.builder("coalescing.calls", s.calls, LongAdder::sum)
+        .description("Lookups requested")
+        .tag("name", name)
+        .register(registry);
+    FunctionCounter.builder("coalescing.executions", s.executions, LongAdder::sum)
+        .description("Lookups that actually ran a query")
+        .tag("name", name)
+        .register(registry);
+    Gauge.builder("coalescing.ratio", s, Stats::ratio)
+        .description("Fraction of lookups that shared another lookup's query")
+        .tag("name", name)
+        .register(registry);
+  }
+
+  private static Object await(CompletableFuture<Object> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      // the loader is a Supplier, so it can only have thrown unchecked exceptions
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw (RuntimeException) e.getCause();
+    }
+  }
+}
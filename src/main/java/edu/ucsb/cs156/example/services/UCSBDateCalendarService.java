@@ -0,0 +1,165 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.UCSBDateChangedEvent;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The UCSB dates of each quarter and in any range of times, and the
+ * current quarter, without querying the database.
+ *
+ * Readers get an immutable snapshot through one volatile read.  A snapshot
+ * holds copies of the dates grouped by quarter, all dated ones in date
+ * order for ranges, and the earliest date of each quarter; the current
+ * quarter is the one whose earliest date was most recently reached.  It is
+ * loaded at startup and, after each committed UCSBDateChangedEvent, the
+ * quarters the date left and joined are read again with the indexed
+ * findAllByQuarterYYYYQ and a new snapshot is swapped in.  The lists
+ * returned belong to the snapshot and must not be modified.
+ */
+@Slf4j
+@Service("ucsbDateCalendar")
+public class UCSBDateCalendarService implements SmartInitializingSingleton {
+
+  static final Comparator<UCSBDate> BY_DATE = Comparator
+      .comparing(UCSBDate::getLocalDateTime, Comparator.nullsLast(Comparator.naturalOrder()))
+      .thenComparingLong(UCSBDate::getId);
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  static final class Snapshot {
+    final Map<String, List<UCSBDate>> byQuarter;
+    final List<UCSBDate> byDate;
+    final NavigableMap<LocalDateTime, String> quarterStarts;
+
+    Snapshot(Map<String, List<UCSBDate>> quarters) {
+      Map<String, List<UCSBDate>> byQuarter = new HashMap<>();
+      List<UCSBDate> byDate = new ArrayList<>();
+      TreeMap<LocalDateTime, String> quarterStarts = new TreeMap<>();
+      // in quarter order, so that of two quarters starting together the later wins
+      new TreeMap<>(quarters).forEach((quarter, dates) -> {
+        List<UCSBDate> sorted = new ArrayList<>(dates);
+        sorted.sort(BY_DATE);
+        byQuarter.put(quarter, Collections.unmodifiableList(sorted));
+        for (UCSBDate d : sorted) {
+          if (d.getLocalDateTime() != null) {
+            byDate.add(d);
+          }
+        }
+        if (sorted.get(0).getLocalDateTime() != null) {
+          quarterStarts.put(sorted.get(0).getLocalDateTime(), quarter);
+        }
+      });
+      byDate.sort(BY_DATE);
+      this.byQuarter = Collections.unmodifiableMap(byQuarter);
+      this.byDate = Collections.unmodifiableList(byDate);
+      this.quarterStarts = Collections.unmodifiableNavigableMap(quarterStarts);
+    }
+  }
+
+  private volatile Snapshot snapshot = new Snapshot(Map.of());
+
+  // before the web server starts, so the first requests see every date
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  public synchronized void load() {
+    Map<String, List<UCSBDate>> quarters = new HashMap<>();
+    for (UCSBDate d : ucsbDateRepository.findAll()) {
+      if (d.getQuarterYYYYQ() != null) {
+        quarters.computeIfAbsent(d.getQuarterYYYYQ(), k -> new ArrayList<>()).add(copy(d));
+      }
+    }
+    snapshot = new Snapshot(quarters);
+    log.info("loaded {} ucsb dates in {} quarters", snapshot.byDate.size(), quarters.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onUCSBDateChanged(UCSBDateChangedEvent event) {
+    Set<String> changed = new LinkedHashSet<>();
+    if (event.getBefore() != null && event.getBefore().getQuarterYYYYQ() != null) {
+      changed.add(event.getBefore().getQuarterYYYYQ());
+    }
+    if (event.getAfter() != null && event.getAfter().getQuarterYYYYQ() != null) {
+      changed.add(event.getAfter().getQuarterYYYYQ());
+    }
+    if (changed.isEmpty()) {
+      return;
+    }
+    Map<String, List<UCSBDate>> quarters = new HashMap<>(snapshot.byQuarter);
+    for (String quarter : changed) {
+      List<UCSBDate> dates = new ArrayList<>();
+      for (UCSBDate d : ucsbDateRepository.findAllByQuarterYYYYQ(quarter)) {
+        dates.add(copy(d));
+      }
+      if (dates.isEmpty()) {
+        quarters.remove(quarter);
+      } else {
+        quarters.put(quarter, dates);
+      }
+    }
+    snapshot = new Snapshot(quarters);
+  }
+
+  /** The dates of a quarter, in date order; empty for an unknown quarter */
+  public List<UCSBDate> getQuarter(String quarterYYYYQ) {
+    return snapshot.byQuarter.getOrDefault(quarterYYYYQ, List.of());
+  }
+
+  /** The quarter whose earliest date has most recently passed, or null before the first */
+  public String getCurrentQuarter() {
+    Map.Entry<LocalDateTime, String> e = snapshot.quarterStarts.floorEntry(LocalDateTime.now(clock));
+    return e == null ? null : e.getValue();
+  }
+
+  /** The dates from from, inclusive, to to, exclusive, in date order */
+  public List<UCSBDate> getRange(LocalDateTime from, LocalDateTime to) {
+    List<UCSBDate> byDate = snapshot.byDate;
+    int start = firstNotBefore(byDate, from);
+    int end = Math.max(start, firstNotBefore(byDate, to));
+    return byDate.subList(start, end);
+  }
+
+  // index of the first date at or after t, by binary search
+  private static int firstNotBefore(List<UCSBDate> byDate, LocalDateTime t) {
+    int lo = 0;
+    int hi = byDate.size();
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (byDate.get(mid).getLocalDateTime().isBefore(t)) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private static UCSBDate copy(UCSBDate d) {
+    return d.toBuilder().build();
+  }
+}
@@ -0,0 +1,142 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.aop.SpringProxy;
+import org.springframework.aop.framework.Advised;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.repository.Repository;
+import org.springframework.nativex.hint.AotProxyHint;
+import org.springframework.nativex.hint.JdkProxyHint;
+import org.springframework.nativex.hint.TypeAccess;
+import org.springframework.nativex.hint.TypeHint;
+import org.springframework.transaction.interceptor.TransactionalProxy;
+
+import edu.ucsb.cs156.example.aop.LoggingAspect;
+import edu.ucsb.cs156.example.controllers.ArticlesController;
+import edu.ucsb.cs156.example.controllers.CSRFController;
+import edu.ucsb.cs156.example.controllers.FrontendController;
+import edu.ucsb.cs156.example.controllers.FrontendProxyController;
+import edu.ucsb.cs156.example.controllers.HelpRequestController;
+import edu.ucsb.cs156.example.controllers.MenuItemReviewController;
+import edu.ucsb.cs156.example.controllers.RecommendationRequestController;
+import edu.ucsb.cs156.example.controllers.SystemInfoController;
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import edu.ucsb.cs156.example.controllers.UCSBDiningCommonsController;
+import edu.ucsb.cs156.example.controllers.UCSBDiningCommonsMenuItemController;
+import edu.ucsb.cs156.example.controllers.UCSBOrganizationController;
+import edu.ucsb.cs156.example.controllers.UserInfoController;
+import edu.ucsb.cs156.example.controllers.UsersController;
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.CompactedMenuItemReview;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.JobLock;
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.MenuItemReviewRollup;
+import edu.ucsb.cs156.example.entities.MenuItemReviewerSketch;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.RecommendationRequestReminder;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.DistinctReviewerEstimate;
+import edu.ucsb.cs156.example.models.HelpRequestHeatmap;
+import edu.ucsb.cs156.example.models.MenuItemRanking;
+import edu.ucsb.cs156.example.models.MenuItemRatingStats;
+import edu.ucsb.cs156.example.models.MenuItemReviewAggregate;
+import edu.ucsb.cs156.example.models.MenuItemReviewFilter;
+import edu.ucsb.cs156.example.models.MenuItemReviewVolume;
+import edu.ucsb.cs156.example.models.ProfessorWorkload;
+import edu.ucsb.cs156.example.models.SystemInfo;
+import edu.ucsb.cs156.example.models.MenuItemReviewPage;
+import edu.ucsb.cs156.example.models.SimilarMenuItem;
+import edu.ucsb.cs156.example.models.VolumeBucket;
+import edu.ucsb.cs156.example.models.WaitTimePercentiles;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.ArchivedRecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.CompactedMenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.JobLockRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingSummaryRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRollupRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewerSketchRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestReminderRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.HelpRequestQueueService;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+
+// Reachability metadata for the GraalVM native image; this source root is only
+// compiled by the native profile in pom.xml.  See docs/native-image.md
+
+// Lombok generates the accessors and constructors that Hibernate and Jackson
+// reach by reflection, so the entities and models need all declared members.
+@TypeHint(types = {
+    Articles.class, HelpRequest.class, MenuItemReview.class, RecommendationRequest.class,
+    UCSBDate.class, UCSBDiningCommons.class, UCSBDiningCommonsMenuItem.class,
+    UCSBOrganization.class, User.class, MenuItemRatingSummary.class, MenuItemReviewRollup.class,
+    MenuItemReviewerSketch.class, ArchivedHelpRequest.class, ArchivedRecommendationRequest.class,
+    RecommendationRequestReminder.class, JobLock.class, CompactedMenuItemReview.class,
+    CurrentUser.class, SystemInfo.class, MenuItemRatingStats.class, MenuItemRanking.class,
+    MenuItemReviewAggregate.class, MenuItemReviewFilter.class, MenuItemReviewVolume.class, VolumeBucket.class,
+    MenuItemReviewPage.class, SimilarMenuItem.class, DistinctReviewerEstimate.class,
+    WaitTimePercentiles.class, HelpRequestHeatmap.class, ProfessorWorkload.class
+}, access = { TypeAccess.DECLARED_CONSTRUCTORS, TypeAccess.DECLARED_METHODS, TypeAccess.DECLARED_FIELDS })
+
+// SecurityConfig has @Value injected into a field, and LoggingAspect's advice is
+// looked up by name.
+@TypeHint(types = { SecurityConfig.class, LoggingAspect.class },
+    access = { TypeAccess.DECLARED_CONSTRUCTORS, TypeAccess.DECLARED_METHODS, TypeAccess.DECLARED_FIELDS })
+
+// Spring Data repositories are JDK proxies.
+@JdkProxyHint(types = { ArchivedHelpRequestRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { ArchivedRecommendationRequestRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { ArticlesRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { CompactedMenuItemReviewRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { HelpRequestRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { JobLockRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { MenuItemRatingSummaryRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { MenuItemReviewRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { MenuItemReviewRollupRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { MenuItemReviewerSketchRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { RecommendationRequestReminderRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { RecommendationRequestRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { UCSBDateRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { UCSBDiningCommonsMenuItemRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { UCSBDiningCommonsRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { UCSBOrganizationRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+@JdkProxyHint(types = { UserRepository.class, Repository.class, TransactionalProxy.class, Advised.class, DecoratingProxy.class })
+
+// Controllers are class-based (CGLIB) proxies, because of LoggingAspect and
+// @PreAuthorize; these have to be generated at build time.
+@AotProxyHint(targetClass = ArticlesController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = CSRFController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = FrontendController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = FrontendProxyController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = HelpRequestController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = MenuItemReviewController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = RecommendationRequestController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = SystemInfoController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = UCSBDatesController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = UCSBDiningCommonsController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = UCSBDiningCommonsMenuItemController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = UCSBOrganizationController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = UserInfoController.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = UsersController.class, interfaces = { SpringProxy.class, Advised.class })
+// ...and so are services with @Transactional methods.
+@AotProxyHint(targetClass = MenuItemRatingService.class, interfaces = { SpringProxy.class, Advised.class })
+@AotProxyHint(targetClass = HelpRequestQueueService.class, interfaces = { SpringProxy.class, Advised.class })
+@Configuration(proxyBeanMethods = false)
+public class NativeHints {
+}
@@ -10,12 +10,14 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Map;
 
+@JvmOnly
 @ActiveProfiles("test")
 @Import(TestConfig.class)
 public abstract class ControllerTestCase {
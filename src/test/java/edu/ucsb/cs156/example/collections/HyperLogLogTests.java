@@ -0,0 +1,164 @@
+package edu.ucsb.cs156.example.collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTests {
+
+  private static HyperLogLog of(int from, int to) {
+    HyperLogLog h = new HyperLogLog();
+    for (int i = from; i < to; i++) {
+      h.add("user" + i + "@ucsb.edu");
+    }
+    return h;
+  }
+
+  private static void assertClose(long expected, long actual) {
+    // four standard errors
+    assertTrue(Math.abs(actual - expected) <= 4 * HyperLogLog.STANDARD_ERROR * expected,
+        "expected about " + expected + " but was " + actual);
+  }
+
+  @Test
+  void empty_sketch_estimates_zero() {
+    assertEquals(0, new HyperLogLog().estimate());
+  }
+
+  @Test
+  void small_counts_are_nearly_exact() {
+    assertEquals(1, of(0, 1).estimate());
+    assertClose(50, of(0, 50).estimate());
+  }
+
+  @Test
+  void duplicates_are_not_counted() {
+    HyperLogLog h = of(0, 100);
+    HyperLogLog again = of(0, 100);
+    h.add("user5@ucsb.edu");
+    assertEquals(again, h);
+    assertEquals(again.hashCode(), h.hashCode());
+  }
+
+  @Test
+  void large_counts_are_within_the_error() {
+    assertClose(20_000, of(0, 20_000).estimate());
+    assertClose(200_000, of(0, 200_000).estimate());
+  }
+
+  @Test
+  void merge_estimates_the_union() {
+    HyperLogLog a = of(0, 6_000);
+    a.merge(of(4_000, 10_000));
+    assertClose(10_000, a.estimate());
+    assertEquals(of(0, 10_000), a);
+  }
+
+  @Test
+  void bytes_round_trip() {
+    HyperLogLog h = of(0, 1_000);
+    byte[] bytes = h.toBytes();
+    assertEquals(HyperLogLog.SIZE, bytes.length);
+    assertEquals(h, HyperLogLog.fromBytes(bytes));
+
+    // neither side shares the array
+    bytes[0] = 100;
+    assertNotEquals((byte) 100, h.toBytes()[0]);
+    HyperLogLog copy = HyperLogLog.fromBytes(bytes);
+    bytes[1] = 100;
+    assertNotEquals((byte) 100, copy.toBytes()[1]);
+  }
+
+  @Test
+  void a_sketch_stays_sparse_until_it_sets_more_than_sparse_max_registers() {
+    HyperLogLog h = new HyperLogLog();
+    int i = 0;
+    while (h.toBytes().length < 2 * HyperLogLog.SPARSE_MAX) {
+      h.add("user" + i++ + "@ucsb.edu");
+      assertTrue(h.isSparse());
+    }
+    HyperLogLog atMax = HyperLogLog.fromBytes(h.toBytes());
+    while (h.isSparse()) {
+      h.add("user" + i++ + "@ucsb.edu");
+    }
+    assertEquals(HyperLogLog.SIZE, h.toBytes().length);
+
+    // the dense sketch kept every sparse register
+    atMax.merge(h);
+    assertEquals(h, atMax);
+    assertFalse(atMax.isSparse());
+  }
+
+  @Test
+  void sparse_and_dense_sketches_with_the_same_registers_are_equal() {
+    HyperLogLog sparse = of(0, 100);
+    HyperLogLog dense = HyperLogLog.fromBytes(new byte[HyperLogLog.SIZE]);
+    dense.merge(sparse);
+    assertTrue(sparse.isSparse());
+    assertFalse(dense.isSparse());
+    assertEquals(sparse, dense);
+    assertEquals(dense, sparse);
+    assertEquals(sparse.hashCode(), dense.hashCode());
+    assertEquals(sparse.estimate(), dense.estimate());
+    assertNotEquals(of(0, 99), dense);
+  }
+
+  @Test
+  void merging_sparse_sketches_estimates_the_union() {
+    HyperLogLog a = of(0, 60);
+    a.merge(of(40, 100));
+    assertTrue(a.isSparse());
+    assertEquals(of(0, 100), a);
+
+    HyperLogLog b = of(0, 200);
+    b.merge(of(200, 1_000));
+    assertFalse(b.isSparse());
+    assertEquals(of(0, 1_000), b);
+  }
+
+  @Test
+  void sparse_bytes_round_trip() {
+    HyperLogLog h = of(0, 50);
+    byte[] bytes = h.toBytes();
+    assertTrue(bytes.length < HyperLogLog.SIZE);
+    assertEquals(0, bytes.length % 2);
+    HyperLogLog copy = HyperLogLog.fromBytes(bytes);
+    assertEquals(h, copy);
+    assertTrue(copy.isSparse());
+
+    copy.add("someone-new@ucsb.edu");
+    assertNotEquals(h, copy);
+    assertArrayEquals(new byte[0], new HyperLogLog().toBytes());
+  }
+
+  @Test
+  void wrong_sized_registers_are_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[3]));
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[2 * HyperLogLog.SPARSE_MAX + 2]));
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(null));
+  }
+
+  @Test
+  void malformed_sparse_entries_are_rejected() {
+    // index 1 rank 1, then index 0 rank 1
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] { 0, 65, 0, 1 }));
+    // the same index twice
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] { 0, 1, 0, 2 }));
+    // rank 0
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] { 0, 64 }));
+    // rank 63
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] { 0, 63 }));
+    // index 1023 rank 55 is the largest entry
+    assertEquals(1, HyperLogLog.fromBytes(new byte[] { (byte) 0xff, (byte) 0xf7 }).estimate());
+  }
+
+  @Test
+  void not_equal_to_other_types() {
+    assertNotEquals(new HyperLogLog(), "sketch");
+  }
+}
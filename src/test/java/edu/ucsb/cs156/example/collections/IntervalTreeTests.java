@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IntervalTreeTests {
+
+  IntervalTree<String> tree = new IntervalTree<>();
+
+  @Test
+  void queries_find_the_overlapping_intervals_by_start() {
+    tree.put(1, 10, 20, "a");
+    tree.put(2, 15, 15, "b");
+    tree.put(3, 21, 30, "c");
+    tree.put(4, 0, 100, "d");
+    tree.put(5, 5, 9, "e");
+
+    assertEquals(5, tree.size());
+    assertEquals(List.of("d", "a", "b"), tree.containing(15));
+    assertEquals(List.of("d", "a"), tree.containing(20));
+    assertEquals(List.of("d", "e", "a"), tree.overlapping(9, 14));
+    assertEquals(List.of("d", "a", "c"), tree.overlapping(20, 21));
+    assertEquals(List.of(), tree.containing(101));
+    assertEquals(List.of(), tree.containing(-1));
+  }
+
+  @Test
+  void intervals_can_be_replaced_and_removed() {
+    tree.put(1, 10, 20, "a");
+    tree.put(2, 10, 20, "b");
+    tree.put(1, 30, 40, "a2");
+
+    assertEquals("a2", tree.get(1));
+    assertEquals(List.of("b"), tree.containing(15));
+    assertTrue(tree.remove(2));
+    assertFalse(tree.remove(2));
+    assertNull(tree.get(2));
+    assertEquals(List.of(), tree.containing(15));
+    assertEquals(List.of("a2"), tree.containing(35));
+
+    tree.clear();
+    assertEquals(0, tree.size());
+    assertEquals(List.of(), tree.containing(35));
+  }
+
+  @Test
+  void for_each_visits_every_interval() {
+    tree.put(1, 10, 20, "a");
+    tree.put(2, 30, 40, "b");
+
+    Map<Long, String> seen = new HashMap<>();
+    tree.forEach(seen::put);
+
+    assertEquals(Map.of(1L, "a", 2L, "b"), seen);
+  }
+
+  @Test
+  void intervals_must_not_end_before_they_start() {
+    assertThrows(IllegalArgumentException.class, () -> tree.put(1, 10, 9, "a"));
+    assertEquals(0, tree.size());
+  }
+
+  @Test
+  void random_intervals_match_a_linear_scan() {
+    Random random = new Random(11);
+    Map<Long, long[]> intervals = new HashMap<>();
+    for (int step = 0; step < 20_000; step++) {
+      int op = random.nextInt(10);
+      if (op < 5) {
+        long id = random.nextInt(300);
+        long start = random.nextInt(10_000);
+        long end = start + random.nextInt(op == 0 ? 5_000 : 50);
+        tree.put(id, start, end, Long.toString(id));
+        intervals.put(id, new long[] { start, end });
+      } else if (op < 7) {
+        long id = random.nextInt(300);
+        assertEquals(intervals.remove(id) != null, tree.remove(id));
+      } else {
+        long from = random.nextInt(10_000);
+        long to = op == 9 ? from : from + random.nextInt(300);
+        List<Long> expected = new ArrayList<>();
+        intervals.forEach((id, i) -> {
+          if (i[0] <= to && i[1] >= from) {
+            expected.add(id);
+          }
+        });
+        expected.sort(Comparator.comparingLong((Long id) -> intervals.get(id)[0]).thenComparingLong(id -> id));
+        List<Long> found = new ArrayList<>();
+        tree.overlapping(from, to).forEach(s -> found.add(Long.parseLong(s)));
+
+        assertEquals(expected, found);
+        assertEquals(intervals.size(), tree.size());
+      }
+    }
+  }
+}
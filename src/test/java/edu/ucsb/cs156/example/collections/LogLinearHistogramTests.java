@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LogLinearHistogramTests {
+
+  private static LogLinearHistogram of(long from, long to) {
+    LogLinearHistogram h = new LogLinearHistogram();
+    for (long v = from; v < to; v++) {
+      h.record(v);
+    }
+    return h;
+  }
+
+  @Test
+  void buckets_cover_every_value_once() {
+    for (int b = 0; b < 1000; b++) {
+      assertEquals(b, LogLinearHistogram.bucketOf(LogLinearHistogram.lowestValueIn(b)));
+      assertEquals(b, LogLinearHistogram.bucketOf(LogLinearHistogram.highestValueIn(b)));
+      assertEquals(LogLinearHistogram.highestValueIn(b) + 1, LogLinearHistogram.lowestValueIn(b + 1));
+    }
+    int last = LogLinearHistogram.bucketOf(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, LogLinearHistogram.highestValueIn(last));
+  }
+
+  @Test
+  void small_values_are_exact() {
+    LogLinearHistogram h = of(0, 100);
+    assertEquals(100, h.getTotalCount());
+    assertEquals(49, h.valueAtPercentile(50));
+    assertEquals(89, h.valueAtPercentile(90));
+    assertEquals(98, h.valueAtPercentile(99));
+    assertEquals(99, h.getMaxValue());
+    assertEquals(0, h.valueAtPercentile(0));
+    assertEquals(99, h.valueAtPercentile(150));
+    assertEquals(0, h.valueAtPercentile(-5));
+  }
+
+  @Test
+  void large_values_are_within_two_percent() {
+    LogLinearHistogram h = of(1, 100_001);
+    assertTrue(Math.abs(h.valueAtPercentile(50) - 50_000) <= 1_000);
+    assertTrue(Math.abs(h.valueAtPercentile(99) - 99_000) <= 2_000);
+    assertTrue(h.getMaxValue() >= 100_000 && h.getMaxValue() <= 102_000);
+  }
+
+  @Test
+  void empty_histograms_report_zero() {
+    LogLinearHistogram h = new LogLinearHistogram();
+    assertEquals(0, h.getTotalCount());
+    assertEquals(0, h.valueAtPercentile(50));
+    assertEquals(0, h.getMaxValue());
+  }
+
+  @Test
+  void merging_adds_counts() {
+    LogLinearHistogram small = of(0, 50);
+    LogLinearHistogram large = of(1_000, 1_050);
+
+    small.merge(large);
+    assertEquals(100, small.getTotalCount());
+    assertEquals(49, small.valueAtPercentile(50));
+    assertTrue(small.getMaxValue() >= 1_049);
+
+    LogLinearHistogram empty = new LogLinearHistogram();
+    large.merge(empty);
+    assertEquals(50, large.getTotalCount());
+  }
+
+  @Test
+  void counts_can_be_taken_back_out() {
+    LogLinearHistogram h = of(0, 10);
+    h.add(1_000_000, 1);
+    h.add(1_000_000, -1);
+    h.add(9, -1);
+
+    assertEquals(9, h.getTotalCount());
+    assertEquals(8, h.getMaxValue());
+  }
+
+  @Test
+  void negative_values_are_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> new LogLinearHistogram().record(-1));
+  }
+}
@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.example.collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongObjectHashMapTests {
+
+  @Test
+  void put_get_and_replace() {
+    LongObjectHashMap<String> map = new LongObjectHashMap<>();
+    assertTrue(map.isEmpty());
+    assertNull(map.put(7, "seven"));
+    assertEquals("seven", map.put(7, "SEVEN"));
+    assertEquals("SEVEN", map.get(7));
+    assertNull(map.get(8));
+    assertTrue(map.containsKey(7));
+    assertFalse(map.containsKey(8));
+    assertEquals(1, map.size());
+    assertFalse(map.isEmpty());
+  }
+
+  @Test
+  void null_values_are_rejected() {
+    LongObjectHashMap<String> map = new LongObjectHashMap<>();
+    assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+  }
+
+  @Test
+  void compute_if_absent_only_creates_once() {
+    LongObjectHashMap<String> map = new LongObjectHashMap<>();
+    assertEquals("1", map.computeIfAbsent(1, k -> k.toString()));
+    assertEquals("1", map.computeIfAbsent(1, k -> "other"));
+  }
+
+  @Test
+  void remove_and_clear() {
+    LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+    map.put(1, "a");
+    map.put(2, "b");
+    assertEquals("a", map.remove(1));
+    assertNull(map.remove(1));
+    assertNull(map.get(1));
+    assertEquals("b", map.get(2));
+    map.clear();
+    assertEquals(0, map.size());
+    assertNull(map.get(2));
+  }
+
+  @Test
+  void behaves_like_a_hash_map_under_random_operations() {
+    LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+    Map<Long, Long> expected = new HashMap<>();
+    Random random = new Random(156);
+    for (int n = 0; n < 200_000; n++) {
+      // a small key range forces lots of collisions and removals
+      long key = random.nextInt(2000) - 1000;
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        assertEquals(expected.put(key, (long) n), map.put(key, (long) n));
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    for (Map.Entry<Long, Long> e : expected.entrySet()) {
+      assertEquals(e.getValue(), map.get(e.getKey()));
+    }
+    Map<Long, Long> visited = new HashMap<>();
+    map.forEach(visited::put);
+    assertEquals(expected, visited);
+  }
+
+  @Test
+  void grows_past_the_initial_capacity() {
+    LongObjectHashMap<Integer> map = new LongObjectHashMap<>(100);
+    for (int i = 0; i < 10_000; i++) {
+      map.put(i * 1_000_003L, i);
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertEquals(Integer.valueOf(i), map.get(i * 1_000_003L));
+    }
+  }
+}
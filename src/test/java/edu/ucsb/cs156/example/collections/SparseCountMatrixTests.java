@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class SparseCountMatrixTests {
+
+  private static long[] sorted(long[] a) {
+    Arrays.sort(a);
+    return a;
+  }
+
+  private static Map<Long, Integer> row(SparseCountMatrix m, long row) {
+    Map<Long, Integer> result = new HashMap<>();
+    m.forEachInRow(row, result::put);
+    return result;
+  }
+
+  @Test
+  void add_and_get() {
+    SparseCountMatrix m = new SparseCountMatrix();
+    assertEquals(0, m.get(1, 2));
+    assertEquals(1, m.add(1, 2, 1));
+    assertEquals(3, m.add(1, 2, 2));
+    assertEquals(3, m.get(1, 2));
+    assertEquals(0, m.get(1, 3));
+    assertEquals(0, m.get(2, 1));
+  }
+
+  @Test
+  void rows_grow() {
+    SparseCountMatrix m = new SparseCountMatrix();
+    for (long c = 0; c < 1000; c++) {
+      m.add(7, c * 31, (int) c);
+    }
+    for (long c = 0; c < 1000; c++) {
+      assertEquals((int) c, m.get(7, c * 31));
+    }
+    // column 0 has a zero count
+    assertEquals(999, m.columns(7).length);
+    assertEquals(999, row(m, 7).size());
+  }
+
+  @Test
+  void zero_counts_are_skipped() {
+    SparseCountMatrix m = new SparseCountMatrix();
+    m.add(1, 2, 1);
+    m.add(1, 3, 1);
+    m.add(1, 2, -1);
+    assertArrayEquals(new long[] { 3 }, m.columns(1));
+    assertEquals(Map.of(3L, 1), row(m, 1));
+    assertArrayEquals(new long[] { 1 }, m.rowKeys());
+  }
+
+  @Test
+  void missing_rows_are_empty() {
+    SparseCountMatrix m = new SparseCountMatrix();
+    assertArrayEquals(new long[0], m.columns(1));
+    assertEquals(Map.of(), row(m, 1));
+    assertArrayEquals(new long[0], m.rowKeys());
+  }
+
+  @Test
+  void add_all_sums_both_matrices() {
+    SparseCountMatrix a = new SparseCountMatrix();
+    a.add(1, 1, 2);
+    a.add(1, 2, 1);
+    SparseCountMatrix b = new SparseCountMatrix();
+    b.add(1, 2, 4);
+    b.add(5, -3, 1);
+
+    a.addAll(b);
+
+    assertEquals(Map.of(1L, 2, 2L, 5), row(a, 1));
+    assertEquals(Map.of(-3L, 1), row(a, 5));
+    assertArrayEquals(new long[] { 1, 5 }, sorted(a.rowKeys()));
+    assertEquals(4, b.get(1, 2));
+  }
+}
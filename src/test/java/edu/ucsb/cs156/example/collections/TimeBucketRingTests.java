@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class TimeBucketRingTests {
+
+  TimeBucketRing ring = new TimeBucketRing(4);
+
+  @Test
+  void counts_are_kept_per_bucket() {
+    ring.add(100, 1);
+    ring.add(100, 2);
+    ring.add(101, 5);
+
+    assertEquals(4, ring.size());
+    assertEquals(3, ring.get(100));
+    assertEquals(5, ring.get(101));
+    assertEquals(0, ring.get(102));
+  }
+
+  @Test
+  void newer_buckets_replace_older_ones_in_the_same_slot() {
+    ring.add(100, 3);
+    ring.add(104, 1);
+
+    assertEquals(0, ring.get(100));
+    assertEquals(1, ring.get(104));
+  }
+
+  @Test
+  void older_buckets_are_ignored_once_their_slot_has_moved_on() {
+    ring.add(104, 1);
+    ring.add(100, 3);
+
+    assertEquals(0, ring.get(100));
+    assertEquals(1, ring.get(104));
+  }
+
+  @Test
+  void concurrent_adds_are_not_lost() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(pool.submit(() -> {
+          for (int i = 0; i < 10_000; i++) {
+            ring.add(7, 1);
+          }
+        }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(40_000, ring.get(7));
+  }
+}
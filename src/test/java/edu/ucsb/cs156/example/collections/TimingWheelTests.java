@@ -0,0 +1,130 @@
+package edu.ucsb.cs156.example.collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+  TimingWheel<String> wheel = new TimingWheel<>(1000);
+
+  @Test
+  void timers_fire_on_their_deadline() {
+    wheel.schedule(1, 1003, "a");
+    wheel.schedule(2, 1001, "b");
+    wheel.schedule(3, 1003, "c");
+
+    assertEquals(3, wheel.size());
+    assertEquals(List.of(), wheel.advanceTo(1000));
+    assertEquals(List.of("b"), wheel.advanceTo(1002));
+    assertEquals(setOf(List.of("a", "c")), setOf(wheel.advanceTo(1003)));
+    assertEquals(1003, wheel.now());
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void far_timers_cascade_down_the_levels() {
+    long start = 1000;
+    long[] delays = { 63, 64, 65, 4095, 4096, 4097, 262_144 + 17, 16_777_216 + 5 };
+    for (int i = 0; i < delays.length; i++) {
+      wheel.schedule(i, start + delays[i], "t" + i);
+    }
+    for (int i = 0; i < delays.length; i++) {
+      assertEquals(List.of(), wheel.advanceTo(start + delays[i] - 1));
+      assertEquals(List.of("t" + i), wheel.advanceTo(start + delays[i]));
+    }
+  }
+
+  @Test
+  void past_deadlines_fire_on_the_next_tick() {
+    wheel.schedule(1, 10, "late");
+
+    assertEquals(List.of("late"), wheel.advanceTo(1001));
+  }
+
+  @Test
+  void timers_can_be_replaced_and_cancelled() {
+    wheel.schedule(1, 1005, "a");
+    wheel.schedule(2, 1005, "b");
+    wheel.schedule(3, 1005, "c");
+    wheel.schedule(1, 1100, "a2");
+
+    assertEquals("a2", wheel.get(1));
+    assertTrue(wheel.cancel(2));
+    assertFalse(wheel.cancel(2));
+    assertNull(wheel.get(2));
+
+    assertEquals(List.of("c"), wheel.advanceTo(1005));
+    assertTrue(wheel.cancel(1));
+    assertEquals(List.of(), wheel.advanceTo(2000));
+  }
+
+  @Test
+  void for_each_visits_pending_timers() {
+    wheel.schedule(1, 1005, "a");
+    wheel.schedule(2, 5000, "b");
+
+    Map<Long, String> seen = new HashMap<>();
+    wheel.forEach(seen::put);
+
+    assertEquals(Map.of(1L, "a", 2L, "b"), seen);
+  }
+
+  @Test
+  void an_empty_wheel_jumps_ahead() {
+    assertEquals(List.of(), wheel.advanceTo(1_000_000_000L));
+    assertEquals(1_000_000_000L, wheel.now());
+  }
+
+  @Test
+  void random_timers_fire_in_order_on_their_deadlines() {
+    Random random = new Random(7);
+    Map<Long, Long> due = new HashMap<>();
+    long now = wheel.now();
+    for (int step = 0; step < 2000; step++) {
+      int op = random.nextInt(10);
+      if (op < 5) {
+        long id = random.nextInt(200);
+        long deadline = now + (long) (random.nextDouble() * (1L << random.nextInt(20)));
+        wheel.schedule(id, deadline, Long.toString(id));
+        due.put(id, Math.max(deadline, now + 1));
+      } else if (op < 6) {
+        long id = random.nextInt(200);
+        assertEquals(due.remove(id) != null, wheel.cancel(id));
+      } else {
+        long to = now + random.nextInt(op == 9 ? 100_000 : 100);
+        List<Long> expected = new ArrayList<>();
+        due.forEach((id, deadline) -> {
+          if (deadline <= to) {
+            expected.add(id);
+          }
+        });
+        List<Long> fired = new ArrayList<>();
+        wheel.advanceTo(to).forEach(s -> fired.add(Long.parseLong(s)));
+
+        assertEquals(setOf(expected), setOf(fired));
+        assertEquals(expected.size(), fired.size());
+        for (int i = 1; i < fired.size(); i++) {
+          assertTrue(due.get(fired.get(i - 1)) <= due.get(fired.get(i)));
+        }
+        expected.forEach(due::remove);
+        now = to;
+        assertEquals(due.size(), wheel.size());
+      }
+    }
+  }
+
+  private static <T> HashSet<T> setOf(List<T> values) {
+    return new HashSet<>(values);
+  }
+}
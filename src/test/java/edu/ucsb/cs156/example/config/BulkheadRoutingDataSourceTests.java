@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+
+import edu.ucsb.cs156.example.interceptors.Bulkhead;
+import edu.ucsb.cs156.example.interceptors.BulkheadInterceptor;
+
+// Uses one in-memory H2 database per pool, and checks which one a request's connection comes from
+class BulkheadRoutingDataSourceTests {
+
+  static final String USER_URL = "jdbc:h2:mem:bulkhead-user";
+  static final String ADMIN_URL = "jdbc:h2:mem:bulkhead-admin";
+
+  static class FakeController {
+    public void handle() {
+    }
+  }
+
+  BulkheadRoutingDataSource routing = new BulkheadRoutingDataSource();
+  BulkheadInterceptor interceptor = new BulkheadInterceptor(
+      new Bulkhead(BulkheadInterceptor.USER, 1), new Bulkhead(BulkheadInterceptor.ADMIN, 1), 0);
+  HandlerMethod handler;
+
+  @BeforeEach
+  void setup() throws Exception {
+    DriverManagerDataSource userPool = new DriverManagerDataSource(USER_URL);
+    routing.setTargetDataSources(Map.of(
+        BulkheadInterceptor.USER, userPool,
+        BulkheadInterceptor.ADMIN, new DriverManagerDataSource(ADMIN_URL)));
+    routing.setDefaultTargetDataSource(userPool);
+    routing.afterPropertiesSet();
+    handler = new HandlerMethod(new FakeController(), "handle");
+  }
+
+  @AfterEach
+  void cleanup() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private String borrow() throws SQLException {
+    try (Connection connection = routing.getConnection()) {
+      return connection.getMetaData().getURL();
+    }
+  }
+
+  private void handle(String role, String expectedUrl) throws Exception {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("someone", null, role));
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertTrue(interceptor.preHandle(request, response, handler));
+    assertEquals(expectedUrl, borrow());
+    interceptor.afterCompletion(request, response, handler, null);
+  }
+
+  @Test
+  void admin_requests_borrow_from_the_admin_pool() throws Exception {
+    handle("ROLE_ADMIN", ADMIN_URL);
+    assertEquals(USER_URL, borrow());
+  }
+
+  @Test
+  void user_requests_borrow_from_the_user_pool() throws Exception {
+    handle("ROLE_USER", USER_URL);
+  }
+
+  @Test
+  void work_outside_requests_borrows_from_the_user_pool() throws Exception {
+    assertEquals(USER_URL, borrow());
+  }
+}
@@ -0,0 +1,101 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// Uses three in-memory H2 databases as shards
+class MenuItemReviewShardsTests {
+
+  MenuItemReviewShards shards;
+
+  @BeforeEach
+  void setup() {
+    ShardingProperties properties = new ShardingProperties();
+    properties.setPoolSize(2);
+    List<ShardingProperties.Shard> list = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      list.add(new ShardingProperties.Shard("jdbc:h2:mem:shard" + i + ";DB_CLOSE_DELAY=-1", "sa", ""));
+    }
+    properties.setShards(list);
+    shards = new MenuItemReviewShards(properties);
+    shards.createSchema();
+  }
+
+  @AfterEach
+  void teardown() {
+    for (DataSource ds : shards.getDataSources()) {
+      new JdbcTemplate(ds).execute("drop table menuitemreview");
+    }
+    shards.close();
+  }
+
+  private static String url(DataSource ds) {
+    try (Connection c = ds.getConnection()) {
+      return c.getMetaData().getURL();
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  void each_shard_gets_its_own_pool() {
+    assertEquals(3, shards.size());
+    assertEquals("shard-1", shards.getDataSources().get(1).getPoolName());
+    assertEquals(2, shards.getDataSources().get(1).getMaximumPoolSize());
+    assertTrue(url(shards.getDataSources().get(2)).startsWith("jdbc:h2:mem:shard2"));
+  }
+
+  @Test
+  void ids_identify_the_shard_they_were_created_on() {
+    for (int i = 0; i < 3; i++) {
+      JdbcTemplate jdbc = new JdbcTemplate(shards.getDataSources().get(i));
+      for (int n = 0; n < 2; n++) {
+        jdbc.update("insert into menuitemreview (item_id, stars) values (1, 3)");
+      }
+      List<Long> ids = jdbc.queryForList("select id from menuitemreview order by id", Long.class);
+      assertEquals(List.of(3L + i, 6L + i), ids);
+    }
+  }
+
+  @Test
+  void creating_the_schema_again_is_harmless() {
+    new JdbcTemplate(shards.getDataSources().get(0)).update("insert into menuitemreview (item_id, stars) values (1, 3)");
+    shards.createSchema();
+    assertEquals(1, new JdbcTemplate(shards.getDataSources().get(0))
+        .queryForObject("select count(*) from menuitemreview", Integer.class));
+  }
+
+  @Test
+  void routing_data_source_follows_the_shard_context() {
+    DataSource main = new DriverManagerDataSource("jdbc:h2:mem:main;DB_CLOSE_DELAY=-1", "sa", "");
+    ShardRoutingDataSource routing = new ShardRoutingDataSource(main, shards.getDataSources());
+
+    assertTrue(url(routing).startsWith("jdbc:h2:mem:main"));
+    assertTrue(ShardContext.callOn(1, () -> url(routing)).startsWith("jdbc:h2:mem:shard1"));
+    assertTrue(ShardContext.callOn(0, () -> ShardContext.callOn(2, () -> url(routing)) + url(routing))
+        .matches("jdbc:h2:mem:shard2.*jdbc:h2:mem:shard0.*"));
+    assertTrue(url(routing).startsWith("jdbc:h2:mem:main"));
+  }
+
+  @Test
+  void unknown_shards_are_an_error() {
+    DataSource main = new DriverManagerDataSource("jdbc:h2:mem:main;DB_CLOSE_DELAY=-1", "sa", "");
+    ShardRoutingDataSource routing = new ShardRoutingDataSource(main, shards.getDataSources());
+
+    assertThrows(IllegalStateException.class, () -> ShardContext.callOn(3, () -> url(routing)));
+  }
+}
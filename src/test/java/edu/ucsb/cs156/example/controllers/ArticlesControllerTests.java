@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import edu.ucsb.cs156.example.services.RequestCoalescingService;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
@@ -32,7 +33,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = ArticlesController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, RequestCoalescingService.class})
 public class ArticlesControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -3,44 +3,90 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.BulkheadProperties;
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.events.HelpRequestChangedEvent;
+import edu.ucsb.cs156.example.events.HelpRequestsSolvedEvent;
+import edu.ucsb.cs156.example.models.HelpRequestHeatmap;
+import edu.ucsb.cs156.example.models.WaitTimePercentiles;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.HelpRequestHeatmapService;
+import edu.ucsb.cs156.example.services.HelpRequestQueueService;
+import edu.ucsb.cs156.example.services.HelpRequestStreamService;
+import edu.ucsb.cs156.example.services.HelpRequestWaitTimeService;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = HelpRequestController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class HelpRequestControllerTests extends ControllerTestCase {
 
         @MockBean
         HelpRequestRepository helpRequestRepository;
 
+        @MockBean
+        ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+        @MockBean
+        HelpRequestStreamService streamService;
+
+        @MockBean
+        HelpRequestQueueService queueService;
+
+        @MockBean
+        HelpRequestWaitTimeService waitTimeService;
+
+        @MockBean
+        HelpRequestHeatmapService heatmapService;
+
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        ApplicationEvents applicationEvents;
+
+        @Autowired
+        BulkheadProperties bulkheadProperties;
+
+        private List<HelpRequestChangedEvent> changeEvents() {
+                return applicationEvents.stream(HelpRequestChangedEvent.class).collect(Collectors.toList());
+        }
+
         // Tests for GET /api/HelpRequest/all
         
         @Test
@@ -129,6 +175,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 String expectedJson = mapper.writeValueAsString(request);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
+                assertEquals(List.of(new HelpRequestChangedEvent(null, request)), changeEvents());
         }
 
        // Tests for GET /api/HelpRequest?id=...
@@ -164,6 +211,30 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                assertEquals(expectedJson, responseString);
        }
 
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void test_that_logged_in_user_can_get_an_archived_help_request_by_id() throws Exception {
+
+               // arrange
+               LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00:00");
+
+                HelpRequest request = HelpRequest.builder().id(123).requesterEmail("example@ucsb.edu")
+                .teamId("f23-6pm-1").tableOrBreakoutRoom("2").requestTime(ldt)
+                .explanation("example").solved(true).solvedAt(ldt.plusMinutes(5)).build();
+
+               when(helpRequestRepository.findById(eq(123L))).thenReturn(Optional.empty());
+               when(archivedHelpRequestRepository.findById(eq(123L)))
+                .thenReturn(Optional.of(ArchivedHelpRequest.of(request, LocalDateTime.parse("2022-07-01T03:45:00"))));
+
+               // act
+               MvcResult response = mockMvc.perform(get("/api/HelpRequest?id=123"))
+                               .andExpect(status().isOk()).andReturn();
+
+               // assert
+               verify(archivedHelpRequestRepository, times(1)).findById(eq(123L));
+               assertEquals(mapper.writeValueAsString(request), response.getResponse().getContentAsString());
+       }
+
        @WithMockUser(roles = { "USER" })
        @Test
        public void test_that_logged_in_user_can_get_by_id_when_the_id_does_not_exist() throws Exception {
@@ -212,6 +283,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
                Map<String, Object> json = responseToJson(response);
                assertEquals("Help request with id 123 deleted", json.get("message"));
+               assertEquals(List.of(new HelpRequestChangedEvent(request, null)), changeEvents());
        }
        
        @WithMockUser(roles = { "ADMIN", "USER" })
@@ -270,9 +342,52 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                verify(helpRequestRepository, times(1)).save(HelpRequestEdited); // should be saved with correct user
                String responseString = response.getResponse().getContentAsString();
                assertEquals(requestBody, responseString);
+               HelpRequest before = HelpRequest.builder().requesterEmail("example@ucsb.edu")
+                .teamId("f23-6pm-1").tableOrBreakoutRoom("2").requestTime(ldt1)
+                .explanation("example").solved(true).build();
+               assertEquals(List.of(new HelpRequestChangedEvent(before, HelpRequestEdited)), changeEvents());
        }
 
        
+       @WithMockUser(roles = { "ADMIN", "USER" })
+       @Test
+       public void solving_a_HelpRequest_records_when_it_was_solved() throws Exception {
+               // arrange
+               LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+               HelpRequest orig = HelpRequest.builder().requesterEmail("example@ucsb.edu")
+                .teamId("f23-6pm-1").tableOrBreakoutRoom("2").requestTime(ldt1)
+                .explanation("example").solved(false).build();
+               HelpRequest edited = orig.toBuilder().solved(true).build();
+               when(helpRequestRepository.findById(eq(123L))).thenReturn(Optional.of(orig));
+
+               // act
+               LocalDateTime start = LocalDateTime.now();
+               MvcResult response = mockMvc.perform(
+                               put("/api/HelpRequest?id=123")
+                                               .contentType(MediaType.APPLICATION_JSON)
+                                               .characterEncoding("utf-8")
+                                               .content(mapper.writeValueAsString(edited))
+                                               .with(csrf()))
+                               .andExpect(status().isOk()).andReturn();
+
+               // assert
+               HelpRequest saved = mapper.readValue(response.getResponse().getContentAsString(), HelpRequest.class);
+               LocalDateTime solvedAt = saved.getSolvedAt();
+               assertTrue(!solvedAt.isBefore(start) && !solvedAt.isAfter(LocalDateTime.now()));
+               verify(helpRequestRepository, times(1)).save(edited.toBuilder().solvedAt(solvedAt).build());
+
+               // saving it again as solved keeps the time it was first solved
+               when(helpRequestRepository.findById(eq(123L))).thenReturn(Optional.of(saved));
+               mockMvc.perform(
+                               put("/api/HelpRequest?id=123")
+                                               .contentType(MediaType.APPLICATION_JSON)
+                                               .characterEncoding("utf-8")
+                                               .content(mapper.writeValueAsString(edited.toBuilder().explanation("again").build()))
+                                               .with(csrf()))
+                               .andExpect(status().isOk());
+               verify(helpRequestRepository, times(1)).save(saved.toBuilder().explanation("again").build());
+       }
+
        @WithMockUser(roles = { "ADMIN", "USER" })
        @Test
        public void admin_cannot_edit_HelpRequest_that_does_not_exist() throws Exception {
@@ -306,4 +421,259 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
 
        
+
+       // Tests for GET /api/HelpRequest/stream
+
+       @Test
+       public void logged_out_users_cannot_stream() throws Exception {
+               mockMvc.perform(get("/api/HelpRequest/stream"))
+                               .andExpect(status().is(403));
+       }
+
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void logged_in_users_can_stream_from_the_start() throws Exception {
+               when(streamService.subscribe(null)).thenReturn(new SseEmitter());
+
+               mockMvc.perform(get("/api/HelpRequest/stream"))
+                               .andExpect(request().asyncStarted());
+
+               verify(streamService, times(1)).subscribe(null);
+       }
+
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void streams_resume_from_the_last_event_id_header() throws Exception {
+               when(streamService.subscribe(eq(5L))).thenReturn(new SseEmitter());
+
+               mockMvc.perform(get("/api/HelpRequest/stream?lastEventId=3").header("Last-Event-ID", "5"))
+                               .andExpect(request().asyncStarted());
+
+               verify(streamService, times(1)).subscribe(5L);
+       }
+
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void streams_resume_from_the_last_event_id_parameter() throws Exception {
+               when(streamService.subscribe(eq(3L))).thenReturn(new SseEmitter());
+
+               mockMvc.perform(get("/api/HelpRequest/stream?lastEventId=3"))
+                               .andExpect(request().asyncStarted());
+
+               verify(streamService, times(1)).subscribe(3L);
+       }
+
+       @WithMockUser(username = "dashboard", roles = { "USER" })
+       @Test
+       public void open_streams_do_not_hold_api_permits() throws Exception {
+               when(streamService.subscribe(null)).thenAnswer(inv -> new SseEmitter());
+               when(helpRequestRepository.findAll()).thenReturn(new ArrayList<>());
+
+               // more dashboards than the user bulkhead (and the initial concurrency limit) admits
+               int streams = bulkheadProperties.getUser().getMaxConcurrent() + 1;
+               for (int i = 0; i < streams; i++) {
+                       mockMvc.perform(get("/api/HelpRequest/stream"))
+                                       .andExpect(request().asyncStarted());
+               }
+
+               mockMvc.perform(get("/api/HelpRequest/all"))
+                               .andExpect(status().isOk());
+       }
+
+       // Tests for POST /api/HelpRequest/claim
+
+       @Test
+       public void logged_out_users_cannot_claim() throws Exception {
+               mockMvc.perform(post("/api/HelpRequest/claim").with(csrf()))
+                               .andExpect(status().is(403));
+       }
+
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void regular_users_cannot_claim() throws Exception {
+               mockMvc.perform(post("/api/HelpRequest/claim").with(csrf()))
+                               .andExpect(status().is(403));
+       }
+
+       @WithMockUser(roles = { "ADMIN", "USER" })
+       @Test
+       public void admin_can_claim_the_next_help_request() throws Exception {
+               // arrange
+               HelpRequest claimed = HelpRequest.builder().id(7).requesterEmail("example@ucsb.edu")
+                .teamId("f23-6pm-1").tableOrBreakoutRoom("2").requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .explanation("example").solved(false).claimedBy("user@example.org")
+                .claimedAt(LocalDateTime.parse("2022-01-03T00:05:00")).build();
+               when(queueService.claim("user@example.org", "f23-6pm-1", "2")).thenReturn(Optional.of(claimed));
+
+               // act
+               MvcResult response = mockMvc.perform(
+                               post("/api/HelpRequest/claim?teamId=f23-6pm-1&tableOrBreakoutRoom=2").with(csrf()))
+                               .andExpect(status().isOk()).andReturn();
+
+               // assert
+               verify(queueService, times(1)).claim("user@example.org", "f23-6pm-1", "2");
+               assertEquals(mapper.writeValueAsString(claimed), response.getResponse().getContentAsString());
+       }
+
+       @WithMockUser(roles = { "ADMIN", "USER" })
+       @Test
+       public void claiming_from_an_empty_queue_returns_no_content() throws Exception {
+               // arrange
+               when(queueService.claim("user@example.org", null, null)).thenReturn(Optional.empty());
+
+               // act
+               MvcResult response = mockMvc.perform(post("/api/HelpRequest/claim").with(csrf()))
+                               .andExpect(status().isNoContent()).andReturn();
+
+               // assert
+               verify(queueService, times(1)).claim("user@example.org", null, null);
+               assertEquals("", response.getResponse().getContentAsString());
+       }
+
+       // Tests for GET /api/HelpRequest/waittimes
+
+       @Test
+       public void logged_out_users_cannot_get_wait_times() throws Exception {
+               mockMvc.perform(get("/api/HelpRequest/waittimes"))
+                               .andExpect(status().is(403));
+       }
+
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void logged_in_user_can_get_wait_times_of_a_team() throws Exception {
+               // arrange
+               LocalDate from = LocalDate.parse("2022-01-01");
+               LocalDate to = LocalDate.parse("2022-01-31");
+               WaitTimePercentiles expected = new WaitTimePercentiles(from, to, 12, 60, 300, 900, 1200);
+               when(waitTimeService.getTeamWaitTimes("f23-6pm-1", from, to)).thenReturn(expected);
+
+               // act
+               MvcResult response = mockMvc.perform(get("/api/HelpRequest/waittimes?teamId=f23-6pm-1&section=f23-6pm&from=2022-01-01&to=2022-01-31"))
+                               .andExpect(status().isOk()).andReturn();
+
+               // assert
+               verify(waitTimeService, times(1)).getTeamWaitTimes("f23-6pm-1", from, to);
+               assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+       }
+
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void logged_in_user_can_get_wait_times_of_a_section() throws Exception {
+               // arrange
+               WaitTimePercentiles expected = new WaitTimePercentiles(null, null, 40, 60, 300, 900, 1200);
+               when(waitTimeService.getSectionWaitTimes("f23-6pm", null, null)).thenReturn(expected);
+
+               // act
+               MvcResult response = mockMvc.perform(get("/api/HelpRequest/waittimes?section=f23-6pm"))
+                               .andExpect(status().isOk()).andReturn();
+
+               // assert
+               verify(waitTimeService, times(1)).getSectionWaitTimes("f23-6pm", null, null);
+               assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+       }
+
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void logged_in_user_can_get_total_wait_times() throws Exception {
+               // arrange
+               WaitTimePercentiles expected = new WaitTimePercentiles(null, null, 100, 60, 300, 900, 1200);
+               when(waitTimeService.getTotalWaitTimes(null, null)).thenReturn(expected);
+
+               // act
+               MvcResult response = mockMvc.perform(get("/api/HelpRequest/waittimes"))
+                               .andExpect(status().isOk()).andReturn();
+
+               // assert
+               verify(waitTimeService, times(1)).getTotalWaitTimes(null, null);
+               assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+       }
+
+       // Tests for GET /api/HelpRequest/heatmap
+
+       @Test
+       public void logged_out_users_cannot_get_the_heatmap() throws Exception {
+               mockMvc.perform(get("/api/HelpRequest/heatmap"))
+                               .andExpect(status().is(403));
+       }
+
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void logged_in_user_can_get_the_heatmap() throws Exception {
+               // arrange
+               long[][] counts = new long[7][24];
+               counts[0][10] = 3;
+               List<HelpRequestHeatmap> expected = List.of(new HelpRequestHeatmap("2", 3, counts));
+               when(heatmapService.getHeatmaps(null)).thenReturn(expected);
+
+               // act
+               MvcResult response = mockMvc.perform(get("/api/HelpRequest/heatmap"))
+                               .andExpect(status().isOk()).andReturn();
+
+               // assert
+               verify(heatmapService, times(1)).getHeatmaps(null);
+               assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+       }
+
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void logged_in_user_can_get_the_heatmap_of_one_room() throws Exception {
+               // arrange
+               when(heatmapService.getHeatmaps("5")).thenReturn(List.of());
+
+               // act
+               MvcResult response = mockMvc.perform(get("/api/HelpRequest/heatmap?tableOrBreakoutRoom=5"))
+                               .andExpect(status().isOk()).andReturn();
+
+               // assert
+               verify(heatmapService, times(1)).getHeatmaps("5");
+               assertEquals("[]", response.getResponse().getContentAsString());
+       }
+
+       // Tests for PUT /api/HelpRequest/solve
+
+       @WithMockUser(roles = { "USER" })
+       @Test
+       public void regular_users_cannot_solve_in_bulk() throws Exception {
+               mockMvc.perform(put("/api/HelpRequest/solve").with(csrf()))
+                               .andExpect(status().is(403));
+       }
+
+       @WithMockUser(roles = { "ADMIN", "USER" })
+       @Test
+       public void admin_can_solve_the_requests_of_some_teams() throws Exception {
+               // arrange
+               when(helpRequestRepository.solveTeams(eq(List.of("f23-6pm-1", "f23-6pm-2")), eq("2"), any())).thenReturn(3);
+
+               // act
+               MvcResult response = mockMvc.perform(
+                               put("/api/HelpRequest/solve?teamId=f23-6pm-1&teamId=f23-6pm-2&tableOrBreakoutRoom=2").with(csrf()))
+                               .andExpect(status().isOk()).andReturn();
+
+               // assert
+               Map<String, Object> json = responseToJson(response);
+               assertEquals(3, json.get("count"));
+               assertEquals("3 help requests marked solved", json.get("message"));
+               List<HelpRequestsSolvedEvent> events = applicationEvents.stream(HelpRequestsSolvedEvent.class).collect(Collectors.toList());
+               assertEquals(1, events.size());
+               assertEquals(List.of("f23-6pm-1", "f23-6pm-2"), events.get(0).getTeamIds());
+               assertEquals("2", events.get(0).getTableOrBreakoutRoom());
+               assertEquals(3, events.get(0).getCount());
+               verify(helpRequestRepository, times(1)).solveTeams(List.of("f23-6pm-1", "f23-6pm-2"), "2", events.get(0).getSolvedAt());
+       }
+
+       @WithMockUser(roles = { "ADMIN", "USER" })
+       @Test
+       public void admin_can_solve_every_open_request() throws Exception {
+               // arrange
+               when(helpRequestRepository.solveAll(isNull(), any())).thenReturn(0);
+
+               // act
+               MvcResult response = mockMvc.perform(put("/api/HelpRequest/solve").with(csrf()))
+                               .andExpect(status().isOk()).andReturn();
+
+               // assert
+               verify(helpRequestRepository, times(1)).solveAll(isNull(), any());
+               assertEquals(0, responseToJson(response).get("count"));
+               assertEquals(0, applicationEvents.stream(HelpRequestsSolvedEvent.class).count());
+       }
 }
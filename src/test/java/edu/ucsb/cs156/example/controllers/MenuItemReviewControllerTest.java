@@ -4,30 +4,56 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.models.DistinctReviewerEstimate;
+import edu.ucsb.cs156.example.models.SimilarMenuItem;
+import edu.ucsb.cs156.example.models.MenuItemRanking;
+import edu.ucsb.cs156.example.models.MenuItemReviewAggregate;
+import edu.ucsb.cs156.example.models.MenuItemReviewFilter;
+import edu.ucsb.cs156.example.models.MenuItemReviewPage;
+import edu.ucsb.cs156.example.models.MenuItemReviewVolume;
+import edu.ucsb.cs156.example.models.VolumeBucket;
+import edu.ucsb.cs156.example.models.MenuItemRatingStats;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+import edu.ucsb.cs156.example.services.MenuItemReviewAnalyticsService;
+import edu.ucsb.cs156.example.services.MenuItemReviewVolumeService;
+import edu.ucsb.cs156.example.services.MenuItemReviewerCountService;
+import edu.ucsb.cs156.example.services.MenuItemSimilarityService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -35,14 +61,40 @@ import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = MenuItemReviewController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class MenuItemReviewControllerTest extends ControllerTestCase {
 
         @MockBean
         MenuItemReviewRepository repo;
 
+        @MockBean
+        UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+        @MockBean
+        MenuItemRatingService ratingService;
+
+        @MockBean
+        MenuItemReviewAnalyticsService analyticsService;
+
+        @MockBean
+        MenuItemReviewVolumeService volumeService;
+
+        @MockBean
+        MenuItemSimilarityService similarityService;
+
+        @MockBean
+        MenuItemReviewerCountService reviewerCountService;
+
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        ApplicationEvents applicationEvents;
+
+        private List<MenuItemReviewChangedEvent> changeEvents() {
+                return applicationEvents.stream(MenuItemReviewChangedEvent.class).collect(Collectors.toList());
+        }
+
         // Tests for GET /api/menuitemreview/all
         
         @Test
@@ -141,6 +193,7 @@ public class MenuItemReviewControllerTest extends ControllerTestCase {
 
                 // assert
                 verify(repo, times(1)).save(reviewDate1);
+                assertEquals(List.of(new MenuItemReviewChangedEvent(null, reviewDate1)), changeEvents());
                 String expectedJson = mapper.writeValueAsString(reviewDate1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -232,6 +285,7 @@ public class MenuItemReviewControllerTest extends ControllerTestCase {
                 // assert
                 verify(repo, times(1)).findById(15L);
                 verify(repo, times(1)).delete(any());
+                assertEquals(List.of(new MenuItemReviewChangedEvent(reviewDate1, null)), changeEvents());
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 15 deleted", json.get("message"));
@@ -287,6 +341,8 @@ public class MenuItemReviewControllerTest extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(reviewEdited);
 
+                MenuItemReview reviewBefore = reviewOriginal.toBuilder().build();
+
                 when(repo.findById(eq(67L))).thenReturn(Optional.of(reviewOriginal));
 
                 // act
@@ -301,6 +357,7 @@ public class MenuItemReviewControllerTest extends ControllerTestCase {
                 // assert
                 verify(repo, times(1)).findById(67L);
                 verify(repo, times(1)).save(reviewEdited); // should be saved with correct user
+                assertEquals(List.of(new MenuItemReviewChangedEvent(reviewBefore, reviewEdited)), changeEvents());
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -338,7 +395,446 @@ public class MenuItemReviewControllerTest extends ControllerTestCase {
                 verify(repo, times(1)).findById(67L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 67 not found", json.get("message"));
+                assertEquals(0, changeEvents().size());
 
         }
         
+
+        // Tests for GET /api/menuitemreview/stats and /api/menuitemreview/stats/bulk
+
+        @Test
+        public void logged_out_users_cannot_get_stats() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/stats?itemId=3"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_stats_for_an_item() throws Exception {
+
+                // arrange
+                MenuItemRatingStats stats = new MenuItemRatingStats(3, 4, 14, new long[] { 0, 1, 0, 1, 2 });
+                when(ratingService.getStats(eq(3L))).thenReturn(stats);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/stats?itemId=3"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ratingService, times(1)).getStats(3L);
+                String expectedJson = mapper.writeValueAsString(stats);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_bulk_stats() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/stats/bulk?itemIds=3,4"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_stats_for_several_items() throws Exception {
+
+                // arrange
+                List<MenuItemRatingStats> stats = List.of(
+                                new MenuItemRatingStats(3, 4, 14, new long[] { 0, 1, 0, 1, 2 }),
+                                new MenuItemRatingStats(4, 0, 0, new long[5]));
+                when(ratingService.getStats(eq(List.of(3L, 4L)))).thenReturn(stats);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/stats/bulk?itemIds=3,4"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ratingService, times(1)).getStats(List.of(3L, 4L));
+                String expectedJson = mapper.writeValueAsString(stats);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/menuitemreview/top
+
+        @Test
+        public void logged_out_users_cannot_get_top() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/top"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_top_items() throws Exception {
+
+                // arrange
+                UCSBDiningCommonsMenuItem pizza = UCSBDiningCommonsMenuItem.builder()
+                                                                .id(3)
+                                                                .diningCommonsCode("ortega")
+                                                                .name("Pizza")
+                                                                .station("Entrees")
+                                                                .build();
+
+                MenuItemRatingStats pizzaStats = new MenuItemRatingStats(3, 4, 18, new long[] { 0, 0, 0, 2, 2 });
+                MenuItemRatingStats goneStats = new MenuItemRatingStats(9, 2, 8, new long[] { 0, 0, 0, 2, 0 });
+                when(ratingService.getTop(eq(2), eq(2L))).thenReturn(List.of(pizzaStats, goneStats));
+                when(ratingService.score(eq(pizzaStats))).thenReturn(3.67);
+                when(ratingService.score(eq(goneStats))).thenReturn(3.43);
+                when(menuItemRepository.findAllById(eq(List.of(3L, 9L)))).thenReturn(List.of(pizza));
+
+                List<MenuItemRanking> expected = List.of(
+                                new MenuItemRanking(1, 3.67, pizza, pizzaStats),
+                                new MenuItemRanking(2, 3.43, null, goneStats));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/top?n=2&minReviews=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ratingService, times(1)).getTop(2, 2L);
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void top_defaults_to_ten_items_with_at_least_one_review() throws Exception {
+
+                // arrange
+                when(ratingService.getTop(eq(10), eq(1L))).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/top"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ratingService, times(1)).getTop(10, 1L);
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
+        // Tests for GET /api/menuitemreview/analytics
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void regular_users_cannot_get_analytics() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/analytics"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_get_analytics_with_all_filters() throws Exception {
+
+                // arrange
+                MenuItemReviewFilter filter = MenuItemReviewFilter.builder()
+                                                                .itemId(3L)
+                                                                .reviewerEmail("fakereviewer1@gmail.com")
+                                                                .from(LocalDateTime.parse("2022-01-01T00:00:00"))
+                                                                .to(LocalDateTime.parse("2022-02-01T00:00:00"))
+                                                                .minStars(2)
+                                                                .maxStars(5)
+                                                                .build();
+                List<MenuItemReviewAggregate> result = List.of(
+                                new MenuItemReviewAggregate("2022-01-03", 2, 7, 3, 4));
+                when(analyticsService.aggregate(eq(filter), eq(MenuItemReviewAnalyticsService.GroupBy.DAY)))
+                                .thenReturn(result);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/analytics?groupBy=DAY&itemId=3"
+                                + "&reviewerEmail=fakereviewer1@gmail.com&from=2022-01-01T00:00:00&to=2022-02-01T00:00:00"
+                                + "&minStars=2&maxStars=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(analyticsService, times(1)).aggregate(filter, MenuItemReviewAnalyticsService.GroupBy.DAY);
+                String expectedJson = mapper.writeValueAsString(result);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void analytics_defaults_to_all_reviews_ungrouped() throws Exception {
+
+                // arrange
+                MenuItemReviewFilter filter = MenuItemReviewFilter.builder().build();
+                when(analyticsService.aggregate(eq(filter), eq(MenuItemReviewAnalyticsService.GroupBy.NONE)))
+                                .thenReturn(List.of());
+
+                // act
+                mockMvc.perform(get("/api/menuitemreview/analytics"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(analyticsService, times(1)).aggregate(filter, MenuItemReviewAnalyticsService.GroupBy.NONE);
+        }
+
+        // Tests for GET /api/menuitemreview/volume
+
+        private static MenuItemReviewVolume volume(long count) {
+                VolumeBucket bucket = new VolumeBucket(LocalDateTime.parse("2022-01-03T00:00:00"), count);
+                return new MenuItemReviewVolume(List.of(bucket), List.of(bucket), List.of(bucket));
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_volume() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/volume"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_volume_for_an_item() throws Exception {
+
+                // arrange
+                MenuItemReviewVolume expected = volume(1);
+                when(volumeService.getItemVolume(eq(3L))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/volume?itemId=3&diningCommonsCode=ortega"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(volumeService, times(1)).getItemVolume(3L);
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_volume_for_a_dining_commons() throws Exception {
+
+                // arrange
+                MenuItemReviewVolume expected = volume(2);
+                when(volumeService.getDiningCommonsVolume(eq("ortega"))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/volume?diningCommonsCode=ortega"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(volumeService, times(1)).getDiningCommonsVolume("ortega");
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_total_volume() throws Exception {
+
+                // arrange
+                MenuItemReviewVolume expected = volume(3);
+                when(volumeService.getTotalVolume()).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/volume"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(volumeService, times(1)).getTotalVolume();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        // Tests for GET /api/menuitemreview/byItem
+
+        private static MenuItemReview reviewOfItem3(long id, String date) {
+                return MenuItemReview.builder()
+                                .id(id)
+                                .itemId(3)
+                                .reviewerEmail("fakereviewer1@gmail.com")
+                                .stars(4)
+                                .comments("Tasty")
+                                .dateReviewed(LocalDateTime.parse(date))
+                                .build();
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_by_item() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/byItem?itemId=3"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void first_page_by_item_has_a_cursor_when_full() throws Exception {
+
+                // arrange
+                List<MenuItemReview> reviews = List.of(
+                                reviewOfItem3(8, "2022-01-05T10:00:00"),
+                                reviewOfItem3(5, "2022-01-03T00:00:00"));
+                when(repo.findFirstPage(eq(3L), eq(PageRequest.of(0, 2)))).thenReturn(reviews);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/byItem?itemId=3&limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(repo, times(1)).findFirstPage(3L, PageRequest.of(0, 2));
+                String expectedJson = mapper.writeValueAsString(new MenuItemReviewPage(reviews, "2022-01-03T00:00,5"));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void next_page_by_item_seeks_past_the_cursor() throws Exception {
+
+                // arrange
+                List<MenuItemReview> reviews = List.of(reviewOfItem3(6, "2022-01-03T00:00:00"));
+                when(repo.findPageBefore(eq(3L), eq(LocalDateTime.parse("2022-01-03T00:00:00")), eq(5L),
+                                eq(PageRequest.of(0, 20)))).thenReturn(reviews);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/byItem?itemId=3&before=2022-01-03T00:00,5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(repo, times(1)).findPageBefore(3L, LocalDateTime.parse("2022-01-03T00:00:00"), 5L, PageRequest.of(0, 20));
+                String expectedJson = mapper.writeValueAsString(new MenuItemReviewPage(reviews, null));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void page_size_is_kept_between_one_and_the_maximum() throws Exception {
+
+                // arrange
+                when(repo.findFirstPage(eq(3L), any())).thenReturn(List.of());
+
+                // act
+                mockMvc.perform(get("/api/menuitemreview/byItem?itemId=3&limit=0"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/menuitemreview/byItem?itemId=3&limit=5000"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(repo, times(1)).findFirstPage(3L, PageRequest.of(0, 1));
+                verify(repo, times(1)).findFirstPage(3L, PageRequest.of(0, MenuItemReviewController.MAX_PAGE_SIZE));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void malformed_cursors_are_rejected() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/byItem?itemId=3&before=yesterday"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/menuitemreview/byItem?itemId=3&before=yesterday,5"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/menuitemreview/byItem?itemId=3&before=2022-01-03T00:00,five"))
+                                .andExpect(status().isBadRequest());
+        }
+
+
+        // Tests for GET /api/menuitemreview/similar
+
+        @Test
+        public void logged_out_users_cannot_get_similar_items() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/similar?itemId=3"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_similar_items() throws Exception {
+
+                // arrange
+                UCSBDiningCommonsMenuItem pizza = UCSBDiningCommonsMenuItem.builder()
+                                                                .id(4)
+                                                                .diningCommonsCode("ortega")
+                                                                .name("Pizza")
+                                                                .station("Entrees")
+                                                                .build();
+                when(similarityService.getSimilar(eq(3L), eq(2))).thenReturn(List.of(
+                                new SimilarMenuItem(4, null, 3, 0.75),
+                                new SimilarMenuItem(9, null, 1, 0.5)));
+                when(menuItemRepository.findAllById(eq(List.of(4L, 9L)))).thenReturn(List.of(pizza));
+
+                List<SimilarMenuItem> expected = List.of(
+                                new SimilarMenuItem(4, pizza, 3, 0.75),
+                                new SimilarMenuItem(9, null, 1, 0.5));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/similar?itemId=3&k=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(similarityService, times(1)).getSimilar(3L, 2);
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void similar_items_are_limited() throws Exception {
+
+                // arrange
+                when(similarityService.getSimilar(anyLong(), anyInt())).thenReturn(List.of());
+
+                // act
+                mockMvc.perform(get("/api/menuitemreview/similar?itemId=3")).andExpect(status().isOk());
+                mockMvc.perform(get("/api/menuitemreview/similar?itemId=3&k=1000")).andExpect(status().isOk());
+                mockMvc.perform(get("/api/menuitemreview/similar?itemId=3&k=0")).andExpect(status().isOk());
+
+                // assert
+                verify(similarityService, times(1)).getSimilar(3L, 10);
+                verify(similarityService, times(1)).getSimilar(3L, MenuItemReviewController.MAX_PAGE_SIZE);
+                verify(similarityService, times(1)).getSimilar(3L, 1);
+        }
+
+        // Tests for GET /api/menuitemreview/reviewers
+
+        @Test
+        public void logged_out_users_cannot_get_reviewer_counts() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/reviewers"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_reviewers_of_an_item() throws Exception {
+
+                // arrange
+                LocalDate from = LocalDate.parse("2022-01-01");
+                LocalDate to = LocalDate.parse("2022-01-31");
+                DistinctReviewerEstimate expected = new DistinctReviewerEstimate(from, to, 12, 0.0325);
+                when(reviewerCountService.getItemReviewers(eq(3L), eq(from), eq(to))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/reviewers?itemId=3&diningCommonsCode=ortega&from=2022-01-01&to=2022-01-31"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(reviewerCountService, times(1)).getItemReviewers(3L, from, to);
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_reviewers_of_a_dining_commons() throws Exception {
+
+                // arrange
+                DistinctReviewerEstimate expected = new DistinctReviewerEstimate(null, null, 40, 0.0325);
+                when(reviewerCountService.getDiningCommonsReviewers(eq("ortega"), eq(null), eq(null))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/reviewers?diningCommonsCode=ortega"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(reviewerCountService, times(1)).getDiningCommonsReviewers("ortega", null, null);
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_total_reviewers() throws Exception {
+
+                // arrange
+                LocalDate from = LocalDate.parse("2022-01-01");
+                DistinctReviewerEstimate expected = new DistinctReviewerEstimate(from, null, 100, 0.0325);
+                when(reviewerCountService.getTotalReviewers(eq(from), eq(null))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/reviewers?from=2022-01-01"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(reviewerCountService, times(1)).getTotalReviewers(from, null);
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
 }
@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingSummaryRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+import edu.ucsb.cs156.example.services.MenuItemReviewAnalyticsService;
+import edu.ucsb.cs156.example.services.MenuItemReviewVolumeService;
+import edu.ucsb.cs156.example.services.MenuItemReviewerCountService;
+import edu.ucsb.cs156.example.services.MenuItemSimilarityService;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+/**
+ * Runs the write handlers against an embedded database, outside any test
+ * transaction, to check that each review change and its summary update
+ * commit or roll back together.
+ */
+@JvmOnly
+@DataJpaTest
+@Import({ TestConfig.class, MenuItemReviewController.class, MenuItemRatingService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class MenuItemReviewControllerTransactionTests {
+
+        @Autowired
+        MenuItemReviewController controller;
+
+        @Autowired
+        MenuItemReviewRepository menuItemReviewRepository;
+
+        @SpyBean
+        MenuItemRatingSummaryRepository summaryRepository;
+
+        @MockBean
+        MenuItemReviewAnalyticsService analyticsService;
+
+        @MockBean
+        MenuItemReviewVolumeService volumeService;
+
+        @MockBean
+        MenuItemSimilarityService similarityService;
+
+        @MockBean
+        MenuItemReviewerCountService reviewerCountService;
+
+        @MockBean
+        ObjectMapper mapper;
+
+        @AfterEach
+        public void cleanup() {
+                reset(summaryRepository);
+                menuItemReviewRepository.deleteAll();
+                summaryRepository.deleteAll();
+        }
+
+        @Test
+        public void reviews_and_their_summary_are_saved_together() throws Exception {
+                controller.postMenuItemReview(7L, "cgaucho@ucsb.edu", 4, "good", LocalDateTime.parse("2022-01-03T00:00:00"));
+                controller.postMenuItemReview(7L, "ldelplaya@ucsb.edu", 2, "bad", LocalDateTime.parse("2022-01-04T00:00:00"));
+
+                assertEquals(2, menuItemReviewRepository.count());
+                assertEquals(new MenuItemRatingSummary(7, 2, 6, 0, 1, 0, 1, 0), summaryRepository.findById(7L).get());
+        }
+
+        @Test
+        public void a_failed_summary_update_rolls_back_the_review() throws Exception {
+                doThrow(new DataAccessResourceFailureException("down")).when(summaryRepository).addToTotals(anyLong(),
+                                anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+
+                assertThrows(DataAccessResourceFailureException.class, () -> controller.postMenuItemReview(7L,
+                                "cgaucho@ucsb.edu", 4, "good", LocalDateTime.parse("2022-01-03T00:00:00")));
+
+                assertEquals(0, menuItemReviewRepository.count());
+        }
+}
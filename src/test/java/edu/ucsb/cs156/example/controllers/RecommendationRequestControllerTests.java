@@ -3,20 +3,33 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.RecommendationRequestChangedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsDoneEvent;
+import edu.ucsb.cs156.example.models.ProfessorWorkload;
+import edu.ucsb.cs156.example.repositories.ArchivedRecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.RecommendationRequestDeadlineService;
+import edu.ucsb.cs156.example.services.RecommendationRequestSpanService;
+import edu.ucsb.cs156.example.services.RecommendationRequestWorkloadService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -28,22 +41,45 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = RecommendationRequestController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class RecommendationRequestControllerTests extends ControllerTestCase {
 
         @MockBean
         RecommendationRequestRepository requestRepository;
 
+        @MockBean
+        ArchivedRecommendationRequestRepository archivedRequestRepository;
+
+        @MockBean
+        RecommendationRequestDeadlineService deadlineService;
+
+        @MockBean
+        RecommendationRequestSpanService spanService;
+
+        @MockBean
+        RecommendationRequestWorkloadService workloadService;
+
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        ApplicationEvents applicationEvents;
+
+        private List<RecommendationRequestChangedEvent> changeEvents() {
+                return applicationEvents.stream(RecommendationRequestChangedEvent.class).collect(Collectors.toList());
+        }
+
         // Tests for GET /api/RecomendationRequest/all
         
         @Test
@@ -147,6 +183,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(requestRepository, times(1)).save(req1);
+                assertEquals(1, changeEvents().size());
+                assertNull(changeEvents().get(0).getBefore());
+                assertEquals(req1, changeEvents().get(0).getAfter());
                 String expectedJson = mapper.writeValueAsString(req1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -191,6 +230,34 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void test_that_logged_in_user_can_get_an_archived_request_by_id() throws Exception {
+
+                // arrange
+                RecommendationRequest req1 = RecommendationRequest.builder()
+                                        .id(7)
+                                        .requesterEmail("apchau@ucsb.edu")
+                                        .professorEmail("pconrad@ucsb.edu")
+                                        .explanation("for grad school")
+                                        .dateRequested(LocalDateTime.parse("2023-01-03T00:00:00"))
+                                        .dateNeeded(LocalDateTime.parse("2023-03-11T00:00:00"))
+                                        .done(true)
+                                        .build();
+
+                when(requestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+                when(archivedRequestRepository.findById(eq(7L)))
+                        .thenReturn(Optional.of(ArchivedRecommendationRequest.of(req1, LocalDateTime.parse("2023-09-01T03:45:00"))));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest?id=7"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(archivedRequestRepository, times(1)).findById(eq(7L));
+                assertEquals(mapper.writeValueAsString(req1), response.getResponse().getContentAsString());
+        }
+
         @WithMockUser(roles = { "USER" })
         @Test
         public void test_that_logged_in_user_can_get_by_id_when_the_id_does_not_exist() throws Exception {
@@ -258,6 +325,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 // assert
                 verify(requestRepository, times(1)).findById(67L);
                 verify(requestRepository, times(1)).save(reqEdited); // should be saved with correct user
+                assertEquals(1, changeEvents().size());
+                assertEquals(true, changeEvents().get(0).getBefore().getDone());
+                assertEquals(reqEdited, changeEvents().get(0).getAfter());
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -330,6 +400,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 // assert
                 verify(requestRepository, times(1)).findById(15L);
                 verify(requestRepository, times(1)).delete(any());
+                assertEquals(1, changeEvents().size());
+                assertEquals(req, changeEvents().get(0).getBefore());
+                assertNull(changeEvents().get(0).getAfter());
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 15 deleted", json.get("message"));
@@ -354,4 +427,218 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
         }
+
+        // Tests for PUT /api/RecommendationRequest/done
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void regular_users_cannot_mark_requests_done_in_bulk() throws Exception {
+                mockMvc.perform(put("/api/RecommendationRequest/done").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_mark_the_requests_of_a_professor_done() throws Exception {
+                // arrange
+                LocalDateTime neededBefore = LocalDateTime.parse("2023-06-15T00:00:00");
+                when(requestRepository.markDoneNeededBefore("pconrad@ucsb.edu", neededBefore)).thenReturn(4);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/RecommendationRequest/done?professorEmail=pconrad@ucsb.edu&neededBefore=2023-06-15T00:00:00").with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(requestRepository, times(1)).markDoneNeededBefore("pconrad@ucsb.edu", neededBefore);
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(4, json.get("count"));
+                assertEquals("4 recommendation requests marked done", json.get("message"));
+                assertEquals(List.of(new RecommendationRequestsDoneEvent("pconrad@ucsb.edu", neededBefore, 4)),
+                                applicationEvents.stream(RecommendationRequestsDoneEvent.class).collect(Collectors.toList()));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void marking_no_requests_done_publishes_no_event() throws Exception {
+                // arrange
+                when(requestRepository.markDone("nobody@ucsb.edu")).thenReturn(0);
+
+                // act
+                MvcResult response = mockMvc.perform(put("/api/RecommendationRequest/done?professorEmail=nobody@ucsb.edu").with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(0, responseToJson(response).get("count"));
+                assertEquals(0, applicationEvents.stream(RecommendationRequestsDoneEvent.class).count());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_mark_every_request_done() throws Exception {
+                // arrange
+                when(requestRepository.markDone(isNull())).thenReturn(7);
+
+                // act
+                MvcResult response = mockMvc.perform(put("/api/RecommendationRequest/done").with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(requestRepository, times(1)).markDone(null);
+                verify(requestRepository, never()).markDoneNeededBefore(any(), any());
+                assertEquals(7, responseToJson(response).get("count"));
+        }
+
+        // Tests for GET /api/RecommendationRequest/byDateNeeded, /byDateRequested and /dueSoon
+
+        @Test
+        public void logged_out_users_cannot_list_requests_by_date() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/byDateNeeded?professorEmail=pconrad@ucsb.edu&from=2023-01-01T00:00:00&to=2023-02-01T00:00:00"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/RecommendationRequest/byDateRequested?professorEmail=pconrad@ucsb.edu&from=2023-01-01T00:00:00&to=2023-02-01T00:00:00"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/RecommendationRequest/dueSoon?professorEmail=pconrad@ucsb.edu"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_list_requests_by_date_needed() throws Exception {
+                // arrange
+                LocalDateTime from = LocalDateTime.parse("2023-01-01T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2023-02-01T00:00:00");
+                RecommendationRequest req = RecommendationRequest.builder()
+                                        .id(3)
+                                        .requesterEmail("apchau@ucsb.edu")
+                                        .professorEmail("pconrad@ucsb.edu")
+                                        .dateNeeded(LocalDateTime.parse("2023-01-10T00:00:00"))
+                                        .build();
+                when(requestRepository.findNeededBetween("pconrad@ucsb.edu", from, to)).thenReturn(List.of(req));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/byDateNeeded?professorEmail=pconrad@ucsb.edu&from=2023-01-01T00:00:00&to=2023-02-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(requestRepository, times(1)).findNeededBetween("pconrad@ucsb.edu", from, to);
+                assertEquals(mapper.writeValueAsString(List.of(req)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_list_requests_by_date_requested() throws Exception {
+                // arrange
+                LocalDateTime from = LocalDateTime.parse("2023-01-01T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2023-02-01T00:00:00");
+                RecommendationRequest req = RecommendationRequest.builder()
+                                        .id(4)
+                                        .professorEmail("pconrad@ucsb.edu")
+                                        .dateRequested(LocalDateTime.parse("2023-01-05T00:00:00"))
+                                        .build();
+                when(requestRepository.findRequestedBetween("pconrad@ucsb.edu", from, to)).thenReturn(List.of(req));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/byDateRequested?professorEmail=pconrad@ucsb.edu&from=2023-01-01T00:00:00&to=2023-02-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(requestRepository, times(1)).findRequestedBetween("pconrad@ucsb.edu", from, to);
+                assertEquals(mapper.writeValueAsString(List.of(req)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_list_requests_due_soon() throws Exception {
+                // arrange
+                RecommendationRequest req = RecommendationRequest.builder()
+                                        .id(5)
+                                        .professorEmail("pconrad@ucsb.edu")
+                                        .dateNeeded(LocalDateTime.parse("2023-01-10T00:00:00"))
+                                        .build();
+                when(deadlineService.getDueSoon("pconrad@ucsb.edu", 7)).thenReturn(List.of(req));
+                when(deadlineService.getDueSoon("pconrad@ucsb.edu", 2)).thenReturn(List.of());
+
+                // act
+                MvcResult week = mockMvc.perform(get("/api/RecommendationRequest/dueSoon?professorEmail=pconrad@ucsb.edu"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult twoDays = mockMvc.perform(get("/api/RecommendationRequest/dueSoon?professorEmail=pconrad@ucsb.edu&days=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(mapper.writeValueAsString(List.of(req)), week.getResponse().getContentAsString());
+                assertEquals("[]", twoDays.getResponse().getContentAsString());
+        }
+
+        // Tests for GET /api/RecommendationRequest/outstanding
+
+        @Test
+        public void logged_out_users_cannot_list_outstanding_requests() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/outstanding?professorEmail=pconrad@ucsb.edu&from=2023-01-01T00:00:00"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_list_requests_outstanding_during_a_week() throws Exception {
+                // arrange
+                LocalDateTime from = LocalDateTime.parse("2023-01-02T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2023-01-08T23:59:59");
+                RecommendationRequest req = RecommendationRequest.builder()
+                                        .id(6)
+                                        .professorEmail("pconrad@ucsb.edu")
+                                        .dateRequested(LocalDateTime.parse("2022-12-20T00:00:00"))
+                                        .dateNeeded(LocalDateTime.parse("2023-01-05T00:00:00"))
+                                        .build();
+                when(spanService.getOutstanding("pconrad@ucsb.edu", from, to, true)).thenReturn(List.of(req));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/outstanding?professorEmail=pconrad@ucsb.edu&from=2023-01-02T00:00:00&to=2023-01-08T23:59:59&includeDone=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(spanService, times(1)).getOutstanding("pconrad@ucsb.edu", from, to, true);
+                assertEquals(mapper.writeValueAsString(List.of(req)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_list_requests_outstanding_at_a_time() throws Exception {
+                // arrange
+                LocalDateTime at = LocalDateTime.parse("2023-01-02T00:00:00");
+                when(spanService.getOutstanding("pconrad@ucsb.edu", at, at, false)).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/outstanding?professorEmail=pconrad@ucsb.edu&from=2023-01-02T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(spanService, times(1)).getOutstanding("pconrad@ucsb.edu", at, at, false);
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
+        // Tests for GET /api/RecommendationRequest/workload
+
+        @Test
+        public void logged_out_users_cannot_get_workloads() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/workload"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_workloads() throws Exception {
+                // arrange
+                List<ProfessorWorkload> workloads = List.of(
+                                new ProfessorWorkload("pconrad@ucsb.edu", 5, 2, 1),
+                                new ProfessorWorkload("ziad@ucsb.edu", 1, 9, 0));
+                when(workloadService.getWorkloads()).thenReturn(workloads);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/workload"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(workloadService, times(1)).getWorkloads();
+                assertEquals(mapper.writeValueAsString(workloads), response.getResponse().getContentAsString());
+        }
 }
@@ -4,17 +4,24 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.UCSBDateChangedEvent;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.UCSBDateCalendarService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -26,6 +33,7 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -34,14 +42,25 @@ import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDatesController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class UCSBDatesControllerTests extends ControllerTestCase {
 
         @MockBean
         UCSBDateRepository ucsbDateRepository;
 
+        @MockBean
+        UCSBDateCalendarService calendarService;
+
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        ApplicationEvents applicationEvents;
+
+        private List<UCSBDateChangedEvent> changeEvents() {
+                return applicationEvents.stream(UCSBDateChangedEvent.class).collect(Collectors.toList());
+        }
+
         // Tests for GET /api/ucsbdates/all
         
         @Test
@@ -133,6 +152,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(ucsbDateRepository, times(1)).save(ucsbDate1);
+                assertEquals(1, changeEvents().size());
+                assertNull(changeEvents().get(0).getBefore());
+                assertEquals(ucsbDate1, changeEvents().get(0).getAfter());
                 String expectedJson = mapper.writeValueAsString(ucsbDate1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -220,6 +242,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 // assert
                 verify(ucsbDateRepository, times(1)).findById(15L);
                 verify(ucsbDateRepository, times(1)).delete(any());
+                assertEquals(1, changeEvents().size());
+                assertEquals(ucsbDate1, changeEvents().get(0).getBefore());
+                assertNull(changeEvents().get(0).getAfter());
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 15 deleted", json.get("message"));
@@ -283,6 +308,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 // assert
                 verify(ucsbDateRepository, times(1)).findById(67L);
                 verify(ucsbDateRepository, times(1)).save(ucsbDateEdited); // should be saved with correct user
+                assertEquals(1, changeEvents().size());
+                assertEquals("20222", changeEvents().get(0).getBefore().getQuarterYYYYQ());
+                assertEquals(ucsbDateEdited, changeEvents().get(0).getAfter());
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -320,4 +348,93 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for GET /api/ucsbdates/quarter and /range
+
+        @Test
+        public void logged_out_users_cannot_get_quarters_or_ranges() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/quarter?q=20222"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_dates_of_a_quarter() throws Exception {
+                // arrange
+                UCSBDate ucsbDate = UCSBDate.builder()
+                                .id(3)
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-04-03T00:00:00"))
+                                .build();
+                when(calendarService.getQuarter("20222")).thenReturn(List.of(ucsbDate));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarter?q=20222"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(calendarService, times(1)).getQuarter("20222");
+                assertEquals(mapper.writeValueAsString(List.of(ucsbDate)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_quarter_defaults_to_the_current_quarter() throws Exception {
+                // arrange
+                UCSBDate ucsbDate = UCSBDate.builder()
+                                .id(4)
+                                .name("lastDayOfClasses")
+                                .quarterYYYYQ("20223")
+                                .localDateTime(LocalDateTime.parse("2022-09-01T00:00:00"))
+                                .build();
+                when(calendarService.getCurrentQuarter()).thenReturn("20223");
+                when(calendarService.getQuarter("20223")).thenReturn(List.of(ucsbDate));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarter"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(mapper.writeValueAsString(List.of(ucsbDate)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void there_are_no_dates_before_the_first_quarter() throws Exception {
+                // arrange
+                when(calendarService.getCurrentQuarter()).thenReturn(null);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarter"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_dates_in_a_range() throws Exception {
+                // arrange
+                LocalDateTime from = LocalDateTime.parse("2022-01-01T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2022-02-01T00:00:00");
+                UCSBDate ucsbDate = UCSBDate.builder()
+                                .id(5)
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20221")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+                when(calendarService.getRange(from, to)).thenReturn(List.of(ucsbDate));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(calendarService, times(1)).getRange(from, to);
+                assertEquals(mapper.writeValueAsString(List.of(ucsbDate)), response.getResponse().getContentAsString());
+        }
 }
@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import edu.ucsb.cs156.example.services.RequestCoalescingService;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
@@ -31,7 +32,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDiningCommonsController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, RequestCoalescingService.class})
 public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTests {
+
+  @Test
+  void permits_are_handed_out_up_to_the_limit() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0);
+    assertTrue(limiter.tryAcquire());
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    assertEquals(2, limiter.getInFlight());
+
+    limiter.release(0, 2);
+    assertEquals(1, limiter.getInFlight());
+    assertTrue(limiter.tryAcquire());
+  }
+
+  @Test
+  void limit_grows_when_latency_stays_at_the_no_load_level_and_the_limit_is_used() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0);
+    limiter.tryAcquire();
+    limiter.release(1000, 10);
+    assertEquals(11, limiter.getLimit());
+  }
+
+  @Test
+  void limit_does_not_grow_when_it_is_not_being_used() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0);
+    limiter.tryAcquire();
+    limiter.release(1000, 1);
+    assertEquals(10, limiter.getLimit());
+  }
+
+  @Test
+  void limit_shrinks_when_latency_rises() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0);
+    limiter.tryAcquire();
+    limiter.release(1000, 10);
+    limiter.tryAcquire();
+    limiter.release(10_000, 10);
+    assertEquals(9, limiter.getLimit());
+  }
+
+  @Test
+  void limit_is_unchanged_for_moderate_queueing() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0);
+    limiter.tryAcquire();
+    limiter.release(1000, 1);
+    limiter.tryAcquire();
+    limiter.release(2000, 10); // queue estimate 5, between 3 and 6
+    assertEquals(10, limiter.getLimit());
+  }
+
+  @Test
+  void limit_stays_within_bounds() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 7, 9, 0);
+    limiter.tryAcquire();
+    limiter.release(1000, 8);
+    limiter.tryAcquire();
+    limiter.release(1000, 9);
+    assertEquals(9, limiter.getLimit());
+    for (int i = 0; i < 5; i++) {
+      limiter.tryAcquire();
+      limiter.release(1_000_000, 9);
+    }
+    assertEquals(7, limiter.getLimit());
+  }
+
+  @Test
+  void no_load_latency_is_forgotten_every_probe_interval() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 2);
+    limiter.tryAcquire();
+    limiter.release(1000, 10);
+    assertEquals(11, limiter.getLimit());
+    // without the probe this would look like heavy queueing
+    limiter.tryAcquire();
+    limiter.release(5000, 11);
+    assertEquals(12, limiter.getLimit());
+  }
+
+  @Test
+  void rejects_bad_settings() {
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(1, 0, 10, 0));
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(5, 5, 4, 0));
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(4, 5, 10, 0));
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(11, 5, 10, 0));
+  }
+}
@@ -0,0 +1,149 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.servlet.DispatcherType;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BulkheadInterceptorTests {
+
+  static class FakeController {
+    public void handle() {
+    }
+  }
+
+  Bulkhead user = new Bulkhead(BulkheadInterceptor.USER, 2);
+  Bulkhead admin = new Bulkhead(BulkheadInterceptor.ADMIN, 1);
+  BulkheadInterceptor interceptor = new BulkheadInterceptor(user, admin, 0);
+  HandlerMethod handler;
+
+  @BeforeEach
+  void setup() throws Exception {
+    handler = new HandlerMethod(new FakeController(), "handle");
+  }
+
+  @AfterEach
+  void cleanup() {
+    BulkheadContext.clear();
+    SecurityContextHolder.clearContext();
+  }
+
+  private static void logIn(String... roles) {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("someone", null, roles));
+  }
+
+  @Test
+  void admins_use_the_admin_bulkhead() throws Exception {
+    logIn("ROLE_USER", "ROLE_ADMIN");
+    MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/test");
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), handler));
+    assertEquals(1, admin.getActive());
+    assertEquals(0, user.getActive());
+    assertEquals(BulkheadInterceptor.ADMIN, BulkheadContext.get());
+
+    interceptor.afterCompletion(request, new MockHttpServletResponse(), handler, null);
+    assertEquals(0, admin.getActive());
+    assertNull(BulkheadContext.get());
+  }
+
+  @Test
+  void users_use_the_user_bulkhead() throws Exception {
+    logIn("ROLE_USER");
+    MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/test");
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), handler));
+    assertEquals(1, user.getActive());
+    assertEquals(BulkheadInterceptor.USER, BulkheadContext.get());
+    assertEquals(0.5, user.getSaturation(), 0.0001);
+  }
+
+  @Test
+  void anonymous_requests_use_the_user_bulkhead() throws Exception {
+    assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(), handler));
+    assertEquals(1, user.getActive());
+    assertEquals(0, admin.getActive());
+  }
+
+  @Test
+  void full_admin_bulkhead_does_not_block_users() throws Exception {
+    logIn("ROLE_ADMIN");
+    assertTrue(interceptor.preHandle(new MockHttpServletRequest("PUT", "/"), new MockHttpServletResponse(), handler));
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(new MockHttpServletRequest("PUT", "/"), response, handler));
+    assertEquals(503, response.getStatus());
+    assertEquals(1, admin.getRejected());
+
+    logIn("ROLE_USER");
+    assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(), handler));
+  }
+
+  @Test
+  void async_requests_keep_one_permit_until_they_complete() throws Exception {
+    logIn("ROLE_ADMIN");
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), handler));
+
+    interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), handler);
+    assertNull(BulkheadContext.get());
+    assertEquals(1, admin.getActive());
+
+    request.setDispatcherType(DispatcherType.ASYNC);
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), handler));
+    assertEquals(1, admin.getActive());
+    assertEquals(BulkheadInterceptor.ADMIN, BulkheadContext.get());
+
+    interceptor.afterCompletion(request, new MockHttpServletResponse(), handler, null);
+    assertEquals(0, admin.getActive());
+    assertNull(BulkheadContext.get());
+  }
+
+  @Test
+  void async_redispatches_of_requests_that_were_not_admitted_take_nothing() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+    request.setDispatcherType(DispatcherType.ASYNC);
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), handler));
+    assertEquals(0, user.getActive());
+    assertNull(BulkheadContext.get());
+  }
+
+  @Test
+  void requests_that_were_not_admitted_release_nothing() throws Exception {
+    interceptor.afterCompletion(new MockHttpServletRequest(), new MockHttpServletResponse(), handler, null);
+    assertEquals(0, user.getActive());
+  }
+
+  @Test
+  void other_handlers_are_not_limited() throws Exception {
+    assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object()));
+    assertEquals(0, user.getActive());
+    assertEquals(user, interceptor.getBulkhead(BulkheadInterceptor.USER));
+  }
+
+  @Test
+  void metrics_report_saturation() throws Exception {
+    logIn("ROLE_ADMIN");
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    interceptor.bindTo(registry);
+    interceptor.preHandle(new MockHttpServletRequest("PUT", "/"), new MockHttpServletResponse(), handler);
+    interceptor.preHandle(new MockHttpServletRequest("PUT", "/"), new MockHttpServletResponse(), handler);
+
+    assertEquals(1.0, registry.get("bulkhead.active").tag("bulkhead", "admin").gauge().value());
+    assertEquals(1.0, registry.get("bulkhead.max").tag("bulkhead", "admin").gauge().value());
+    assertEquals(1.0, registry.get("bulkhead.saturation").tag("bulkhead", "admin").gauge().value());
+    assertEquals(1.0, registry.get("bulkhead.rejected").tag("bulkhead", "admin").functionCounter().count());
+    assertEquals(0.0, registry.get("bulkhead.saturation").tag("bulkhead", "user").gauge().value());
+  }
+}
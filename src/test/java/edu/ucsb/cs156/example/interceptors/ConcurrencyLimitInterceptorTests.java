@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.DispatcherType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import edu.ucsb.cs156.example.controllers.ApiController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConcurrencyLimitInterceptorTests {
+
+  static class FakeApiController extends ApiController {
+    public void get() {
+    }
+  }
+
+  static class NotAnApiController {
+    public void get() {
+    }
+  }
+
+  AtomicLong now = new AtomicLong(0);
+  AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 10, 0);
+  ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(limiter, now::get);
+  HandlerMethod api;
+  HandlerMethod other;
+
+  @BeforeEach
+  void setup() throws Exception {
+    api = new HandlerMethod(new FakeApiController(), "get");
+    other = new HandlerMethod(new NotAnApiController(), "get");
+  }
+
+  @Test
+  void requests_over_the_limit_get_503() throws Exception {
+    MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/test");
+    assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), api));
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/test"), response, api));
+    assertEquals(503, response.getStatus());
+  }
+
+  @Test
+  void completing_a_request_releases_its_permit() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), api));
+    assertEquals(1, limiter.getInFlight());
+    now.addAndGet(1000);
+    interceptor.afterCompletion(request, new MockHttpServletResponse(), api, null);
+    assertEquals(0, limiter.getInFlight());
+    assertNull(request.getAttribute(ConcurrencyLimitInterceptor.START_ATTRIBUTE));
+
+    // a second afterCompletion must not release again
+    interceptor.afterCompletion(request, new MockHttpServletResponse(), api, null);
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void async_requests_are_counted_once() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), api));
+    interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), api);
+    assertEquals(1, limiter.getInFlight());
+
+    // the limit is 1, so a second acquire would be refused
+    request.setDispatcherType(DispatcherType.ASYNC);
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), api));
+    assertEquals(1, limiter.getInFlight());
+
+    interceptor.afterCompletion(request, new MockHttpServletResponse(), api, null);
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void only_api_controllers_are_limited() throws Exception {
+    assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), api));
+    assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), other));
+    assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object()));
+    assertEquals(1, limiter.getInFlight());
+  }
+
+  @Test
+  void metrics_report_limit_in_flight_and_rejections() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    interceptor.bindTo(registry);
+
+    interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), api);
+    interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), api);
+
+    assertEquals(1.0, registry.get("concurrency.limit").gauge().value());
+    assertEquals(1.0, registry.get("concurrency.inflight").gauge().value());
+    assertEquals(1.0, registry.get("concurrency.rejected").counter().count());
+  }
+
+  @Test
+  void default_constructor_uses_the_system_clock() throws Exception {
+    ConcurrencyLimitInterceptor real = new ConcurrencyLimitInterceptor(limiter);
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    assertTrue(real.preHandle(request, new MockHttpServletResponse(), api));
+    real.afterCompletion(request, new MockHttpServletResponse(), api, null);
+    assertEquals(0, limiter.getInFlight());
+  }
+}
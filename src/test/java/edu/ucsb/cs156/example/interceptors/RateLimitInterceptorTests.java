@@ -0,0 +1,168 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.web.method.HandlerMethod;
+
+import edu.ucsb.cs156.example.config.RateLimitProperties;
+
+class RateLimitInterceptorTests {
+
+  static final long SECOND = 1_000_000_000L;
+
+  static class FakeController {
+    @PreAuthorize("hasRole('ROLE_USER')")
+    public void read() {
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public void admin() {
+    }
+
+    public void open() {
+    }
+  }
+
+  RateLimitProperties properties = new RateLimitProperties();
+  AtomicLong now = new AtomicLong(100 * SECOND);
+  RateLimitInterceptor interceptor;
+
+  HandlerMethod read;
+  HandlerMethod admin;
+  HandlerMethod open;
+
+  @BeforeEach
+  void setup() throws Exception {
+    properties.setRead(new RateLimitProperties.Limit(2, 1.0));
+    properties.setWrite(new RateLimitProperties.Limit(1, 1.0));
+    properties.setAdmin(new RateLimitProperties.Limit(1, 0.5));
+    interceptor = new RateLimitInterceptor(properties, now::get);
+    FakeController controller = new FakeController();
+    read = new HandlerMethod(controller, "read");
+    admin = new HandlerMethod(controller, "admin");
+    open = new HandlerMethod(controller, "open");
+  }
+
+  @AfterEach
+  void cleanup() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private static void logIn(Map<String, Object> attributes) {
+    DefaultOAuth2User user = new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("ROLE_USER")), attributes, "sub");
+    SecurityContextHolder.getContext().setAuthentication(
+        new OAuth2AuthenticationToken(user, user.getAuthorities(), "google"));
+  }
+
+  private MockHttpServletRequest request(String method, String ip) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/test");
+    request.setRemoteAddr(ip);
+    return request;
+  }
+
+  private boolean call(String method, String ip, HandlerMethod handler) throws Exception {
+    return interceptor.preHandle(request(method, ip), new MockHttpServletResponse(), handler);
+  }
+
+  @Test
+  void anonymous_clients_are_limited_by_ip() throws Exception {
+    assertTrue(call("GET", "1.1.1.1", read));
+    assertTrue(call("GET", "1.1.1.1", read));
+    assertFalse(call("GET", "1.1.1.1", read));
+    assertTrue(call("GET", "2.2.2.2", read));
+  }
+
+  @Test
+  void logged_in_users_are_limited_by_email() throws Exception {
+    logIn(Map.of("sub", "1", "email", "a@ucsb.edu"));
+    assertTrue(call("GET", "1.1.1.1", read));
+    assertTrue(call("GET", "2.2.2.2", read));
+    assertFalse(call("GET", "3.3.3.3", read));
+  }
+
+  @Test
+  void other_authentications_are_limited_by_ip() throws Exception {
+    logIn(Map.of("sub", "1"));
+    assertTrue(call("GET", "1.1.1.1", read));
+    assertTrue(call("GET", "1.1.1.1", read));
+    assertTrue(call("GET", "2.2.2.2", read));
+
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("a@ucsb.edu", null));
+    assertFalse(call("GET", "1.1.1.1", read));
+  }
+
+  @Test
+  void refused_requests_get_429_and_retry_after() throws Exception {
+    assertTrue(call("DELETE", "1.1.1.1", admin));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(request("DELETE", "1.1.1.1"), response, admin));
+    assertEquals(429, response.getStatus());
+    assertEquals("2", response.getHeader("Retry-After"));
+  }
+
+  @Test
+  void endpoint_classes_have_separate_buckets() throws Exception {
+    assertTrue(call("POST", "1.1.1.1", open));
+    assertFalse(call("POST", "1.1.1.1", open));
+    assertTrue(call("POST", "1.1.1.1", admin));
+    assertTrue(call("GET", "1.1.1.1", read));
+  }
+
+  @Test
+  void tokens_come_back_over_time() throws Exception {
+    assertTrue(call("POST", "1.1.1.1", open));
+    assertFalse(call("POST", "1.1.1.1", open));
+    now.addAndGet(SECOND);
+    assertTrue(call("POST", "1.1.1.1", open));
+  }
+
+  @Test
+  void other_handlers_and_disabled_limiter_are_not_limited() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      assertTrue(interceptor.preHandle(request("GET", "1.1.1.1"), new MockHttpServletResponse(), new Object()));
+    }
+    properties.setEnabled(false);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(call("GET", "1.1.1.1", read));
+    }
+    assertEquals(0, interceptor.getBucketCount());
+  }
+
+  @Test
+  void the_least_recently_used_bucket_is_dropped_when_over_the_limit() throws Exception {
+    properties.setMaxBuckets(2);
+    assertTrue(call("GET", "1.1.1.1", read));
+    assertTrue(call("GET", "2.2.2.2", read));
+    assertTrue(call("GET", "1.1.1.1", read));
+    assertTrue(call("GET", "3.3.3.3", read));
+    assertEquals(2, interceptor.getBucketCount());
+
+    // 1.1.1.1 was used more recently than 2.2.2.2, so it kept its empty bucket
+    assertFalse(call("GET", "1.1.1.1", read));
+    assertTrue(call("GET", "2.2.2.2", read));
+  }
+
+  @Test
+  void endpoint_class_is_taken_from_pre_authorize_and_method() {
+    assertEquals(EndpointClass.ADMIN, EndpointClass.of(request("GET", "1.1.1.1"), admin));
+    assertEquals(EndpointClass.READ, EndpointClass.of(request("GET", "1.1.1.1"), read));
+    assertEquals(EndpointClass.READ, EndpointClass.of(request("HEAD", "1.1.1.1"), open));
+    assertEquals(EndpointClass.WRITE, EndpointClass.of(request("POST", "1.1.1.1"), read));
+  }
+}
@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTests {
+
+  static final long SECOND = 1_000_000_000L;
+
+  @Test
+  void allows_a_burst_up_to_capacity_then_refuses() {
+    TokenBucket bucket = new TokenBucket(3, 1.0);
+    long now = 42 * SECOND;
+    assertEquals(0, bucket.tryAcquire(now));
+    assertEquals(0, bucket.tryAcquire(now));
+    assertEquals(0, bucket.tryAcquire(now));
+    assertEquals(SECOND, bucket.tryAcquire(now));
+  }
+
+  @Test
+  void refills_at_the_configured_rate() {
+    TokenBucket bucket = new TokenBucket(1, 2.0);
+    long now = -5 * SECOND; // nanoTime can be negative
+    assertEquals(0, bucket.tryAcquire(now));
+    assertEquals(SECOND / 2, bucket.tryAcquire(now));
+    assertEquals(SECOND / 4, bucket.tryAcquire(now + SECOND / 4));
+    assertEquals(0, bucket.tryAcquire(now + SECOND / 2));
+  }
+
+  @Test
+  void rejects_bad_settings() {
+    assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1.0));
+    assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+  }
+}
@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+// Runs the keyset queries against the embedded database
+@DataJpaTest
+class MenuItemReviewRepositoryTests {
+
+  @Autowired
+  MenuItemReviewRepository repository;
+
+  long newest;
+  long tiedFirst;
+  long tiedSecond;
+  long oldest;
+
+  @BeforeEach
+  void setup() {
+    oldest = save(7, "2022-01-01T10:00:00");
+    tiedFirst = save(7, "2022-01-02T10:00:00");
+    tiedSecond = save(7, "2022-01-02T10:00:00");
+    newest = save(7, "2022-01-03T10:00:00");
+    save(7, null);
+    save(8, "2022-01-02T10:00:00");
+  }
+
+  private long save(long itemId, String dateReviewed) {
+    return repository.save(MenuItemReview.builder().itemId(itemId).reviewerEmail("cgaucho@ucsb.edu").stars(4)
+        .dateReviewed(dateReviewed == null ? null : LocalDateTime.parse(dateReviewed)).build()).getId();
+  }
+
+  private static List<Long> ids(List<MenuItemReview> reviews) {
+    return reviews.stream().map(MenuItemReview::getId).collect(Collectors.toList());
+  }
+
+  @Test
+  void test_pages_run_newest_first_through_ties_and_skip_undated_reviews() {
+    PageRequest page = PageRequest.of(0, 2);
+    assertEquals(List.of(newest, tiedFirst), ids(repository.findFirstPage(7, page)));
+    assertEquals(List.of(tiedSecond, oldest),
+        ids(repository.findPageBefore(7, LocalDateTime.parse("2022-01-02T10:00:00"), tiedFirst, page)));
+    assertEquals(List.of(), ids(repository.findPageBefore(7, LocalDateTime.parse("2022-01-01T10:00:00"), oldest, page)));
+  }
+}
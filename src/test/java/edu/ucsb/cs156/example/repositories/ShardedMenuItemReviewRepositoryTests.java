@@ -0,0 +1,242 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.config.ShardContext;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+class ShardedMenuItemReviewRepositoryTests {
+
+  // with 3 shards, items 5, 1 and 2 hash to shards 0, 1 and 2
+  MenuItemReviewRepository jpa = mock(MenuItemReviewRepository.class);
+  ShardedMenuItemReviewRepository repo = new ShardedMenuItemReviewRepository(jpa, 3,
+      mock(PlatformTransactionManager.class));
+
+  // shards that the JPA repository was called on, in order
+  List<Integer> calls = Collections.synchronizedList(new ArrayList<>());
+
+  @AfterEach
+  void close() {
+    repo.close();
+  }
+
+  private <T> T recordShard(T result) {
+    calls.add(ShardContext.get());
+    return result;
+  }
+
+  private static MenuItemReview review(long id, long itemId) {
+    return MenuItemReview.builder().id(id).itemId(itemId).stars(3).build();
+  }
+
+  @Test
+  void items_and_ids_map_to_shards() {
+    assertEquals(0, repo.shardForItem(5));
+    assertEquals(1, repo.shardForItem(1));
+    assertEquals(2, repo.shardForItem(2));
+    assertEquals(0, repo.shardForId(3));
+    assertEquals(1, repo.shardForId(7));
+    assertEquals(2, repo.shardForId(5));
+  }
+
+  @Test
+  void new_reviews_are_saved_on_the_shard_of_their_item() {
+    MenuItemReview r = review(0, 2);
+    when(jpa.save(r)).thenAnswer(inv -> recordShard(r));
+
+    assertSame(r, repo.save(r));
+    assertEquals(List.of(2), calls);
+    assertNull(ShardContext.get());
+  }
+
+  @Test
+  void updates_stay_on_the_same_shard() {
+    MenuItemReview r = review(4, 1);
+    when(jpa.save(r)).thenAnswer(inv -> recordShard(r));
+
+    repo.save(r);
+    assertEquals(List.of(1), calls);
+  }
+
+  @Test
+  void reviews_whose_item_moves_shard_are_copied_then_deleted() {
+    MenuItemReview r = review(4, 2);
+    when(jpa.save(r)).thenAnswer(inv -> {
+      recordShard(null);
+      assertEquals(0, r.getId());
+      r.setId(8);
+      return r;
+    });
+    doAnswer(inv -> recordShard(null)).when(jpa).deleteById(4L);
+
+    MenuItemReview saved = repo.save(r);
+
+    assertEquals(8, saved.getId());
+    assertEquals(List.of(2, 1), calls);
+  }
+
+  @Test
+  void save_all_saves_each_review_on_its_shard() {
+    MenuItemReview a = review(0, 5);
+    MenuItemReview b = review(0, 1);
+    when(jpa.save(any(MenuItemReview.class))).thenAnswer(inv -> recordShard(inv.getArgument(0)));
+
+    assertEquals(List.of(a, b), repo.saveAll(List.of(a, b)));
+    assertEquals(List.of(0, 1), calls);
+  }
+
+  @Test
+  void point_lookups_and_deletes_go_to_the_shard_of_the_id() {
+    when(jpa.findById(7L)).thenAnswer(inv -> recordShard(Optional.of(review(7, 1))));
+    when(jpa.existsById(5L)).thenAnswer(inv -> recordShard(true));
+    doAnswer(inv -> recordShard(null)).when(jpa).deleteById(any());
+    doAnswer(inv -> recordShard(null)).when(jpa).delete(any());
+
+    assertEquals(7, repo.findById(7L).get().getId());
+    assertTrue(repo.existsById(5L));
+    repo.deleteById(3L);
+    repo.delete(review(4, 5));
+    repo.deleteAllById(List.of(5L));
+    repo.deleteAll(List.of(review(6, 1)));
+
+    assertEquals(List.of(1, 2, 0, 1, 2, 0), calls);
+  }
+
+  @Test
+  void find_all_by_id_queries_each_shard_once() {
+    when(jpa.findAllById(List.of(3L, 6L))).thenAnswer(inv -> recordShard(List.of(review(3, 5), review(6, 5))));
+    when(jpa.findAllById(List.of(4L))).thenAnswer(inv -> recordShard(List.of(review(4, 1))));
+
+    List<MenuItemReview> result = new ArrayList<>();
+    repo.findAllById(List.of(3L, 4L, 6L)).forEach(result::add);
+
+    assertEquals(List.of(review(3, 5), review(6, 5), review(4, 1)), result);
+    assertEquals(List.of(0, 1), calls);
+  }
+
+  @Test
+  void find_all_gathers_every_shard_in_shard_order() {
+    when(jpa.findAll()).thenAnswer(inv -> {
+      int shard = recordShard(ShardContext.get());
+      return List.of(review(shard + 3, 5));
+    });
+
+    List<MenuItemReview> result = new ArrayList<>();
+    repo.findAll().forEach(result::add);
+
+    assertEquals(List.of(review(3, 5), review(4, 5), review(5, 5)), result);
+    assertEquals(3, calls.size());
+    assertTrue(calls.containsAll(List.of(0, 1, 2)));
+  }
+
+  @Test
+  void scatter_gather_queries_are_merged() {
+    when(jpa.count()).thenAnswer(inv -> recordShard((long) ShardContext.get()));
+    when(jpa.countByItemIdAndStars()).thenAnswer(inv -> {
+      int shard = recordShard(ShardContext.get());
+      return List.<Object[]>of(new Object[] { (long) shard, 3, 1L });
+    });
+    LocalDateTime since = LocalDateTime.parse("2022-01-01T00:00:00");
+    when(jpa.findByDateReviewedGreaterThanEqual(since)).thenAnswer(inv -> recordShard(List.of(review(1, 1))));
+    when(jpa.findAllBydateReviewed("x")).thenAnswer(inv -> recordShard(List.of()));
+
+    assertEquals(3, repo.count());
+    assertEquals(3, repo.countByItemIdAndStars().size());
+    assertEquals(3, ((List<MenuItemReview>) repo.findByDateReviewedGreaterThanEqual(since)).size());
+    assertEquals(0, ((List<MenuItemReview>) repo.findAllBydateReviewed("x")).size());
+    assertEquals(12, calls.size());
+  }
+
+  @Test
+  void delete_all_clears_every_shard() {
+    doAnswer(inv -> recordShard(null)).when(jpa).deleteAll();
+
+    repo.deleteAll();
+
+    assertEquals(List.of(0, 1, 2), calls);
+  }
+
+  @Test
+  void pages_of_an_item_are_read_from_its_shard() {
+    PageRequest page = PageRequest.of(0, 10);
+    LocalDateTime date = LocalDateTime.parse("2022-01-01T00:00:00");
+    when(jpa.findFirstPage(2, page)).thenAnswer(inv -> recordShard(List.of()));
+    when(jpa.findPageBefore(5, date, 3, page)).thenAnswer(inv -> recordShard(List.of()));
+
+    repo.findFirstPage(2, page);
+    repo.findPageBefore(5, date, 3, page);
+
+    assertEquals(List.of(2, 0), calls);
+  }
+
+  @Test
+  void oldest_reviews_are_merged_across_shards() {
+    PageRequest page = PageRequest.of(0, 2);
+    LocalDateTime cutoff = LocalDateTime.parse("2022-01-01T00:00:00");
+    when(jpa.findReviewedBefore(cutoff, page)).thenAnswer(inv -> {
+      int shard = recordShard(ShardContext.get());
+      MenuItemReview r = review(shard + 3, 5);
+      r.setDateReviewed(LocalDateTime.parse("2021-01-0" + (3 - shard) + "T00:00:00"));
+      return List.of(r);
+    });
+
+    List<MenuItemReview> result = repo.findReviewedBefore(cutoff, page);
+
+    assertEquals(List.of(5L, 4L), List.of(result.get(0).getId(), result.get(1).getId()));
+    assertEquals(3, calls.size());
+  }
+
+  @Test
+  void bulk_deletes_are_grouped_by_shard() {
+    when(jpa.deleteByIdIn(any())).thenAnswer(inv -> recordShard(((List<?>) inv.getArgument(0)).size()));
+
+    assertEquals(3, repo.deleteByIdIn(List.of(4L, 3L, 7L)));
+    assertEquals(List.of(0, 1), calls);
+  }
+
+  @Test
+  void exceptions_on_a_shard_reach_the_caller() {
+    when(jpa.count()).thenThrow(new IllegalArgumentException("boom"));
+    assertEquals("boom", assertThrows(IllegalArgumentException.class, () -> repo.count()).getMessage());
+  }
+
+  @Test
+  void errors_on_a_shard_are_wrapped() {
+    when(jpa.count()).thenThrow(new AssertionError("boom"));
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> repo.count());
+    assertEquals(AssertionError.class, e.getCause().getClass());
+  }
+
+  @Test
+  void interrupted_callers_stop_waiting() {
+    when(jpa.count()).thenReturn(1L);
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(IllegalStateException.class, () -> repo.count());
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+}
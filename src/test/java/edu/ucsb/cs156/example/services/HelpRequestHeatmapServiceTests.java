@@ -0,0 +1,101 @@
+package edu.ucsb.cs156.example.services;
+
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.changed;
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.helpRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestHeatmap;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+public class HelpRequestHeatmapServiceTests {
+
+        HelpRequestHeatmapService service = new HelpRequestHeatmapService();
+        HelpRequestRepository helpRequestRepository = mock(HelpRequestRepository.class);
+        ArchivedHelpRequestRepository archivedHelpRequestRepository = mock(ArchivedHelpRequestRepository.class);
+
+        @BeforeEach
+        public void setup() {
+                service.helpRequestRepository = helpRequestRepository;
+                service.archivedHelpRequestRepository = archivedHelpRequestRepository;
+        }
+
+        private static HelpRequest request(long id, String room, String time) {
+                return helpRequest(id).tableOrBreakoutRoom(room)
+                                .requestTime(time == null ? null : LocalDateTime.parse(time)).build();
+        }
+
+        private long count(String room, int day, int hour) {
+                List<HelpRequestHeatmap> heatmaps = service.getHeatmaps(room);
+                return heatmaps.isEmpty() ? 0 : heatmaps.get(0).getCounts()[day][hour];
+        }
+
+        @Test
+        public void test_that_load_adds_up_both_tables_by_weekday() {
+                service.onHelpRequestChanged(changed(null, request(9, "9", "2022-01-03T10:00:00")));
+                // 2022-01-03 was a Monday and 2022-01-09 a Sunday
+                when(helpRequestRepository.countByRoomAndHour()).thenReturn(List.of(
+                                new Object[] { "2", 2022, 1, 3, 10, 4L },
+                                new Object[] { "2", 2022, 1, 10, 10, 1L },
+                                new Object[] { "1", 2022, 1, 9, 23, 2L }));
+                when(archivedHelpRequestRepository.countByRoomAndHour()).thenReturn(List.<Object[]>of(
+                                new Object[] { "2", 2021, 12, 27, 10, 3L }));
+
+                service.afterSingletonsInstantiated();
+
+                List<HelpRequestHeatmap> heatmaps = service.getHeatmaps(null);
+                assertEquals(List.of("1", "2"), List.of(heatmaps.get(0).getTableOrBreakoutRoom(),
+                                heatmaps.get(1).getTableOrBreakoutRoom()));
+                assertEquals(2, heatmaps.get(0).getTotal());
+                assertEquals(2, heatmaps.get(0).getCounts()[6][23]);
+                assertEquals(8, heatmaps.get(1).getTotal());
+                assertEquals(8, heatmaps.get(1).getCounts()[0][10]);
+                assertEquals(7, heatmaps.get(1).getCounts().length);
+                assertEquals(24, heatmaps.get(1).getCounts()[0].length);
+                assertEquals(0, count("9", 0, 10));
+        }
+
+        @Test
+        public void test_that_changes_move_requests_between_cells() {
+                HelpRequest a = request(1, "2", "2022-01-05T14:30:00");
+                service.onHelpRequestChanged(changed(null, a));
+                service.onHelpRequestChanged(changed(null, request(2, "2", "2022-01-12T14:59:00")));
+                assertEquals(2, count("2", 2, 14));
+
+                HelpRequest moved = request(1, "3", "2022-01-06T09:00:00");
+                service.onHelpRequestChanged(changed(a, moved));
+                assertEquals(1, count("2", 2, 14));
+                assertEquals(1, count("3", 3, 9));
+
+                service.onHelpRequestChanged(changed(moved, null));
+                assertEquals(0, count("3", 3, 9));
+        }
+
+        @Test
+        public void test_that_requests_without_a_room_or_time_are_not_counted() {
+                service.onHelpRequestChanged(changed(null, request(1, null, "2022-01-05T14:30:00")));
+                service.onHelpRequestChanged(changed(null, request(2, "2", null)));
+
+                assertEquals(List.of(), service.getHeatmaps(null));
+        }
+
+        @Test
+        public void test_that_heatmaps_are_copies() {
+                service.onHelpRequestChanged(changed(null, request(1, "2", "2022-01-05T14:30:00")));
+
+                service.getHeatmaps("2").get(0).getCounts()[2][14] = 100;
+
+                assertEquals(1, count("2", 2, 14));
+        }
+}
@@ -0,0 +1,225 @@
+package edu.ucsb.cs156.example.services;
+
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.changed;
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.helpRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.HelpRequestsSolvedEvent;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+public class HelpRequestQueueServiceTests {
+
+        static final LocalDateTime NOW = LocalDateTime.parse("2022-01-03T12:00:00");
+        static final String TA = "ta@ucsb.edu";
+
+        HelpRequestQueueService service = new HelpRequestQueueService();
+        HelpRequestRepository helpRequestRepository = mock(HelpRequestRepository.class);
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+        @BeforeEach
+        public void setup() {
+                service.helpRequestRepository = helpRequestRepository;
+                service.eventPublisher = eventPublisher;
+                service.clock = Clock.fixed(Instant.parse("2022-01-03T12:00:00Z"), ZoneOffset.UTC);
+        }
+
+        private static HelpRequest request(long id, String team, String room, String time) {
+                return helpRequest(id).teamId(team).tableOrBreakoutRoom(room)
+                                .requestTime(time == null ? null : LocalDateTime.parse(time)).build();
+        }
+
+        private static HelpRequest claimed(HelpRequest r) {
+                return r.toBuilder().claimedBy(TA).claimedAt(NOW).build();
+        }
+
+        // claims in memory succeed, and the database returns the claimed row
+        private void claimsSucceed(HelpRequest... requests) {
+                when(helpRequestRepository.claim(anyLong(), eq(TA), eq(NOW))).thenReturn(1);
+                for (HelpRequest r : requests) {
+                        when(helpRequestRepository.findById(r.getId())).thenReturn(Optional.of(claimed(r)));
+                }
+        }
+
+        private long claimId(String team, String room) {
+                return service.claim(TA, team, room).map(HelpRequest::getId).orElse(-1L);
+        }
+
+        @Test
+        public void test_that_load_reads_unclaimed_requests() {
+                service.onHelpRequestChanged(changed(null, request(9, "t9", "9", null)));
+                when(helpRequestRepository.findBySolvedFalseAndClaimedByIsNull()).thenReturn(List.of(
+                                request(1, "t1", "1", "2022-01-03T10:00:00"),
+                                request(2, "t2", "2", "2022-01-03T09:00:00")));
+
+                service.afterSingletonsInstantiated();
+
+                assertEquals(2, service.size());
+        }
+
+        @Test
+        public void test_that_claims_go_oldest_first() {
+                HelpRequest a = request(1, "t1", "1", "2022-01-03T10:00:00");
+                HelpRequest b = request(2, "t2", "2", "2022-01-03T09:00:00");
+                HelpRequest c = request(3, "t1", "2", "2022-01-03T09:00:00");
+                HelpRequest undated = request(4, "t1", "2", null);
+                List.of(a, b, c, undated).forEach(r -> service.onHelpRequestChanged(changed(null, r)));
+                claimsSucceed(a, b, c, undated);
+
+                assertEquals(List.of(2L, 3L, 1L, 4L), List.of(claimId(null, null), claimId(null, null), claimId(null, null),
+                                claimId(null, null)));
+                verify(helpRequestRepository).claim(2, TA, NOW);
+                verify(eventPublisher).publishEvent(changed(b, claimed(b)));
+                assertEquals(0, service.size());
+        }
+
+        @Test
+        public void test_that_claims_can_be_for_a_team_or_a_room() {
+                HelpRequest a = request(1, "t1", "1", "2022-01-03T08:00:00");
+                HelpRequest b = request(2, "t2", "2", "2022-01-03T09:00:00");
+                HelpRequest c = request(3, "t1", "2", "2022-01-03T10:00:00");
+                HelpRequest d = request(4, "t2", "1", "2022-01-03T11:00:00");
+                HelpRequest e = request(5, "t2", "2", "2022-01-03T12:00:00");
+                HelpRequest noTeam = request(6, null, null, "2022-01-03T13:00:00");
+                List.of(a, b, c, d, e, noTeam).forEach(r -> service.onHelpRequestChanged(changed(null, r)));
+                claimsSucceed(a, b, c, d, e, noTeam);
+
+                assertEquals(3, claimId("t1", "2"));
+                assertEquals(4, claimId("t2", "1"));
+                assertEquals(2, claimId(null, "2"));
+                assertEquals(1, claimId("t1", null));
+                assertEquals(5, claimId("t2", "2"));
+                assertEquals(6, claimId(null, null));
+                assertEquals(0, service.size());
+        }
+
+        @Test
+        public void test_that_claims_with_an_unknown_team_or_room_go_to_the_database() {
+                service.onHelpRequestChanged(changed(null, request(1, "t1", "1", "2022-01-03T08:00:00")));
+                when(helpRequestRepository.findUnclaimedForUpdate(any(), any(), eq(PageRequest.of(0, 1)))).thenReturn(List.of());
+
+                assertEquals(-1, claimId("t9", null));
+                assertEquals(-1, claimId(null, "9"));
+                assertEquals(-1, claimId("t1", "9"));
+
+                verify(helpRequestRepository, never()).claim(anyLong(), any(), any());
+                assertEquals(1, service.size());
+        }
+
+        @Test
+        public void test_that_requests_claimed_elsewhere_are_skipped() {
+                HelpRequest a = request(1, "t1", "1", "2022-01-03T08:00:00");
+                HelpRequest b = request(2, "t1", "1", "2022-01-03T09:00:00");
+                List.of(a, b).forEach(r -> service.onHelpRequestChanged(changed(null, r)));
+                when(helpRequestRepository.claim(1, TA, NOW)).thenReturn(0);
+                when(helpRequestRepository.claim(2, TA, NOW)).thenReturn(1);
+                when(helpRequestRepository.findById(2L)).thenReturn(Optional.of(claimed(b)));
+
+                assertEquals(2, claimId(null, null));
+                assertEquals(0, service.size());
+        }
+
+        @Test
+        public void test_that_after_too_many_misses_the_database_picks() {
+                for (int i = 1; i <= HelpRequestQueueService.MEMORY_ATTEMPTS + 1; i++) {
+                        service.onHelpRequestChanged(changed(null, request(i, "t1", "1", "2022-01-03T0" + i + ":00:00")));
+                }
+                HelpRequest fromDb = request(10, "t1", "1", "2022-01-03T07:00:00");
+                when(helpRequestRepository.claim(anyLong(), eq(TA), eq(NOW))).thenReturn(0);
+                when(helpRequestRepository.findUnclaimedForUpdate(null, null, PageRequest.of(0, 1)))
+                                .thenReturn(List.of(fromDb.toBuilder().build()));
+
+                assertEquals(Optional.of(claimed(fromDb)), service.claim(TA, null, null));
+
+                verify(helpRequestRepository, times(HelpRequestQueueService.MEMORY_ATTEMPTS)).claim(anyLong(), any(), any());
+                verify(helpRequestRepository).save(claimed(fromDb));
+                verify(eventPublisher).publishEvent(changed(fromDb, claimed(fromDb)));
+                assertEquals(1, service.size());
+        }
+
+        @Test
+        public void test_that_an_empty_queue_asks_the_database() {
+                when(helpRequestRepository.findUnclaimedForUpdate("t1", "1", PageRequest.of(0, 1))).thenReturn(List.of());
+
+                assertEquals(Optional.empty(), service.claim(TA, "t1", "1"));
+                verify(eventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        public void test_that_a_claimed_row_that_vanishes_is_an_error() {
+                service.onHelpRequestChanged(changed(null, request(1, "t1", "1", "2022-01-03T08:00:00")));
+                when(helpRequestRepository.claim(1, TA, NOW)).thenReturn(1);
+                when(helpRequestRepository.findById(1L)).thenReturn(Optional.empty());
+
+                assertThrows(EntityNotFoundException.class, () -> service.claim(TA, null, null));
+        }
+
+        @Test
+        public void test_that_changes_keep_the_queue_up_to_date() {
+                HelpRequest a = request(1, "t1", "1", "2022-01-03T08:00:00");
+                HelpRequest b = request(2, "t1", "1", "2022-01-03T09:00:00");
+                service.onHelpRequestChanged(changed(null, a));
+                service.onHelpRequestChanged(changed(null, b));
+
+                // edits move a request, solving or claiming removes it, deleting removes it
+                HelpRequest moved = a.toBuilder().teamId("t2").build();
+                service.onHelpRequestChanged(changed(a, moved));
+                assertEquals(2, service.size());
+                service.onHelpRequestChanged(changed(moved, moved.toBuilder().solved(true).build()));
+                service.onHelpRequestChanged(changed(b, claimed(b)));
+                assertEquals(0, service.size());
+
+                service.onHelpRequestChanged(changed(null, a));
+                service.onHelpRequestChanged(changed(a, null));
+                assertEquals(0, service.size());
+
+                // posting the same request twice keeps one copy
+                service.onHelpRequestChanged(changed(null, a));
+                service.onHelpRequestChanged(changed(null, a));
+                assertEquals(1, service.size());
+                when(helpRequestRepository.findUnclaimedForUpdate(any(), any(), any())).thenReturn(List.of());
+                assertEquals(-1, claimId("t2", null));
+        }
+
+        @Test
+        public void test_that_requests_solved_in_bulk_leave_the_queue() {
+                List.of(request(1, "t1", "1", "2022-01-03T08:00:00"), request(2, "t1", "2", "2022-01-03T09:00:00"),
+                                request(3, "t2", "1", "2022-01-03T10:00:00"), request(4, "t3", "1", "2022-01-03T11:00:00"))
+                                .forEach(r -> service.onHelpRequestChanged(changed(null, r)));
+                // request 5 was posted after the UPDATE ran, so it matches the filter but is still unsolved
+                HelpRequest late = request(5, "t1", "1", "2022-01-03T11:30:00");
+                service.onHelpRequestChanged(changed(null, late));
+                when(helpRequestRepository.findBySolvedFalseAndClaimedByIsNull()).thenReturn(List.of(
+                                request(2, "t1", "2", "2022-01-03T09:00:00"), request(4, "t3", "1", "2022-01-03T11:00:00"), late));
+
+                service.onHelpRequestsSolved(new HelpRequestsSolvedEvent(List.of("t1", "t2"), "1", NOW, 2));
+                assertEquals(3, service.size());
+                claimsSucceed(request(2, "t1", "2", "2022-01-03T09:00:00"), late);
+                assertEquals(2, claimId(null, null));
+                assertEquals(5, claimId("t1", "1"));
+        }
+}
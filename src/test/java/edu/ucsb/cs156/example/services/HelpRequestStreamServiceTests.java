@@ -0,0 +1,319 @@
+package edu.ucsb.cs156.example.services;
+
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.changed;
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.helpRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.events.HelpRequestsArchivedEvent;
+import edu.ucsb.cs156.example.events.HelpRequestsSolvedEvent;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+public class HelpRequestStreamServiceTests {
+
+        HelpRequestStreamService service = new HelpRequestStreamService();
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        /** Records the text of each event instead of writing it to a response */
+        static class RecordingEmitter extends SseEmitter {
+                final List<String> sent = new CopyOnWriteArrayList<>();
+                boolean broken;
+                boolean completed;
+                CountDownLatch blocked;
+                volatile boolean waiting;
+                Runnable completionCallback;
+                Runnable timeoutCallback;
+
+                @Override
+                public void onCompletion(Runnable callback) {
+                        completionCallback = callback;
+                }
+
+                @Override
+                public void onTimeout(Runnable callback) {
+                        timeoutCallback = callback;
+                }
+
+                @Override
+                public void complete() {
+                        completed = true;
+                }
+
+                @Override
+                public void send(SseEventBuilder builder) throws IOException {
+                        if (blocked != null) {
+                                try {
+                                        waiting = true;
+                                        blocked.await();
+                                } catch (InterruptedException e) {
+                                        throw new IOException(e);
+                                }
+                        }
+                        if (broken) {
+                                throw new IOException("Broken pipe");
+                        }
+                        Set<DataWithMediaType> data = builder.build();
+                        sent.add(data.stream().map(d -> d.getData().toString()).collect(Collectors.joining()));
+                }
+
+                /** "id name" of each event */
+                List<String> events() {
+                        return sent.stream()
+                                        .filter(text -> text.startsWith("id:"))
+                                        .map(text -> text.substring(3, text.indexOf('\n')) + " " + text.substring(text.indexOf("event:") + 6,
+                                                        text.indexOf('\n', text.indexOf("event:"))))
+                                        .collect(Collectors.toList());
+                }
+        }
+
+        @BeforeEach
+        public void setup() {
+                service.mapper = mapper;
+                service.bufferSize = 3;
+                service.queueSize = 2;
+                service.timeoutMillis = 1000;
+                service.sender = Runnable::run;
+                service.writers = Runnable::run;
+        }
+
+        private RecordingEmitter subscribe(Long lastEventId) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                assertSame(emitter, service.subscribe(emitter, lastEventId));
+                return emitter;
+        }
+
+        @Test
+        public void test_that_changes_are_sent_to_every_subscriber() throws JsonProcessingException {
+                RecordingEmitter a = subscribe(null);
+                RecordingEmitter b = subscribe(null);
+
+                service.onHelpRequestChanged(changed(null, helpRequest(1).build()));
+                service.onHelpRequestChanged(changed(helpRequest(1).build(), helpRequest(1).build()));
+                HelpRequest claimed = helpRequest(1).claimedBy("ta@ucsb.edu").build();
+                service.onHelpRequestChanged(changed(helpRequest(1).build(), claimed));
+                service.onHelpRequestChanged(changed(claimed, helpRequest(1).solved(true).build()));
+                service.onHelpRequestChanged(changed(helpRequest(1).solved(true).build(), helpRequest(1).build()));
+                service.onHelpRequestChanged(changed(helpRequest(1).build(), null));
+
+                List<String> expected = List.of("1 created", "2 updated", "3 claimed", "4 solved", "5 updated", "6 deleted");
+                assertEquals(expected, a.events());
+                assertEquals(expected, b.events());
+                assertEquals("id:1\nevent:created\ndata:" + mapper.writeValueAsString(helpRequest(1).build()) + "\n\n", a.sent.get(0));
+                assertEquals("id:6\nevent:deleted\ndata:" + mapper.writeValueAsString(helpRequest(1).build()) + "\n\n", a.sent.get(5));
+        }
+
+        @Test
+        public void test_that_solving_many_requests_at_once_resets_every_subscriber() {
+                RecordingEmitter a = subscribe(null);
+                service.onHelpRequestChanged(changed(null, helpRequest(1).build()));
+
+                service.onHelpRequestsSolved(new HelpRequestsSolvedEvent(null, "7", LocalDateTime.parse("2022-01-03T12:00:00"), 4));
+
+                assertEquals(List.of("1 created", "2 reset"), a.events());
+                assertEquals("id:2\nevent:reset\ndata:{}\n\n", a.sent.get(1));
+                assertEquals(List.of("2 reset"), subscribe(1L).events());
+        }
+
+        @Test
+        public void test_that_archiving_resets_every_subscriber() {
+                RecordingEmitter a = subscribe(null);
+                service.onHelpRequestChanged(changed(null, helpRequest(1).solved(true).build()));
+
+                service.onHelpRequestsArchived(new HelpRequestsArchivedEvent(List.of(helpRequest(1).solved(true).build())));
+
+                assertEquals(List.of("1 created", "2 reset"), a.events());
+        }
+
+        @Test
+        public void test_that_reconnecting_clients_get_what_they_missed() {
+                for (int i = 1; i <= 4; i++) {
+                        service.onHelpRequestChanged(changed(null, helpRequest(i).build()));
+                }
+
+                assertEquals(List.of("3 created", "4 created"), subscribe(2L).events());
+                assertEquals(List.of("4 created"), subscribe(3L).events());
+                assertEquals(List.of(), subscribe(4L).events());
+
+                RecordingEmitter resumed = subscribe(4L);
+                service.onHelpRequestChanged(changed(null, helpRequest(5).build()));
+                assertEquals(List.of("5 created"), resumed.events());
+        }
+
+        @Test
+        public void test_that_clients_too_far_behind_are_told_to_reset() {
+                for (int i = 1; i <= 4; i++) {
+                        service.onHelpRequestChanged(changed(null, helpRequest(i).build()));
+                }
+
+                // events 2, 3 and 4 are buffered, so after 1 is fine but after 0 is not
+                service.queueSize = 3;
+                assertEquals(List.of("2 created", "3 created", "4 created"), subscribe(1L).events());
+                assertEquals(List.of("4 reset"), subscribe(0L).events());
+                // ids from before a restart
+                assertEquals(List.of("4 reset"), subscribe(99L).events());
+        }
+
+        @Test
+        public void test_that_clients_further_behind_than_their_queue_are_told_to_reset() {
+                for (int i = 1; i <= 4; i++) {
+                        service.onHelpRequestChanged(changed(null, helpRequest(i).build()));
+                }
+
+                assertEquals(List.of("3 created", "4 created"), subscribe(2L).events());
+                assertEquals(List.of("4 reset"), subscribe(1L).events());
+        }
+
+        @Test
+        public void test_that_a_slow_subscriber_does_not_hold_up_the_others_and_is_dropped_when_its_queue_is_full() throws Exception {
+                ExecutorService writers = Executors.newCachedThreadPool();
+                service.writers = writers;
+                RecordingEmitter slow = subscribe(null);
+                RecordingEmitter fast = subscribe(null);
+                slow.blocked = new CountDownLatch(1);
+
+                service.onHelpRequestChanged(changed(null, helpRequest(1).build()));
+                for (int i = 0; i < 100 && (fast.events().size() < 1 || !slow.waiting); i++) {
+                        Thread.sleep(10);
+                }
+                assertEquals(List.of("1 created"), fast.events());
+
+                // the slow writer holds event 1, its queue holds 2 and 3, and 4 does not fit;
+                // the fast subscriber is given time to keep up, so only the slow one falls behind
+                for (int id = 2; id <= 5; id++) {
+                        service.onHelpRequestChanged(changed(null, helpRequest(id).build()));
+                        for (int i = 0; i < 100 && fast.events().size() < id; i++) {
+                                Thread.sleep(10);
+                        }
+                }
+                slow.blocked.countDown();
+                writers.shutdown();
+                assertTrue(writers.awaitTermination(1, TimeUnit.SECONDS));
+
+                assertEquals(List.of("1 created", "2 created", "3 created", "4 created", "5 created"), fast.events());
+                assertEquals(List.of("1 created"), slow.events());
+                assertTrue(slow.completed);
+                assertFalse(fast.completed);
+        }
+
+        @Test
+        public void test_that_an_empty_buffer_can_resume_only_from_the_start() {
+                assertEquals(List.of(), subscribe(0L).events());
+                assertEquals(List.of("0 reset"), subscribe(3L).events());
+        }
+
+        @Test
+        public void test_that_broken_subscribers_are_dropped() {
+                RecordingEmitter ok = subscribe(null);
+                RecordingEmitter broken = subscribe(null);
+                broken.broken = true;
+
+                service.onHelpRequestChanged(changed(null, helpRequest(1).build()));
+                broken.broken = false;
+                service.onHelpRequestChanged(changed(null, helpRequest(2).build()));
+
+                assertEquals(List.of("1 created", "2 created"), ok.events());
+                assertEquals(List.of(), broken.events());
+                assertTrue(broken.completed);
+        }
+
+        @Test
+        public void test_that_broken_subscribers_are_dropped_during_replay() {
+                service.onHelpRequestChanged(changed(null, helpRequest(1).build()));
+                RecordingEmitter broken = new RecordingEmitter();
+                broken.broken = true;
+                service.subscribe(broken, 0L);
+                broken.broken = false;
+
+                service.onHelpRequestChanged(changed(null, helpRequest(2).build()));
+                service.onHelpRequestChanged(changed(null, helpRequest(3).build()));
+
+                assertEquals(List.of(), broken.events());
+        }
+
+        @Test
+        public void test_that_completed_and_timed_out_subscribers_are_dropped() {
+                RecordingEmitter completed = subscribe(null);
+                RecordingEmitter timedOut = subscribe(null);
+                RecordingEmitter open = subscribe(null);
+
+                completed.completionCallback.run();
+                timedOut.timeoutCallback.run();
+                service.onHelpRequestChanged(changed(null, helpRequest(1).build()));
+
+                assertEquals(List.of(), completed.events());
+                assertEquals(List.of(), timedOut.events());
+                assertEquals(List.of("1 created"), open.events());
+        }
+
+        @Test
+        public void test_that_heartbeats_are_comments() {
+                RecordingEmitter emitter = subscribe(null);
+
+                service.heartbeat();
+
+                assertEquals(List.of(":heartbeat\n\n"), emitter.sent);
+                assertEquals(List.of(), emitter.events());
+        }
+
+        @Test
+        public void test_that_serialisation_errors_are_reported() throws JsonProcessingException {
+                ObjectMapper broken = mock(ObjectMapper.class);
+                when(broken.writeValueAsString(helpRequest(1).build())).thenThrow(new JsonProcessingException("nope") { });
+                service.mapper = broken;
+
+                assertThrows(IllegalStateException.class, () -> service.onHelpRequestChanged(changed(null, helpRequest(1).build())));
+        }
+
+        @Test
+        public void test_that_new_subscribers_get_the_configured_timeout() {
+                assertEquals(1000L, service.subscribe(null).getTimeout());
+        }
+
+        @Test
+        public void test_that_sends_run_on_a_daemon_thread_by_default() throws Exception {
+                HelpRequestStreamService fresh = new HelpRequestStreamService();
+                Thread[] sender = new Thread[1];
+                fresh.sender.execute(() -> sender[0] = Thread.currentThread());
+                fresh.heartbeat();
+                for (int i = 0; i < 100 && sender[0] == null; i++) {
+                        Thread.sleep(10);
+                }
+                assertEquals("helprequest-stream", sender[0].getName());
+                assertTrue(sender[0].isDaemon());
+
+                Thread[] writer = new Thread[1];
+                fresh.writers.execute(() -> writer[0] = Thread.currentThread());
+                for (int i = 0; i < 100 && writer[0] == null; i++) {
+                        Thread.sleep(10);
+                }
+                assertEquals("helprequest-stream-writer", writer[0].getName());
+                assertTrue(writer[0].isDaemon());
+        }
+}
@@ -0,0 +1,135 @@
+package edu.ucsb.cs156.example.services;
+
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.changed;
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.helpRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.events.HelpRequestsSolvedEvent;
+import edu.ucsb.cs156.example.models.WaitTimePercentiles;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+public class HelpRequestWaitTimeServiceTests {
+
+        static final LocalDate DAY1 = LocalDate.parse("2022-01-03");
+        static final LocalDate DAY2 = LocalDate.parse("2022-01-04");
+
+        HelpRequestWaitTimeService service = new HelpRequestWaitTimeService();
+        HelpRequestRepository helpRequestRepository = mock(HelpRequestRepository.class);
+        ArchivedHelpRequestRepository archivedHelpRequestRepository = mock(ArchivedHelpRequestRepository.class);
+
+        @BeforeEach
+        public void setup() {
+                service.helpRequestRepository = helpRequestRepository;
+                service.archivedHelpRequestRepository = archivedHelpRequestRepository;
+        }
+
+        // a request solved on the given day after waiting the given number of seconds
+        private static HelpRequest solved(long id, String team, LocalDate day, long seconds) {
+                LocalDateTime solvedAt = day.atTime(12, 0);
+                return helpRequest(id).teamId(team).requestTime(solvedAt.minusSeconds(seconds))
+                                .solved(true).solvedAt(solvedAt).build();
+        }
+
+        @Test
+        public void test_that_sections_are_team_ids_without_the_last_part() {
+                assertEquals("f23-6pm", HelpRequestWaitTimeService.sectionOf("f23-6pm-1"));
+                assertEquals("staff", HelpRequestWaitTimeService.sectionOf("staff"));
+        }
+
+        @Test
+        public void test_that_load_reads_solved_and_archived_requests() {
+                service.onHelpRequestChanged(changed(null, solved(9, "f23-6pm-9", DAY1, 5)));
+                when(helpRequestRepository.findBySolvedTrueAndSolvedAtIsNotNull()).thenReturn(List.of(
+                                solved(1, "f23-6pm-1", DAY1, 60), solved(2, "f23-6pm-2", DAY1, 120)));
+                when(archivedHelpRequestRepository.findBySolvedTrueAndSolvedAtIsNotNull()).thenReturn(List.of(
+                                ArchivedHelpRequest.of(solved(3, "f23-6pm-1", DAY1, 90), DAY2.atStartOfDay())));
+
+                service.afterSingletonsInstantiated();
+
+                assertEquals(new WaitTimePercentiles(null, null, 3, 90, 120, 120, 120), service.getTotalWaitTimes(null, null));
+        }
+
+        @Test
+        public void test_that_wait_times_are_kept_per_team_and_section() {
+                service.onHelpRequestChanged(changed(null, solved(1, "f23-6pm-1", DAY1, 10)));
+                service.onHelpRequestChanged(changed(null, solved(2, "f23-6pm-1", DAY2, 20)));
+                service.onHelpRequestChanged(changed(null, solved(3, "f23-6pm-2", DAY2, 30)));
+                service.onHelpRequestChanged(changed(null, solved(4, "f23-5pm-1", DAY2, 40)));
+                service.onHelpRequestChanged(changed(null, solved(5, null, DAY2, 50)));
+
+                assertEquals(new WaitTimePercentiles(null, null, 2, 10, 20, 20, 20), service.getTeamWaitTimes("f23-6pm-1", null, null));
+                assertEquals(new WaitTimePercentiles(null, null, 3, 20, 30, 30, 30), service.getSectionWaitTimes("f23-6pm", null, null));
+                assertEquals(new WaitTimePercentiles(null, null, 5, 30, 50, 50, 50), service.getTotalWaitTimes(null, null));
+                assertEquals(new WaitTimePercentiles(null, null, 0, 0, 0, 0, 0), service.getTeamWaitTimes("f23-7pm-1", null, null));
+        }
+
+        @Test
+        public void test_that_windows_add_up_the_days_they_cover() {
+                service.onHelpRequestChanged(changed(null, solved(1, "f23-6pm-1", DAY1, 10)));
+                service.onHelpRequestChanged(changed(null, solved(2, "f23-6pm-1", DAY2, 20)));
+
+                assertEquals(1, service.getTotalWaitTimes(DAY1, DAY1).getCount());
+                assertEquals(20, service.getTotalWaitTimes(DAY2, null).getP50());
+                assertEquals(2, service.getTeamWaitTimes("f23-6pm-1", null, DAY2).getCount());
+                assertEquals(new WaitTimePercentiles(DAY2, DAY1, 0, 0, 0, 0, 0), service.getTotalWaitTimes(DAY2, DAY1));
+        }
+
+        @Test
+        public void test_that_unsolving_editing_and_deleting_take_wait_times_back_out() {
+                HelpRequest a = solved(1, "f23-6pm-1", DAY1, 10);
+                HelpRequest unsolved = a.toBuilder().solved(false).solvedAt(null).build();
+                service.onHelpRequestChanged(changed(null, unsolved));
+                service.onHelpRequestChanged(changed(unsolved, a));
+                assertEquals(1, service.getTotalWaitTimes(null, null).getCount());
+
+                HelpRequest moved = a.toBuilder().teamId("f23-6pm-2").build();
+                service.onHelpRequestChanged(changed(a, moved));
+                assertEquals(0, service.getTeamWaitTimes("f23-6pm-1", null, null).getCount());
+                assertEquals(1, service.getTeamWaitTimes("f23-6pm-2", null, null).getCount());
+
+                service.onHelpRequestChanged(changed(moved, null));
+                assertEquals(0, service.getTotalWaitTimes(null, null).getCount());
+                assertEquals(0, service.getSectionWaitTimes("f23-6pm", null, null).getCount());
+        }
+
+        @Test
+        public void test_that_requests_without_times_are_ignored() {
+                service.onHelpRequestChanged(changed(null, solved(1, "f23-6pm-1", DAY1, 10).toBuilder().requestTime(null).build()));
+                service.onHelpRequestChanged(changed(null, solved(2, "f23-6pm-1", DAY1, 10).toBuilder().solvedAt(null).build()));
+                service.onHelpRequestChanged(changed(null, solved(3, "f23-6pm-1", DAY1, 10).toBuilder().solved(false).build()));
+
+                assertEquals(0, service.getTotalWaitTimes(null, null).getCount());
+        }
+
+        @Test
+        public void test_that_requests_solved_before_they_were_asked_count_as_no_wait() {
+                service.onHelpRequestChanged(changed(null, solved(1, "f23-6pm-1", DAY1, -600)));
+
+                assertEquals(new WaitTimePercentiles(null, null, 1, 0, 0, 0, 0), service.getTotalWaitTimes(null, null));
+        }
+
+        @Test
+        public void test_that_solving_many_requests_at_once_reloads() {
+                when(helpRequestRepository.findBySolvedTrueAndSolvedAtIsNotNull()).thenReturn(List.of(
+                                solved(1, "f23-6pm-1", DAY1, 60), solved(2, "f23-6pm-2", DAY1, 120)));
+                when(archivedHelpRequestRepository.findBySolvedTrueAndSolvedAtIsNotNull()).thenReturn(List.of());
+
+                service.onHelpRequestsSolved(new HelpRequestsSolvedEvent(null, null, DAY1.atTime(12, 0), 2));
+
+                assertEquals(2, service.getTotalWaitTimes(null, null).getCount());
+        }
+}
@@ -0,0 +1,278 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.models.MenuItemRatingStats;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingSummaryRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRollupRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+class MenuItemRatingServiceTests {
+
+  MenuItemRatingService service = new MenuItemRatingService();
+  MenuItemRatingSummaryRepository summaryRepository = mock(MenuItemRatingSummaryRepository.class);
+  MenuItemReviewRepository reviewRepository = mock(MenuItemReviewRepository.class);
+  MenuItemReviewRollupRepository rollupRepository = mock(MenuItemReviewRollupRepository.class);
+
+  @BeforeEach
+  void setup() {
+    service.summaryRepository = summaryRepository;
+    service.reviewRepository = reviewRepository;
+    service.rollupRepository = rollupRepository;
+    service.transactionManager = mock(PlatformTransactionManager.class);
+    service.priorMean = 3.0;
+    service.priorWeight = 5;
+  }
+
+  private static MenuItemReview review(long itemId, int stars) {
+    return MenuItemReview.builder().itemId(itemId).stars(stars).build();
+  }
+
+  private void add(long itemId, int... stars) {
+    for (int s : stars) {
+      service.updateInMemory(new MenuItemReviewChangedEvent(null, review(itemId, s)));
+    }
+  }
+
+  private List<Long> topIds(int n, long minReviews) {
+    return service.getTop(n, minReviews).stream().map(MenuItemRatingStats::getItemId).collect(Collectors.toList());
+  }
+
+  @Test
+  void load_reads_the_summary_table() {
+    when(summaryRepository.findAll()).thenReturn(List.of(
+        new MenuItemRatingSummary(7, 3, 11, 0, 0, 1, 0, 2)));
+
+    service.afterSingletonsInstantiated();
+
+    assertEquals(new MenuItemRatingStats(7, 3, 11, new long[] { 0, 0, 1, 0, 2 }), service.getStats(7));
+    verify(reviewRepository, never()).countByItemIdAndStars();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void load_rebuilds_an_empty_summary_table_from_the_reviews() {
+    when(summaryRepository.findAll()).thenReturn(List.of());
+    when(reviewRepository.countByItemIdAndStars()).thenReturn(List.of(
+        new Object[] { 7L, 3, 1L },
+        new Object[] { 7L, 5, 2L },
+        new Object[] { 8L, 0, 1L }));
+
+    service.load();
+
+    assertEquals(new MenuItemRatingStats(7, 3, 13, new long[] { 0, 0, 1, 0, 2 }), service.getStats(7));
+    assertEquals(new MenuItemRatingStats(8, 1, 0, new long[5]), service.getStats(8));
+    ArgumentCaptor<List<MenuItemRatingSummary>> saved = ArgumentCaptor.forClass(List.class);
+    verify(summaryRepository, times(1)).saveAll(saved.capture());
+    assertEquals(Set.of(
+        new MenuItemRatingSummary(7, 3, 13, 0, 0, 1, 0, 2),
+        new MenuItemRatingSummary(8, 1, 0, 0, 0, 0, 0, 0)), new HashSet<>(saved.getValue()));
+  }
+
+  @Test
+  void load_adds_compacted_reviews_when_rebuilding() {
+    when(summaryRepository.findAll()).thenReturn(List.of());
+    when(reviewRepository.countByItemIdAndStars()).thenReturn(List.<Object[]>of(new Object[] { 7L, 3, 1L }));
+    when(rollupRepository.totalsByItemId()).thenReturn(List.of(
+        new Object[] { 7L, 3L, 10L, 1L, 0L, 0L, 0L, 1L },
+        new Object[] { 9L, 1L, 2L, 0L, 1L, 0L, 0L, 0L }));
+
+    service.load();
+
+    assertEquals(new MenuItemRatingStats(7, 4, 13, new long[] { 1, 0, 1, 0, 1 }), service.getStats(7));
+    assertEquals(new MenuItemRatingStats(9, 1, 2, new long[] { 0, 1, 0, 0, 0 }), service.getStats(9));
+  }
+
+  @Test
+  void load_with_no_reviews_saves_nothing() {
+    when(summaryRepository.findAll()).thenReturn(List.of());
+    when(reviewRepository.countByItemIdAndStars()).thenReturn(List.of());
+
+    service.load();
+
+    verify(summaryRepository, never()).saveAll(anyIterable());
+  }
+
+  @Test
+  void unknown_items_have_empty_stats() {
+    MenuItemRatingStats stats = service.getStats(42);
+    assertEquals(new MenuItemRatingStats(42, 0, 0, new long[5]), stats);
+    assertEquals(0.0, stats.getAverage(), 0.0001);
+  }
+
+  @Test
+  void bulk_lookup_returns_stats_in_request_order() {
+    service.updateInMemory(new MenuItemReviewChangedEvent(null, review(2, 4)));
+
+    List<MenuItemRatingStats> result = service.getStats(List.of(3L, 2L));
+
+    assertEquals(List.of(
+        new MenuItemRatingStats(3, 0, 0, new long[5]),
+        new MenuItemRatingStats(2, 1, 4, new long[] { 0, 0, 0, 1, 0 })), result);
+  }
+
+  @Test
+  void in_memory_totals_follow_adds_changes_and_deletes() {
+    service.updateInMemory(new MenuItemReviewChangedEvent(null, review(1, 5)));
+    service.updateInMemory(new MenuItemReviewChangedEvent(null, review(1, 2)));
+    assertEquals(3.5, service.getStats(1).getAverage(), 0.0001);
+
+    service.updateInMemory(new MenuItemReviewChangedEvent(review(1, 2), review(1, 4)));
+    assertEquals(new MenuItemRatingStats(1, 2, 9, new long[] { 0, 0, 0, 1, 1 }), service.getStats(1));
+
+    service.updateInMemory(new MenuItemReviewChangedEvent(review(1, 5), review(2, 5)));
+    assertEquals(new MenuItemRatingStats(1, 1, 4, new long[] { 0, 0, 0, 1, 0 }), service.getStats(1));
+    assertEquals(new MenuItemRatingStats(2, 1, 5, new long[] { 0, 0, 0, 0, 1 }), service.getStats(2));
+
+    service.updateInMemory(new MenuItemReviewChangedEvent(review(1, 4), null));
+    assertEquals(new MenuItemRatingStats(1, 0, 0, new long[5]), service.getStats(1));
+  }
+
+  @Test
+  void stats_returned_earlier_are_not_modified_by_later_changes() {
+    service.updateInMemory(new MenuItemReviewChangedEvent(null, review(1, 5)));
+    MenuItemRatingStats before = service.getStats(1);
+
+    service.updateInMemory(new MenuItemReviewChangedEvent(null, review(1, 1)));
+
+    assertEquals(1, before.getCount());
+    assertArrayEquals(new long[] { 0, 0, 0, 0, 1 }, before.getHistogram());
+  }
+
+  @Test
+  void stars_outside_one_to_five_are_not_in_the_histogram() {
+    service.updateInMemory(new MenuItemReviewChangedEvent(null, review(1, 7)));
+    assertEquals(new MenuItemRatingStats(1, 1, 7, new long[5]), service.getStats(1));
+  }
+
+  @Test
+  void summary_table_is_updated_relatively_for_existing_items() {
+    when(summaryRepository.addToTotals(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+        anyLong(), anyLong())).thenReturn(1);
+
+    service.updateSummaryTable(new MenuItemReviewChangedEvent(review(1, 2), review(1, 4)));
+
+    verify(summaryRepository, times(1)).addToTotals(1, -1, -2, 0, -1, 0, 0, 0);
+    verify(summaryRepository, times(1)).addToTotals(1, 1, 4, 0, 0, 0, 1, 0);
+    verify(summaryRepository, never()).save(any());
+  }
+
+  @Test
+  void summary_row_is_created_for_the_first_review_of_an_item() {
+    when(summaryRepository.addToTotals(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+        anyLong(), anyLong())).thenReturn(0, 1);
+
+    service.updateSummaryTable(new MenuItemReviewChangedEvent(null, review(9, 3)));
+
+    verify(summaryRepository, times(1)).insertEmpty(9);
+    verify(summaryRepository, times(2)).addToTotals(9, 1, 3, 0, 0, 1, 0, 0);
+    verify(summaryRepository, never()).save(any());
+  }
+
+  @Test
+  void concurrent_first_reviews_add_to_the_same_row() {
+    when(summaryRepository.addToTotals(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+        anyLong(), anyLong())).thenReturn(0, 1);
+    when(summaryRepository.insertEmpty(9)).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+    service.updateSummaryTable(new MenuItemReviewChangedEvent(null, review(9, 3)));
+
+    verify(summaryRepository, times(2)).addToTotals(9, 1, 3, 0, 0, 1, 0, 0);
+    verify(summaryRepository, never()).save(any());
+  }
+
+  @Test
+  void summary_table_is_updated_for_deletes() {
+    when(summaryRepository.addToTotals(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+        anyLong(), anyLong())).thenReturn(1);
+
+    service.updateSummaryTable(new MenuItemReviewChangedEvent(review(9, 3), null));
+
+    verify(summaryRepository, times(1)).addToTotals(9, -1, -3, 0, 0, -1, 0, 0);
+  }
+
+  @Test
+  void score_is_the_bayesian_average() {
+    assertEquals(3.0, service.score(new MenuItemRatingStats(1, 0, 0, new long[5])), 0.0001);
+    // (5 * 3 + 5) / (5 + 1)
+    assertEquals(20.0 / 6, service.score(new MenuItemRatingStats(1, 1, 5, new long[] { 0, 0, 0, 0, 1 })), 0.0001);
+  }
+
+  @Test
+  void top_ranks_by_bayesian_average_not_raw_average() {
+    add(1, 5);
+    add(2, 5, 5, 5, 5, 4, 4, 4, 4, 4, 4);
+    add(3, 1, 2);
+
+    // item 1 has the best raw average, but only one review
+    assertEquals(List.of(2L, 1L, 3L), topIds(10, 1));
+    assertEquals(List.of(2L), topIds(1, 1));
+  }
+
+  @Test
+  void top_skips_items_below_min_reviews() {
+    add(1, 5);
+    add(2, 3, 3);
+    add(3, 4, 4);
+
+    assertEquals(List.of(3L, 2L), topIds(10, 2));
+    assertEquals(List.of(3L), topIds(1, 2));
+  }
+
+  @Test
+  void ties_are_broken_by_item_id() {
+    add(5, 4);
+    add(4, 4);
+    assertEquals(List.of(4L, 5L), topIds(10, 0));
+  }
+
+  @Test
+  void top_follows_changes_and_drops_items_with_no_reviews() {
+    add(1, 4);
+    add(2, 3);
+    assertEquals(List.of(1L, 2L), topIds(10, 1));
+
+    service.updateInMemory(new MenuItemReviewChangedEvent(review(2, 3), review(2, 5)));
+    assertEquals(List.of(2L, 1L), topIds(10, 1));
+
+    service.updateInMemory(new MenuItemReviewChangedEvent(review(2, 5), null));
+    assertEquals(List.of(1L), topIds(10, 0));
+  }
+
+  @Test
+  void top_is_rebuilt_by_load() {
+    add(1, 5);
+    when(summaryRepository.findAll()).thenReturn(List.of(
+        new MenuItemRatingSummary(7, 1, 4, 0, 0, 0, 1, 0),
+        new MenuItemRatingSummary(8, 0, 0, 0, 0, 0, 0, 0)));
+
+    service.load();
+
+    assertEquals(List.of(7L), topIds(10, 0));
+  }
+}
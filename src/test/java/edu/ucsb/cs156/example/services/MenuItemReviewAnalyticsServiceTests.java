@@ -0,0 +1,205 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.events.MenuItemReviewsCompactedEvent;
+import edu.ucsb.cs156.example.models.MenuItemReviewAggregate;
+import edu.ucsb.cs156.example.models.MenuItemReviewFilter;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.MenuItemReviewAnalyticsService.GroupBy;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+class MenuItemReviewAnalyticsServiceTests {
+
+  MenuItemReviewAnalyticsService service = new MenuItemReviewAnalyticsService();
+  MenuItemReviewRepository reviewRepository = mock(MenuItemReviewRepository.class);
+
+  static final MenuItemReviewFilter ALL = MenuItemReviewFilter.builder().build();
+
+  @BeforeEach
+  void setup() {
+    service.reviewRepository = reviewRepository;
+  }
+
+  private static MenuItemReview review(long id, long itemId, String email, int stars, String date) {
+    return MenuItemReview.builder()
+        .id(id)
+        .itemId(itemId)
+        .reviewerEmail(email)
+        .stars(stars)
+        .dateReviewed(date == null ? null : LocalDateTime.parse(date))
+        .build();
+  }
+
+  private void add(MenuItemReview review) {
+    service.onReviewChanged(new MenuItemReviewChangedEvent(null, review));
+  }
+
+  private void loadSample() {
+    when(reviewRepository.findAll()).thenReturn(List.of(
+        review(1, 10, "a@ucsb.edu", 5, "2022-01-03T08:00:00"),
+        review(2, 10, "b@ucsb.edu", 3, "2022-01-03T20:00:00"),
+        review(3, 11, "a@ucsb.edu", 1, "2022-01-04T12:00:00"),
+        review(4, 11, "c@ucsb.edu", 4, "2022-01-05T12:00:00"),
+        review(5, 12, "b@ucsb.edu", 2, null)));
+    service.afterSingletonsInstantiated();
+  }
+
+  @Test
+  void load_copies_every_review() {
+    loadSample();
+    assertEquals(5, service.size());
+    assertEquals(List.of(new MenuItemReviewAggregate(null, 5, 15, 1, 5)), service.aggregate(ALL, GroupBy.NONE));
+  }
+
+  @Test
+  void load_replaces_existing_rows() {
+    add(review(99, 1, "x@ucsb.edu", 5, null));
+    loadSample();
+    assertEquals(5, service.size());
+  }
+
+  @Test
+  void compacted_reviews_are_dropped() {
+    loadSample();
+    service.onReviewsCompacted(new MenuItemReviewsCompactedEvent(List.of(1L, 3L, 42L)));
+    assertEquals(3, service.size());
+    assertEquals(List.of(new MenuItemReviewAggregate(null, 3, 9, 2, 4)), service.aggregate(ALL, GroupBy.NONE));
+  }
+
+  @Test
+  void empty_store_has_no_groups() {
+    assertEquals(List.of(), service.aggregate(ALL, GroupBy.NONE));
+  }
+
+  @Test
+  void group_by_day_puts_undated_reviews_first() {
+    loadSample();
+    assertEquals(List.of(
+        new MenuItemReviewAggregate(null, 1, 2, 2, 2),
+        new MenuItemReviewAggregate("2022-01-03", 2, 8, 3, 5),
+        new MenuItemReviewAggregate("2022-01-04", 1, 1, 1, 1),
+        new MenuItemReviewAggregate("2022-01-05", 1, 4, 4, 4)), service.aggregate(ALL, GroupBy.DAY));
+  }
+
+  @Test
+  void group_by_item() {
+    loadSample();
+    List<MenuItemReviewAggregate> result = service.aggregate(ALL, GroupBy.ITEM);
+    assertEquals(List.of(
+        new MenuItemReviewAggregate("10", 2, 8, 3, 5),
+        new MenuItemReviewAggregate("11", 2, 5, 1, 4),
+        new MenuItemReviewAggregate("12", 1, 2, 2, 2)), result);
+    assertEquals(4.0, result.get(0).getAverage(), 0.0001);
+  }
+
+  @Test
+  void group_by_reviewer() {
+    loadSample();
+    assertEquals(List.of(
+        new MenuItemReviewAggregate("a@ucsb.edu", 2, 6, 1, 5),
+        new MenuItemReviewAggregate("b@ucsb.edu", 2, 5, 2, 3),
+        new MenuItemReviewAggregate("c@ucsb.edu", 1, 4, 4, 4)), service.aggregate(ALL, GroupBy.REVIEWER));
+  }
+
+  @Test
+  void group_by_stars() {
+    loadSample();
+    List<MenuItemReviewAggregate> result = service.aggregate(ALL, GroupBy.STARS);
+    assertEquals(5, result.size());
+    assertEquals(new MenuItemReviewAggregate("3", 1, 3, 3, 3), result.get(2));
+  }
+
+  @Test
+  void filters_are_combined() {
+    loadSample();
+    MenuItemReviewFilter filter = MenuItemReviewFilter.builder()
+        .from(LocalDateTime.parse("2022-01-03T12:00:00"))
+        .to(LocalDateTime.parse("2022-01-05T12:00:00"))
+        .build();
+    assertEquals(List.of(new MenuItemReviewAggregate(null, 2, 4, 1, 3)), service.aggregate(filter, GroupBy.NONE));
+
+    filter = MenuItemReviewFilter.builder().itemId(11L).minStars(2).build();
+    assertEquals(List.of(new MenuItemReviewAggregate(null, 1, 4, 4, 4)), service.aggregate(filter, GroupBy.NONE));
+
+    filter = MenuItemReviewFilter.builder().reviewerEmail("b@ucsb.edu").maxStars(2).build();
+    assertEquals(List.of(new MenuItemReviewAggregate(null, 1, 2, 2, 2)), service.aggregate(filter, GroupBy.NONE));
+  }
+
+  @Test
+  void unknown_reviewer_matches_nothing() {
+    loadSample();
+    MenuItemReviewFilter filter = MenuItemReviewFilter.builder().reviewerEmail("nobody@ucsb.edu").build();
+    assertEquals(List.of(), service.aggregate(filter, GroupBy.NONE));
+  }
+
+  @Test
+  void updates_replace_the_row_in_place() {
+    loadSample();
+    MenuItemReview before = review(2, 10, "b@ucsb.edu", 3, "2022-01-03T20:00:00");
+    MenuItemReview after = review(2, 12, "d@ucsb.edu", 5, "2022-01-06T20:00:00");
+
+    service.onReviewChanged(new MenuItemReviewChangedEvent(before, after));
+
+    assertEquals(5, service.size());
+    MenuItemReviewFilter filter = MenuItemReviewFilter.builder().itemId(12L).build();
+    assertEquals(List.of(
+        new MenuItemReviewAggregate("b@ucsb.edu", 1, 2, 2, 2),
+        new MenuItemReviewAggregate("d@ucsb.edu", 1, 5, 5, 5)), service.aggregate(filter, GroupBy.REVIEWER));
+  }
+
+  @Test
+  void updates_that_change_the_id_replace_the_old_row() {
+    loadSample();
+    MenuItemReview before = review(2, 10, "b@ucsb.edu", 3, "2022-01-03T20:00:00");
+    MenuItemReview after = review(7, 12, "b@ucsb.edu", 3, "2022-01-03T20:00:00");
+
+    service.onReviewChanged(new MenuItemReviewChangedEvent(before, after));
+
+    assertEquals(5, service.size());
+    assertEquals(List.of(
+        new MenuItemReviewAggregate("10", 1, 5, 5, 5),
+        new MenuItemReviewAggregate("11", 2, 5, 1, 4),
+        new MenuItemReviewAggregate("12", 2, 5, 2, 3)), service.aggregate(ALL, GroupBy.ITEM));
+  }
+
+  @Test
+  void deletes_move_the_last_row_into_the_gap() {
+    loadSample();
+
+    service.onReviewChanged(new MenuItemReviewChangedEvent(review(1, 10, "a@ucsb.edu", 5, null), null));
+    assertEquals(4, service.size());
+    // deleting the moved row afterwards still finds it
+    service.onReviewChanged(new MenuItemReviewChangedEvent(review(5, 12, "b@ucsb.edu", 2, null), null));
+    // review 3 is now in the last row, so nothing moves
+    service.onReviewChanged(new MenuItemReviewChangedEvent(review(3, 11, "a@ucsb.edu", 1, null), null));
+    // deleting an unknown review does nothing
+    service.onReviewChanged(new MenuItemReviewChangedEvent(review(42, 11, "c@ucsb.edu", 4, null), null));
+
+    assertEquals(2, service.size());
+    assertEquals(List.of(
+        new MenuItemReviewAggregate("10", 1, 3, 3, 3),
+        new MenuItemReviewAggregate("11", 1, 4, 4, 4)), service.aggregate(ALL, GroupBy.ITEM));
+  }
+
+  @Test
+  void columns_grow_as_reviews_are_added() {
+    for (int i = 1; i <= 100; i++) {
+      add(review(i, i % 3, "r" + (i % 7) + "@ucsb.edu", i % 5 + 1, "2022-01-01T00:00:00"));
+    }
+    assertEquals(100, service.size());
+    assertEquals(3, service.aggregate(ALL, GroupBy.ITEM).size());
+    assertEquals(7, service.aggregate(ALL, GroupBy.REVIEWER).size());
+  }
+}
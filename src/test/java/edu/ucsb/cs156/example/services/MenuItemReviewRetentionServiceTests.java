@@ -0,0 +1,223 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.CompactedMenuItemReview;
+import edu.ucsb.cs156.example.entities.JobLock;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.MenuItemReviewRollup;
+import edu.ucsb.cs156.example.events.MenuItemReviewsCompactedEvent;
+import edu.ucsb.cs156.example.repositories.CompactedMenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.JobLockRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRollupRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+class MenuItemReviewRetentionServiceTests {
+
+  static final LocalDateTime CUTOFF = LocalDateTime.parse("2022-01-01T12:00:00");
+
+  MenuItemReviewRetentionService service = new MenuItemReviewRetentionService();
+  MenuItemReviewRepository reviewRepository = mock(MenuItemReviewRepository.class);
+  MenuItemReviewRollupRepository rollupRepository = mock(MenuItemReviewRollupRepository.class);
+  CompactedMenuItemReviewRepository compactedRepository = mock(CompactedMenuItemReviewRepository.class);
+  JobLockRepository jobLockRepository = mock(JobLockRepository.class);
+  ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+  @BeforeEach
+  void setup() {
+    service.reviewRepository = reviewRepository;
+    service.rollupRepository = rollupRepository;
+    service.compactedRepository = compactedRepository;
+    service.jobLockRepository = jobLockRepository;
+    service.transactionManager = mock(PlatformTransactionManager.class);
+    service.eventPublisher = eventPublisher;
+    service.enabled = true;
+    service.maxAgeDays = 10;
+    service.batchSize = 3;
+    service.maxBatches = 2;
+    service.clock = Clock.fixed(Instant.parse("2022-01-11T12:00:00Z"), ZoneOffset.UTC);
+    when(jobLockRepository.existsById("menuItemReviewRetention")).thenReturn(true);
+    when(jobLockRepository.findForUpdateByName("menuItemReviewRetention"))
+        .thenReturn(Optional.of(new JobLock("menuItemReviewRetention")));
+  }
+
+  private static MenuItemReview review(long id, long itemId, int stars, String date) {
+    return MenuItemReview.builder().id(id).itemId(itemId).stars(stars).dateReviewed(LocalDateTime.parse(date)).build();
+  }
+
+  @Test
+  void batches_are_folded_into_monthly_rollups_then_deleted() {
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of(
+        review(1, 7, 5, "2021-11-30T10:00:00"),
+        review(2, 7, 3, "2021-11-01T10:00:00"),
+        review(3, 7, 0, "2021-12-01T10:00:00")), List.of());
+    when(rollupRepository.addToTotals(eq(7L), eq(LocalDate.parse("2021-11-01")), anyLong(), anyLong(), anyLong(),
+        anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+
+    assertEquals(3, service.compact());
+
+    verify(rollupRepository).addToTotals(7L, LocalDate.parse("2021-11-01"), 2, 8, 0, 0, 1, 0, 1);
+    verify(rollupRepository).addToTotals(7L, LocalDate.parse("2021-12-01"), 1, 0, 0, 0, 0, 0, 0);
+    verify(rollupRepository, times(1)).save(any());
+    verify(rollupRepository).save(MenuItemReviewRollup.builder()
+        .itemId(7).reviewMonth(LocalDate.parse("2021-12-01")).reviewCount(1).build());
+    verify(reviewRepository).deleteByIdIn(List.of(1L, 2L, 3L));
+    verify(eventPublisher).publishEvent(new MenuItemReviewsCompactedEvent(List.of(1L, 2L, 3L)));
+  }
+
+  @Test
+  void reviews_are_recorded_as_rolled_up_before_they_are_deleted() {
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of(
+        review(1, 7, 5, "2021-11-30T10:00:00"),
+        review(2, 7, 3, "2021-11-01T10:00:00")));
+
+    service.compact();
+
+    InOrder order = inOrder(compactedRepository, rollupRepository, reviewRepository);
+    order.verify(compactedRepository).insert(1L);
+    order.verify(compactedRepository).insert(2L);
+    order.verify(rollupRepository).save(any());
+    order.verify(reviewRepository).deleteByIdIn(List.of(1L, 2L));
+    order.verify(compactedRepository).deleteByReviewIdIn(List.of(1L, 2L));
+  }
+
+  @Test
+  void reviews_left_over_from_a_failed_run_are_deleted_without_being_rolled_up_again() {
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of(
+        review(1, 7, 5, "2021-11-30T10:00:00"),
+        review(2, 7, 3, "2021-11-01T10:00:00")));
+    when(compactedRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(new CompactedMenuItemReview(1L)));
+
+    assertEquals(2, service.compact());
+
+    verify(compactedRepository, never()).insert(1L);
+    verify(compactedRepository).insert(2L);
+    verify(rollupRepository).save(MenuItemReviewRollup.builder()
+        .itemId(7).reviewMonth(LocalDate.parse("2021-11-01")).reviewCount(1).starsSum(3).stars3(1).build());
+    verify(reviewRepository).deleteByIdIn(List.of(1L, 2L));
+    verify(compactedRepository).deleteByReviewIdIn(List.of(1L, 2L));
+  }
+
+  @Test
+  void a_failed_delete_keeps_the_records() {
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of(
+        review(1, 7, 5, "2021-11-30T10:00:00")));
+    when(reviewRepository.deleteByIdIn(List.of(1L))).thenThrow(new IllegalStateException("shard down"));
+
+    assertThrows(IllegalStateException.class, () -> service.compact());
+
+    verify(compactedRepository).insert(1L);
+    verify(compactedRepository, never()).deleteByReviewIdIn(any());
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  @Test
+  void a_short_batch_ends_the_run() {
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of(
+        review(1, 7, 2, "2021-11-30T10:00:00"),
+        review(2, 8, 4, "2021-11-01T10:00:00")));
+
+    assertEquals(2, service.compact());
+
+    verify(reviewRepository, times(1)).findReviewedBefore(any(), any());
+    verify(rollupRepository).save(MenuItemReviewRollup.builder()
+        .itemId(8).reviewMonth(LocalDate.parse("2021-11-01")).reviewCount(1).starsSum(4).stars4(1).build());
+  }
+
+  @Test
+  void a_run_stops_after_max_batches() {
+    MenuItemReview r = review(1, 7, 1, "2021-11-30T10:00:00");
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of(r, r, r));
+
+    assertEquals(6, service.compact());
+
+    verify(reviewRepository, times(2)).deleteByIdIn(any());
+  }
+
+  @Test
+  void nothing_to_compact() {
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of());
+
+    assertEquals(0, service.compact());
+
+    verify(reviewRepository, never()).deleteByIdIn(any());
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  @Test
+  void each_batch_locks_the_job_before_reading() {
+    MenuItemReview r = review(1, 7, 1, "2021-11-30T10:00:00");
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of(r, r, r));
+
+    service.compact();
+
+    InOrder order = inOrder(jobLockRepository, reviewRepository);
+    order.verify(jobLockRepository).findForUpdateByName("menuItemReviewRetention");
+    order.verify(reviewRepository).findReviewedBefore(CUTOFF, PageRequest.of(0, 3));
+    order.verify(jobLockRepository).findForUpdateByName("menuItemReviewRetention");
+    order.verify(reviewRepository).findReviewedBefore(CUTOFF, PageRequest.of(0, 3));
+    verify(jobLockRepository, never()).insert(any());
+  }
+
+  @Test
+  void the_job_lock_row_is_created_on_the_first_run() {
+    when(jobLockRepository.existsById("menuItemReviewRetention")).thenReturn(false);
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of());
+
+    assertEquals(0, service.compact());
+
+    verify(jobLockRepository).insert("menuItemReviewRetention");
+  }
+
+  @Test
+  void a_job_lock_row_created_concurrently_is_used() {
+    when(jobLockRepository.existsById("menuItemReviewRetention")).thenReturn(false);
+    when(jobLockRepository.insert("menuItemReviewRetention")).thenThrow(new DataIntegrityViolationException("duplicate"));
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of());
+
+    assertEquals(0, service.compact());
+
+    verify(jobLockRepository).findForUpdateByName("menuItemReviewRetention");
+  }
+
+  @Test
+  void scheduled_run_respects_enabled() {
+    when(reviewRepository.findReviewedBefore(CUTOFF, PageRequest.of(0, 3))).thenReturn(List.of());
+
+    service.enabled = false;
+    service.scheduledCompaction();
+    verify(reviewRepository, never()).findReviewedBefore(any(), any());
+
+    service.enabled = true;
+    service.scheduledCompaction();
+    verify(reviewRepository, times(1)).findReviewedBefore(any(), any());
+  }
+}
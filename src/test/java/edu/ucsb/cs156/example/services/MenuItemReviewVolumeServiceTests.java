@@ -0,0 +1,150 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.models.MenuItemReviewVolume;
+import edu.ucsb.cs156.example.models.VolumeBucket;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+class MenuItemReviewVolumeServiceTests {
+
+  static final LocalDateTime NOW = LocalDateTime.parse("2022-01-10T12:30:20");
+
+  MenuItemReviewVolumeService service = new MenuItemReviewVolumeService();
+  MenuItemReviewRepository reviewRepository = mock(MenuItemReviewRepository.class);
+  UCSBDiningCommonsMenuItemRepository menuItemRepository = mock(UCSBDiningCommonsMenuItemRepository.class);
+
+  @BeforeEach
+  void setup() {
+    service.reviewRepository = reviewRepository;
+    service.menuItemRepository = menuItemRepository;
+    service.clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    when(menuItemRepository.findById(1L)).thenReturn(Optional.of(item(1, "ortega")));
+    when(menuItemRepository.findById(2L)).thenReturn(Optional.of(item(2, "dlg")));
+    when(menuItemRepository.findById(3L)).thenReturn(Optional.of(item(3, null)));
+  }
+
+  private static UCSBDiningCommonsMenuItem item(long id, String code) {
+    return UCSBDiningCommonsMenuItem.builder().id(id).diningCommonsCode(code).name("item").build();
+  }
+
+  private static MenuItemReview review(long itemId, String date) {
+    return MenuItemReview.builder()
+        .itemId(itemId)
+        .stars(3)
+        .dateReviewed(date == null ? null : LocalDateTime.parse(date))
+        .build();
+  }
+
+  private void post(long itemId, String date) {
+    service.onReviewChanged(new MenuItemReviewChangedEvent(null, review(itemId, date)));
+  }
+
+  private static long last(List<VolumeBucket> buckets) {
+    return buckets.get(buckets.size() - 1).getCount();
+  }
+
+  @Test
+  void buckets_cover_the_last_hour_day_and_week() {
+    MenuItemReviewVolume v = service.getTotalVolume();
+
+    assertEquals(60, v.getLastHourByMinute().size());
+    assertEquals(LocalDateTime.parse("2022-01-10T11:31:00"), v.getLastHourByMinute().get(0).getStart());
+    assertEquals(LocalDateTime.parse("2022-01-10T12:30:00"), v.getLastHourByMinute().get(59).getStart());
+    assertEquals(24, v.getLastDayByHour().size());
+    assertEquals(LocalDateTime.parse("2022-01-09T13:00:00"), v.getLastDayByHour().get(0).getStart());
+    assertEquals(7, v.getLastWeekByDay().size());
+    assertEquals(LocalDateTime.parse("2022-01-04T00:00:00"), v.getLastWeekByDay().get(0).getStart());
+    assertEquals(LocalDateTime.parse("2022-01-10T00:00:00"), v.getLastWeekByDay().get(6).getStart());
+  }
+
+  @Test
+  void new_reviews_are_counted_by_item_dining_commons_and_overall() {
+    post(1, "2022-01-10T12:30:00");
+    post(1, "2022-01-10T12:29:59");
+    post(2, "2022-01-10T09:00:00");
+    post(1, "2022-01-04T01:00:00");
+
+    MenuItemReviewVolume item1 = service.getItemVolume(1);
+    assertEquals(1, last(item1.getLastHourByMinute()));
+    assertEquals(1, item1.getLastHourByMinute().get(58).getCount());
+    assertEquals(2, last(item1.getLastDayByHour()));
+    assertEquals(2, last(item1.getLastWeekByDay()));
+    assertEquals(1, item1.getLastWeekByDay().get(0).getCount());
+
+    MenuItemReviewVolume dlg = service.getDiningCommonsVolume("dlg");
+    assertEquals(0, last(dlg.getLastHourByMinute()));
+    assertEquals(1, dlg.getLastDayByHour().get(20).getCount());
+    assertEquals(1, last(dlg.getLastWeekByDay()));
+
+    assertEquals(4, service.getTotalVolume().getLastWeekByDay().stream().mapToLong(VolumeBucket::getCount).sum());
+    assertEquals(2, last(service.getDiningCommonsVolume("ortega").getLastWeekByDay()));
+    verify(menuItemRepository, times(1)).findById(1L);
+  }
+
+  @Test
+  void unknown_items_and_dining_commons_have_zero_volume() {
+    post(3, "2022-01-10T12:00:00");
+    post(4, "2022-01-10T12:00:00");
+
+    assertEquals(0, last(service.getItemVolume(5).getLastWeekByDay()));
+    assertEquals(0, last(service.getDiningCommonsVolume("carrillo").getLastWeekByDay()));
+    assertEquals(1, last(service.getItemVolume(3).getLastWeekByDay()));
+    assertEquals(2, last(service.getTotalVolume().getLastWeekByDay()));
+  }
+
+  @Test
+  void undated_future_and_pre_epoch_reviews_are_not_counted() {
+    post(1, null);
+    post(1, "2022-01-10T12:31:00");
+    post(1, "1969-12-31T23:59:00");
+
+    assertEquals(0, last(service.getTotalVolume().getLastWeekByDay()));
+  }
+
+  @Test
+  void edits_and_deletes_do_not_change_the_volume() {
+    post(1, "2022-01-10T12:00:00");
+    MenuItemReview r = review(1, "2022-01-10T12:00:00");
+    service.onReviewChanged(new MenuItemReviewChangedEvent(r, r));
+    service.onReviewChanged(new MenuItemReviewChangedEvent(r, null));
+
+    assertEquals(1, last(service.getItemVolume(1).getLastWeekByDay()));
+  }
+
+  @Test
+  void load_rebuilds_from_the_last_week_of_reviews() {
+    post(2, "2022-01-10T12:00:00");
+    when(menuItemRepository.findAll()).thenReturn(List.of(item(1, "ortega"), item(3, null)));
+    when(reviewRepository.findByDateReviewedGreaterThanEqual(NOW.minusHours(MenuItemReviewVolumeService.HOURS)))
+        .thenReturn(List.of(review(1, "2022-01-10T12:00:00"), review(1, "2022-01-09T12:00:00")));
+
+    service.afterSingletonsInstantiated();
+
+    assertEquals(0, last(service.getItemVolume(2).getLastWeekByDay()));
+    assertEquals(1, last(service.getItemVolume(1).getLastWeekByDay()));
+    assertEquals(2, service.getDiningCommonsVolume("ortega").getLastWeekByDay().stream()
+        .mapToLong(VolumeBucket::getCount).sum());
+    // the item was loaded with findAll, so there is no need to look it up
+    verify(menuItemRepository, times(0)).findById(1L);
+  }
+}
@@ -0,0 +1,218 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.collections.HyperLogLog;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.MenuItemReviewerSketch;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.models.DistinctReviewerEstimate;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewerSketchRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+class MenuItemReviewerCountServiceTests {
+
+  static final LocalDate JAN_3 = LocalDate.parse("2022-01-03");
+  static final LocalDate JAN_4 = LocalDate.parse("2022-01-04");
+
+  MenuItemReviewerCountService service = new MenuItemReviewerCountService();
+  MenuItemReviewerSketchRepository sketchRepository = mock(MenuItemReviewerSketchRepository.class);
+  MenuItemReviewRepository reviewRepository = mock(MenuItemReviewRepository.class);
+  UCSBDiningCommonsMenuItemRepository menuItemRepository = mock(UCSBDiningCommonsMenuItemRepository.class);
+
+  @BeforeEach
+  void setup() {
+    service.sketchRepository = sketchRepository;
+    service.reviewRepository = reviewRepository;
+    service.menuItemRepository = menuItemRepository;
+    service.transactionManager = mock(PlatformTransactionManager.class);
+    when(sketchRepository.findForUpdateByItemIdAndReviewDay(anyLong(), any())).thenReturn(Optional.empty());
+  }
+
+  private static MenuItemReview review(long itemId, String email, String date) {
+    return MenuItemReview.builder()
+        .itemId(itemId)
+        .reviewerEmail(email)
+        .stars(3)
+        .dateReviewed(date == null ? null : LocalDateTime.parse(date))
+        .build();
+  }
+
+  private void post(MenuItemReview review) {
+    service.onReviewChanged(new MenuItemReviewChangedEvent(null, review));
+  }
+
+  private static HyperLogLog sketchOf(String... emails) {
+    HyperLogLog h = new HyperLogLog();
+    for (String e : emails) {
+      h.add(e);
+    }
+    return h;
+  }
+
+  private long itemReviewers(long itemId, LocalDate from, LocalDate to) {
+    return service.getItemReviewers(itemId, from, to).getReviewers();
+  }
+
+  private void postSample() {
+    post(review(1, "a@ucsb.edu", "2022-01-03T08:00:00"));
+    post(review(1, "A@UCSB.EDU", "2022-01-03T09:00:00"));
+    post(review(1, "b@ucsb.edu", "2022-01-04T10:00:00"));
+    post(review(1, "a@ucsb.edu", "2022-01-04T11:00:00"));
+    post(review(2, "c@ucsb.edu", "2022-01-04T11:00:00"));
+    post(review(3, "d@ucsb.edu", "2022-01-05T11:00:00"));
+  }
+
+  @Test
+  void counts_distinct_reviewers_over_a_window() {
+    postSample();
+
+    assertEquals(2, itemReviewers(1, null, null));
+    assertEquals(1, itemReviewers(1, JAN_3, JAN_3));
+    assertEquals(2, itemReviewers(1, JAN_4, null));
+    assertEquals(0, itemReviewers(1, JAN_4, JAN_3));
+    assertEquals(0, itemReviewers(42, null, null));
+    assertEquals(new DistinctReviewerEstimate(null, JAN_4, 3, HyperLogLog.STANDARD_ERROR),
+        service.getTotalReviewers(null, JAN_4));
+    assertEquals(4, service.getTotalReviewers(null, null).getReviewers());
+  }
+
+  @Test
+  void dining_commons_merge_their_items() {
+    postSample();
+    when(menuItemRepository.findByDiningCommonsCode("ortega")).thenReturn(List.of(
+        UCSBDiningCommonsMenuItem.builder().id(1).build(),
+        UCSBDiningCommonsMenuItem.builder().id(2).build(),
+        UCSBDiningCommonsMenuItem.builder().id(7).build()));
+
+    assertEquals(3, service.getDiningCommonsReviewers("ortega", null, null).getReviewers());
+  }
+
+  @Test
+  void reviews_without_a_date_or_reviewer_are_ignored() {
+    post(review(1, "a@ucsb.edu", null));
+    post(review(1, null, "2022-01-03T08:00:00"));
+    service.onReviewChanged(new MenuItemReviewChangedEvent(review(1, "a@ucsb.edu", "2022-01-03T08:00:00"), null));
+
+    assertEquals(0, service.getTotalReviewers(null, null).getReviewers());
+    service.flush();
+    verify(sketchRepository, never()).save(any());
+  }
+
+  @Test
+  void flush_saves_changed_sketches_once() {
+    postSample();
+    service.flush();
+
+    ArgumentCaptor<MenuItemReviewerSketch> saved = ArgumentCaptor.forClass(MenuItemReviewerSketch.class);
+    verify(sketchRepository, times(4)).save(saved.capture());
+    Set<MenuItemReviewerSketch> expected = Set.of(
+        new MenuItemReviewerSketch(0, 1, JAN_3, sketchOf("a@ucsb.edu").toBytes()),
+        new MenuItemReviewerSketch(0, 1, JAN_4, sketchOf("a@ucsb.edu", "b@ucsb.edu").toBytes()),
+        new MenuItemReviewerSketch(0, 2, JAN_4, sketchOf("c@ucsb.edu").toBytes()),
+        new MenuItemReviewerSketch(0, 3, JAN_4.plusDays(1), sketchOf("d@ucsb.edu").toBytes()));
+    assertEquals(expected, new HashSet<>(saved.getAllValues()));
+
+    service.flush();
+    verify(sketchRepository, times(4)).save(any());
+  }
+
+  @Test
+  void flush_merges_with_the_stored_sketch() {
+    MenuItemReviewerSketch stored = new MenuItemReviewerSketch(5, 1, JAN_3, sketchOf("z@ucsb.edu").toBytes());
+    when(sketchRepository.findForUpdateByItemIdAndReviewDay(1, JAN_3)).thenReturn(Optional.of(stored));
+
+    post(review(1, "a@ucsb.edu", "2022-01-03T08:00:00"));
+    service.flush();
+
+    verify(sketchRepository).save(new MenuItemReviewerSketch(5, 1, JAN_3,
+        sketchOf("a@ucsb.edu", "z@ucsb.edu").toBytes()));
+  }
+
+  @Test
+  void a_concurrent_insert_is_merged_into_at_once() {
+    MenuItemReviewerSketch stored = new MenuItemReviewerSketch(5, 1, JAN_3, sketchOf("z@ucsb.edu").toBytes());
+    when(sketchRepository.findForUpdateByItemIdAndReviewDay(1, JAN_3))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(stored));
+    when(sketchRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate"))
+        .thenAnswer(inv -> inv.getArgument(0));
+
+    post(review(1, "a@ucsb.edu", "2022-01-03T08:00:00"));
+    service.flush();
+
+    verify(sketchRepository, times(2)).save(any());
+    verify(sketchRepository).save(new MenuItemReviewerSketch(5, 1, JAN_3,
+        sketchOf("a@ucsb.edu", "z@ucsb.edu").toBytes()));
+    service.flush();
+    verify(sketchRepository, times(2)).save(any());
+  }
+
+  @Test
+  void failed_saves_are_retried_on_the_next_flush() {
+    when(sketchRepository.save(any())).thenThrow(new DataAccessResourceFailureException("down"))
+        .thenAnswer(inv -> inv.getArgument(0));
+
+    post(review(1, "a@ucsb.edu", "2022-01-03T08:00:00"));
+    service.flush();
+    verify(sketchRepository, times(1)).save(any());
+    service.flush();
+    service.flush();
+
+    verify(sketchRepository, times(2)).save(any());
+  }
+
+  @Test
+  void load_reads_stored_sketches() {
+    when(sketchRepository.findAll()).thenReturn(List.of(
+        new MenuItemReviewerSketch(5, 1, JAN_3, sketchOf("a@ucsb.edu", "b@ucsb.edu").toBytes())));
+    post(review(9, "x@ucsb.edu", "2022-01-03T08:00:00"));
+
+    service.afterSingletonsInstantiated();
+
+    assertEquals(2, itemReviewers(1, JAN_3, JAN_3));
+    assertEquals(0, itemReviewers(9, null, null));
+    verify(reviewRepository, never()).findAll();
+    service.flush();
+    verify(sketchRepository, never()).save(any());
+  }
+
+  @Test
+  void load_rebuilds_an_empty_table_from_the_reviews() {
+    when(sketchRepository.findAll()).thenReturn(List.of());
+    when(reviewRepository.findAll()).thenReturn(List.of(
+        review(1, "a@ucsb.edu", "2022-01-03T08:00:00"),
+        review(1, "b@ucsb.edu", "2022-01-03T09:00:00")));
+
+    service.load();
+
+    assertEquals(2, itemReviewers(1, null, null));
+    verify(sketchRepository).save(new MenuItemReviewerSketch(0, 1, JAN_3,
+        sketchOf("a@ucsb.edu", "b@ucsb.edu").toBytes()));
+  }
+}
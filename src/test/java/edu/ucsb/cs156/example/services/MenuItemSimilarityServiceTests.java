@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.events.MenuItemReviewChangedEvent;
+import edu.ucsb.cs156.example.models.SimilarMenuItem;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+class MenuItemSimilarityServiceTests {
+
+  MenuItemSimilarityService service = new MenuItemSimilarityService();
+  MenuItemReviewRepository reviewRepository = mock(MenuItemReviewRepository.class);
+
+  @BeforeEach
+  void setup() {
+    service.reviewRepository = reviewRepository;
+    service.minStars = 4;
+  }
+
+  private static MenuItemReview review(String email, long itemId, int stars) {
+    return MenuItemReview.builder().reviewerEmail(email).itemId(itemId).stars(stars).build();
+  }
+
+  private void post(MenuItemReview review) {
+    service.onReviewChanged(new MenuItemReviewChangedEvent(null, review));
+  }
+
+  // a and b like 1 and 2, b also likes 3, c likes 1 and 3 and dislikes 4
+  private static final List<MenuItemReview> SAMPLE = List.of(
+      review("a@ucsb.edu", 1, 5),
+      review("a@ucsb.edu", 2, 4),
+      review("b@ucsb.edu", 1, 4),
+      review("b@ucsb.edu", 2, 5),
+      review("b@ucsb.edu", 3, 5),
+      review("c@ucsb.edu", 1, 5),
+      review("c@ucsb.edu", 3, 4),
+      review("c@ucsb.edu", 4, 1));
+
+  // 1 is liked by 3, 2 by 2, 3 by 2; 1 and 2 share 2 likers, 1 and 3 share 2
+  private static final List<SimilarMenuItem> SIMILAR_TO_1 = List.of(
+      new SimilarMenuItem(2, null, 2, 2 / Math.sqrt(6)),
+      new SimilarMenuItem(3, null, 2, 2 / Math.sqrt(6)));
+
+  @Test
+  void rebuild_counts_reviewers_who_liked_both() {
+    when(reviewRepository.findAll()).thenReturn(SAMPLE);
+
+    service.afterSingletonsInstantiated();
+
+    assertEquals(SIMILAR_TO_1, service.getSimilar(1, 10));
+    assertEquals(List.of(
+        new SimilarMenuItem(1, null, 2, 2 / Math.sqrt(6)),
+        new SimilarMenuItem(3, null, 1, 0.5)), service.getSimilar(2, 10));
+    assertEquals(List.of(), service.getSimilar(4, 10));
+    assertEquals(List.of(), service.getSimilar(42, 10));
+  }
+
+  @Test
+  void posts_update_the_counts_incrementally() {
+    SAMPLE.forEach(this::post);
+
+    assertEquals(SIMILAR_TO_1, service.getSimilar(1, 10));
+    assertEquals(List.of(new SimilarMenuItem(1, null, 2, 2 / Math.sqrt(6))), service.getSimilar(3, 1));
+  }
+
+  @Test
+  void liking_an_item_twice_counts_once() {
+    post(review("a@ucsb.edu", 1, 5));
+    post(review("a@ucsb.edu", 2, 5));
+    post(review("a@ucsb.edu", 2, 4));
+
+    assertEquals(List.of(new SimilarMenuItem(2, null, 1, 1.0)), service.getSimilar(1, 10));
+  }
+
+  @Test
+  void edits_and_deletes_remove_likes() {
+    SAMPLE.forEach(this::post);
+
+    // b changes their mind about 2, and c's like of 3 is deleted
+    service.onReviewChanged(new MenuItemReviewChangedEvent(review("b@ucsb.edu", 2, 5), review("b@ucsb.edu", 2, 2)));
+    service.onReviewChanged(new MenuItemReviewChangedEvent(review("c@ucsb.edu", 3, 4), null));
+
+    assertEquals(List.of(
+        new SimilarMenuItem(2, null, 1, 1 / Math.sqrt(3)),
+        new SimilarMenuItem(3, null, 1, 1 / Math.sqrt(3))), service.getSimilar(1, 10));
+    assertEquals(List.of(new SimilarMenuItem(1, null, 1, 1 / Math.sqrt(3))), service.getSimilar(2, 10));
+  }
+
+  @Test
+  void dislikes_are_ignored() {
+    post(review("a@ucsb.edu", 1, 5));
+    post(review("a@ucsb.edu", 2, 3));
+    service.onReviewChanged(new MenuItemReviewChangedEvent(review("a@ucsb.edu", 2, 3), review("a@ucsb.edu", 2, 1)));
+
+    assertEquals(List.of(), service.getSimilar(1, 10));
+  }
+
+  @Test
+  void rebuild_in_parallel_matches_incremental_updates() {
+    List<MenuItemReview> reviews = new ArrayList<>();
+    for (int r = 0; r < 3 * MenuItemSimilarityService.LEAF_SIZE; r++) {
+      for (int item = 0; item < 8; item++) {
+        if ((r + item) % 3 != 0) {
+          reviews.add(review("r" + r + "@ucsb.edu", item, 4 + (r + item) % 2));
+        }
+      }
+    }
+    reviews.forEach(this::post);
+    List<List<SimilarMenuItem>> incremental = new ArrayList<>();
+    for (int item = 0; item < 8; item++) {
+      incremental.add(service.getSimilar(item, 3));
+    }
+
+    when(reviewRepository.findAll()).thenReturn(reviews);
+    service.rebuild();
+
+    for (int item = 0; item < 8; item++) {
+      assertEquals(incremental.get(item), service.getSimilar(item, 3));
+    }
+    assertEquals(3, incremental.get(0).size());
+  }
+}
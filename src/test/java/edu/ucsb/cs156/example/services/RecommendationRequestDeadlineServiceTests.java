@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.services;
+
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.changed;
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.recommendationRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.RecommendationRequestsDoneEvent;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+public class RecommendationRequestDeadlineServiceTests {
+
+        static final LocalDateTime NOW = LocalDateTime.parse("2023-03-01T12:00:00");
+        static final String PROF = "pconrad@ucsb.edu";
+
+        RecommendationRequestDeadlineService service = new RecommendationRequestDeadlineService();
+        RecommendationRequestRepository repository = mock(RecommendationRequestRepository.class);
+
+        @BeforeEach
+        public void setup() {
+                service.recommendationRequestRepository = repository;
+                service.clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        }
+
+        // an open request for the professor needed the given number of hours from now
+        private static RecommendationRequest request(long id, String professor, long hours) {
+                return recommendationRequest(id).professorEmail(professor).dateNeeded(NOW.plusHours(hours)).build();
+        }
+
+        private List<Long> dueSoon(String professor, int days) {
+                return service.getDueSoon(professor, days).stream().map(RecommendationRequest::getId).collect(Collectors.toList());
+        }
+
+        @Test
+        public void test_that_load_reads_requests_that_are_not_done() {
+                service.onRecommendationRequestChanged(changed(null, request(9, PROF, 1)));
+                when(repository.findByDoneFalse()).thenReturn(List.of(request(1, PROF, 30), request(2, PROF, 5)));
+
+                service.afterSingletonsInstantiated();
+
+                assertEquals(List.of(2L, 1L), dueSoon(PROF, 7));
+        }
+
+        @Test
+        public void test_that_due_soon_covers_now_to_the_given_number_of_days_soonest_first() {
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, -1)));
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, 48)));
+                service.onRecommendationRequestChanged(changed(null, request(3, PROF, 0)));
+                service.onRecommendationRequestChanged(changed(null, request(4, PROF, 24)));
+                service.onRecommendationRequestChanged(changed(null, request(5, PROF, 24)));
+                service.onRecommendationRequestChanged(changed(null, request(6, PROF, 49)));
+                service.onRecommendationRequestChanged(changed(null, request(7, "other@ucsb.edu", 1)));
+
+                assertEquals(List.of(3L, 4L, 5L, 2L), dueSoon(PROF, 2));
+                assertEquals(List.of(3L), dueSoon(PROF, 0));
+                assertEquals(List.of(3L), dueSoon(PROF, -3));
+                assertEquals(List.of(), dueSoon("nobody@ucsb.edu", 7));
+        }
+
+        @Test
+        public void test_that_changes_move_remove_and_skip_requests() {
+                RecommendationRequest r = request(1, PROF, 10);
+                service.onRecommendationRequestChanged(changed(null, r));
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, 20)));
+
+                RecommendationRequest moved = request(1, PROF, 30);
+                service.onRecommendationRequestChanged(changed(r, moved));
+                assertEquals(List.of(2L, 1L), dueSoon(PROF, 7));
+
+                RecommendationRequest reassigned = request(1, "other@ucsb.edu", 30);
+                service.onRecommendationRequestChanged(changed(moved, reassigned));
+                assertEquals(List.of(2L), dueSoon(PROF, 7));
+                assertEquals(List.of(1L), dueSoon("other@ucsb.edu", 7));
+
+                RecommendationRequest done = request(1, "other@ucsb.edu", 30);
+                done.setDone(true);
+                service.onRecommendationRequestChanged(changed(reassigned, done));
+                assertEquals(List.of(), dueSoon("other@ucsb.edu", 7));
+
+                service.onRecommendationRequestChanged(changed(request(2, PROF, 20), null));
+                assertEquals(List.of(), dueSoon(PROF, 7));
+        }
+
+        @Test
+        public void test_that_requests_without_a_professor_or_date_needed_are_left_out() {
+                RecommendationRequest noDate = request(1, PROF, 1);
+                noDate.setDateNeeded(null);
+                service.onRecommendationRequestChanged(changed(null, noDate));
+                service.onRecommendationRequestChanged(changed(null, request(2, null, 1)));
+
+                assertEquals(List.of(), dueSoon(PROF, 7));
+        }
+
+        @Test
+        public void test_that_stored_requests_are_copies() {
+                RecommendationRequest r = request(1, PROF, 1);
+                service.onRecommendationRequestChanged(changed(null, r));
+                r.setDateNeeded(NOW.plusDays(30));
+
+                assertEquals(List.of(1L), dueSoon(PROF, 7));
+        }
+
+        @Test
+        public void test_that_bulk_done_removes_the_matching_requests() {
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, 10)));
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, 40)));
+                service.onRecommendationRequestChanged(changed(null, request(3, "other@ucsb.edu", 10)));
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(PROF, NOW.plusHours(40), 1));
+                assertEquals(List.of(2L), dueSoon(PROF, 7));
+                assertEquals(List.of(3L), dueSoon("other@ucsb.edu", 7));
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(null, NOW.plusHours(20), 1));
+                assertEquals(List.of(2L), dueSoon(PROF, 7));
+                assertEquals(List.of(), dueSoon("other@ucsb.edu", 7));
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(PROF, null, 1));
+                assertEquals(List.of(), dueSoon(PROF, 7));
+        }
+}
@@ -0,0 +1,192 @@
+package edu.ucsb.cs156.example.services;
+
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.changed;
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.recommendationRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.RecommendationRequestReminder;
+import edu.ucsb.cs156.example.events.RecommendationRequestsDoneEvent;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestReminderRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+public class RecommendationRequestReminderServiceTests {
+
+        static final LocalDateTime NOW = LocalDateTime.parse("2023-03-01T12:00:00");
+        static final String PROF = "pconrad@ucsb.edu";
+
+        RecommendationRequestReminderService service = new RecommendationRequestReminderService();
+        RecommendationRequestRepository requestRepository = mock(RecommendationRequestRepository.class);
+        RecommendationRequestReminderRepository reminderRepository = mock(RecommendationRequestReminderRepository.class);
+
+        @BeforeEach
+        public void setup() {
+                service.recommendationRequestRepository = requestRepository;
+                service.reminderRepository = reminderRepository;
+                service.daysBefore = 3;
+                at(NOW);
+                service.afterSingletonsInstantiated();
+        }
+
+        private void at(LocalDateTime t) {
+                service.clock = Clock.fixed(t.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        }
+
+        private static RecommendationRequest request(long id, String professor, LocalDateTime dateNeeded) {
+                return recommendationRequest(id).professorEmail(professor).dateNeeded(dateNeeded).build();
+        }
+
+        @Test
+        public void test_that_ticks_are_whole_minutes_rounded_up() {
+                assertEquals(27_961_200, RecommendationRequestReminderService.tickOf(LocalDateTime.parse("2023-03-01T12:00:00")));
+                assertEquals(27_961_201, RecommendationRequestReminderService.tickOf(LocalDateTime.parse("2023-03-01T12:00:01")));
+        }
+
+        @Test
+        public void test_that_reminders_are_written_days_before_the_request_is_needed() {
+                LocalDateTime needed = NOW.plusDays(5);
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, needed)));
+
+                at(needed.minusDays(3).minusMinutes(1));
+                assertEquals(0, service.fireDue());
+                at(needed.minusDays(3));
+                assertEquals(1, service.fireDue());
+
+                verify(reminderRepository).save(RecommendationRequestReminder.builder()
+                                .recommendationRequestId(1).requesterEmail("student@ucsb.edu").professorEmail(PROF)
+                                .dateNeeded(needed).remindAt(needed.minusDays(3)).createdAt(needed.minusDays(3)).build());
+                assertEquals(0, service.pending());
+        }
+
+        @Test
+        public void test_that_load_skips_reminders_already_in_the_outbox() {
+                RecommendationRequest sent = request(1, PROF, NOW.plusDays(1));
+                RecommendationRequest moved = request(2, PROF, NOW.plusDays(2));
+                RecommendationRequest pending = request(3, PROF, NOW.plusDays(10));
+                RecommendationRequest past = request(4, PROF, NOW.minusDays(1));
+                when(reminderRepository.findByDateNeededGreaterThanEqual(NOW)).thenReturn(List.of(
+                                RecommendationRequestReminder.builder().recommendationRequestId(1).dateNeeded(NOW.plusDays(1)).build(),
+                                RecommendationRequestReminder.builder().recommendationRequestId(2).dateNeeded(NOW.plusDays(4)).build()));
+                when(requestRepository.findByDoneFalse()).thenReturn(List.of(sent, moved, pending, past));
+
+                service.load();
+
+                assertEquals(2, service.pending());
+                // the reminder for request 2 fell due while the application was down
+                at(NOW.plusMinutes(1));
+                assertEquals(1, service.fireDue());
+                assertEquals(1, service.pending());
+        }
+
+        @Test
+        public void test_that_changes_reschedule_and_cancel_reminders() {
+                RecommendationRequest r = request(1, PROF, NOW.plusDays(5));
+                service.onRecommendationRequestChanged(changed(null, r));
+                RecommendationRequest later = request(1, PROF, NOW.plusDays(10));
+                service.onRecommendationRequestChanged(changed(r, later));
+
+                at(NOW.plusDays(2));
+                assertEquals(0, service.fireDue());
+                assertEquals(1, service.pending());
+
+                RecommendationRequest done = request(1, PROF, NOW.plusDays(10));
+                done.setDone(true);
+                service.onRecommendationRequestChanged(changed(later, done));
+                assertEquals(0, service.pending());
+
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, null)));
+                service.onRecommendationRequestChanged(changed(null, request(3, PROF, NOW.plusDays(5))));
+                assertEquals(1, service.pending());
+                service.onRecommendationRequestChanged(changed(request(3, PROF, NOW.plusDays(5)), null));
+                assertEquals(0, service.pending());
+        }
+
+        @Test
+        public void test_that_stored_requests_are_copies() {
+                RecommendationRequest r = request(1, PROF, NOW.plusDays(5));
+                service.onRecommendationRequestChanged(changed(null, r));
+                r.setProfessorEmail("other@ucsb.edu");
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(PROF, null, 1));
+
+                assertEquals(0, service.pending());
+        }
+
+        @Test
+        public void test_that_bulk_done_cancels_the_matching_reminders() {
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, NOW.plusDays(5))));
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, NOW.plusDays(20))));
+                service.onRecommendationRequestChanged(changed(null, request(3, "other@ucsb.edu", NOW.plusDays(5))));
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(PROF, NOW.plusDays(10), 1));
+                assertEquals(2, service.pending());
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(null, NOW.plusDays(10), 1));
+                assertEquals(1, service.pending());
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(null, null, 1));
+                assertEquals(0, service.pending());
+        }
+
+        @Test
+        public void test_that_reminders_already_in_the_outbox_are_not_written_again() {
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, NOW.plusDays(1))));
+                when(reminderRepository.existsByRecommendationRequestIdAndDateNeeded(1, NOW.plusDays(1))).thenReturn(true);
+
+                at(NOW.plusMinutes(1));
+                assertEquals(0, service.fireDue());
+                verify(reminderRepository, never()).save(any());
+        }
+
+        @Test
+        public void test_that_failed_writes_are_retried_on_the_next_run() {
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, NOW.plusDays(1))));
+                when(reminderRepository.save(any())).thenThrow(new DataAccessResourceFailureException("down"))
+                                .thenReturn(null);
+
+                at(NOW.plusMinutes(1));
+                assertEquals(0, service.fireDue());
+                assertEquals(1, service.pending());
+
+                at(NOW.plusMinutes(2));
+                assertEquals(1, service.fireDue());
+                verify(reminderRepository, times(2)).save(any());
+        }
+
+        @Test
+        public void test_that_a_failed_write_does_not_replace_a_newer_schedule() {
+                RecommendationRequest r = request(1, PROF, NOW.plusDays(1));
+                service.onRecommendationRequestChanged(changed(null, r));
+                when(reminderRepository.existsByRecommendationRequestIdAndDateNeeded(anyLong(), any())).thenAnswer(inv -> {
+                        // the request is edited while its reminder is being written
+                        service.onRecommendationRequestChanged(changed(r, request(1, PROF, NOW.plusDays(30))));
+                        return false;
+                });
+                when(reminderRepository.save(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+                at(NOW.plusMinutes(1));
+                assertEquals(0, service.fireDue());
+
+                at(NOW.plusDays(2));
+                assertEquals(0, service.fireDue());
+                assertEquals(1, service.pending());
+        }
+}
@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.services;
+
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.changed;
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.recommendationRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.RecommendationRequestsArchivedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsDoneEvent;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+public class RecommendationRequestSpanServiceTests {
+
+        static final LocalDateTime DAY0 = LocalDateTime.parse("2023-03-01T00:00:00");
+        static final String PROF = "pconrad@ucsb.edu";
+
+        RecommendationRequestSpanService service = new RecommendationRequestSpanService();
+        RecommendationRequestRepository repository = mock(RecommendationRequestRepository.class);
+
+        @BeforeEach
+        public void setup() {
+                service.recommendationRequestRepository = repository;
+        }
+
+        // a request for the professor made on one day and needed on another
+        private static RecommendationRequest request(long id, String professor, int requested, int needed) {
+                return recommendationRequest(id).professorEmail(professor)
+                                .dateRequested(DAY0.plusDays(requested)).dateNeeded(DAY0.plusDays(needed)).build();
+        }
+
+        private List<Long> outstanding(String professor, int from, int to, boolean includeDone) {
+                return service.getOutstanding(professor, DAY0.plusDays(from), DAY0.plusDays(to), includeDone).stream()
+                                .map(RecommendationRequest::getId).collect(Collectors.toList());
+        }
+
+        @Test
+        public void test_that_load_indexes_every_request() {
+                service.onRecommendationRequestChanged(changed(null, request(9, PROF, 0, 30)));
+                RecommendationRequest done = request(2, PROF, 5, 10);
+                done.setDone(true);
+                when(repository.findAll()).thenReturn(List.of(request(1, PROF, 0, 7), done));
+
+                service.afterSingletonsInstantiated();
+
+                assertEquals(List.of(1L), outstanding(PROF, 3, 3, false));
+                assertEquals(List.of(1L, 2L), outstanding(PROF, 6, 8, true));
+        }
+
+        @Test
+        public void test_that_requests_overlapping_the_window_are_returned_by_date_requested() {
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, 0, 7)));
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, 8, 14)));
+                service.onRecommendationRequestChanged(changed(null, request(3, PROF, 3, 20)));
+                service.onRecommendationRequestChanged(changed(null, request(4, PROF, 15, 16)));
+                service.onRecommendationRequestChanged(changed(null, request(5, "other@ucsb.edu", 0, 30)));
+
+                assertEquals(List.of(1L, 3L, 2L), outstanding(PROF, 7, 8, false));
+                assertEquals(List.of(3L, 2L), outstanding(PROF, 10, 10, false));
+                assertEquals(List.of(), outstanding(PROF, 21, 28, false));
+                assertEquals(List.of(), outstanding("nobody@ucsb.edu", 0, 28, false));
+        }
+
+        @Test
+        public void test_that_changes_move_and_remove_requests() {
+                RecommendationRequest r = request(1, PROF, 0, 7);
+                service.onRecommendationRequestChanged(changed(null, r));
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, 20, 25)));
+                RecommendationRequest moved = request(1, "other@ucsb.edu", 10, 12);
+                service.onRecommendationRequestChanged(changed(r, moved));
+
+                assertEquals(List.of(2L), outstanding(PROF, 0, 30, true));
+                assertEquals(List.of(1L), outstanding("other@ucsb.edu", 11, 11, true));
+
+                service.onRecommendationRequestChanged(changed(moved, null));
+                assertEquals(List.of(), outstanding("other@ucsb.edu", 0, 30, true));
+        }
+
+        @Test
+        public void test_that_requests_with_missing_or_reversed_dates_are_left_out() {
+                RecommendationRequest noRequested = request(1, PROF, 0, 7);
+                noRequested.setDateRequested(null);
+                RecommendationRequest noNeeded = request(2, PROF, 0, 7);
+                noNeeded.setDateNeeded(null);
+                service.onRecommendationRequestChanged(changed(null, noRequested));
+                service.onRecommendationRequestChanged(changed(null, noNeeded));
+                service.onRecommendationRequestChanged(changed(null, request(3, null, 0, 7)));
+                service.onRecommendationRequestChanged(changed(null, request(4, PROF, 7, 0)));
+
+                assertEquals(List.of(), outstanding(PROF, 0, 30, true));
+        }
+
+        @Test
+        public void test_that_stored_and_returned_requests_are_copies() {
+                RecommendationRequest r = request(1, PROF, 0, 7);
+                service.onRecommendationRequestChanged(changed(null, r));
+                r.setDone(true);
+                service.getOutstanding(PROF, DAY0, DAY0, false).get(0).setDone(true);
+
+                assertEquals(List.of(1L), outstanding(PROF, 0, 0, false));
+        }
+
+        @Test
+        public void test_that_bulk_done_marks_the_matching_requests_done() {
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, 0, 7)));
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, 0, 20)));
+                service.onRecommendationRequestChanged(changed(null, request(3, "other@ucsb.edu", 0, 7)));
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(PROF, DAY0.plusDays(10), 1));
+                assertEquals(List.of(2L), outstanding(PROF, 5, 5, false));
+                assertEquals(List.of(1L, 2L), outstanding(PROF, 5, 5, true));
+                assertEquals(List.of(3L), outstanding("other@ucsb.edu", 5, 5, false));
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(null, null, 2));
+                assertEquals(List.of(), outstanding(PROF, 5, 5, false));
+                assertEquals(List.of(), outstanding("other@ucsb.edu", 5, 5, false));
+        }
+
+        @Test
+        public void test_that_archived_requests_are_taken_out() {
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, 0, 7)));
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, 0, 20)));
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(PROF, null, 2));
+
+                service.onRecommendationRequestsArchived(new RecommendationRequestsArchivedEvent(List.of(request(1, PROF, 0, 7))));
+
+                assertEquals(List.of(2L), outstanding(PROF, 5, 5, true));
+        }
+}
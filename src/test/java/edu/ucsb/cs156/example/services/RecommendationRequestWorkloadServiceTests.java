@@ -0,0 +1,128 @@
+package edu.ucsb.cs156.example.services;
+
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.changed;
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.recommendationRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.RecommendationRequestsArchivedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsDoneEvent;
+import edu.ucsb.cs156.example.models.ProfessorWorkload;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+public class RecommendationRequestWorkloadServiceTests {
+
+        static final LocalDateTime NOW = LocalDateTime.parse("2023-03-01T12:00:00");
+        static final String PROF = "pconrad@ucsb.edu";
+        static final String OTHER = "other@ucsb.edu";
+
+        RecommendationRequestWorkloadService service = new RecommendationRequestWorkloadService();
+        RecommendationRequestRepository repository = mock(RecommendationRequestRepository.class);
+
+        @BeforeEach
+        public void setup() {
+                service.recommendationRequestRepository = repository;
+                service.clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        }
+
+        private static RecommendationRequest request(long id, String professor, boolean done, Integer neededInDays) {
+                return recommendationRequest(id).professorEmail(professor).done(done)
+                                .dateNeeded(neededInDays == null ? null : NOW.plusDays(neededInDays)).build();
+        }
+
+        @Test
+        public void test_that_load_reads_the_grouped_counts() {
+                service.onRecommendationRequestChanged(changed(null, request(9, "gone@ucsb.edu", false, 1)));
+                when(repository.countByProfessorAndDoneAndDateNeeded()).thenReturn(List.of(
+                                new Object[] { PROF, false, NOW.minusDays(1), 2L },
+                                new Object[] { PROF, false, NOW.plusDays(1), 3L },
+                                new Object[] { PROF, false, null, 1L },
+                                new Object[] { PROF, true, NOW.minusDays(1), 4L },
+                                new Object[] { OTHER, true, null, 7L },
+                                new Object[] { null, false, null, 5L }));
+
+                service.afterSingletonsInstantiated();
+
+                assertEquals(List.of(
+                                new ProfessorWorkload(PROF, 6, 4, 2),
+                                new ProfessorWorkload(OTHER, 0, 7, 0)), service.getWorkloads());
+        }
+
+        @Test
+        public void test_that_workloads_are_sorted_by_open_then_overdue_then_email() {
+                service.onRecommendationRequestChanged(changed(null, request(1, "b@ucsb.edu", false, 1)));
+                service.onRecommendationRequestChanged(changed(null, request(2, "a@ucsb.edu", false, 1)));
+                service.onRecommendationRequestChanged(changed(null, request(3, "c@ucsb.edu", false, -1)));
+                service.onRecommendationRequestChanged(changed(null, request(4, "d@ucsb.edu", false, 1)));
+                service.onRecommendationRequestChanged(changed(null, request(5, "d@ucsb.edu", false, 1)));
+
+                assertEquals(List.of(
+                                new ProfessorWorkload("d@ucsb.edu", 2, 0, 0),
+                                new ProfessorWorkload("c@ucsb.edu", 1, 0, 1),
+                                new ProfessorWorkload("a@ucsb.edu", 1, 0, 0),
+                                new ProfessorWorkload("b@ucsb.edu", 1, 0, 0)), service.getWorkloads());
+        }
+
+        @Test
+        public void test_that_changes_move_requests_between_counts() {
+                RecommendationRequest r = request(1, PROF, false, 1);
+                service.onRecommendationRequestChanged(changed(null, r));
+                RecommendationRequest late = request(1, PROF, false, -1);
+                service.onRecommendationRequestChanged(changed(r, late));
+                assertEquals(List.of(new ProfessorWorkload(PROF, 1, 0, 1)), service.getWorkloads());
+
+                RecommendationRequest done = request(1, PROF, true, -1);
+                service.onRecommendationRequestChanged(changed(late, done));
+                assertEquals(List.of(new ProfessorWorkload(PROF, 0, 1, 0)), service.getWorkloads());
+
+                RecommendationRequest moved = request(1, OTHER, true, -1);
+                service.onRecommendationRequestChanged(changed(done, moved));
+                assertEquals(List.of(new ProfessorWorkload(OTHER, 0, 1, 0)), service.getWorkloads());
+
+                service.onRecommendationRequestChanged(changed(moved, null));
+                service.onRecommendationRequestChanged(changed(null, request(2, null, false, 1)));
+                assertEquals(List.of(), service.getWorkloads());
+        }
+
+        @Test
+        public void test_that_bulk_done_moves_the_matching_open_requests_to_done() {
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, false, 1)));
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, false, 5)));
+                service.onRecommendationRequestChanged(changed(null, request(3, PROF, false, null)));
+                service.onRecommendationRequestChanged(changed(null, request(4, OTHER, false, 1)));
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(PROF, NOW.plusDays(3), 1));
+                assertEquals(List.of(
+                                new ProfessorWorkload(PROF, 2, 1, 0),
+                                new ProfessorWorkload(OTHER, 1, 0, 0)), service.getWorkloads());
+
+                service.onRecommendationRequestsDone(new RecommendationRequestsDoneEvent(null, null, 3));
+                assertEquals(List.of(
+                                new ProfessorWorkload(OTHER, 0, 1, 0),
+                                new ProfessorWorkload(PROF, 0, 3, 0)), service.getWorkloads());
+        }
+
+        @Test
+        public void test_that_archived_requests_are_no_longer_counted() {
+                service.onRecommendationRequestChanged(changed(null, request(1, PROF, true, -1)));
+                service.onRecommendationRequestChanged(changed(null, request(2, PROF, true, -2)));
+                service.onRecommendationRequestChanged(changed(null, request(3, OTHER, true, -1)));
+
+                service.onRecommendationRequestsArchived(new RecommendationRequestsArchivedEvent(List.of(
+                                request(1, PROF, true, -1), request(3, OTHER, true, -1))));
+
+                assertEquals(List.of(new ProfessorWorkload(PROF, 0, 1, 0)), service.getWorkloads());
+        }
+}
@@ -0,0 +1,155 @@
+package edu.ucsb.cs156.example.services;
+
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.helpRequest;
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.recommendationRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.HelpRequestsArchivedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestsArchivedEvent;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.ArchivedRecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+public class RequestArchivalServiceTests {
+
+        static final LocalDateTime NOW = LocalDateTime.parse("2022-01-11T12:00:00");
+        static final LocalDateTime CUTOFF = LocalDateTime.parse("2022-01-01T12:00:00");
+
+        RequestArchivalService service = new RequestArchivalService();
+        HelpRequestRepository helpRequestRepository = mock(HelpRequestRepository.class);
+        ArchivedHelpRequestRepository archivedHelpRequestRepository = mock(ArchivedHelpRequestRepository.class);
+        RecommendationRequestRepository recommendationRequestRepository = mock(RecommendationRequestRepository.class);
+        ArchivedRecommendationRequestRepository archivedRecommendationRequestRepository =
+                        mock(ArchivedRecommendationRequestRepository.class);
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+        @BeforeEach
+        public void setup() {
+                service.helpRequestRepository = helpRequestRepository;
+                service.archivedHelpRequestRepository = archivedHelpRequestRepository;
+                service.recommendationRequestRepository = recommendationRequestRepository;
+                service.archivedRecommendationRequestRepository = archivedRecommendationRequestRepository;
+                service.transactionManager = mock(PlatformTransactionManager.class);
+                service.eventPublisher = eventPublisher;
+                service.enabled = true;
+                service.maxAgeDays = 10;
+                service.batchSize = 2;
+                service.maxBatches = 2;
+                service.clock = Clock.fixed(Instant.parse("2022-01-11T12:00:00Z"), ZoneOffset.UTC);
+        }
+
+        private static HelpRequest solvedHelpRequest(long id) {
+                return helpRequest(id).requestTime(LocalDateTime.parse("2021-12-01T10:00:00"))
+                                .solved(true).solvedAt(LocalDateTime.parse("2021-12-01T10:05:00")).build();
+        }
+
+        private static RecommendationRequest doneRecommendationRequest(long id) {
+                return recommendationRequest(id).dateRequested(LocalDateTime.parse("2021-12-01T10:00:00"))
+                                .done(true).build();
+        }
+
+        @Test
+        public void test_that_archived_copies_keep_every_field() {
+                HelpRequest h = solvedHelpRequest(3).toBuilder()
+                                .claimedBy("ta@ucsb.edu").claimedAt(LocalDateTime.parse("2021-12-01T10:01:00")).build();
+                assertEquals(h, ArchivedHelpRequest.of(h, NOW).toHelpRequest());
+                assertEquals(NOW, ArchivedHelpRequest.of(h, NOW).getArchivedAt());
+
+                RecommendationRequest r = doneRecommendationRequest(4);
+                assertEquals(r, ArchivedRecommendationRequest.of(r, NOW).toRecommendationRequest());
+        }
+
+        @Test
+        public void test_that_help_requests_are_copied_then_deleted_in_batches() {
+                when(helpRequestRepository.findSolvedBefore(CUTOFF, PageRequest.of(0, 2)))
+                                .thenReturn(List.of(solvedHelpRequest(1), solvedHelpRequest(2)), List.of(solvedHelpRequest(3)));
+
+                assertEquals(3, service.archiveHelpRequests());
+
+                InOrder order = inOrder(archivedHelpRequestRepository, helpRequestRepository, eventPublisher);
+                order.verify(archivedHelpRequestRepository)
+                                .saveAll(List.of(ArchivedHelpRequest.of(solvedHelpRequest(1), NOW), ArchivedHelpRequest.of(solvedHelpRequest(2), NOW)));
+                order.verify(helpRequestRepository).deleteByIdIn(List.of(1L, 2L));
+                order.verify(eventPublisher).publishEvent(new HelpRequestsArchivedEvent(List.of(solvedHelpRequest(1), solvedHelpRequest(2))));
+                order.verify(archivedHelpRequestRepository).saveAll(List.of(ArchivedHelpRequest.of(solvedHelpRequest(3), NOW)));
+                order.verify(helpRequestRepository).deleteByIdIn(List.of(3L));
+                order.verify(eventPublisher).publishEvent(new HelpRequestsArchivedEvent(List.of(solvedHelpRequest(3))));
+        }
+
+        @Test
+        public void test_that_recommendation_requests_are_copied_then_deleted_in_batches() {
+                when(recommendationRequestRepository.findDoneBefore(CUTOFF, PageRequest.of(0, 2)))
+                                .thenReturn(List.of(doneRecommendationRequest(1)), List.of());
+
+                assertEquals(1, service.archiveRecommendationRequests());
+
+                verify(archivedRecommendationRequestRepository)
+                                .saveAll(List.of(ArchivedRecommendationRequest.of(doneRecommendationRequest(1), NOW)));
+                verify(recommendationRequestRepository).deleteByIdIn(List.of(1L));
+                verify(eventPublisher).publishEvent(new RecommendationRequestsArchivedEvent(List.of(doneRecommendationRequest(1))));
+                verify(recommendationRequestRepository, times(1)).findDoneBefore(any(), any());
+        }
+
+        @Test
+        public void test_that_a_run_stops_after_max_batches() {
+                when(helpRequestRepository.findSolvedBefore(CUTOFF, PageRequest.of(0, 2)))
+                                .thenReturn(List.of(solvedHelpRequest(1), solvedHelpRequest(2)));
+
+                assertEquals(4, service.archiveHelpRequests());
+
+                verify(helpRequestRepository, times(2)).deleteByIdIn(any());
+        }
+
+        @Test
+        public void test_that_a_run_with_nothing_old_enough_archives_nothing() {
+                when(helpRequestRepository.findSolvedBefore(CUTOFF, PageRequest.of(0, 2))).thenReturn(List.of());
+
+                assertEquals(0, service.archiveHelpRequests());
+
+                verify(archivedHelpRequestRepository, never()).saveAll(any());
+                verify(helpRequestRepository, never()).deleteByIdIn(any());
+                verify(eventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        public void test_that_scheduled_run_respects_enabled() {
+                when(helpRequestRepository.findSolvedBefore(CUTOFF, PageRequest.of(0, 2))).thenReturn(List.of());
+                when(recommendationRequestRepository.findDoneBefore(CUTOFF, PageRequest.of(0, 2))).thenReturn(List.of());
+
+                service.enabled = false;
+                service.scheduledArchival();
+                verify(helpRequestRepository, never()).findSolvedBefore(any(), any());
+
+                service.enabled = true;
+                service.scheduledArchival();
+                verify(helpRequestRepository, times(1)).findSolvedBefore(any(), any());
+                verify(recommendationRequestRepository, times(1)).findDoneBefore(any(), any());
+        }
+}
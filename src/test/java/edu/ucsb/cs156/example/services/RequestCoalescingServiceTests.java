@@ -0,0 +1,163 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RequestCoalescingServiceTests {
+
+  RequestCoalescingService service = new RequestCoalescingService();
+  ExecutorService pool = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  void shutdown() {
+    pool.shutdownNow();
+  }
+
+  // Starts a loader that blocks until released, and waits until it is running
+  private Future<Object> startBlockingCall(String name, Object key, CountDownLatch release, AtomicInteger runs,
+      Object result) throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    Future<Object> f = pool.submit(() -> service.coalesce(name, key, () -> {
+      runs.incrementAndGet();
+      started.countDown();
+      await(release);
+      return result;
+    }));
+    started.await(5, TimeUnit.SECONDS);
+    return f;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Waits until the service has seen the given number of calls, plus a little
+  // time for the last caller to start waiting on the in-flight call
+  private void awaitCalls(String name, long n) throws InterruptedException {
+    for (int i = 0; i < 500 && service.getCalls(name) < n; i++) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(100);
+  }
+
+  @Test
+  void concurrent_calls_for_the_same_key_share_one_execution() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger runs = new AtomicInteger();
+    Object result = new Object();
+
+    Future<Object> first = startBlockingCall("test", 1L, release, runs, result);
+    List<Future<Object>> others = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      others.add(pool.submit(() -> service.coalesce("test", 1L, () -> {
+        runs.incrementAndGet();
+        return new Object();
+      })));
+    }
+    awaitCalls("test", 4);
+    release.countDown();
+
+    assertSame(result, first.get(5, TimeUnit.SECONDS));
+    for (Future<Object> f : others) {
+      assertSame(result, f.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, runs.get());
+    assertEquals(4, service.getCalls("test"));
+    assertEquals(1, service.getExecutions("test"));
+    assertEquals(0.75, service.getCoalescingRatio("test"), 0.0001);
+  }
+
+  @Test
+  void calls_for_different_keys_are_not_coalesced() {
+    assertEquals("a", service.coalesce("test", 1L, () -> "a"));
+    assertEquals("b", service.coalesce("test", 2L, () -> "b"));
+    assertEquals(2, service.getExecutions("test"));
+  }
+
+  @Test
+  void results_are_not_cached_after_the_call_completes() {
+    assertEquals("a", service.coalesce("test", 1L, () -> "a"));
+    assertEquals("b", service.coalesce("test", 1L, () -> "b"));
+    assertEquals(2, service.getExecutions("test"));
+    assertEquals(0.0, service.getCoalescingRatio("test"), 0.0001);
+  }
+
+  @Test
+  void ratio_is_zero_before_any_calls() {
+    assertEquals(0.0, service.getCoalescingRatio("unused"), 0.0001);
+  }
+
+  @Test
+  void runtime_exceptions_are_shared_with_waiting_callers() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> first = pool.submit(() -> service.coalesce("test", 1L, () -> {
+      started.countDown();
+      await(release);
+      throw new IllegalStateException("boom");
+    }));
+    started.await(5, TimeUnit.SECONDS);
+    Future<Object> second = pool.submit(() -> service.coalesce("test", 1L, () -> "not used"));
+    awaitCalls("test", 2);
+    release.countDown();
+
+    Exception e1 = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+    Exception e2 = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+    assertEquals(IllegalStateException.class, e1.getCause().getClass());
+    assertSame(e1.getCause(), e2.getCause());
+  }
+
+  @Test
+  void errors_are_shared_with_waiting_callers() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> first = pool.submit(() -> service.coalesce("test", 1L, () -> {
+      started.countDown();
+      await(release);
+      throw new AssertionError("boom");
+    }));
+    started.await(5, TimeUnit.SECONDS);
+    Future<Object> second = pool.submit(() -> service.coalesce("test", 1L, () -> "not used"));
+    awaitCalls("test", 2);
+    release.countDown();
+
+    Exception e1 = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+    Exception e2 = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+    assertEquals(AssertionError.class, e1.getCause().getClass());
+    assertSame(e1.getCause(), e2.getCause());
+  }
+
+  @Test
+  void metrics_are_registered_for_existing_and_new_names() {
+    service.coalesce("before", 1L, () -> "a");
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    service.bindTo(registry);
+    service.coalesce("after", 1L, () -> "a");
+    service.coalesce("after", 2L, () -> "b");
+
+    assertEquals(1.0, registry.get("coalescing.calls").tag("name", "before").functionCounter().count());
+    assertEquals(2.0, registry.get("coalescing.calls").tag("name", "after").functionCounter().count());
+    assertEquals(2.0, registry.get("coalescing.executions").tag("name", "after").functionCounter().count());
+    assertEquals(0.0, registry.get("coalescing.ratio").tag("name", "after").gauge().value());
+  }
+}
@@ -0,0 +1,151 @@
+package edu.ucsb.cs156.example.services;
+
+import static edu.ucsb.cs156.example.testconfig.EventFixtures.changed;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.UCSBDateChangedEvent;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.testconfig.JvmOnly;
+
+@JvmOnly
+public class UCSBDateCalendarServiceTests {
+
+        UCSBDateCalendarService service = new UCSBDateCalendarService();
+        UCSBDateRepository ucsbDateRepository = mock(UCSBDateRepository.class);
+
+        UCSBDate winterStart = date(1, "20231", "2023-01-09T00:00:00");
+        UCSBDate winterEnd = date(2, "20231", "2023-03-17T00:00:00");
+        UCSBDate springStart = date(3, "20232", "2023-04-03T00:00:00");
+        UCSBDate springUndated = date(4, "20232", null);
+
+        @BeforeEach
+        public void setup() {
+                service.ucsbDateRepository = ucsbDateRepository;
+                at("2023-02-01T00:00:00");
+                when(ucsbDateRepository.findAll()).thenReturn(List.of(
+                                springUndated, winterEnd, springStart, winterStart, date(5, null, "2023-02-01T00:00:00")));
+                service.afterSingletonsInstantiated();
+        }
+
+        private void at(String t) {
+                service.clock = Clock.fixed(LocalDateTime.parse(t).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        }
+
+        private static UCSBDate date(long id, String quarter, String localDateTime) {
+                return UCSBDate.builder().id(id).quarterYYYYQ(quarter).name("date" + id)
+                                .localDateTime(localDateTime == null ? null : LocalDateTime.parse(localDateTime)).build();
+        }
+
+        private static LocalDateTime t(String t) {
+                return LocalDateTime.parse(t);
+        }
+
+        @Test
+        public void test_that_quarters_are_in_date_order_with_undated_dates_last() {
+                assertEquals(List.of(winterStart, winterEnd), service.getQuarter("20231"));
+                assertEquals(List.of(springStart, springUndated), service.getQuarter("20232"));
+                assertEquals(List.of(), service.getQuarter("20224"));
+                assertEquals(List.of(), service.getQuarter(null));
+        }
+
+        @Test
+        public void test_that_the_current_quarter_is_the_last_one_started() {
+                at("2023-01-08T23:59:59");
+                assertNull(service.getCurrentQuarter());
+                at("2023-01-09T00:00:00");
+                assertEquals("20231", service.getCurrentQuarter());
+                at("2023-04-02T23:59:59");
+                assertEquals("20231", service.getCurrentQuarter());
+                at("2023-06-01T00:00:00");
+                assertEquals("20232", service.getCurrentQuarter());
+        }
+
+        @Test
+        public void test_that_of_two_quarters_starting_together_the_later_is_current() {
+                when(ucsbDateRepository.findAll()).thenReturn(List.of(
+                                date(1, "20232", "2023-04-03T00:00:00"), date(2, "20231", "2023-04-03T00:00:00"),
+                                date(3, "20233", null)));
+                service.load();
+
+                at("2023-05-01T00:00:00");
+                assertEquals("20232", service.getCurrentQuarter());
+        }
+
+        @Test
+        public void test_that_ranges_include_from_and_exclude_to() {
+                assertEquals(List.of(winterStart, winterEnd, springStart),
+                                service.getRange(t("2023-01-01T00:00:00"), t("2023-05-01T00:00:00")));
+                assertEquals(List.of(winterEnd),
+                                service.getRange(t("2023-03-17T00:00:00"), t("2023-04-03T00:00:00")));
+                assertEquals(List.of(), service.getRange(t("2023-05-01T00:00:00"), t("2023-06-01T00:00:00")));
+                assertEquals(List.of(), service.getRange(t("2023-05-01T00:00:00"), t("2023-01-01T00:00:00")));
+        }
+
+        @Test
+        public void test_that_changed_quarters_are_read_again() {
+                UCSBDate moved = date(2, "20232", "2023-06-16T00:00:00");
+                when(ucsbDateRepository.findAllByQuarterYYYYQ("20231")).thenReturn(List.of(winterStart));
+                when(ucsbDateRepository.findAllByQuarterYYYYQ("20232")).thenReturn(List.of(springStart, springUndated, moved));
+
+                service.onUCSBDateChanged(changed(winterEnd, moved));
+
+                assertEquals(List.of(winterStart), service.getQuarter("20231"));
+                assertEquals(List.of(springStart, moved, springUndated), service.getQuarter("20232"));
+                assertEquals(List.of(springStart, moved),
+                                service.getRange(t("2023-03-01T00:00:00"), t("2023-07-01T00:00:00")));
+        }
+
+        @Test
+        public void test_that_a_quarter_without_dates_is_dropped() {
+                when(ucsbDateRepository.findAllByQuarterYYYYQ("20232")).thenReturn(List.of());
+
+                service.onUCSBDateChanged(changed(springStart, null));
+
+                assertEquals(List.of(), service.getQuarter("20232"));
+                at("2023-06-01T00:00:00");
+                assertEquals("20231", service.getCurrentQuarter());
+        }
+
+        @Test
+        public void test_that_new_quarters_are_added() {
+                UCSBDate fallStart = date(6, "20234", "2023-09-28T00:00:00");
+                when(ucsbDateRepository.findAllByQuarterYYYYQ("20234")).thenReturn(List.of(fallStart));
+
+                service.onUCSBDateChanged(changed(date(6, null, null), fallStart));
+
+                assertEquals(List.of(fallStart), service.getQuarter("20234"));
+                at("2023-10-01T00:00:00");
+                assertEquals("20234", service.getCurrentQuarter());
+        }
+
+        @Test
+        public void test_that_changes_outside_any_quarter_are_ignored() {
+                service.onUCSBDateChanged(changed(null, date(6, null, "2023-02-01T00:00:00")));
+                service.onUCSBDateChanged(new UCSBDateChangedEvent(null, null));
+
+                verify(ucsbDateRepository, never()).findAllByQuarterYYYYQ(any());
+                assertEquals(List.of(winterStart, winterEnd), service.getQuarter("20231"));
+        }
+
+        @Test
+        public void test_that_stored_dates_are_copies() {
+                winterStart.setName("changed");
+
+                assertEquals("date1", service.getQuarter("20231").get(0).getName());
+        }
+}
@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import java.time.LocalDateTime;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.HelpRequestChangedEvent;
+import edu.ucsb.cs156.example.events.RecommendationRequestChangedEvent;
+import edu.ucsb.cs156.example.events.UCSBDateChangedEvent;
+
+/**
+ * Rows and change events for testing the services that keep in-memory
+ * views up to date from change events.  Each builder starts from a
+ * complete row, so a test only sets the fields it is about.
+ */
+public class EventFixtures {
+
+    public static HelpRequest.HelpRequestBuilder helpRequest(long id) {
+        return HelpRequest.builder().id(id).requesterEmail("student@ucsb.edu").teamId("s22-5pm-3")
+                .tableOrBreakoutRoom("7").requestTime(LocalDateTime.parse("2022-01-03T10:00:00"))
+                .explanation("help").solved(false);
+    }
+
+    public static RecommendationRequest.RecommendationRequestBuilder recommendationRequest(long id) {
+        return RecommendationRequest.builder().id(id).requesterEmail("student@ucsb.edu")
+                .professorEmail("pconrad@ucsb.edu").explanation("grad school")
+                .dateRequested(LocalDateTime.parse("2022-01-03T10:00:00"))
+                .dateNeeded(LocalDateTime.parse("2022-02-01T00:00:00")).done(false);
+    }
+
+    public static HelpRequestChangedEvent changed(HelpRequest before, HelpRequest after) {
+        return new HelpRequestChangedEvent(before, after);
+    }
+
+    public static RecommendationRequestChangedEvent changed(RecommendationRequest before, RecommendationRequest after) {
+        return new RecommendationRequestChangedEvent(before, after);
+    }
+
+    public static UCSBDateChangedEvent changed(UCSBDate before, UCSBDate after) {
+        return new UCSBDateChangedEvent(before, after);
+    }
+}
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.Tag;
+
+/**
+ * Marks a test class that uses Mockito (mock, @MockBean or @SpyBean).
+ * Mockito generates classes at run time, which a native image cannot load,
+ * so the native profile leaves tests tagged jvm-only out of the native
+ * test image.  They still run on the JVM.  JvmOnlyTests fails the build
+ * if a test that uses Mockito is missing this annotation.
+ */
+@Tag(JvmOnly.TAG)
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface JvmOnly {
+  String TAG = "jvm-only";
+}
@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Keeps the native profile working: every test source that uses Mockito
+ * must be tagged jvm-only, either directly or through ControllerTestCase.
+ */
+@JvmOnly
+class JvmOnlyTests {
+
+  @Test
+  void test_mockito_tests_are_tagged_jvm_only() throws IOException {
+    List<Path> untagged;
+    try (Stream<Path> sources = Files.walk(Path.of("src/test/java"))) {
+      untagged = sources.filter(p -> p.toString().endsWith(".java"))
+          .filter(p -> {
+            String source = read(p);
+            return source.contains("mockito") && !source.contains("@JvmOnly")
+                && !source.contains("extends ControllerTestCase");
+          })
+          .collect(Collectors.toList());
+    }
+    assertEquals(List.of(), untagged);
+  }
+
+  private static String read(Path p) {
+    try {
+      return Files.readString(p);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}